@@ -0,0 +1,47 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.api;
+
+import java.util.List;
+
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.result.AnalyzerResult;
+
+/**
+ * Sub-interface of {@link Analyzer} for analyzers that can process a batch of
+ * rows at a time. When records are consumed in batches, the batch method will
+ * be invoked instead of invoking {@link #run(InputRow, int)} for every row.
+ * 
+ * @param <R>
+ *            the result type returned by this analyzer
+ */
+public interface BatchProcessingAnalyzer<R extends AnalyzerResult> extends Analyzer<R> {
+
+    /**
+     * Executes the analyzer for a batch of rows.
+     * 
+     * @param rows
+     *            the rows to analyze
+     * @param distinctCounts
+     *            the distinct count of each row, in the same order as the
+     *            rows (see {@link #run(InputRow, int)})
+     */
+    public void run(List<InputRow> rows, int[] distinctCounts);
+}
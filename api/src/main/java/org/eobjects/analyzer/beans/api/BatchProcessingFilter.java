@@ -0,0 +1,46 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.api;
+
+import java.util.List;
+
+import org.eobjects.analyzer.data.InputRow;
+
+/**
+ * Sub-interface of {@link Filter} for filters that can categorize a batch of
+ * rows at a time. When records are consumed in batches, the batch method will
+ * be invoked instead of invoking {@link #categorize(InputRow)} for every row.
+ * Both methods must produce the same categories.
+ * 
+ * @param <C>
+ *            an enum type with the available categories
+ */
+public interface BatchProcessingFilter<C extends Enum<C>> extends Filter<C> {
+
+	/**
+	 * Categorizes/filters a batch of rows.
+	 * 
+	 * @param inputRows
+	 *            the rows to categorize
+	 * @return an array with the category of each row, in the same order as
+	 *         the rows.
+	 */
+	public C[] categorize(List<InputRow> inputRows);
+}
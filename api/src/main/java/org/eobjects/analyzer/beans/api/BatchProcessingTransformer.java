@@ -0,0 +1,53 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.api;
+
+import java.util.List;
+
+import org.eobjects.analyzer.data.InputRow;
+
+/**
+ * Sub-interface of {@link Transformer} for transformers that can transform a
+ * batch of rows at a time. When records are consumed in batches, the batch
+ * method will be invoked instead of invoking {@link #transform(InputRow)} for
+ * every row, which saves a method invocation and a result array per row.
+ * Otherwise the transformer is used like any other transformer, so both
+ * methods must produce the same values.
+ * 
+ * Batch processing transformers should not inject an
+ * {@link OutputRowCollector}. If they do, they will only be used a row at a
+ * time.
+ * 
+ * @param <E>
+ *            the type of the new/transformed values
+ */
+public interface BatchProcessingTransformer<E> extends Transformer<E> {
+
+	/**
+	 * Transforms a batch of rows.
+	 * 
+	 * @param inputRows
+	 *            the rows to transform
+	 * @return the transformed values in column-major order, ie. an array with
+	 *         an element per output column, each containing the values of that
+	 *         column for all the rows of the batch.
+	 */
+	public E[][] transform(List<InputRow> inputRows);
+}
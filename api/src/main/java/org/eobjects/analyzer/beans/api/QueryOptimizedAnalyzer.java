@@ -0,0 +1,65 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.api;
+
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.result.AnalyzerResult;
+
+/**
+ * An analyzer which can, under certain circumstances, be optimized by using a
+ * "push down" technique, where the datastore aggregates the records before
+ * they are passed to the analyzer.
+ * 
+ * When an analyzer is optimized, it will not receive every record of the
+ * datastore. Instead the datastore is queried for the distinct combinations of
+ * values of the analyzer's input columns, along with their number of
+ * occurrences (ie. SELECT [columns], COUNT(*) ... GROUP BY [columns]). Each
+ * such combination is passed to the {@link #run(InputRow, int)} method, with
+ * the number of occurrences as the distinct count. The analyzer must therefore
+ * compute its result correctly from the distinct count parameter, and not
+ * depend on values other than those of its input columns.
+ * 
+ * Note that rows recorded by optimized analyzers (eg. for drill-down purposes)
+ * will represent all records with a particular combination of values, and only
+ * contain the values of the analyzer's input columns.
+ * 
+ * Query optimization will only be applied when the datastore's performance
+ * characteristics indicate that query optimization is preferred, when all input
+ * columns of the analyzer are physical columns that are known to hold only a
+ * few distinct values (currently boolean columns), and when the analyzer has no
+ * requirements other than those that have already been expressed in the query.
+ * For columns with many distinct values, aggregation would not reduce the
+ * amount of data transferred, so such analyzers are fed every record.
+ * 
+ * @param <R>
+ *            the result type of this analyzer
+ */
+public interface QueryOptimizedAnalyzer<R extends AnalyzerResult> extends Analyzer<R> {
+
+	/**
+	 * Inquires the analyzer if it, given its current configuration, is
+	 * optimizable by the use of an aggregating query. This method will be
+	 * invoked after initialization of the analyzer.
+	 * 
+	 * @return a boolean indicating whether or not the analyzer can be fed with
+	 *         aggregated records.
+	 */
+	public boolean isOptimizable();
+}
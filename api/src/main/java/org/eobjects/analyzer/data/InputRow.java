@@ -34,6 +34,10 @@ import org.eobjects.analyzer.beans.api.Transformer;
  * 
  * <img src="doc-files/AnalyzerBeans-inputrow.png" alt="InputRow contents" />
  * 
+ * Rows handed to components may be recycled by the engine once consumed, see
+ * {@link RecyclableInputRow}. Components that keep references to rows should
+ * therefore retain them using {@link RecyclableInputRow#retain()}.
+ * 
  * @see Transformer
  * @see InputColumn
  */
@@ -0,0 +1,47 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.data;
+
+/**
+ * An {@link InputRow} which may be recycled by the engine, ie. reset and
+ * filled with the values of another record once it has been consumed. This
+ * only happens when row pooling is enabled for row processing.
+ * 
+ * Components that keep a reference to a row beyond the call that handed it to
+ * them (eg. analyzers collecting sample rows, or row annotation factories)
+ * must keep the row returned by {@link #retain()} instead of the row itself.
+ */
+public interface RecyclableInputRow extends InputRow {
+
+    /**
+     * Determines whether this row will be recycled once it has been consumed.
+     * 
+     * @return true if the row is owned by a row pool
+     */
+    public boolean isRecyclable();
+
+    /**
+     * Gets a row that can be safely kept after the row has been consumed.
+     * 
+     * @return a copy of this row if it is recyclable, or otherwise the row
+     *         itself
+     */
+    public InputRow retain();
+}
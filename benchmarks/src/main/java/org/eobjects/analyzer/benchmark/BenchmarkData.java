@@ -0,0 +1,141 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.DatastoreConnection;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MockInputColumn;
+import org.eobjects.analyzer.data.MockInputRow;
+import org.eobjects.analyzer.test.TestHelper;
+
+/**
+ * Creates the synthetic datasets used by the benchmarks. Values are derived
+ * from the sample database of {@link TestHelper}, so that they have realistic
+ * lengths, characters and patterns, and are multiplied (and optionally made
+ * unique) to reach the requested number of rows. The same random seed always
+ * produces the same dataset.
+ */
+public final class BenchmarkData {
+
+    public static final String SEED_TABLE = "CUSTOMERS";
+
+    public static final String[] SEED_COLUMNS = { "CUSTOMERNAME", "CONTACTLASTNAME", "CONTACTFIRSTNAME", "PHONE",
+            "ADDRESSLINE1", "ADDRESSLINE2", "CITY", "POSTALCODE", "COUNTRY" };
+
+    public static final long RANDOM_SEED = 1234L;
+
+    private BenchmarkData() {
+        // prevent instantiation
+    }
+
+    public static Datastore createSeedDatastore() {
+        return TestHelper.createSampleDatabaseDatastore("orderdb");
+    }
+
+    /**
+     * Reads the values of a number of columns of a table in the sample
+     * database.
+     * 
+     * @param tableName
+     * @param columnNames
+     * @return
+     */
+    public static List<Object[]> readSeedValues(String tableName, String... columnNames) {
+        final List<Object[]> result = new ArrayList<Object[]>();
+        try (final DatastoreConnection con = createSeedDatastore().openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            try (final DataSet dataSet = dataContext.query().from(tableName).select(columnNames).execute()) {
+                while (dataSet.next()) {
+                    result.add(dataSet.getRow().getValues());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a number of rows of string values, based on the values of the
+     * {@link #SEED_COLUMNS} of the {@link #SEED_TABLE}.
+     * 
+     * @param rowCount
+     *            the number of rows to create
+     * @param uniqueRatio
+     *            the ratio (between 0 and 1) of non-null values that are made
+     *            unique, which determines the cardinality of the columns
+     * @return
+     */
+    public static Object[][] createValues(int rowCount, double uniqueRatio) {
+        final List<Object[]> seedValues = readSeedValues(SEED_TABLE, SEED_COLUMNS);
+        final Random random = new Random(RANDOM_SEED);
+        final Object[][] result = new Object[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            final Object[] seedRow = seedValues.get(random.nextInt(seedValues.size()));
+            final Object[] row = new Object[seedRow.length];
+            for (int j = 0; j < row.length; j++) {
+                final Object value = seedRow[j];
+                if (value != null && random.nextDouble() < uniqueRatio) {
+                    row[j] = value + " " + i;
+                } else {
+                    row[j] = (value == null ? null : value.toString());
+                }
+            }
+            result[i] = row;
+        }
+        return result;
+    }
+
+    /**
+     * Creates columns named like the {@link #SEED_COLUMNS}.
+     * 
+     * @return
+     */
+    public static InputColumn<String>[] createColumns() {
+        @SuppressWarnings("unchecked")
+        final InputColumn<String>[] columns = new InputColumn[SEED_COLUMNS.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new MockInputColumn<String>(SEED_COLUMNS[i], String.class);
+        }
+        return columns;
+    }
+
+    /**
+     * Creates rows of values, like those created by
+     * {@link #createValues(int, double)}.
+     * 
+     * @param columns
+     * @param values
+     * @return
+     */
+    public static InputRow[] createRows(InputColumn<?>[] columns, Object[][] values) {
+        final InputRow[] rows = new InputRow[values.length];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new MockInputRow(i + 1, columns, values[i]);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eobjects.analyzer.beans.StringAnalyzer;
+import org.eobjects.analyzer.beans.filter.NullCheckFilter;
+import org.eobjects.analyzer.beans.filter.NullCheckFilter.NullCheckCategory;
+import org.eobjects.analyzer.beans.transform.TextCaseTransformer;
+import org.eobjects.analyzer.beans.transform.WhitespaceTrimmerTransformer;
+import org.eobjects.analyzer.beans.valuedist.ValueDistributionAnalyzer;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MutableInputColumn;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.FilterJobBuilder;
+import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
+import org.eobjects.analyzer.job.runner.ConsumeRowHandler;
+import org.eobjects.analyzer.util.SystemProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link ConsumeRowHandler} with a chain of consumers that is
+ * typical for a profiling job: Transformers (whitespace trimming and text
+ * case), a filter (null check) and analyzers (string analysis and value
+ * distribution) depending on the filter outcome. The cost of gathering
+ * component metrics is shown by running with and without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConsumeRowHandlerBenchmark {
+
+    private static final int ROWS = 10000;
+
+    @Param({ "false", "true" })
+    public boolean pooled;
+
+    @Param({ "true", "false" })
+    public boolean componentMetrics;
+
+    private ConsumeRowHandler _consumeRowHandler;
+    private InputRow[] _rows;
+
+    @Setup
+    public void setUp() {
+        // the property is read when the consumers are created
+        System.setProperty(SystemProperties.ROW_PROCESSING_COMPONENT_METRICS, Boolean.toString(componentMetrics));
+
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl();
+        final AnalysisJob job;
+        try (final AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(BenchmarkData.createSeedDatastore());
+            for (String columnName : BenchmarkData.SEED_COLUMNS) {
+                builder.addSourceColumns(BenchmarkData.SEED_TABLE + "." + columnName);
+            }
+
+            final TransformerJobBuilder<WhitespaceTrimmerTransformer> trimmer = builder
+                    .addTransformer(WhitespaceTrimmerTransformer.class);
+            trimmer.addInputColumn(builder.getSourceColumnByName("CUSTOMERNAME"));
+            trimmer.addInputColumn(builder.getSourceColumnByName("CITY"));
+            final List<MutableInputColumn<?>> trimmedColumns = trimmer.getOutputColumns();
+
+            final TransformerJobBuilder<TextCaseTransformer> textCase = builder
+                    .addTransformer(TextCaseTransformer.class);
+            textCase.addInputColumn(trimmedColumns.get(1));
+            textCase.setConfiguredProperty("Mode", TextCaseTransformer.TransformationMode.UPPER_CASE);
+
+            final FilterJobBuilder<NullCheckFilter, NullCheckCategory> nullCheck = builder
+                    .addFilter(NullCheckFilter.class);
+            nullCheck.addInputColumn(builder.getSourceColumnByName("ADDRESSLINE1"));
+
+            builder.addAnalyzer(StringAnalyzer.class).addInputColumns(builder.getAvailableInputColumns(String.class))
+                    .setRequirement(nullCheck.getFilterOutcome(NullCheckCategory.NOT_NULL));
+            builder.addAnalyzer(ValueDistributionAnalyzer.class).addInputColumn(
+                    builder.getSourceColumnByName("COUNTRY"));
+
+            job = builder.toAnalysisJob();
+        }
+
+        _consumeRowHandler = new ConsumeRowHandler(job, configuration, new ConsumeRowHandler.Configuration());
+        System.clearProperty(SystemProperties.ROW_PROCESSING_COMPONENT_METRICS);
+
+        final InputColumn<?>[] columns = new InputColumn[BenchmarkData.SEED_COLUMNS.length];
+        for (int i = 0; i < columns.length; i++) {
+            for (InputColumn<?> sourceColumn : job.getSourceColumns()) {
+                if (sourceColumn.getName().equals(BenchmarkData.SEED_COLUMNS[i])) {
+                    columns[i] = sourceColumn;
+                }
+            }
+        }
+        _rows = BenchmarkData.createRows(columns, BenchmarkData.createValues(ROWS, 0.1));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int consumeRows() {
+        int result = 0;
+        for (InputRow row : _rows) {
+            if (pooled) {
+                result += _consumeRowHandler.consumeRowPooled(row).getRows().size();
+            } else {
+                result += _consumeRowHandler.consumeRow(row).getRows().size();
+            }
+        }
+        return result;
+    }
+}
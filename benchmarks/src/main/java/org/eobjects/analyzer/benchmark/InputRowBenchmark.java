@@ -0,0 +1,123 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.SimpleDataSetHeader;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.MutableColumn;
+import org.eobjects.analyzer.data.ArrayInputRow;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MetaModelInputColumn;
+import org.eobjects.analyzer.data.MetaModelInputRow;
+import org.eobjects.analyzer.data.MockInputColumn;
+import org.eobjects.analyzer.data.RowLayout;
+import org.eobjects.analyzer.data.TransformedInputRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks reading all values of a record which has passed through a number
+ * of transformers, represented as nested {@link TransformedInputRow}s (the
+ * representation used when consumers are invoked without a row layout) and as
+ * an {@link ArrayInputRow}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InputRowBenchmark {
+
+    private static final int TRANSFORMERS = 3;
+
+    private InputColumn<?>[] _columns;
+    private InputRow _transformedInputRow;
+    private InputRow _arrayInputRow;
+
+    @Setup
+    public void setUp() {
+        final Object[] values = BenchmarkData.createValues(1, 0)[0];
+
+        final List<InputColumn<?>> physicalColumns = new ArrayList<InputColumn<?>>();
+        final SelectItem[] selectItems = new SelectItem[BenchmarkData.SEED_COLUMNS.length];
+        for (int i = 0; i < selectItems.length; i++) {
+            final MutableColumn column = new MutableColumn(BenchmarkData.SEED_COLUMNS[i]);
+            selectItems[i] = new SelectItem(column);
+            physicalColumns.add(new MetaModelInputColumn(column));
+        }
+
+        final List<InputColumn<?>> virtualColumns = new ArrayList<InputColumn<?>>();
+        for (int i = 0; i < TRANSFORMERS; i++) {
+            virtualColumns.add(new MockInputColumn<String>("output" + i, String.class));
+        }
+
+        final DefaultRow row = new DefaultRow(new SimpleDataSetHeader(selectItems), values);
+        InputRow transformedInputRow = new MetaModelInputRow(1, row);
+        for (InputColumn<?> virtualColumn : virtualColumns) {
+            final TransformedInputRow nextRow = new TransformedInputRow(transformedInputRow);
+            nextRow.addValue(virtualColumn, "value of " + virtualColumn.getName());
+            transformedInputRow = nextRow;
+        }
+        _transformedInputRow = transformedInputRow;
+
+        final RowLayout rowLayout = new RowLayout(physicalColumns, virtualColumns);
+        final ArrayInputRow arrayInputRow = new ArrayInputRow(rowLayout, 1, row);
+        for (InputColumn<?> virtualColumn : virtualColumns) {
+            arrayInputRow.setValue(rowLayout.getSlot(virtualColumn), "value of " + virtualColumn.getName());
+        }
+        _arrayInputRow = arrayInputRow;
+
+        final List<InputColumn<?>> columns = new ArrayList<InputColumn<?>>(physicalColumns);
+        columns.addAll(virtualColumns);
+        _columns = columns.toArray(new InputColumn[columns.size()]);
+    }
+
+    @Benchmark
+    public void transformedInputRow(Blackhole blackhole) {
+        readValues(_transformedInputRow, blackhole);
+    }
+
+    @Benchmark
+    public void arrayInputRow(Blackhole blackhole) {
+        readValues(_arrayInputRow, blackhole);
+    }
+
+    private void readValues(InputRow row, Blackhole blackhole) {
+        for (InputColumn<?> column : _columns) {
+            blackhole.consume(row.getValue(column));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eobjects.analyzer.beans.stringpattern.DefaultPatternFinder;
+import org.eobjects.analyzer.beans.stringpattern.PatternFinder;
+import org.eobjects.analyzer.beans.stringpattern.TokenizerConfiguration;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.storage.InMemoryRowAnnotationFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the tokenizing and pattern matching of values using a
+ * {@link PatternFinder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PatternFinderBenchmark {
+
+    private static final int ROWS = 10000;
+
+    /**
+     * The index of the seed column to find patterns in, ie. the customer
+     * name, the phone number or the postal code.
+     */
+    @Param({ "0", "3", "7" })
+    public int columnIndex;
+
+    private InputColumn<String>[] _columns;
+    private InputRow[] _rows;
+    private PatternFinder<InputRow> _patternFinder;
+
+    @Setup
+    public void setUp() {
+        _columns = BenchmarkData.createColumns();
+        _rows = BenchmarkData.createRows(_columns, BenchmarkData.createValues(ROWS, 0.1));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        _patternFinder = new DefaultPatternFinder(new TokenizerConfiguration(), new InMemoryRowAnnotationFactory());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int findPatterns() {
+        final InputColumn<String> column = _columns[columnIndex];
+        for (InputRow row : _rows) {
+            _patternFinder.run(row, row.getValue(column), 1);
+        }
+        return _patternFinder.getPatterns().size();
+    }
+}
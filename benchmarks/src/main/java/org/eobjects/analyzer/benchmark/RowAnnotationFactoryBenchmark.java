@@ -0,0 +1,89 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.storage.H2StorageProvider;
+import org.eobjects.analyzer.storage.InMemoryRowAnnotationFactory;
+import org.eobjects.analyzer.storage.RowAnnotation;
+import org.eobjects.analyzer.storage.RowAnnotationFactory;
+import org.eobjects.analyzer.storage.SqlDatabaseRowAnnotationFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the annotation of rows using an {@link InMemoryRowAnnotationFactory}
+ * and a {@link SqlDatabaseRowAnnotationFactory} (backed by an H2 database).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RowAnnotationFactoryBenchmark {
+
+    private static final int ROWS = 10000;
+
+    @Param({ "in-memory", "h2" })
+    public String factory;
+
+    private InputRow[] _rows;
+    private RowAnnotationFactory _rowAnnotationFactory;
+
+    @Setup
+    public void setUp() {
+        final InputColumn<String>[] columns = BenchmarkData.createColumns();
+        _rows = BenchmarkData.createRows(columns, BenchmarkData.createValues(ROWS, 0.1));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        if ("h2".equals(factory)) {
+            _rowAnnotationFactory = new H2StorageProvider().createRowAnnotationFactory();
+        } else {
+            _rowAnnotationFactory = new InMemoryRowAnnotationFactory();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int annotate() {
+        final RowAnnotation annotation = _rowAnnotationFactory.createAnnotation();
+        for (InputRow row : _rows) {
+            _rowAnnotationFactory.annotate(row, 1, annotation);
+        }
+        return annotation.getRowCount();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.eobjects.analyzer.util.sort.SortMergeWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the sorting and writing of values using a {@link SortMergeWriter}
+ * , with a buffer size that is smaller than the number of values so that
+ * values are spilled to (and merged from) temporary files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SortMergeWriterBenchmark {
+
+    private static final int VALUES = 100000;
+
+    @Param({ "10000", "1000000" })
+    public int bufferSize;
+
+    private String[] _values;
+    private File _file;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Object[][] values = BenchmarkData.createValues(VALUES, 0.5);
+        _values = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            // the customer name column
+            _values[i] = (String) values[i][0];
+        }
+        _file = File.createTempFile("sort_merge_writer_benchmark", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() {
+        _file.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int sortAndWrite() {
+        final SortMergeWriter<String, Writer> sortMergeWriter = new SortMergeWriter<String, Writer>(bufferSize,
+                new Comparator<String>() {
+                    @Override
+                    public int compare(String o1, String o2) {
+                        return o1.compareTo(o2);
+                    }
+                }) {
+
+            @Override
+            protected void writeHeader(Writer writer) throws IOException {
+            }
+
+            @Override
+            protected void writeRow(Writer writer, String row, int count) throws IOException {
+                writer.write(row);
+                writer.write('\t');
+                writer.write(Integer.toString(count));
+                writer.write('\n');
+            }
+
+            @Override
+            protected Writer createWriter(File file) {
+                try {
+                    return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        for (String value : _values) {
+            sortMergeWriter.append(value);
+        }
+        return sortMergeWriter.write(_file);
+    }
+}
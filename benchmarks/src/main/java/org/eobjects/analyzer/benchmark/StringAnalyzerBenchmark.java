@@ -0,0 +1,87 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eobjects.analyzer.beans.StringAnalyzer;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link StringAnalyzer} on all the (string) columns of the
+ * synthetic dataset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StringAnalyzerBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private InputColumn<String>[] _columns;
+    private InputRow[] _rows;
+    private StringAnalyzer _stringAnalyzer;
+
+    @Setup
+    public void setUp() {
+        _columns = BenchmarkData.createColumns();
+        _rows = BenchmarkData.createRows(_columns, BenchmarkData.createValues(ROWS, 0.1));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        _stringAnalyzer = new StringAnalyzer(_columns);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object analyze() {
+        for (InputRow row : _rows) {
+            _stringAnalyzer.run(row, 1);
+        }
+        return _stringAnalyzer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object analyzeAndGetResult() {
+        final StringAnalyzer stringAnalyzer = new StringAnalyzer(_columns);
+        for (InputRow row : _rows) {
+            stringAnalyzer.run(row, 1);
+        }
+        return stringAnalyzer.getResult();
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.job.runner.RowConsumerTaskListener;
+import org.eobjects.analyzer.job.tasks.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the dispatching of (almost) empty tasks through a
+ * {@link MultiThreadedTaskRunner}, the way records are dispatched during row
+ * processing. This measures the overhead of the task runner itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TaskRunnerBenchmark {
+
+    private static final int TASKS = 10000;
+
+    @Param({ "1", "4", "16" })
+    public int numThreads;
+
+    private MultiThreadedTaskRunner _taskRunner;
+    private final AtomicLong _counter = new AtomicLong();
+
+    private final Task _task = new Task() {
+        @Override
+        public void execute() throws Exception {
+            _counter.incrementAndGet();
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        _taskRunner = new MultiThreadedTaskRunner(numThreads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        _taskRunner.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TASKS)
+    public long dispatchTasks() {
+        final RowConsumerTaskListener taskListener = new RowConsumerTaskListener(null, null, _taskRunner);
+        for (int i = 0; i < TASKS; i++) {
+            _taskRunner.run(_task, taskListener);
+        }
+        taskListener.awaitTasks(TASKS);
+        return _counter.get();
+    }
+}
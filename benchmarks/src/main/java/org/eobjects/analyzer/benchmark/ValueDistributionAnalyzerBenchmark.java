@@ -0,0 +1,83 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eobjects.analyzer.beans.valuedist.ValueDistributionAnalyzer;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link ValueDistributionAnalyzer} on columns of different
+ * cardinality, with and without recording of drill-down information.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ValueDistributionAnalyzerBenchmark {
+
+    private static final int ROWS = 10000;
+
+    /**
+     * The ratio of unique values in the synthetic dataset.
+     */
+    @Param({ "0.0", "0.5" })
+    public double uniqueRatio;
+
+    @Param({ "false", "true" })
+    public boolean recordDrillDownInformation;
+
+    private InputColumn<String>[] _columns;
+    private InputRow[] _rows;
+
+    @Setup
+    public void setUp() {
+        _columns = BenchmarkData.createColumns();
+        _rows = BenchmarkData.createRows(_columns, BenchmarkData.createValues(ROWS, uniqueRatio));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object analyzeAndGetResult() {
+        // the city column
+        final ValueDistributionAnalyzer analyzer = new ValueDistributionAnalyzer(_columns[6], true, null, null);
+        analyzer.setRecordDrillDownInformation(recordDrillDownInformation);
+        for (InputRow row : _rows) {
+            analyzer.run(row, 1);
+        }
+        return analyzer.getResult();
+    }
+}
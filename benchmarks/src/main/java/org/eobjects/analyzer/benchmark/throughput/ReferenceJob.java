@@ -0,0 +1,220 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.beans.CompletenessAnalyzer;
+import org.eobjects.analyzer.beans.DateAndTimeAnalyzer;
+import org.eobjects.analyzer.beans.NumberAnalyzer;
+import org.eobjects.analyzer.beans.StringAnalyzer;
+import org.eobjects.analyzer.beans.standardize.EmailStandardizerTransformer;
+import org.eobjects.analyzer.beans.standardize.NameStandardizerTransformer;
+import org.eobjects.analyzer.beans.transform.TextCaseTransformer;
+import org.eobjects.analyzer.beans.transform.WhitespaceTrimmerTransformer;
+import org.eobjects.analyzer.beans.uniqueness.UniqueKeyCheckAnalyzer;
+import org.eobjects.analyzer.beans.valuedist.ValueDistributionAnalyzer;
+import org.eobjects.analyzer.beans.writers.InsertIntoTableAnalyzer;
+import org.eobjects.analyzer.connection.UpdateableDatastore;
+import org.eobjects.analyzer.connection.UpdateableDatastoreConnection;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.MetaModelInputColumn;
+import org.eobjects.analyzer.data.MutableInputColumn;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.AnalyzerJobBuilder;
+import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
+
+/**
+ * The catalogue of reference jobs that the {@link ThroughputBenchmark} runs.
+ * Each job represents a typical use of AnalyzerBeans and is built on top of
+ * the synthetic table of a datastore, regardless of the types of the columns.
+ */
+public enum ReferenceJob {
+
+    /**
+     * Profiles all columns: String, number and date analysis depending on the
+     * column types, value distribution of every column and completeness of
+     * the records.
+     */
+    PROFILING {
+        @Override
+        public void configure(AnalysisJobBuilder builder, List<SyntheticColumn> columns,
+                UpdateableDatastore targetDatastore) {
+            final List<InputColumn<?>> stringColumns = builder.getAvailableInputColumns(String.class);
+            if (!stringColumns.isEmpty()) {
+                builder.addAnalyzer(StringAnalyzer.class).addInputColumns(stringColumns);
+            }
+            final List<InputColumn<?>> numberColumns = builder.getAvailableInputColumns(Number.class);
+            if (!numberColumns.isEmpty()) {
+                builder.addAnalyzer(NumberAnalyzer.class).addInputColumns(numberColumns);
+            }
+            final List<InputColumn<?>> dateColumns = builder.getAvailableInputColumns(Date.class);
+            if (!dateColumns.isEmpty()) {
+                builder.addAnalyzer(DateAndTimeAnalyzer.class).addInputColumns(dateColumns);
+            }
+            for (MetaModelInputColumn sourceColumn : builder.getSourceColumns()) {
+                builder.addAnalyzer(ValueDistributionAnalyzer.class).addInputColumn(sourceColumn);
+            }
+            builder.addAnalyzer(CompletenessAnalyzer.class)
+                    .addInputColumns(builder.getSourceColumns())
+                    .setConfiguredProperty("Conditions",
+                            createConditions(builder.getSourceColumns().size()));
+        }
+    },
+
+    /**
+     * Standardizes the string columns: Whitespace trimming and upper casing of
+     * all of them, plus email and name standardization of the columns of those
+     * types. The standardized values are string analyzed.
+     */
+    STANDARDIZATION {
+        @Override
+        public void configure(AnalysisJobBuilder builder, List<SyntheticColumn> columns,
+                UpdateableDatastore targetDatastore) {
+            final List<MetaModelInputColumn> sourceColumns = builder.getSourceColumns();
+            final List<InputColumn<?>> stringColumns = builder.getAvailableInputColumns(String.class);
+            final List<InputColumn<?>> standardizedColumns = new ArrayList<InputColumn<?>>();
+
+            if (!stringColumns.isEmpty()) {
+                final TransformerJobBuilder<WhitespaceTrimmerTransformer> trimmer = builder
+                        .addTransformer(WhitespaceTrimmerTransformer.class);
+                trimmer.addInputColumns(stringColumns);
+                for (MutableInputColumn<?> trimmedColumn : trimmer.getOutputColumns()) {
+                    final TransformerJobBuilder<TextCaseTransformer> textCase = builder
+                            .addTransformer(TextCaseTransformer.class);
+                    textCase.addInputColumn(trimmedColumn);
+                    textCase.setConfiguredProperty("Mode", TextCaseTransformer.TransformationMode.UPPER_CASE);
+                    standardizedColumns.addAll(textCase.getOutputColumns());
+                }
+            }
+
+            for (int i = 0; i < columns.size(); i++) {
+                final MetaModelInputColumn sourceColumn = sourceColumns.get(i);
+                if (sourceColumn.getDataType() != String.class) {
+                    continue;
+                }
+                final TransformerJobBuilder<?> standardizer;
+                switch (columns.get(i).getType()) {
+                case EMAIL:
+                    standardizer = builder.addTransformer(EmailStandardizerTransformer.class);
+                    break;
+                case NAME:
+                    standardizer = builder.addTransformer(NameStandardizerTransformer.class);
+                    break;
+                default:
+                    continue;
+                }
+                standardizer.addInputColumn(sourceColumn);
+                standardizedColumns.addAll(standardizer.getOutputColumns());
+            }
+
+            if (standardizedColumns.isEmpty()) {
+                throw new IllegalStateException("No string columns to standardize");
+            }
+            builder.addAnalyzer(StringAnalyzer.class).addInputColumns(standardizedColumns);
+        }
+    },
+
+    /**
+     * Checks the uniqueness of every column, which sorts (and spills to disk)
+     * all values.
+     */
+    UNIQUENESS {
+        @Override
+        public void configure(AnalysisJobBuilder builder, List<SyntheticColumn> columns,
+                UpdateableDatastore targetDatastore) {
+            for (MetaModelInputColumn sourceColumn : builder.getSourceColumns()) {
+                builder.addAnalyzer(UniqueKeyCheckAnalyzer.class).addInputColumn(sourceColumn);
+            }
+        }
+    },
+
+    /**
+     * Writes all records into the synthetic table of the target datastore.
+     */
+    WRITING {
+        @Override
+        public void configure(AnalysisJobBuilder builder, List<SyntheticColumn> columns,
+                UpdateableDatastore targetDatastore) {
+            if (targetDatastore == null) {
+                throw new IllegalArgumentException("The " + this + " job requires a target datastore");
+            }
+            final Table targetTable;
+            try (final UpdateableDatastoreConnection con = targetDatastore.openConnection()) {
+                targetTable = SyntheticDatastoreGenerator.getTable(con);
+            }
+            final Column[] targetColumns = targetTable.getColumns();
+            final String[] targetColumnNames = new String[targetColumns.length];
+            for (int i = 0; i < targetColumns.length; i++) {
+                targetColumnNames[i] = targetColumns[i].getName();
+            }
+
+            final AnalyzerJobBuilder<InsertIntoTableAnalyzer> insert = builder
+                    .addAnalyzer(InsertIntoTableAnalyzer.class);
+            insert.addInputColumns(builder.getSourceColumns());
+            insert.setConfiguredProperty("Datastore", targetDatastore);
+            insert.setConfiguredProperty("Schema name", targetTable.getSchema().getName());
+            insert.setConfiguredProperty("Table name", targetTable.getName());
+            insert.setConfiguredProperty("Column names", targetColumnNames);
+            insert.setConfiguredProperty("Truncate table", true);
+        }
+
+        @Override
+        public boolean isTargetDatastoreRequired() {
+            return true;
+        }
+    };
+
+    /**
+     * Adds the components of this job to a job builder, which has already
+     * been set up with the synthetic table's columns as source columns.
+     * 
+     * @param builder
+     *            the job builder
+     * @param columns
+     *            the synthetic columns, in the same order as the source
+     *            columns of the job builder
+     * @param targetDatastore
+     *            the datastore to write to, for jobs that require it
+     */
+    public abstract void configure(AnalysisJobBuilder builder, List<SyntheticColumn> columns,
+            UpdateableDatastore targetDatastore);
+
+    /**
+     * Determines if this job writes to a target datastore.
+     * 
+     * @return
+     */
+    public boolean isTargetDatastoreRequired() {
+        return false;
+    }
+
+    private static CompletenessAnalyzer.Condition[] createConditions(int count) {
+        final CompletenessAnalyzer.Condition[] conditions = new CompletenessAnalyzer.Condition[count];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = CompletenessAnalyzer.Condition.NOT_BLANK_OR_NULL;
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the elapsed time, peak heap usage and garbage collection activity
+ * of a stage of a benchmark run. Since the JVM's peak usage counters are
+ * global, only one stage should be measured at a time.
+ */
+final class StageMeasurement {
+
+    private final long _startNanos;
+    private final long _startGcMillis;
+    private final long _startGcCount;
+
+    private long _elapsedNanos = -1;
+    private long _gcMillis;
+    private long _gcCount;
+    private long _peakHeapBytes;
+
+    private StageMeasurement() {
+        // get rid of as much garbage from previous stages as possible, so that
+        // it is not collected (and accounted for) during this stage
+        System.gc();
+        for (MemoryPoolMXBean memoryPool : getHeapMemoryPools()) {
+            memoryPool.resetPeakUsage();
+        }
+        _startGcMillis = getGcMillis(ManagementFactory.getGarbageCollectorMXBeans());
+        _startGcCount = getGcCount(ManagementFactory.getGarbageCollectorMXBeans());
+        _startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring a stage.
+     * 
+     * @return
+     */
+    public static StageMeasurement start() {
+        return new StageMeasurement();
+    }
+
+    /**
+     * Stops measuring the stage.
+     */
+    public void stop() {
+        _elapsedNanos = System.nanoTime() - _startNanos;
+        final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+        _gcMillis = getGcMillis(garbageCollectors) - _startGcMillis;
+        _gcCount = getGcCount(garbageCollectors) - _startGcCount;
+
+        long peakHeapBytes = 0;
+        for (MemoryPoolMXBean memoryPool : getHeapMemoryPools()) {
+            peakHeapBytes += memoryPool.getPeakUsage().getUsed();
+        }
+        _peakHeapBytes = peakHeapBytes;
+    }
+
+    public long getElapsedMillis() {
+        if (_elapsedNanos == -1) {
+            throw new IllegalStateException("Measurement not stopped");
+        }
+        return _elapsedNanos / 1000000;
+    }
+
+    /**
+     * Gets the throughput of the stage, in rows per second.
+     * 
+     * @param rowCount
+     * @return
+     */
+    public double getRowsPerSecond(long rowCount) {
+        if (_elapsedNanos <= 0) {
+            return 0d;
+        }
+        return rowCount * 1000000000d / _elapsedNanos;
+    }
+
+    public long getGcMillis() {
+        return _gcMillis;
+    }
+
+    public long getGcCount() {
+        return _gcCount;
+    }
+
+    /**
+     * Gets the sum of the peak usages of the heap memory pools during the
+     * stage. Since pools peak at different times, this is an upper bound of
+     * the actual peak heap usage.
+     * 
+     * @return
+     */
+    public long getPeakHeapBytes() {
+        return _peakHeapBytes;
+    }
+
+    private static List<MemoryPoolMXBean> getHeapMemoryPools() {
+        final List<MemoryPoolMXBean> result = new ArrayList<MemoryPoolMXBean>();
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                result.add(memoryPool);
+            }
+        }
+        return result;
+    }
+
+    private static long getGcMillis(List<GarbageCollectorMXBean> garbageCollectors) {
+        long result = 0;
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            result += Math.max(0, garbageCollector.getCollectionTime());
+        }
+        return result;
+    }
+
+    private static long getGcCount(List<GarbageCollectorMXBean> garbageCollectors) {
+        long result = 0;
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            result += Math.max(0, garbageCollector.getCollectionCount());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.util.Locale;
+
+/**
+ * The result of a single stage of a {@link ThroughputBenchmark}, eg. the
+ * generation of a datastore or a run of a reference job. Results are written
+ * as CSV lines or JSON objects (one per line), to be consumed by other tools.
+ */
+final class StageResult {
+
+    public static final String CSV_HEADER = "stage,datastore,job,runner,iteration,warmup,status,rows,elapsed_millis,"
+            + "rows_per_second,peak_heap_bytes,gc_millis,gc_count";
+
+    private final String _stage;
+    private final String _datastore;
+    private final String _job;
+    private final String _runner;
+    private final int _iteration;
+    private final boolean _warmup;
+    private final String _status;
+    private final long _rows;
+    private final long _elapsedMillis;
+    private final double _rowsPerSecond;
+    private final long _peakHeapBytes;
+    private final long _gcMillis;
+    private final long _gcCount;
+
+    public StageResult(String stage, String datastore, String job, String runner, int iteration, boolean warmup,
+            String status, long rows, StageMeasurement measurement) {
+        _stage = stage;
+        _datastore = datastore;
+        _job = job;
+        _runner = runner;
+        _iteration = iteration;
+        _warmup = warmup;
+        _status = status;
+        _rows = rows;
+        if (measurement == null) {
+            _elapsedMillis = 0;
+            _rowsPerSecond = 0;
+            _peakHeapBytes = 0;
+            _gcMillis = 0;
+            _gcCount = 0;
+        } else {
+            _elapsedMillis = measurement.getElapsedMillis();
+            _rowsPerSecond = measurement.getRowsPerSecond(rows);
+            _peakHeapBytes = measurement.getPeakHeapBytes();
+            _gcMillis = measurement.getGcMillis();
+            _gcCount = measurement.getGcCount();
+        }
+    }
+
+    public String toCsv() {
+        return _stage + ',' + nullToEmpty(_datastore) + ',' + nullToEmpty(_job) + ',' + nullToEmpty(_runner) + ','
+                + _iteration + ',' + _warmup + ',' + _status + ',' + _rows + ',' + _elapsedMillis + ','
+                + formatRowsPerSecond() + ',' + _peakHeapBytes + ',' + _gcMillis + ',' + _gcCount;
+    }
+
+    public String toJson() {
+        return "{\"stage\":" + quote(_stage) + ",\"datastore\":" + quote(_datastore) + ",\"job\":" + quote(_job)
+                + ",\"runner\":" + quote(_runner) + ",\"iteration\":" + _iteration + ",\"warmup\":" + _warmup
+                + ",\"status\":" + quote(_status) + ",\"rows\":" + _rows + ",\"elapsed_millis\":" + _elapsedMillis
+                + ",\"rows_per_second\":" + formatRowsPerSecond() + ",\"peak_heap_bytes\":" + _peakHeapBytes
+                + ",\"gc_millis\":" + _gcMillis + ",\"gc_count\":" + _gcCount + "}";
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    private String formatRowsPerSecond() {
+        return String.format(Locale.US, "%.1f", _rowsPerSecond);
+    }
+
+    private static String nullToEmpty(String str) {
+        return str == null ? "" : str;
+    }
+
+    private static String quote(String str) {
+        if (str == null) {
+            return "null";
+        }
+        return '"' + str.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
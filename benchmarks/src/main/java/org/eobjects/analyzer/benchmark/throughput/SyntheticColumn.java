@@ -0,0 +1,133 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Describes a column of a synthetic datastore: Its name, type, cardinality and
+ * ratio of null values.
+ * 
+ * Columns can be parsed from specifications on the form
+ * <code>name:TYPE[:cardinality[:nullRatio]]</code>, for instance
+ * <code>city:STRING:500:0.02</code>. A cardinality of 0 means that all
+ * (non-null) values are unique.
+ */
+public final class SyntheticColumn {
+
+    private final String _name;
+    private final SyntheticColumnType _type;
+    private final int _cardinality;
+    private final double _nullRatio;
+
+    public SyntheticColumn(String name, SyntheticColumnType type, int cardinality, double nullRatio) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Column name cannot be empty");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Column type cannot be null");
+        }
+        if (cardinality < 0) {
+            throw new IllegalArgumentException("Cardinality cannot be negative: " + cardinality);
+        }
+        if (nullRatio < 0 || nullRatio > 1) {
+            throw new IllegalArgumentException("Null ratio must be between 0 and 1: " + nullRatio);
+        }
+        _name = name;
+        _type = type;
+        _cardinality = cardinality;
+        _nullRatio = nullRatio;
+    }
+
+    /**
+     * Parses a single column specification.
+     * 
+     * @param spec
+     * @return
+     */
+    public static SyntheticColumn parse(String spec) {
+        final String[] tokens = spec.trim().split(":");
+        if (tokens.length < 2 || tokens.length > 4) {
+            throw new IllegalArgumentException("Illegal column specification: '" + spec
+                    + "', expected name:TYPE[:cardinality[:nullRatio]]");
+        }
+        final SyntheticColumnType type = SyntheticColumnType.valueOf(tokens[1].trim().toUpperCase());
+        final int cardinality = (tokens.length > 2 ? Integer.parseInt(tokens[2].trim()) : 0);
+        final double nullRatio = (tokens.length > 3 ? Double.parseDouble(tokens[3].trim()) : 0d);
+        return new SyntheticColumn(tokens[0].trim(), type, cardinality, nullRatio);
+    }
+
+    /**
+     * Parses a comma separated list of column specifications.
+     * 
+     * @param specs
+     * @return
+     */
+    public static List<SyntheticColumn> parseList(String specs) {
+        final List<SyntheticColumn> result = new ArrayList<SyntheticColumn>();
+        for (String spec : specs.split(",")) {
+            if (!spec.trim().isEmpty()) {
+                result.add(parse(spec));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the value of this column for a particular row.
+     * 
+     * @param random
+     *            the random number generator of the dataset
+     * @param rowNumber
+     *            the row number, used to create unique values when the
+     *            cardinality is 0
+     * @return
+     */
+    public Object createValue(Random random, int rowNumber) {
+        if (_nullRatio > 0 && random.nextDouble() < _nullRatio) {
+            return null;
+        }
+        final int index = (_cardinality == 0 ? rowNumber : random.nextInt(_cardinality));
+        return _type.createValue(index);
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    public SyntheticColumnType getType() {
+        return _type;
+    }
+
+    public int getCardinality() {
+        return _cardinality;
+    }
+
+    public double getNullRatio() {
+        return _nullRatio;
+    }
+
+    @Override
+    public String toString() {
+        return _name + ":" + _type + ":" + _cardinality + ":" + _nullRatio;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.util.Date;
+
+import org.apache.metamodel.schema.ColumnType;
+
+/**
+ * The types of columns that the {@link SyntheticDatastoreGenerator} can
+ * generate values for. Each type maps a value index (which is drawn according
+ * to the cardinality of the column) to a value.
+ */
+public enum SyntheticColumnType {
+
+    STRING(ColumnType.VARCHAR) {
+        @Override
+        public Object createValue(int index) {
+            // every tenth value has surrounding whitespace and mixed case, to
+            // give standardization jobs something to do
+            if (index % 10 == 0) {
+                return "  Value " + index + " ";
+            }
+            return "value " + index;
+        }
+    },
+
+    NAME(ColumnType.VARCHAR) {
+        @Override
+        public Object createValue(int index) {
+            final int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+            final String firstName = FIRST_NAMES[index % FIRST_NAMES.length];
+            final String lastName = LAST_NAMES[(index % combinations) / FIRST_NAMES.length];
+            final String suffix = (index < combinations ? "" : " " + (index / combinations));
+            if (index % 2 == 0) {
+                return lastName + suffix + ", " + firstName;
+            }
+            return firstName + " " + lastName + suffix;
+        }
+    },
+
+    EMAIL(ColumnType.VARCHAR) {
+        @Override
+        public Object createValue(int index) {
+            return "user" + index + "@domain" + (index % 100) + ".com";
+        }
+    },
+
+    INTEGER(ColumnType.INTEGER) {
+        @Override
+        public Object createValue(int index) {
+            return index;
+        }
+    },
+
+    DECIMAL(ColumnType.DOUBLE) {
+        @Override
+        public Object createValue(int index) {
+            return index / 100d;
+        }
+    },
+
+    DATE(ColumnType.TIMESTAMP) {
+        @Override
+        public Object createValue(int index) {
+            return new Date(BASE_DATE + index * MILLIS_PER_DAY);
+        }
+    };
+
+    private static final String[] FIRST_NAMES = { "Kasper", "Tomasz", "Jane", "John", "Maria", "Ankit", "Sofie",
+            "Lars", "Henrik", "Manuel", "Ida", "Claudia", "Peter", "Anna", "Jakob", "Louise" };
+
+    private static final String[] LAST_NAMES = { "Sorensen", "Nowak", "Doe", "Smith", "Garcia", "Kumar", "Jensen",
+            "Petersen", "Hansen", "Martinez", "Larsen", "Schmidt", "Olsen", "Novak", "Nielsen", "Andersen" };
+
+    private static final long BASE_DATE = 946684800000L; // 2000-01-01
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private final ColumnType _columnType;
+
+    private SyntheticColumnType(ColumnType columnType) {
+        _columnType = columnType;
+    }
+
+    /**
+     * Gets the type of the physical column to create for this type of
+     * synthetic column.
+     * 
+     * @return
+     */
+    public ColumnType getColumnType() {
+        return _columnType;
+    }
+
+    /**
+     * Creates the value with a particular index. Equal indexes always produce
+     * equal values, and different indexes always produce different values.
+     * 
+     * @param index
+     * @return
+     */
+    public abstract Object createValue(int index);
+}
@@ -0,0 +1,203 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.UpdateCallback;
+import org.apache.metamodel.UpdateScript;
+import org.apache.metamodel.UpdateableDataContext;
+import org.apache.metamodel.create.TableCreationBuilder;
+import org.apache.metamodel.insert.RowInsertionBuilder;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Schema;
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.connection.CsvDatastore;
+import org.eobjects.analyzer.connection.DatastoreConnection;
+import org.eobjects.analyzer.connection.JdbcDatastore;
+import org.eobjects.analyzer.connection.UpdateableDatastore;
+import org.eobjects.analyzer.connection.UpdateableDatastoreConnection;
+
+/**
+ * Generates synthetic datastores (CSV files or H2 databases) with a single
+ * table, consisting of a number of {@link SyntheticColumn}s. The same columns,
+ * row count and random seed always produce the same dataset.
+ */
+public final class SyntheticDatastoreGenerator {
+
+    public static final String TABLE_NAME = "SYNTHETIC_DATA";
+
+    private static final int ROWS_PER_UPDATE = 10000;
+
+    private final List<SyntheticColumn> _columns;
+    private final long _seed;
+
+    public SyntheticDatastoreGenerator(List<SyntheticColumn> columns, long seed) {
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        _columns = columns;
+        _seed = seed;
+    }
+
+    /**
+     * Creates an (empty) CSV datastore in a directory.
+     * 
+     * @param name
+     * @param directory
+     * @return
+     */
+    public static CsvDatastore createCsvDatastore(String name, File directory) {
+        final File file = new File(directory, name + ".csv");
+        if (file.exists() && !file.delete()) {
+            throw new IllegalStateException("Could not delete existing file: " + file);
+        }
+        return new CsvDatastore(name, file.getAbsolutePath());
+    }
+
+    /**
+     * Creates an (empty) H2 database datastore in a directory.
+     * 
+     * @param name
+     * @param directory
+     * @return
+     */
+    public static JdbcDatastore createH2Datastore(String name, File directory) {
+        final File file = new File(directory, name);
+        final File[] existingFiles = directory.listFiles();
+        if (existingFiles != null) {
+            for (File existingFile : existingFiles) {
+                if (existingFile.getName().startsWith(name + ".") && !existingFile.delete()) {
+                    throw new IllegalStateException("Could not delete existing file: " + existingFile);
+                }
+            }
+        }
+        return new JdbcDatastore(name, "jdbc:h2:" + file.getAbsolutePath(), "org.h2.Driver", "SA", "", true);
+    }
+
+    /**
+     * Gets the synthetic table of a datastore, created by
+     * {@link #createTable(UpdateableDatastore)}. Since some datastores (eg.
+     * CSV files) name their table themselves, the first table of the default
+     * schema is returned if no table is named {@link #TABLE_NAME}.
+     * 
+     * @param connection
+     * @return
+     */
+    public static Table getTable(DatastoreConnection connection) {
+        final DataContext dataContext = connection.getDataContext();
+        dataContext.refreshSchemas();
+        final Schema schema = dataContext.getDefaultSchema();
+        final Table table = schema.getTableByName(TABLE_NAME);
+        if (table != null) {
+            return table;
+        }
+        if (schema.getTableCount() == 0) {
+            throw new IllegalStateException("No synthetic table found in schema: " + schema.getName());
+        }
+        return schema.getTable(0);
+    }
+
+    /**
+     * Creates the synthetic table in a datastore, and fills it with a number
+     * of rows.
+     * 
+     * @param datastore
+     * @param rowCount
+     */
+    public void generate(UpdateableDatastore datastore, int rowCount) {
+        createTable(datastore);
+        insertRows(datastore, rowCount);
+    }
+
+    /**
+     * Creates the (empty) synthetic table in a datastore.
+     * 
+     * @param datastore
+     */
+    public void createTable(UpdateableDatastore datastore) {
+        try (final UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final UpdateableDataContext dataContext = con.getUpdateableDataContext();
+            dataContext.executeUpdate(new UpdateScript() {
+                @Override
+                public void run(UpdateCallback callback) {
+                    final Schema schema = callback.getDataContext().getDefaultSchema();
+                    final Table existingTable = schema.getTableByName(TABLE_NAME);
+                    if (existingTable != null) {
+                        callback.dropTable(existingTable).execute();
+                    }
+                    TableCreationBuilder tableCreation = callback.createTable(schema, TABLE_NAME);
+                    for (SyntheticColumn column : _columns) {
+                        tableCreation = tableCreation.withColumn(column.getName()).ofType(
+                                column.getType().getColumnType());
+                    }
+                    tableCreation.execute();
+                }
+            });
+        }
+    }
+
+    /**
+     * Inserts a number of rows into the synthetic table of a datastore.
+     * 
+     * @param datastore
+     * @param rowCount
+     */
+    public void insertRows(UpdateableDatastore datastore, final int rowCount) {
+        final Random random = new Random(_seed);
+        try (final UpdateableDatastoreConnection con = datastore.openConnection()) {
+            final UpdateableDataContext dataContext = con.getUpdateableDataContext();
+            final Column[] physicalColumns = getTable(con).getColumns();
+            if (physicalColumns.length != _columns.size()) {
+                throw new IllegalStateException("Expected " + _columns.size() + " columns in synthetic table, found "
+                        + physicalColumns.length);
+            }
+
+            for (int offset = 0; offset < rowCount; offset += ROWS_PER_UPDATE) {
+                final int firstRow = offset;
+                final int lastRow = Math.min(rowCount, offset + ROWS_PER_UPDATE);
+                dataContext.executeUpdate(new UpdateScript() {
+                    @Override
+                    public void run(UpdateCallback callback) {
+                        final Table table = physicalColumns[0].getTable();
+                        for (int rowNumber = firstRow; rowNumber < lastRow; rowNumber++) {
+                            final RowInsertionBuilder insert = callback.insertInto(table);
+                            for (int i = 0; i < physicalColumns.length; i++) {
+                                insert.value(physicalColumns[i], _columns.get(i).createValue(random, rowNumber));
+                            }
+                            insert.execute();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    public List<SyntheticColumn> getColumns() {
+        return _columns;
+    }
+
+    public long getSeed() {
+        return _seed;
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.benchmark.throughput.ThroughputBenchmarkArguments.DatastoreType;
+import org.eobjects.analyzer.benchmark.throughput.ThroughputBenchmarkArguments.OutputFormat;
+import org.eobjects.analyzer.benchmark.throughput.ThroughputBenchmarkArguments.RunnerType;
+import org.eobjects.analyzer.cluster.DistributedAnalysisRunner;
+import org.eobjects.analyzer.cluster.virtual.VirtualClusterManager;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.DatastoreCatalogImpl;
+import org.eobjects.analyzer.connection.UpdateableDatastore;
+import org.eobjects.analyzer.descriptors.SimpleDescriptorProvider;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.job.runner.AnalysisResultFuture;
+import org.eobjects.analyzer.job.runner.AnalysisRunner;
+import org.eobjects.analyzer.job.runner.AnalysisRunnerImpl;
+import org.kohsuke.args4j.CmdLineException;
+
+/**
+ * End-to-end throughput benchmark of AnalyzerBeans. Generates synthetic
+ * datastores and runs the {@link ReferenceJob}s on them, using the local
+ * {@link AnalysisRunnerImpl} and/or a {@link DistributedAnalysisRunner} with
+ * virtual nodes. For every stage (generation of a datastore or run of a job)
+ * the throughput in rows per second, the peak heap usage and the garbage
+ * collection time is written as a CSV or JSON line.
+ * 
+ * Run without arguments for the default set-up, or with <code>-usage</code>
+ * to list the options.
+ */
+public final class ThroughputBenchmark {
+
+    private static final String STAGE_GENERATE = "generate";
+    private static final String STAGE_RUN = "run";
+    private static final String STATUS_NOT_DISTRIBUTABLE = "NOT_DISTRIBUTABLE";
+    private static final String TARGET_DATASTORE_NAME = "target";
+
+    private final ThroughputBenchmarkArguments _arguments;
+    private final PrintWriter _out;
+    private boolean _failed;
+
+    public ThroughputBenchmark(ThroughputBenchmarkArguments arguments, PrintWriter out) {
+        _arguments = arguments;
+        _out = out;
+        _failed = false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        final ThroughputBenchmarkArguments arguments;
+        try {
+            arguments = ThroughputBenchmarkArguments.parse(args);
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+            return;
+        }
+
+        if (arguments.isUsageMode()) {
+            printUsage();
+            return;
+        }
+
+        final File outputFile = arguments.getOutputFile();
+        final PrintWriter out;
+        if (outputFile == null) {
+            out = new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"));
+        } else {
+            out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8"));
+        }
+
+        final boolean successful;
+        try {
+            successful = new ThroughputBenchmark(arguments, out).run();
+        } finally {
+            out.flush();
+            if (outputFile != null) {
+                out.close();
+            }
+        }
+
+        if (!successful) {
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        final PrintWriter out = new PrintWriter(System.out);
+        ThroughputBenchmarkArguments.printUsage(out);
+        out.flush();
+    }
+
+    /**
+     * Runs the benchmark
+     * 
+     * @return whether or not all jobs ran successfully
+     */
+    public boolean run() {
+        final File directory = _arguments.getDirectory();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalStateException("Could not create directory: " + directory);
+        }
+
+        final List<SyntheticColumn> columns = _arguments.getColumns();
+        final SyntheticDatastoreGenerator generator = new SyntheticDatastoreGenerator(columns, _arguments.getSeed());
+        final int rowCount = _arguments.getRowCount();
+
+        if (_arguments.getOutputFormat() == OutputFormat.CSV) {
+            _out.println(StageResult.CSV_HEADER);
+        }
+
+        final List<Datastore> datastores = new ArrayList<Datastore>();
+        for (DatastoreType datastoreType : _arguments.getDatastoreTypes()) {
+            final String name = "synthetic_" + datastoreType.name().toLowerCase();
+            final UpdateableDatastore datastore;
+            switch (datastoreType) {
+            case CSV:
+                datastore = SyntheticDatastoreGenerator.createCsvDatastore(name, directory);
+                break;
+            case H2:
+                datastore = SyntheticDatastoreGenerator.createH2Datastore(name, directory);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported datastore type: " + datastoreType);
+            }
+
+            final StageMeasurement measurement = StageMeasurement.start();
+            generator.generate(datastore, rowCount);
+            measurement.stop();
+            emit(new StageResult(STAGE_GENERATE, name, null, null, 0, false, "SUCCESSFUL", rowCount, measurement));
+
+            datastores.add(datastore);
+        }
+
+        final UpdateableDatastore targetDatastore = SyntheticDatastoreGenerator.createH2Datastore(
+                TARGET_DATASTORE_NAME, directory);
+        generator.createTable(targetDatastore);
+        datastores.add(targetDatastore);
+
+        final MultiThreadedTaskRunner taskRunner = new MultiThreadedTaskRunner(_arguments.getThreadCount());
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl().replace(taskRunner)
+                .replace(new DatastoreCatalogImpl(datastores)).replace(new SimpleDescriptorProvider(true));
+
+        try {
+            for (Datastore datastore : datastores) {
+                if (datastore == targetDatastore) {
+                    continue;
+                }
+                for (ReferenceJob referenceJob : _arguments.getJobs()) {
+                    final AnalysisJob job = createJob(configuration, datastore, referenceJob, columns, targetDatastore);
+                    for (RunnerType runnerType : _arguments.getRunnerTypes()) {
+                        runJob(configuration, datastore, referenceJob, runnerType, job, rowCount);
+                    }
+                }
+            }
+        } finally {
+            taskRunner.shutdown();
+        }
+
+        return !_failed;
+    }
+
+    private AnalysisJob createJob(AnalyzerBeansConfiguration configuration, Datastore datastore,
+            ReferenceJob referenceJob, List<SyntheticColumn> columns, UpdateableDatastore targetDatastore) {
+        try (final AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            final Table table = SyntheticDatastoreGenerator.getTable(builder.getDatastoreConnection());
+            builder.addSourceColumns(table.getColumns());
+            referenceJob.configure(builder, columns, targetDatastore);
+            return builder.toAnalysisJob();
+        }
+    }
+
+    private void runJob(AnalyzerBeansConfiguration configuration, Datastore datastore, ReferenceJob referenceJob,
+            RunnerType runnerType, AnalysisJob job, int rowCount) {
+        final AnalysisRunner runner;
+        switch (runnerType) {
+        case LOCAL:
+            runner = new AnalysisRunnerImpl(configuration);
+            break;
+        case DISTRIBUTED:
+            final DistributedAnalysisRunner distributedRunner = new DistributedAnalysisRunner(configuration,
+                    new VirtualClusterManager(configuration, _arguments.getNodeCount()));
+            if (!distributedRunner.isDistributable(job)) {
+                emit(new StageResult(STAGE_RUN, datastore.getName(), referenceJob.name(), runnerType.name(), 0,
+                        false, STATUS_NOT_DISTRIBUTABLE, rowCount, null));
+                return;
+            }
+            runner = distributedRunner;
+            break;
+        default:
+            throw new UnsupportedOperationException("Unsupported runner type: " + runnerType);
+        }
+
+        final int warmups = _arguments.getWarmupCount();
+        final int runs = warmups + _arguments.getIterationCount();
+        for (int i = 0; i < runs; i++) {
+            final boolean warmup = i < warmups;
+            final int iteration = (warmup ? i + 1 : i - warmups + 1);
+
+            final StageMeasurement measurement = StageMeasurement.start();
+            final AnalysisResultFuture resultFuture = runner.run(job);
+            resultFuture.await();
+            measurement.stop();
+
+            if (!resultFuture.isSuccessful()) {
+                _failed = true;
+                for (Throwable error : resultFuture.getErrors()) {
+                    System.err.println("Error running " + referenceJob + " job on " + datastore.getName() + ": "
+                            + error);
+                }
+            }
+
+            emit(new StageResult(STAGE_RUN, datastore.getName(), referenceJob.name(), runnerType.name(), iteration,
+                    warmup, resultFuture.getStatus().name(), rowCount, measurement));
+        }
+    }
+
+    private void emit(StageResult result) {
+        if (_arguments.getOutputFormat() == OutputFormat.CSV) {
+            _out.println(result.toCsv());
+        } else {
+            _out.println(result.toJson());
+        }
+        _out.flush();
+    }
+}
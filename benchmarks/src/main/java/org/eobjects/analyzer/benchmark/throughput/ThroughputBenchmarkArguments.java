@@ -0,0 +1,200 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.benchmark.throughput;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.metamodel.util.FileHelper;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+/**
+ * Defines the command-line arguments of the {@link ThroughputBenchmark}.
+ */
+public class ThroughputBenchmarkArguments {
+
+    public static final String DEFAULT_COLUMNS = "id:INTEGER:0:0,name:NAME:5000:0.05,email:EMAIL:0:0.1,"
+            + "city:STRING:500:0.02,amount:DECIMAL:100000:0.01,created:DATE:3650:0";
+
+    /**
+     * The types of datastores that can be generated
+     */
+    public static enum DatastoreType {
+        CSV, H2
+    }
+
+    /**
+     * The types of runners that jobs can be run with
+     */
+    public static enum RunnerType {
+        LOCAL, DISTRIBUTED
+    }
+
+    /**
+     * The formats that results can be written in
+     */
+    public static enum OutputFormat {
+        CSV, JSON
+    }
+
+    /**
+     * Parses the command-line arguments
+     * 
+     * @param args
+     * @return
+     * @throws CmdLineException
+     *             if the arguments are invalid
+     */
+    public static ThroughputBenchmarkArguments parse(String[] args) throws CmdLineException {
+        final ThroughputBenchmarkArguments arguments = new ThroughputBenchmarkArguments();
+        final CmdLineParser parser = new CmdLineParser(arguments);
+        parser.parseArgument(args);
+        return arguments;
+    }
+
+    /**
+     * Prints the usage information of the benchmark
+     * 
+     * @param out
+     */
+    public static void printUsage(PrintWriter out) {
+        final ThroughputBenchmarkArguments arguments = new ThroughputBenchmarkArguments();
+        final CmdLineParser parser = new CmdLineParser(arguments);
+        parser.setUsageWidth(120);
+        parser.printUsage(out, null);
+    }
+
+    @Option(name = "-rows", metaVar = "COUNT", usage = "Number of rows in the generated datastores")
+    private int rowCount = 100000;
+
+    @Option(name = "-columns", metaVar = "SPECS", usage = "Comma separated columns of the generated datastores, "
+            + "each on the form name:TYPE[:cardinality[:nullRatio]], with TYPE being STRING, NAME, EMAIL, INTEGER, "
+            + "DECIMAL or DATE, and a cardinality of 0 meaning unique values")
+    private String columns = DEFAULT_COLUMNS;
+
+    @Option(name = "-datastores", metaVar = "TYPES", usage = "Comma separated types of datastores to generate (CSV, H2)")
+    private String datastoreTypes = "CSV,H2";
+
+    @Option(name = "-jobs", metaVar = "JOBS", usage = "Comma separated reference jobs to run (PROFILING, "
+            + "STANDARDIZATION, UNIQUENESS, WRITING)")
+    private String jobs = "PROFILING,STANDARDIZATION,UNIQUENESS,WRITING";
+
+    @Option(name = "-runners", metaVar = "TYPES", usage = "Comma separated runners to run jobs with (LOCAL, DISTRIBUTED)")
+    private String runnerTypes = "LOCAL,DISTRIBUTED";
+
+    @Option(name = "-nodes", metaVar = "COUNT", usage = "Number of virtual nodes of the distributed runner")
+    private int nodeCount = 4;
+
+    @Option(name = "-threads", metaVar = "COUNT", usage = "Number of threads of the task runner")
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    @Option(name = "-warmups", metaVar = "COUNT", usage = "Number of warmup runs of each job, not to be measured")
+    private int warmupCount = 1;
+
+    @Option(name = "-iterations", metaVar = "COUNT", usage = "Number of measured runs of each job")
+    private int iterationCount = 3;
+
+    @Option(name = "-seed", metaVar = "SEED", usage = "Random seed of the generated datastores")
+    private long seed = 1234L;
+
+    @Option(name = "-dir", aliases = { "--directory" }, metaVar = "PATH", usage = "Directory to generate datastores in")
+    private File directory = new File(FileHelper.getTempDir(), "analyzerbeans-benchmark");
+
+    @Option(name = "-ot", aliases = { "--output-type" }, metaVar = "FORMAT", usage = "Format of the results (CSV, JSON)")
+    private OutputFormat outputFormat = OutputFormat.JSON;
+
+    @Option(name = "-of", aliases = { "--output-file" }, metaVar = "PATH", usage = "File to write the results to. "
+            + "If not specified, results are written to the console")
+    private File outputFile = null;
+
+    @Option(name = "-usage", aliases = { "--usage", "-help", "--help", "-?" }, usage = "Prints this usage information")
+    private boolean usageMode = false;
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public List<SyntheticColumn> getColumns() {
+        return SyntheticColumn.parseList(columns);
+    }
+
+    public List<DatastoreType> getDatastoreTypes() {
+        return parseEnums(DatastoreType.class, datastoreTypes);
+    }
+
+    public List<ReferenceJob> getJobs() {
+        return parseEnums(ReferenceJob.class, jobs);
+    }
+
+    public List<RunnerType> getRunnerTypes() {
+        return parseEnums(RunnerType.class, runnerTypes);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getWarmupCount() {
+        return warmupCount;
+    }
+
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    public boolean isUsageMode() {
+        return usageMode;
+    }
+
+    private static <E extends Enum<E>> List<E> parseEnums(Class<E> enumClass, String str) {
+        final List<E> result = new ArrayList<E>();
+        for (String token : str.split(",")) {
+            token = token.trim();
+            if (!token.isEmpty()) {
+                result.add(Enum.valueOf(enumClass, token.toUpperCase()));
+            }
+        }
+        return result;
+    }
+}
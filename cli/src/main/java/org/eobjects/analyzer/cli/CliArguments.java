@@ -20,6 +20,8 @@
 package org.eobjects.analyzer.cli;
 
 import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.kohsuke.args4j.CmdLineException;
@@ -80,8 +82,8 @@ public class CliArguments {
     @Option(name = "-conf", aliases = { "-configuration", "--configuration-file" }, metaVar = "PATH", usage = "Path to an XML file describing the configuration of AnalyzerBeans")
     private String configurationFile;
 
-    @Option(name = "-job", aliases = { "--job-file" }, metaVar = "PATH", usage = "Path to an analysis job XML file to execute")
-    private String jobFile;
+    @Option(name = "-job", aliases = { "--job-file" }, metaVar = "PATH", usage = "Path(s) to analysis job XML file(s) to execute", multiValued = true)
+    private List<String> jobFiles;
 
     @Option(name = "-list", usage = "Used to print a list of various elements available in the configuration")
     private CliListType listType;
@@ -114,8 +116,30 @@ public class CliArguments {
         return configurationFile;
     }
 
+    /**
+     * Gets the (first) job file to execute.
+     * 
+     * @return
+     */
     public String getJobFile() {
-        return jobFile;
+        if (jobFiles == null || jobFiles.isEmpty()) {
+            return null;
+        }
+        return jobFiles.get(0);
+    }
+
+    /**
+     * Gets all the job files to execute. The -job argument can be repeated in
+     * order to run a batch of jobs, which will share the scans of the tables
+     * that they have in common.
+     * 
+     * @return
+     */
+    public List<String> getJobFiles() {
+        if (jobFiles == null) {
+            return Collections.emptyList();
+        }
+        return jobFiles;
     }
 
     public CliListType getListType() {
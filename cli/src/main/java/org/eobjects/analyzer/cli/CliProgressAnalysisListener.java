@@ -19,14 +19,10 @@
  */
 package org.eobjects.analyzer.cli;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.runner.AnalysisListenerAdaptor;
 import org.eobjects.analyzer.job.runner.RowProcessingMetrics;
-import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.job.runner.RowProcessingProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,28 +30,28 @@ final class CliProgressAnalysisListener extends AnalysisListenerAdaptor {
 
 	private static final Logger logger = LoggerFactory.getLogger(CliProgressAnalysisListener.class);
 
-	private Map<Table, AtomicInteger> rowCounts = new HashMap<Table, AtomicInteger>();
-
 	@Override
 	public void rowProcessingBegin(AnalysisJob job, RowProcessingMetrics metrics) {
-		Table table = metrics.getTable();
-		logger.info("Analyzing rows from table: {}", table.getName());
-		rowCounts.put(table, new AtomicInteger(0));
+		logger.info("Analyzing rows from table: {}", metrics.getTable().getName());
 	}
 
 	@Override
-	public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, int currentRow) {
-		Table table = metrics.getTable();
-		AtomicInteger rowCount = rowCounts.get(table);
-		if (rowCount != null) {
-			int countBefore = rowCount.get();
-			rowCount.lazySet(currentRow);
-			int fiveHundredsBefore = countBefore / 500;
-			int fiveHundredsAfter = currentRow / 500;
-			if (fiveHundredsAfter != fiveHundredsBefore) {
-				System.out.println(currentRow + " rows processed from table: " + table.getName());
-			}
+	public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, RowProcessingProgress progress) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(progress.getProcessedRows());
+		sb.append(" rows processed from table: ");
+		sb.append(metrics.getTable().getName());
+		sb.append(" (");
+		sb.append((long) progress.getRowsPerSecond());
+		sb.append(" rows/s");
+		final long remainingMillis = progress.getEstimatedRemainingMillis();
+		if (!progress.isFinished() && remainingMillis >= 0) {
+			sb.append(", ETA ");
+			sb.append(remainingMillis / 1000);
+			sb.append(" s");
 		}
+		sb.append(')');
+		System.out.println(sb.toString());
 	}
 
 	@Override
@@ -27,6 +27,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -44,11 +45,13 @@ import org.eobjects.analyzer.descriptors.BeanDescriptor;
 import org.eobjects.analyzer.descriptors.ConfiguredPropertyDescriptor;
 import org.eobjects.analyzer.descriptors.FilterBeanDescriptor;
 import org.eobjects.analyzer.descriptors.TransformerBeanDescriptor;
+import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.JaxbJobReader;
 import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
 import org.eobjects.analyzer.job.runner.AnalysisResultFuture;
 import org.eobjects.analyzer.job.runner.AnalysisRunner;
 import org.eobjects.analyzer.job.runner.AnalysisRunnerImpl;
+import org.eobjects.analyzer.job.runner.SharedScanCoordinator;
 import org.eobjects.analyzer.result.AnalysisResultWriter;
 import org.eobjects.analyzer.util.VFSUtils;
 import org.apache.metamodel.DataContext;
@@ -318,43 +321,64 @@ public final class CliRunner implements Closeable {
     protected void runJob(AnalyzerBeansConfiguration configuration) throws Throwable {
         final JaxbJobReader jobReader = new JaxbJobReader(configuration);
 
-        final String jobFilePath = _arguments.getJobFile();
-        final FileObject jobFile = VFS.getManager().resolveFile(jobFilePath);
+        final List<String> jobFilePaths = _arguments.getJobFiles();
         final Map<String, String> variableOverrides = _arguments.getVariableOverrides();
 
-        final InputStream inputStream = jobFile.getContent().getInputStream();
+        final List<AnalysisJob> jobs = new ArrayList<AnalysisJob>(jobFilePaths.size());
+        for (String jobFilePath : jobFilePaths) {
+            final FileObject jobFile = VFS.getManager().resolveFile(jobFilePath);
+            final InputStream inputStream = jobFile.getContent().getInputStream();
 
-        final AnalysisJobBuilder analysisJobBuilder;
-        try {
-            analysisJobBuilder = jobReader.create(inputStream, variableOverrides);
-        } finally {
-            FileHelper.safeClose(inputStream);
+            final AnalysisJobBuilder analysisJobBuilder;
+            try {
+                analysisJobBuilder = jobReader.create(inputStream, variableOverrides);
+            } finally {
+                FileHelper.safeClose(inputStream);
+            }
+            jobs.add(analysisJobBuilder.toAnalysisJob());
         }
 
-        final AnalysisRunner runner = new AnalysisRunnerImpl(configuration, new CliProgressAnalysisListener());
-        final AnalysisResultFuture resultFuture = runner.run(analysisJobBuilder.toAnalysisJob());
-
-        resultFuture.await();
+        // a batch of jobs is run concurrently, reading the tables they have in
+        // common only once
+        final SharedScanCoordinator sharedScanCoordinator = (jobs.size() > 1 ? new SharedScanCoordinator() : null);
+        final AnalysisRunner runner = new AnalysisRunnerImpl(configuration, null, sharedScanCoordinator,
+                new CliProgressAnalysisListener());
 
-        if (resultFuture.isSuccessful()) {
-            final CliOutputType outputType = _arguments.getOutputType();
-            AnalysisResultWriter writer = outputType.createWriter();
-            writer.write(resultFuture, configuration, _writerRef, _outputStreamRef);
-        } else {
-            write("ERROR!");
-            write("------");
+        final List<AnalysisResultFuture> resultFutures = new ArrayList<AnalysisResultFuture>(jobs.size());
+        for (AnalysisJob job : jobs) {
+            resultFutures.add(runner.run(job));
+        }
 
-            List<Throwable> errors = resultFuture.getErrors();
-            write(errors.size() + " error(s) occurred while executing the job:");
+        Throwable firstError = null;
+        for (AnalysisResultFuture resultFuture : resultFutures) {
+            resultFuture.await();
 
-            for (Throwable throwable : errors) {
+            if (resultFuture.isSuccessful()) {
+                final CliOutputType outputType = _arguments.getOutputType();
+                AnalysisResultWriter writer = outputType.createWriter();
+                writer.write(resultFuture, configuration, _writerRef, _outputStreamRef);
+            } else {
+                write("ERROR!");
                 write("------");
-                StringWriter stringWriter = new StringWriter();
-                throwable.printStackTrace(new PrintWriter(stringWriter));
-                write(stringWriter.toString());
+
+                List<Throwable> errors = resultFuture.getErrors();
+                write(errors.size() + " error(s) occurred while executing the job:");
+
+                for (Throwable throwable : errors) {
+                    write("------");
+                    StringWriter stringWriter = new StringWriter();
+                    throwable.printStackTrace(new PrintWriter(stringWriter));
+                    write(stringWriter.toString());
+                }
+
+                if (firstError == null) {
+                    firstError = errors.get(0);
+                }
             }
+        }
 
-            throw errors.get(0);
+        if (firstError != null) {
+            throw firstError;
         }
     }
 
@@ -56,4 +56,16 @@ public class CliArgumentsTest extends TestCase {
 		assertEquals("{bar=c:\\foo\bar\baz.csv, foo=bar}",
 				new TreeMap<String, String>(args.getVariableOverrides()).toString());
 	}
+
+	public void testMultipleJobFiles() throws Exception {
+		CliArguments args;
+		args = CliArguments.parse("-conf conf.xml -job job1.xml --job-file job2.xml".split(" "));
+		assertTrue(args.isSet());
+		assertEquals("job1.xml", args.getJobFile());
+		assertEquals("[job1.xml, job2.xml]", args.getJobFiles().toString());
+
+		args = CliArguments.parse("-list TABLES".split(" "));
+		assertNull(args.getJobFile());
+		assertTrue(args.getJobFiles().isEmpty());
+	}
 }
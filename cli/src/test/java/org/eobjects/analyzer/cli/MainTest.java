@@ -97,7 +97,7 @@ public class MainTest extends TestCase {
                 lines[2].trim());
         assertEquals("or columns", lines[3].trim());
         assertEquals(
-                "-job (--job-file) PATH                                     : Path to an analysis job XML file to execute",
+                "-job (--job-file) PATH                                     : Path(s) to analysis job XML file(s) to execute",
                 lines[4].trim());
         assertEquals(
                 "-list [ANALYZERS | TRANSFORMERS | FILTERS | DATASTORES |   : Used to print a list of various elements available in the",
@@ -207,6 +207,18 @@ public class MainTest extends TestCase {
         assertEquals("SUCCESS!", lines[0]);
     }
 
+    public void testBatchOfJobs() throws Throwable {
+        Main.main("-conf examples/conf.xml -job examples/employees_job.xml -job examples/employees_job.xml"
+                .split(" "));
+
+        String out = _stringWriter.toString().replaceAll("\r\n", "\n");
+        String[] lines = out.split("\n");
+
+        assertEquals("SUCCESS!", lines[0]);
+        assertEquals(2, out.split("SUCCESS!\n", -1).length - 1);
+        assertEquals(2, out.split(" - company.com: 4\n - eobjects.org: 2", -1).length - 1);
+    }
+
     public void testWriteToFile() throws Throwable {
         String filename = "target/test_write_to_file.txt";
         Main.main(("-conf examples/conf.xml -job examples/employees_job.xml -of " + filename).split(" "));
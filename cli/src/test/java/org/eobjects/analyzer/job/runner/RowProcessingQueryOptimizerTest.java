@@ -24,6 +24,9 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.eobjects.analyzer.beans.BooleanAnalyzer;
+import org.eobjects.analyzer.beans.CompletenessAnalyzer;
+import org.eobjects.analyzer.beans.CompletenessAnalyzer.Condition;
 import org.eobjects.analyzer.beans.StringAnalyzer;
 import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.Filter;
@@ -33,12 +36,16 @@ import org.eobjects.analyzer.beans.filter.NullCheckFilter;
 import org.eobjects.analyzer.beans.filter.NullCheckFilter.NullCheckCategory;
 import org.eobjects.analyzer.beans.standardize.EmailStandardizerTransformer;
 import org.eobjects.analyzer.beans.stringpattern.PatternFinderAnalyzer;
+import org.eobjects.analyzer.beans.valuedist.ValueDistributionAnalyzer;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
 import org.eobjects.analyzer.connection.CsvDatastore;
 import org.eobjects.analyzer.connection.Datastore;
 import org.eobjects.analyzer.connection.DatastoreCatalogImpl;
 import org.eobjects.analyzer.connection.DatastoreConnection;
+import org.eobjects.analyzer.connection.PerformanceCharacteristics;
+import org.eobjects.analyzer.connection.PerformanceCharacteristicsImpl;
+import org.eobjects.analyzer.connection.PojoDatastore;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.MutableInputColumn;
 import org.eobjects.analyzer.descriptors.AnalyzerBeanDescriptor;
@@ -54,8 +61,12 @@ import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
 import org.eobjects.analyzer.lifecycle.LifeCycleHelper;
 import org.eobjects.analyzer.test.TestHelper;
 import org.eobjects.analyzer.util.SourceColumnFinder;
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.pojo.TableDataProvider;
 import org.apache.metamodel.query.Query;
 import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.util.SimpleTableDef;
 
 public class RowProcessingQueryOptimizerTest extends TestCase {
 
@@ -220,6 +231,91 @@ public class RowProcessingQueryOptimizerTest extends TestCase {
         assertFalse(optimizer.isOptimizable());
     }
 
+    public void testQueryOptimizedAnalyzer() throws Exception {
+        Column employeeNumberColumn = con.getSchemaNavigator().convertToColumn("EMPLOYEES.EMPLOYEENUMBER");
+        ajb.addSourceColumn(employeeNumberColumn);
+        AnalyzerJobBuilder<ValueDistributionAnalyzer> valueDistributionBuilder = ajb
+                .addAnalyzer(ValueDistributionAnalyzer.class);
+        valueDistributionBuilder.addInputColumn(ajb.getSourceColumnByName("employeenumber"));
+        valueDistributionBuilder.getConfigurableBean().setRecordDrillDownInformation(false);
+
+        stringAnalyzerBuilder.setRequirement(null);
+        consumers.clear();
+        consumers.add(createConsumer(stringAnalyzerBuilder));
+        consumers.add(createConsumer(valueDistributionBuilder));
+
+        // aggregating a column with many distinct values doesn't pay off
+        RowProcessingQueryOptimizer optimizer = new RowProcessingQueryOptimizer(datastore, consumers, baseQuery);
+        assertTrue(optimizer.getQueryOptimizedAnalyzers().isEmpty());
+    }
+
+    public void testQueryOptimizedAnalyzerOnBooleanColumns() throws Exception {
+        final TableDataProvider<?> tableDataProvider = new ArrayTableDataProvider(new SimpleTableDef("person",
+                new String[] { "name", "active" }, new ColumnType[] { ColumnType.VARCHAR, ColumnType.BOOLEAN }),
+                new ArrayList<Object[]>());
+        final Datastore pojoDatastore = new PojoDatastore("pojo", tableDataProvider) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public PerformanceCharacteristics getPerformanceCharacteristics() {
+                return new PerformanceCharacteristicsImpl(true, true);
+            }
+        };
+
+        try (final AnalysisJobBuilder pojoJobBuilder = new AnalysisJobBuilder(conf);
+                final DatastoreConnection pojoConnection = pojoDatastore.openConnection()) {
+            pojoJobBuilder.setDatastore(pojoDatastore);
+            pojoJobBuilder.addSourceColumns("person.name", "person.active");
+            final InputColumn<?> nameColumn = pojoJobBuilder.getSourceColumnByName("name");
+            final InputColumn<?> activeColumn = pojoJobBuilder.getSourceColumnByName("active");
+            final Query pojoQuery = pojoConnection.getDataContext().query().from("person").select("name", "active")
+                    .toQuery();
+
+            final AnalyzerJobBuilder<BooleanAnalyzer> booleanAnalyzerBuilder = pojoJobBuilder
+                    .addAnalyzer(BooleanAnalyzer.class);
+            booleanAnalyzerBuilder.addInputColumn(activeColumn);
+            final AnalyzerJobBuilder<CompletenessAnalyzer> completenessBuilder = pojoJobBuilder
+                    .addAnalyzer(CompletenessAnalyzer.class);
+            completenessBuilder.getConfigurableBean().setValueColumns(new InputColumn[] { nameColumn, activeColumn });
+            completenessBuilder.getConfigurableBean().fillAllConditions(Condition.NOT_NULL);
+            completenessBuilder.getConfigurableBean().setRecordDrillDownInformation(false);
+
+            // annotated rows can only be recorded when reading every record
+            final List<RowProcessingConsumer> pojoConsumers = new ArrayList<RowProcessingConsumer>();
+            pojoConsumers.add(createConsumer(booleanAnalyzerBuilder));
+            RowProcessingQueryOptimizer optimizer = new RowProcessingQueryOptimizer(pojoDatastore, pojoConsumers,
+                    pojoQuery);
+            assertTrue(optimizer.getQueryOptimizedAnalyzers().isEmpty());
+
+            // the completeness analyzer also consumes the varchar column
+            booleanAnalyzerBuilder.getConfigurableBean().setRecordDrillDownInformation(false);
+            pojoConsumers.clear();
+            pojoConsumers.add(createConsumer(booleanAnalyzerBuilder));
+            pojoConsumers.add(createConsumer(completenessBuilder));
+            optimizer = new RowProcessingQueryOptimizer(pojoDatastore, pojoConsumers, pojoQuery);
+            List<AnalyzerConsumer> analyzers = optimizer.getQueryOptimizedAnalyzers();
+            assertEquals(1, analyzers.size());
+            assertSame(pojoConsumers.get(0), analyzers.get(0));
+
+            final Query aggregateQuery = optimizer.getAggregateQuery(analyzers.get(0));
+            assertEquals(2, aggregateQuery.getSelectClause().getItemCount());
+            assertEquals(1, aggregateQuery.getGroupByClause().getItemCount());
+            assertEquals("active", aggregateQuery.getGroupByClause().getItem(0).getSelectItem().getColumn()
+                    .getName());
+
+            // aggregation is not applicable when max rows are pushed down
+            final FilterJobBuilder<MaxRowsFilter, MaxRowsFilter.Category> pojoMaxRowsBuilder = pojoJobBuilder
+                    .addFilter(MaxRowsFilter.class);
+            booleanAnalyzerBuilder.setRequirement(pojoMaxRowsBuilder, MaxRowsFilter.Category.VALID);
+            pojoConsumers.clear();
+            pojoConsumers.add(createConsumer(pojoMaxRowsBuilder));
+            pojoConsumers.add(createConsumer(booleanAnalyzerBuilder));
+            optimizer = new RowProcessingQueryOptimizer(pojoDatastore, pojoConsumers, pojoQuery);
+            assertTrue(optimizer.isOptimizable());
+            assertTrue(optimizer.getQueryOptimizedAnalyzers().isEmpty());
+        }
+    }
+
     private FilterConsumer createConsumer(FilterJobBuilder<?, ?> filterJobBuilder) {
         FilterJob filterJob = filterJobBuilder.toFilterJob();
         FilterBeanDescriptor<?, ?> descriptor = filterJob.getDescriptor();
@@ -0,0 +1,194 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.test.full.scenarios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.util.SimpleTableDef;
+import org.eobjects.analyzer.beans.CompletenessAnalyzer;
+import org.eobjects.analyzer.beans.CompletenessAnalyzerResult;
+import org.eobjects.analyzer.beans.filter.NullCheckFilter;
+import org.eobjects.analyzer.beans.transform.ConcatenatorTransformer;
+import org.eobjects.analyzer.beans.transform.TextCaseTransformer;
+import org.eobjects.analyzer.beans.transform.WhitespaceTrimmerTransformer;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.PojoDatastore;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MockInputRow;
+import org.eobjects.analyzer.data.MutableInputColumn;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.FilterOutcome;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.AnalyzerJobBuilder;
+import org.eobjects.analyzer.job.builder.FilterJobBuilder;
+import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
+import org.eobjects.analyzer.job.runner.AnalysisResultFuture;
+import org.eobjects.analyzer.job.runner.AnalysisRunnerImpl;
+import org.eobjects.analyzer.job.runner.ConsumeRowHandler;
+import org.eobjects.analyzer.job.runner.ConsumeRowResult;
+import org.eobjects.analyzer.job.runner.FilterOutcomes;
+import org.eobjects.analyzer.util.SystemProperties;
+
+/**
+ * Consumes records in batches and one at a time, and compares the output.
+ */
+public class BatchRowProcessingTest extends TestCase {
+
+    private static final Object[][] VALUES = { { "  john  doe ", " London" }, { "JANE", "" },
+            { null, "Paris  " }, { " kasper sørensen", null }, { "", " " }, { "vera", "Aarhus" },
+            { "tom", "berlin" } };
+
+    private final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl();
+    private Datastore datastore;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final List<Object[]> rows = new ArrayList<Object[]>(Arrays.asList(VALUES));
+        datastore = new PojoDatastore("ds", new ArrayTableDataProvider(new SimpleTableDef("person", new String[] {
+                "name", "city" }, new ColumnType[] { ColumnType.VARCHAR, ColumnType.VARCHAR }), rows));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        System.clearProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE);
+    }
+
+    public void testConsumeRowsEqualsConsumeRow() throws Exception {
+        final AnalysisJob job = createJob();
+
+        final ConsumeRowHandler.Configuration handlerConfiguration = new ConsumeRowHandler.Configuration();
+        handlerConfiguration.includeAnalyzers = false;
+        final ConsumeRowHandler handler = new ConsumeRowHandler(job, configuration, handlerConfiguration);
+
+        final InputColumn<?>[] sourceColumns = job.getSourceColumns().toArray(new InputColumn[2]);
+        final List<InputRow> inputRows = new ArrayList<InputRow>();
+        for (int i = 0; i < VALUES.length; i++) {
+            inputRows.add(new MockInputRow(i + 1, sourceColumns, VALUES[i]));
+        }
+
+        final List<String> expected = new ArrayList<String>();
+        for (InputRow inputRow : inputRows) {
+            expected.addAll(render(handler, handler.consumeRow(inputRow)));
+        }
+
+        final List<String> actual = render(handler, handler.consumeRows(inputRows));
+
+        assertEquals(VALUES.length, actual.size());
+        assertEquals(expected, actual);
+    }
+
+    public void testBatchedJobEqualsUnbatchedJob() throws Throwable {
+        final CompletenessAnalyzerResult expected = runJob();
+
+        System.setProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE, "3");
+        final CompletenessAnalyzerResult actual = runJob();
+
+        assertEquals(VALUES.length, actual.getTotalRowCount());
+        assertEquals(expected.getTotalRowCount(), actual.getTotalRowCount());
+        assertEquals(expected.getInvalidRowCount(), actual.getInvalidRowCount());
+        assertTrue(actual.getInvalidRowCount() > 0);
+        assertEquals(render(expected.getRows()), render(actual.getRows()));
+    }
+
+    private CompletenessAnalyzerResult runJob() throws Throwable {
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(createJob());
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+        return (CompletenessAnalyzerResult) resultFuture.getResults().get(0);
+    }
+
+    private AnalysisJob createJob() {
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("person.name", "person.city");
+
+            final TransformerJobBuilder<WhitespaceTrimmerTransformer> trimmer = ajb
+                    .addTransformer(WhitespaceTrimmerTransformer.class);
+            trimmer.addInputColumns(ajb.getSourceColumns());
+            trimmer.setConfiguredProperty("Trim multiple to single space", true);
+            final List<MutableInputColumn<?>> trimmedColumns = trimmer.getOutputColumns();
+
+            final TransformerJobBuilder<TextCaseTransformer> textCase = ajb.addTransformer(TextCaseTransformer.class);
+            textCase.addInputColumn(trimmedColumns.get(0));
+            textCase.setConfiguredProperty("Mode", TextCaseTransformer.TransformationMode.CAPITALIZE_WORDS);
+            final MutableInputColumn<?> nameColumn = textCase.getOutputColumns().get(0);
+
+            final FilterJobBuilder<NullCheckFilter, NullCheckFilter.NullCheckCategory> nullCheck = ajb
+                    .addFilter(NullCheckFilter.class);
+            nullCheck.addInputColumn(trimmedColumns.get(1));
+            nullCheck.setConfiguredProperty("Consider empty string as null", true);
+
+            final TransformerJobBuilder<ConcatenatorTransformer> concatenator = ajb
+                    .addTransformer(ConcatenatorTransformer.class);
+            concatenator.addInputColumns(nameColumn, trimmedColumns.get(1));
+            concatenator.setConfiguredProperty("Separator", ", ");
+            concatenator.setRequirement(nullCheck, NullCheckFilter.NullCheckCategory.NOT_NULL);
+
+            final AnalyzerJobBuilder<CompletenessAnalyzer> completeness = ajb.addAnalyzer(CompletenessAnalyzer.class);
+            completeness.getConfigurableBean().setValueColumns(
+                    new InputColumn[] { nameColumn, trimmedColumns.get(1) });
+            completeness.getConfigurableBean().fillAllConditions(CompletenessAnalyzer.Condition.NOT_BLANK_OR_NULL);
+
+            return ajb.toAnalysisJob();
+        }
+    }
+
+    private List<String> render(ConsumeRowHandler handler, ConsumeRowResult result) {
+        final List<InputColumn<?>> outputColumns = handler.getOutputColumns();
+        final List<InputRow> rows = result.getRows();
+        final List<FilterOutcomes> outcomes = result.getOutcomeSinks();
+        assertEquals(rows.size(), outcomes.size());
+
+        final List<String> rendered = new ArrayList<String>();
+        for (int i = 0; i < rows.size(); i++) {
+            final InputRow row = rows.get(i);
+            final List<String> rowOutcomes = new ArrayList<String>();
+            for (FilterOutcome outcome : outcomes.get(i).getOutcomes()) {
+                rowOutcomes.add(outcome.getCategory().toString());
+            }
+            Collections.sort(rowOutcomes);
+            rendered.add(row.getId() + ": " + row.getValues(outputColumns) + " " + rowOutcomes);
+        }
+        return rendered;
+    }
+
+    private List<String> render(InputRow[] rows) {
+        final List<String> rendered = new ArrayList<String>();
+        for (InputRow row : rows) {
+            rendered.add(row.getId() + ": " + row.getValues(row.getInputColumns()));
+        }
+        Collections.sort(rendered);
+        return rendered;
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.test.full.scenarios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.pojo.TableDataProvider;
+import org.apache.metamodel.schema.ColumnType;
+import org.apache.metamodel.util.SimpleTableDef;
+import org.eobjects.analyzer.beans.BooleanAnalyzer;
+import org.eobjects.analyzer.beans.BooleanAnalyzerResult;
+import org.eobjects.analyzer.beans.CompletenessAnalyzer;
+import org.eobjects.analyzer.beans.CompletenessAnalyzer.Condition;
+import org.eobjects.analyzer.beans.CompletenessAnalyzerResult;
+import org.eobjects.analyzer.beans.NumberAnalyzer;
+import org.eobjects.analyzer.beans.NumberAnalyzerResult;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.DatastoreConnection;
+import org.eobjects.analyzer.connection.PerformanceCharacteristics;
+import org.eobjects.analyzer.connection.PerformanceCharacteristicsImpl;
+import org.eobjects.analyzer.connection.PojoDatastore;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.AnalyzerJobBuilder;
+import org.eobjects.analyzer.job.runner.AnalysisResultFuture;
+import org.eobjects.analyzer.job.runner.AnalysisRunnerImpl;
+import org.eobjects.analyzer.result.AnalyzerResult;
+import org.eobjects.analyzer.result.renderer.CrosstabTextRenderer;
+
+/**
+ * Runs the query optimizable analyzers against a datastore that prefers query
+ * optimization, and against one that doesn't, and compares the results. Only
+ * the analyzers consuming boolean columns are fed aggregated records, the
+ * number analyzer is included to verify that it is unaffected.
+ */
+public class QueryOptimizedAnalyzersTest extends TestCase {
+
+    private final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl();
+    private Datastore pojoDatastore;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Object[] { "john", 30, true, false });
+            rows.add(new Object[] { "jane", 42, true, true });
+            rows.add(new Object[] { "", 42, false, null });
+            rows.add(new Object[] { null, null, null, true });
+        }
+        rows.add(new Object[] { "joe", 7, false, false });
+        rows.add(new Object[] { null, 99, true, null });
+
+        final TableDataProvider<?> tableDataProvider = new ArrayTableDataProvider(new SimpleTableDef("person",
+                new String[] { "name", "age", "active", "verified" }, new ColumnType[] { ColumnType.VARCHAR,
+                        ColumnType.INTEGER, ColumnType.BOOLEAN, ColumnType.BOOLEAN }), rows);
+        pojoDatastore = new PojoDatastore("ds", tableDataProvider);
+    }
+
+    public void testOptimizedResultsEqualUnoptimizedResults() throws Throwable {
+        final List<AnalyzerResult> optimized = runJob(true, false);
+        final List<AnalyzerResult> unoptimized = runJob(false, false);
+
+        final CompletenessAnalyzerResult optimizedCompleteness = getResult(optimized, CompletenessAnalyzerResult.class);
+        final CompletenessAnalyzerResult unoptimizedCompleteness = getResult(unoptimized,
+                CompletenessAnalyzerResult.class);
+        assertEquals(22, optimizedCompleteness.getTotalRowCount());
+        assertEquals(11, optimizedCompleteness.getInvalidRowCount());
+        assertEquals(unoptimizedCompleteness.getTotalRowCount(), optimizedCompleteness.getTotalRowCount());
+        assertEquals(unoptimizedCompleteness.getInvalidRowCount(), optimizedCompleteness.getInvalidRowCount());
+
+        // without drill-down information no rows are annotated in either mode
+        assertEquals(0, optimizedCompleteness.getRows().length);
+        assertEquals(0, unoptimizedCompleteness.getRows().length);
+
+        assertEquals(render(getResult(unoptimized, NumberAnalyzerResult.class)),
+                render(getResult(optimized, NumberAnalyzerResult.class)));
+        assertEquals(render(getResult(unoptimized, BooleanAnalyzerResult.class)),
+                render(getResult(optimized, BooleanAnalyzerResult.class)));
+    }
+
+    public void testDrillDownInformationPreventsOptimization() throws Throwable {
+        final List<AnalyzerResult> optimizedWithoutDrillDown = runJob(true, false);
+        final List<AnalyzerResult> withDrillDown = runJob(true, true);
+        final List<AnalyzerResult> unoptimizedWithDrillDown = runJob(false, true);
+
+        // the measures don't depend on drill-down information
+        assertEquals(render(getResult(optimizedWithoutDrillDown, NumberAnalyzerResult.class)),
+                render(getResult(withDrillDown, NumberAnalyzerResult.class)));
+        assertEquals(render(getResult(optimizedWithoutDrillDown, BooleanAnalyzerResult.class)),
+                render(getResult(withDrillDown, BooleanAnalyzerResult.class)));
+
+        // the annotated rows are the actual records, not aggregated ones
+        final CompletenessAnalyzerResult completeness = getResult(withDrillDown, CompletenessAnalyzerResult.class);
+        assertEquals(11, completeness.getInvalidRowCount());
+        assertEquals(11, completeness.getRows().length);
+        assertEquals(toString(getResult(unoptimizedWithDrillDown, CompletenessAnalyzerResult.class).getRows()),
+                toString(completeness.getRows()));
+    }
+
+    private List<AnalyzerResult> runJob(boolean queryOptimizationPreferred, boolean recordDrillDownInformation)
+            throws Throwable {
+        final Datastore datastore = new PerformanceCharacteristicsDatastore(pojoDatastore, queryOptimizationPreferred);
+
+        final AnalysisJob job;
+        try (AnalysisJobBuilder ajb = new AnalysisJobBuilder(configuration)) {
+            ajb.setDatastore(datastore);
+            ajb.addSourceColumns("person.name", "person.age", "person.active", "person.verified");
+
+            final AnalyzerJobBuilder<CompletenessAnalyzer> completeness = ajb.addAnalyzer(CompletenessAnalyzer.class);
+            completeness.getConfigurableBean().setValueColumns(
+                    new InputColumn[] { ajb.getSourceColumnByName("active"), ajb.getSourceColumnByName("verified") });
+            completeness.getConfigurableBean().fillAllConditions(Condition.NOT_BLANK_OR_NULL);
+            completeness.getConfigurableBean().setRecordDrillDownInformation(recordDrillDownInformation);
+
+            final AnalyzerJobBuilder<NumberAnalyzer> number = ajb.addAnalyzer(NumberAnalyzer.class);
+            number.addInputColumn(ajb.getSourceColumnByName("age"));
+            number.getConfigurableBean().setRecordDrillDownInformation(recordDrillDownInformation);
+
+            final AnalyzerJobBuilder<BooleanAnalyzer> bool = ajb.addAnalyzer(BooleanAnalyzer.class);
+            bool.addInputColumns(ajb.getSourceColumnByName("active"), ajb.getSourceColumnByName("verified"));
+            bool.getConfigurableBean().setRecordDrillDownInformation(recordDrillDownInformation);
+
+            job = ajb.toAnalysisJob();
+        }
+
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(job);
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+        return resultFuture.getResults();
+    }
+
+    private <R extends AnalyzerResult> R getResult(List<AnalyzerResult> results, Class<R> resultClass) {
+        for (AnalyzerResult result : results) {
+            if (resultClass.isInstance(result)) {
+                return resultClass.cast(result);
+            }
+        }
+        fail("No result of type " + resultClass.getSimpleName());
+        return null;
+    }
+
+    private String render(NumberAnalyzerResult result) {
+        return new CrosstabTextRenderer().render(result);
+    }
+
+    private String render(BooleanAnalyzerResult result) {
+        return new CrosstabTextRenderer().render(result.getColumnStatisticsCrosstab()) + "\n"
+                + new CrosstabTextRenderer().render(result.getValueCombinationCrosstab());
+    }
+
+    private String toString(InputRow[] rows) {
+        final List<String> values = new ArrayList<String>();
+        for (InputRow row : rows) {
+            values.add(row.getValues(row.getInputColumns()).toString());
+        }
+        return values.toString();
+    }
+
+    /**
+     * Wraps a datastore in order to control whether query optimization is
+     * preferred.
+     */
+    private static class PerformanceCharacteristicsDatastore implements Datastore {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Datastore _delegate;
+        private final boolean _queryOptimizationPreferred;
+
+        public PerformanceCharacteristicsDatastore(Datastore delegate, boolean queryOptimizationPreferred) {
+            _delegate = delegate;
+            _queryOptimizationPreferred = queryOptimizationPreferred;
+        }
+
+        @Override
+        public String getName() {
+            return _delegate.getName();
+        }
+
+        @Override
+        public String getDescription() {
+            return _delegate.getDescription();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            _delegate.setDescription(description);
+        }
+
+        @Override
+        public DatastoreConnection openConnection() {
+            return _delegate.openConnection();
+        }
+
+        @Override
+        public PerformanceCharacteristics getPerformanceCharacteristics() {
+            return new PerformanceCharacteristicsImpl(_queryOptimizationPreferred, true);
+        }
+
+        @Override
+        public String toString() {
+            return "PerformanceCharacteristicsDatastore[" + _delegate + ",queryOptimizationPreferred="
+                    + _queryOptimizationPreferred + "]";
+        }
+    }
+}
@@ -26,12 +26,12 @@ import java.util.Map.Entry;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.AnalyzerBean;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.Initialize;
 import org.eobjects.analyzer.beans.api.Provided;
+import org.eobjects.analyzer.beans.api.QueryOptimizedAnalyzer;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.result.AnnotatedRowsResult;
@@ -45,7 +45,7 @@ import org.eobjects.analyzer.util.ValueCombination;
 
 @AnalyzerBean("Boolean analyzer")
 @Description("Inspect your boolean values. How is the distribution of true/false? Are there null values?")
-public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
+public class BooleanAnalyzer implements QueryOptimizedAnalyzer<BooleanAnalyzerResult> {
 
     public static final String MEASURE_LEAST_FREQUENT = "Least frequent";
     public static final String MEASURE_MOST_FREQUENT = "Most frequent";
@@ -77,9 +77,15 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
     @Configured
     InputColumn<Boolean>[] _columns;
 
+    @Configured(value = "Record drill-down information", required = false)
+    @Description("Record the records of each value and value combination to allow drilling to them in the result.")
+    boolean _recordDrillDownInformation = true;
+
     @Provided
     RowAnnotationFactory _annotationFactory;
 
+    private RowAnnotationFactory _countingAnnotationFactory;
+
     public BooleanAnalyzer(InputColumn<Boolean>[] columns) {
         _columns = columns;
         _annotationFactory = new InMemoryRowAnnotationFactory();
@@ -90,8 +96,14 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
 
     @Initialize
     public void init() {
+        if (_recordDrillDownInformation) {
+            _countingAnnotationFactory = _annotationFactory;
+        } else {
+            // only count the annotated rows, without storing any of them
+            _countingAnnotationFactory = new InMemoryRowAnnotationFactory(0);
+        }
         for (InputColumn<Boolean> col : _columns) {
-            _columnDelegates.put(col, new BooleanAnalyzerColumnDelegate(_annotationFactory));
+            _columnDelegates.put(col, new BooleanAnalyzerColumnDelegate(_countingAnnotationFactory));
         }
     }
 
@@ -111,13 +123,24 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
             ValueCombination<Boolean> valueCombination = new ValueCombination<Boolean>(values);
             RowAnnotation annotation = _valueCombinations.get(valueCombination);
             if (annotation == null) {
-                annotation = _annotationFactory.createAnnotation();
+                annotation = _countingAnnotationFactory.createAnnotation();
                 _valueCombinations.put(valueCombination, annotation);
             }
-            _annotationFactory.annotate(row, distinctCount, annotation);
+            _countingAnnotationFactory.annotate(row, distinctCount, annotation);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * Both the column counts and the value combinations are based only on the
+     * boolean columns, but drill-down information requires the actual records.
+     */
+    @Override
+    public boolean isOptimizable() {
+        return !_recordDrillDownInformation;
+    }
+
     @Override
     public BooleanAnalyzerResult getResult() {
         CrosstabDimension measureDimension = new CrosstabDimension(DIMENSION_MEASURE);
@@ -141,19 +164,19 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
             int nullCount = delegate.getNullCount();
             nav.where(measureDimension, MEASURE_NULL_COUNT).put(nullCount);
             if (nullCount > 0) {
-                nav.attach(new AnnotatedRowsResult(delegate.getNullAnnotation(), _annotationFactory, column));
+                addAttachment(nav, delegate.getNullAnnotation(), column);
             }
 
             RowAnnotation annotation = delegate.getTrueAnnotation();
             nav.where(measureDimension, MEASURE_TRUE_COUNT).put(annotation.getRowCount());
             if (annotation.getRowCount() > 0) {
-                nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, column));
+                addAttachment(nav, annotation, column);
             }
 
             annotation = delegate.getFalseAnnotation();
             nav.where(measureDimension, MEASURE_FALSE_COUNT).put(annotation.getRowCount());
             if (annotation.getRowCount() > 0) {
-                nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, column));
+                addAttachment(nav, annotation, column);
             }
         }
 
@@ -194,7 +217,7 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
 
                 nav.where(columnDimension, VALUE_COMBINATION_COLUMN_FREQUENCY);
                 nav.put(annotation.getRowCount());
-                nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, _columns));
+                addAttachment(nav, annotation, _columns);
 
                 for (int i = 0; i < valueCombination.getValueCount(); i++) {
                     InputColumn<Boolean> column = _columns[i];
@@ -222,4 +245,14 @@ public class BooleanAnalyzer implements Analyzer<BooleanAnalyzerResult> {
         return new BooleanAnalyzerResult(crosstab, valueCombinationCrosstab);
     }
 
+    private void addAttachment(CrosstabNavigator<Number> nav, RowAnnotation annotation, InputColumn<?>... columns) {
+        if (!_recordDrillDownInformation) {
+            return;
+        }
+        nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, columns));
+    }
+
+    public void setRecordDrillDownInformation(boolean recordDrillDownInformation) {
+        _recordDrillDownInformation = recordDrillDownInformation;
+    }
 }
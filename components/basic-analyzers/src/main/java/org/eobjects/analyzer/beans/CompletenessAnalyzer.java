@@ -20,20 +20,23 @@
 package org.eobjects.analyzer.beans;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Inject;
 
-import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.AnalyzerBean;
+import org.eobjects.analyzer.beans.api.BatchProcessingAnalyzer;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.Initialize;
 import org.eobjects.analyzer.beans.api.Provided;
+import org.eobjects.analyzer.beans.api.QueryOptimizedAnalyzer;
 import org.eobjects.analyzer.beans.categories.ValidationCategory;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.storage.InMemoryRowAnnotationFactory;
 import org.eobjects.analyzer.storage.RowAnnotation;
 import org.eobjects.analyzer.storage.RowAnnotationFactory;
 import org.eobjects.analyzer.util.StringUtils;
@@ -42,7 +45,8 @@ import org.apache.metamodel.util.HasName;
 @AnalyzerBean("Completeness analyzer")
 @Description("Asserts the completeness of your data by ensuring that all required fields are filled.")
 @Categorized(ValidationCategory.class)
-public class CompletenessAnalyzer implements Analyzer<CompletenessAnalyzerResult> {
+public class CompletenessAnalyzer implements QueryOptimizedAnalyzer<CompletenessAnalyzerResult>,
+        BatchProcessingAnalyzer<CompletenessAnalyzerResult> {
 
     public static enum Condition implements HasName {
         NOT_BLANK_OR_NULL("Not <blank> or <null>"), NOT_NULL("Not <null>");
@@ -89,6 +93,11 @@ public class CompletenessAnalyzer implements Analyzer<CompletenessAnalyzerResult
     @Configured("Evaluation mode")
     EvaluationMode _evaluationMode = EvaluationMode.ANY_FIELD;
 
+    @Inject
+    @Configured(value = "Record drill-down information", required = false)
+    @Description("Record the incomplete records to allow drilling to them in the result. When disabled, only the number of incomplete records is recorded.")
+    boolean _recordDrillDownInformation = true;
+
     @Inject
     @Provided
     RowAnnotation _invalidRecords;
@@ -98,6 +107,7 @@ public class CompletenessAnalyzer implements Analyzer<CompletenessAnalyzerResult
     RowAnnotationFactory _annotationFactory;
 
     private final AtomicInteger _rowCount;
+    private RowAnnotationFactory _invalidRecordsAnnotationFactory;
 
     public CompletenessAnalyzer() {
         _rowCount = new AtomicInteger();
@@ -106,11 +116,37 @@ public class CompletenessAnalyzer implements Analyzer<CompletenessAnalyzerResult
     @Initialize
     public void init() {
         _rowCount.set(0);
+        if (_recordDrillDownInformation) {
+            _invalidRecordsAnnotationFactory = _annotationFactory;
+        } else {
+            // a threshold of 0 stored rows only counts the annotated rows
+            _invalidRecordsAnnotationFactory = new InMemoryRowAnnotationFactory(0);
+        }
     }
 
     @Override
     public void run(InputRow row, int distinctCount) {
         _rowCount.addAndGet(distinctCount);
+        if (isIncomplete(row)) {
+            _invalidRecordsAnnotationFactory.annotate(row, distinctCount, _invalidRecords);
+        }
+    }
+
+    @Override
+    public void run(List<InputRow> rows, int[] distinctCounts) {
+        int rowCount = 0;
+        for (int i = 0; i < distinctCounts.length; i++) {
+            final InputRow row = rows.get(i);
+            final int distinctCount = distinctCounts[i];
+            rowCount += distinctCount;
+            if (isIncomplete(row)) {
+                _invalidRecordsAnnotationFactory.annotate(row, distinctCount, _invalidRecords);
+            }
+        }
+        _rowCount.addAndGet(rowCount);
+    }
+
+    private boolean isIncomplete(InputRow row) {
         boolean allInvalid = true;
         for (int i = 0; i < _valueColumns.length; i++) {
             final Object value = row.getValue(_valueColumns[i]);
@@ -121,18 +157,25 @@ public class CompletenessAnalyzer implements Analyzer<CompletenessAnalyzerResult
                 valid = value != null;
             }
             if (_evaluationMode == EvaluationMode.ANY_FIELD && !valid) {
-                _annotationFactory.annotate(row, distinctCount, _invalidRecords);
-                return;
+                return true;
             }
             
             if (valid) {
                 allInvalid = false;
             }
         }
-        if (_evaluationMode == EvaluationMode.ALL_FIELDS && allInvalid) {
-            _annotationFactory.annotate(row, distinctCount, _invalidRecords);
-            return;
-        }
+        return _evaluationMode == EvaluationMode.ALL_FIELDS && allInvalid;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The completeness of a record only depends on the value columns, but
+     * aggregated records cannot be used as drill-down information.
+     */
+    @Override
+    public boolean isOptimizable() {
+        return !_recordDrillDownInformation;
     }
 
     @Override
@@ -148,6 +191,10 @@ public class CompletenessAnalyzer implements Analyzer<CompletenessAnalyzerResult
         _valueColumns = valueColumns;
     }
 
+    public void setRecordDrillDownInformation(boolean recordDrillDownInformation) {
+        _recordDrillDownInformation = recordDrillDownInformation;
+    }
+
     /**
      * Shortcut method to fill all conditions (of existing columns) to a single
      * condition.
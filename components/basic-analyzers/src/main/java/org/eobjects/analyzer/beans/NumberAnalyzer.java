@@ -94,6 +94,11 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
     @Description("Gather so-called descriptive statistics, including median, skewness, kurtosis and percentiles, which have a larger memory-footprint.")
     boolean descriptiveStatistics = false;
 
+    @Inject
+    @Configured(value = "Record drill-down information", required = false)
+    @Description("Record the null, highest and lowest value records to allow drilling to them in the result.")
+    boolean _recordDrillDownInformation = true;
+
     @Inject
     @Provided
     RowAnnotationFactory _annotationFactory;
@@ -111,8 +116,12 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
 
     @Initialize
     public void init() {
+        // without drill-down information the annotations are only used to
+        // count rows, which a threshold of 0 stored rows achieves
+        final RowAnnotationFactory annotationFactory = (_recordDrillDownInformation ? _annotationFactory
+                : new InMemoryRowAnnotationFactory(0));
         for (InputColumn<? extends Number> column : _columns) {
-            _columnDelegates.put(column, new NumberAnalyzerColumnDelegate(descriptiveStatistics, _annotationFactory));
+            _columnDelegates.put(column, new NumberAnalyzerColumnDelegate(descriptiveStatistics, annotationFactory));
         }
     }
 
@@ -230,6 +239,13 @@ public class NumberAnalyzer implements Analyzer<NumberAnalyzerResult> {
     }
 
     private void addAttachment(CrosstabNavigator<Number> nav, RowAnnotation annotation, InputColumn<?> column) {
+        if (!_recordDrillDownInformation) {
+            return;
+        }
         nav.attach(new AnnotatedRowsResult(annotation, _annotationFactory, column));
     }
+
+    public void setRecordDrillDownInformation(boolean recordDrillDownInformation) {
+        _recordDrillDownInformation = recordDrillDownInformation;
+    }
 }
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.eobjects.analyzer.beans.api.Alias;
+import org.eobjects.analyzer.beans.api.BatchProcessingFilter;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
@@ -43,7 +44,8 @@ import org.apache.metamodel.schema.Column;
 @Description("Filter rows that contain null values.")
 @Categorized(FilterCategory.class)
 @Distributed(true)
-public class NullCheckFilter implements QueryOptimizedFilter<NullCheckFilter.NullCheckCategory> {
+public class NullCheckFilter implements QueryOptimizedFilter<NullCheckFilter.NullCheckCategory>,
+        BatchProcessingFilter<NullCheckFilter.NullCheckCategory> {
 
     public static enum NullCheckCategory {
         @Alias("INVALID")
@@ -128,4 +130,13 @@ public class NullCheckFilter implements QueryOptimizedFilter<NullCheckFilter.Nul
         }
         return NullCheckCategory.NOT_NULL;
     }
+
+    @Override
+    public NullCheckCategory[] categorize(List<InputRow> inputRows) {
+        final NullCheckCategory[] result = new NullCheckCategory[inputRows.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = categorize(inputRows.get(i));
+        }
+        return result;
+    }
 }
@@ -19,11 +19,13 @@
  */
 package org.eobjects.analyzer.beans.transform;
 
+import java.util.List;
+
+import org.eobjects.analyzer.beans.api.BatchProcessingTransformer;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.OutputColumns;
-import org.eobjects.analyzer.beans.api.Transformer;
 import org.eobjects.analyzer.beans.api.TransformerBean;
 import org.eobjects.analyzer.beans.categories.StringManipulationCategory;
 import org.eobjects.analyzer.data.InputColumn;
@@ -37,7 +39,7 @@ import org.eobjects.analyzer.data.InputRow;
 @TransformerBean("Concatenator")
 @Description("Concatenate several column values into one.")
 @Categorized({ StringManipulationCategory.class })
-public class ConcatenatorTransformer implements Transformer<String> {
+public class ConcatenatorTransformer implements BatchProcessingTransformer<String> {
 
 	@Configured
 	InputColumn<?>[] columns;
@@ -73,7 +75,21 @@ public class ConcatenatorTransformer implements Transformer<String> {
 
 	@Override
 	public String[] transform(InputRow inputRow) {
+		return new String[] { concatenate(inputRow, new StringBuilder()) };
+	}
+
+	@Override
+	public String[][] transform(List<InputRow> inputRows) {
+		String[] columnResult = new String[inputRows.size()];
 		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < columnResult.length; i++) {
+			sb.setLength(0);
+			columnResult[i] = concatenate(inputRows.get(i), sb);
+		}
+		return new String[][] { columnResult };
+	}
+
+	private String concatenate(InputRow inputRow, StringBuilder sb) {
 		boolean first = true;
 		for (int i = 0; i < columns.length; i++) {
 			InputColumn<?> column = columns[i];
@@ -86,7 +102,7 @@ public class ConcatenatorTransformer implements Transformer<String> {
 				first = false;
 			}
 		}
-		return new String[] { sb.toString() };
+		return sb.toString();
 	}
 
 }
@@ -19,13 +19,14 @@
  */
 package org.eobjects.analyzer.beans.transform;
 
+import java.util.List;
 import java.util.StringTokenizer;
 
+import org.eobjects.analyzer.beans.api.BatchProcessingTransformer;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.OutputColumns;
-import org.eobjects.analyzer.beans.api.Transformer;
 import org.eobjects.analyzer.beans.api.TransformerBean;
 import org.eobjects.analyzer.beans.categories.StringManipulationCategory;
 import org.eobjects.analyzer.data.InputColumn;
@@ -35,7 +36,7 @@ import org.apache.metamodel.util.HasName;
 @TransformerBean("Text case transformer")
 @Description("Modifies the text case/capitalization of Strings.")
 @Categorized({ StringManipulationCategory.class })
-public class TextCaseTransformer implements Transformer<String> {
+public class TextCaseTransformer implements BatchProcessingTransformer<String> {
 
     /**
      * Enum depicting the modes of operation for the text case modifications.
@@ -82,6 +83,16 @@ public class TextCaseTransformer implements Transformer<String> {
         return result;
     }
 
+    @Override
+    public String[][] transform(List<InputRow> rows) {
+        final String[] columnResult = new String[rows.size()];
+        for (int i = 0; i < columnResult.length; i++) {
+            final String value = rows.get(i).getValue(valueColumn);
+            columnResult[i] = transform(value);
+        }
+        return new String[][] { columnResult };
+    }
+
     public String transform(String value) {
         if (value == null) {
             return null;
@@ -19,11 +19,13 @@
  */
 package org.eobjects.analyzer.beans.transform;
 
+import java.util.List;
+
+import org.eobjects.analyzer.beans.api.BatchProcessingTransformer;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.OutputColumns;
-import org.eobjects.analyzer.beans.api.Transformer;
 import org.eobjects.analyzer.beans.api.TransformerBean;
 import org.eobjects.analyzer.beans.categories.StringManipulationCategory;
 import org.eobjects.analyzer.data.InputColumn;
@@ -33,7 +35,7 @@ import org.eobjects.analyzer.util.StringUtils;
 @TransformerBean("Whitespace trimmer")
 @Description("Trims your String values either on left, right or both sides.")
 @Categorized({ StringManipulationCategory.class })
-public class WhitespaceTrimmerTransformer implements Transformer<String> {
+public class WhitespaceTrimmerTransformer implements BatchProcessingTransformer<String> {
 
 	@Configured
 	InputColumn<String>[] columns;
@@ -80,6 +82,20 @@ public class WhitespaceTrimmerTransformer implements Transformer<String> {
 		return result;
 	}
 
+	@Override
+	public String[][] transform(List<InputRow> inputRows) {
+		String[][] result = new String[columns.length][inputRows.size()];
+		for (int i = 0; i < columns.length; i++) {
+			InputColumn<String> column = columns[i];
+			String[] columnResult = result[i];
+			for (int j = 0; j < columnResult.length; j++) {
+				String value = inputRows.get(j).getValue(column);
+				columnResult[j] = transform(value);
+			}
+		}
+		return result;
+	}
+
 	public String transform(String value) {
 		if (value == null) {
 			return null;
@@ -37,6 +37,7 @@ import org.eobjects.analyzer.beans.api.TransformerBean;
 import org.eobjects.analyzer.beans.categories.NumbersCategory;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.InputRowELResolver;
 import org.eobjects.analyzer.util.StringUtils;
 
 import de.odysseus.el.ExpressionFactoryImpl;
@@ -57,6 +58,8 @@ public class MathFormulaTransformer implements Transformer<Number> {
 
     private ExpressionFactoryImpl _factory;
     private Map<String, List<String>> _columnAliases;
+    private ValueExpression _valueExpression;
+    private ThreadLocal<InputRowELResolver> _resolvers;
 
     @Override
     public OutputColumns getOutputColumns() {
@@ -80,26 +83,34 @@ public class MathFormulaTransformer implements Transformer<Number> {
             i++;
             _columnAliases.put(name, list);
         }
+
+        // parse the formula once, variables are bound for each row
+        final String expression = "#{" + _formula.toLowerCase() + "}";
+        _valueExpression = _factory.createValueExpression(new SimpleContext(), expression, Number.class);
+
+        _resolvers = new ThreadLocal<InputRowELResolver>() {
+            @Override
+            protected InputRowELResolver initialValue() {
+                return new InputRowELResolver(_factory);
+            }
+        };
     }
 
     @Override
     public Number[] transform(InputRow inputRow) {
-        final SimpleContext context = new SimpleContext();
+        final InputRowELResolver resolver = _resolvers.get();
+        resolver.clear();
 
         for (InputColumn<Number> inputColumn : _input) {
             Number value = inputRow.getValue(inputColumn);
-            ValueExpression valueExpression = _factory.createValueExpression(value, Number.class);
             List<String> aliases = _columnAliases.get(inputColumn.getName());
             for (String alias : aliases) {
-                context.setVariable(alias, valueExpression);
+                resolver.setVariable(alias, value, Number.class);
             }
         }
 
-        final String expression = "#{" + _formula.toLowerCase() + "}";
-        final ValueExpression valueExpression = _factory.createValueExpression(context, expression, Number.class);
-
         try {
-            final Object value = valueExpression.getValue(context);
+            final Object value = _valueExpression.getValue(resolver.getContext());
             assert value instanceof Number;
 
             if (value instanceof Double) {
@@ -20,7 +20,10 @@
 package org.eobjects.analyzer.data;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.el.ELContext;
 import javax.el.ELException;
 import javax.el.ExpressionFactory;
 import javax.el.ValueExpression;
@@ -37,7 +40,8 @@ import de.odysseus.el.util.SimpleContext;
  * value. This can be used as a lightweight alternative to eg. JavaScript
  * transformation.
  * 
- * 
+ * The expression is parsed only once, and the values of the row are bound as
+ * variables using a (per thread) reusable {@link InputRowELResolver}.
  */
 public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 
@@ -49,6 +53,11 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 	private final ExpressionFactory _factory;
 	private final String _expression;
 
+	private transient volatile ValueExpression _valueExpression;
+	private transient volatile boolean _invalidExpression;
+	private transient volatile ThreadLocal<InputRowELResolver> _resolvers;
+	private transient volatile Map<String, String> _variableNames;
+
 	public ELInputColumn(String expression) {
 		_expression = expression;
 		_factory = new ExpressionFactoryImpl();
@@ -56,24 +65,26 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 
 	@Override
 	public String evaluate(InputRow row) {
-		SimpleContext context = new SimpleContext();
-		List<InputColumn<?>> inputColumns = row.getInputColumns();
+		final ValueExpression valueExpression = getValueExpression();
+		if (valueExpression == null) {
+			return null;
+		}
+
+		final InputRowELResolver resolver = getResolver();
+		resolver.clear();
+
+		final List<InputColumn<?>> inputColumns = row.getInputColumns();
 		for (InputColumn<?> inputColumn : inputColumns) {
 			if (!(inputColumn instanceof ExpressionBasedInputColumn)) {
 				Object value = row.getValue(inputColumn);
 				Class<?> javaType = inputColumn.getDataType();
-				ValueExpression valueExpression = _factory
-						.createValueExpression(value, javaType);
-				String variableName = inputColumn.getName();
-				variableName = StringUtils
-						.replaceWhitespaces(variableName, "_");
-				context.setVariable(variableName, valueExpression);
+				String variableName = getVariableName(inputColumn);
+				resolver.setVariable(variableName, value, javaType);
 			}
 		}
 
+		final ELContext context = resolver.getContext();
 		try {
-			ValueExpression valueExpression = _factory.createValueExpression(
-					context, _expression, String.class);
 			return (String) valueExpression.getValue(context);
 		} catch (ELException e) {
 			logger.error("Could not evaluate EL expression", e);
@@ -81,6 +92,56 @@ public class ELInputColumn extends AbstractExpressionBasedInputColumn<String> {
 		}
 	}
 
+	private String getVariableName(InputColumn<?> inputColumn) {
+		final String name = inputColumn.getName();
+		String variableName = _variableNames.get(name);
+		if (variableName == null) {
+			variableName = StringUtils.replaceWhitespaces(name, "_");
+			_variableNames.put(name, variableName);
+		}
+		return variableName;
+	}
+
+	/**
+	 * Gets the parsed expression. Since no variables are bound in the context
+	 * used for parsing, all identifiers will be resolved at evaluation time.
+	 * 
+	 * @return the parsed expression, or null if the expression is invalid
+	 */
+	private ValueExpression getValueExpression() {
+		if (_valueExpression == null && !_invalidExpression) {
+			synchronized (this) {
+				if (_valueExpression == null && !_invalidExpression) {
+					try {
+						_valueExpression = _factory.createValueExpression(
+								new SimpleContext(), _expression, String.class);
+					} catch (ELException e) {
+						logger.error("Could not parse EL expression", e);
+						_invalidExpression = true;
+					}
+				}
+			}
+		}
+		return _valueExpression;
+	}
+
+	private InputRowELResolver getResolver() {
+		if (_resolvers == null) {
+			synchronized (this) {
+				if (_resolvers == null) {
+					_variableNames = new ConcurrentHashMap<String, String>();
+					_resolvers = new ThreadLocal<InputRowELResolver>() {
+						@Override
+						protected InputRowELResolver initialValue() {
+							return new InputRowELResolver(_factory);
+						}
+					};
+				}
+			}
+		}
+		return _resolvers.get();
+	}
+
 	@Override
 	public String getExpression() {
 		return _expression;
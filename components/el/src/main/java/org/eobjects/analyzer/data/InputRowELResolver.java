@@ -0,0 +1,153 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.data;
+
+import java.beans.FeatureDescriptor;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ExpressionFactory;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.PropertyNotWritableException;
+import javax.el.ResourceBundleELResolver;
+
+import de.odysseus.el.util.SimpleContext;
+
+/**
+ * {@link ELResolver} which resolves top-level identifiers of an EL expression
+ * to variable values that are bound at evaluation time.
+ * 
+ * Variables that are set on an {@link ELContext} (as value expressions) are
+ * bound when an expression is created, which means that an expression would
+ * have to be parsed again for every row. By resolving the variables through
+ * this resolver instead, an expression can be parsed once and then evaluated
+ * many times, simply by rebinding the variables before each evaluation.
+ * 
+ * Variable values are coerced to their declared type when resolved, just like
+ * the value expressions created by
+ * {@link ExpressionFactory#createValueExpression(Object, Class)}.
+ * 
+ * The resolver is not thread-safe, so each thread should use its own instance
+ * (and context).
+ */
+public final class InputRowELResolver extends ELResolver {
+
+    private final ExpressionFactory _factory;
+    private final Map<String, Object> _values;
+    private final Map<String, Class<?>> _types;
+    private final SimpleContext _context;
+
+    public InputRowELResolver(ExpressionFactory factory) {
+        _factory = factory;
+        _values = new HashMap<String, Object>();
+        _types = new HashMap<String, Class<?>>();
+
+        final CompositeELResolver resolver = new CompositeELResolver();
+        resolver.add(this);
+        resolver.add(new ArrayELResolver(true));
+        resolver.add(new ListELResolver(true));
+        resolver.add(new MapELResolver(true));
+        resolver.add(new ResourceBundleELResolver());
+        resolver.add(new BeanELResolver(true));
+        _context = new SimpleContext(resolver);
+    }
+
+    /**
+     * Gets the context to use when evaluating expressions with the variables
+     * of this resolver.
+     * 
+     * @return
+     */
+    public ELContext getContext() {
+        return _context;
+    }
+
+    /**
+     * Removes all variables, typically before binding the variables of a new
+     * row.
+     */
+    public void clear() {
+        _values.clear();
+        _types.clear();
+    }
+
+    public void setVariable(String name, Object value, Class<?> type) {
+        _values.put(name, value);
+        _types.put(name, type);
+    }
+
+    private boolean isVariable(Object base, Object property) {
+        return base == null && property instanceof String && _types.containsKey(property);
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        if (isVariable(base, property)) {
+            context.setPropertyResolved(true);
+            return _factory.coerceToType(_values.get(property), _types.get(property));
+        }
+        return null;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        if (isVariable(base, property)) {
+            context.setPropertyResolved(true);
+            return _types.get(property);
+        }
+        return null;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        if (isVariable(base, property)) {
+            throw new PropertyNotWritableException("Variable is read-only: " + property);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        if (isVariable(base, property)) {
+            context.setPropertyResolved(true);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        if (base == null) {
+            return String.class;
+        }
+        return null;
+    }
+}
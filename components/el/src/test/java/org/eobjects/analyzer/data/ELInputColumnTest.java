@@ -41,4 +41,25 @@ public class ELInputColumnTest extends TestCase {
 		MockInputColumn<String> fooCol = new MockInputColumn<String>("foo bar", String.class);
 		assertEquals("Hello World", elCol.evaluate(new MockInputRow().put(fooCol, "World")));
 	}
+
+	public void testReuseExpressionForMultipleRows() throws Exception {
+		ELInputColumn elCol = new ELInputColumn("#{foo} #{bar}");
+
+		MockInputColumn<String> fooCol = new MockInputColumn<String>("foo", String.class);
+		MockInputColumn<Integer> barCol = new MockInputColumn<Integer>("bar", Integer.class);
+
+		assertEquals("Hello 1", elCol.evaluate(new MockInputRow().put(fooCol, "Hello").put(barCol, 1)));
+		assertEquals("World 2", elCol.evaluate(new MockInputRow().put(fooCol, "World").put(barCol, 2)));
+		assertEquals(" 3", elCol.evaluate(new MockInputRow().put(fooCol, null).put(barCol, 3)));
+
+		// variables of previous rows should not be retained
+		assertNull(elCol.evaluate(new MockInputRow().put(fooCol, "Hello")));
+	}
+
+	public void testInvalidExpression() throws Exception {
+		ELInputColumn elCol = new ELInputColumn("Hello #{foo");
+
+		MockInputColumn<String> fooCol = new MockInputColumn<String>("foo", String.class);
+		assertNull(elCol.evaluate(new MockInputRow().put(fooCol, "World")));
+	}
 }
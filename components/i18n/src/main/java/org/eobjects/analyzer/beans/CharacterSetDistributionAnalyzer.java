@@ -52,6 +52,7 @@ public class CharacterSetDistributionAnalyzer implements
 		Analyzer<CharacterSetDistributionResult> {
 
 	private static final Map<String, UnicodeSet> UNICODE_SETS = createUnicodeSets();
+	private static final UnicodeSetLookupTable UNICODE_SET_LOOKUP_TABLE = new UnicodeSetLookupTable(UNICODE_SETS);
 
 	@Inject
 	@Configured
@@ -67,7 +68,7 @@ public class CharacterSetDistributionAnalyzer implements
 	public void init() {
 		for (InputColumn<String> column : _columns) {
 			CharacterSetDistributionAnalyzerColumnDelegate delegate = new CharacterSetDistributionAnalyzerColumnDelegate(
-					_annotationFactory, UNICODE_SETS);
+					_annotationFactory, UNICODE_SET_LOOKUP_TABLE);
 			_columnDelegates.put(column, delegate);
 		}
 	}
@@ -19,21 +19,9 @@
  */
 package org.eobjects.analyzer.beans;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-
 import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.storage.RowAnnotation;
 import org.eobjects.analyzer.storage.RowAnnotationFactory;
-import org.eobjects.analyzer.util.CharIterator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.ibm.icu.text.UnicodeSet;
 
 /**
  * Performs character set distribution analysis for a single column. Used by the
@@ -43,46 +31,54 @@ import com.ibm.icu.text.UnicodeSet;
  */
 final class CharacterSetDistributionAnalyzerColumnDelegate {
 
-	private static final Logger logger = LoggerFactory.getLogger(CharacterSetDistributionAnalyzerColumnDelegate.class);
 	private final RowAnnotationFactory _annotationFactory;
-	private final Map<String, UnicodeSet> _unicodeSets;
-	private final Map<String, RowAnnotation> _annotations;
+	private final UnicodeSetLookupTable _lookupTable;
+	private final RowAnnotation[] _annotations;
 
 	public CharacterSetDistributionAnalyzerColumnDelegate(RowAnnotationFactory annotationFactory,
-			Map<String, UnicodeSet> unicodeSets) {
+			UnicodeSetLookupTable lookupTable) {
 		_annotationFactory = annotationFactory;
-		_unicodeSets = unicodeSets;
-		_annotations = new HashMap<String, RowAnnotation>();
-		for (String name : unicodeSets.keySet()) {
-			_annotations.put(name, _annotationFactory.createAnnotation());
+		_lookupTable = lookupTable;
+		_annotations = new RowAnnotation[lookupTable.getSetCount()];
+		for (int i = 0; i < _annotations.length; i++) {
+			_annotations[i] = _annotationFactory.createAnnotation();
 		}
 	}
 
 	public RowAnnotation getAnnotation(String unicodeSetName) {
-		return _annotations.get(unicodeSetName);
+		final String[] names = _lookupTable.getNames();
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(unicodeSetName)) {
+				return _annotations[i];
+			}
+		}
+		return null;
 	}
 
 	public synchronized void run(String value, InputRow row, int distinctCount) {
-		final List<Entry<String, UnicodeSet>> unicodeSetsRemaining = new ArrayList<Entry<String, UnicodeSet>>(
-				_unicodeSets.entrySet());
-		CharIterator charIterator = new CharIterator(value);
-		while (charIterator.hasNext()) {
-			Character c = charIterator.next();
-			if (charIterator.isWhitespace() || charIterator.isDigit()) {
-				logger.debug("Skipping whitespace/digit char: {}", c);
-			} else {
+		if (value == null) {
+			return;
+		}
+
+		// the unicode sets that have not yet been found in this value
+		long remaining = _lookupTable.getAllSetsMask();
 
-				Iterator<Entry<String, UnicodeSet>> it = unicodeSetsRemaining.iterator();
-				while (it.hasNext()) {
-					Entry<String, UnicodeSet> unicodeSet = it.next();
-					if (unicodeSet.getValue().contains(c)) {
-						String name = unicodeSet.getKey();
-						RowAnnotation annotation = _annotations.get(name);
-						_annotationFactory.annotate(row, distinctCount, annotation);
+		final int length = value.length();
+		int i = 0;
+		while (i < length && remaining != 0L) {
+			final int codePoint = value.codePointAt(i);
+			i += Character.charCount(codePoint);
+
+			if (Character.isWhitespace(codePoint) || Character.isDigit(codePoint)) {
+				continue;
+			}
 
-						// remove this unicode set from the remaining checks on
-						// this value.
-						it.remove();
+			final long found = _lookupTable.lookup(codePoint) & remaining;
+			if (found != 0L) {
+				remaining &= ~found;
+				for (int setIndex = 0; setIndex < _annotations.length; setIndex++) {
+					if ((found & (1L << setIndex)) != 0L) {
+						_annotationFactory.annotate(row, distinctCount, _annotations[setIndex]);
 					}
 				}
 			}
@@ -0,0 +1,178 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.ibm.icu.text.UnicodeSet;
+
+/**
+ * A precomputed lookup table that maps code points to the (indexes of the)
+ * unicode sets that contain them. Used by the
+ * {@link CharacterSetDistributionAnalyzer} to avoid testing every character
+ * against every unicode set.
+ * 
+ * The Basic Multilingual Plane is covered by a two-level table: the high byte
+ * of a code point selects a block of 256 bit masks, and identical blocks
+ * (typically the many blocks that contain none of the sets) are shared.
+ * Supplementary code points fall back to the {@link UnicodeSet}s themselves,
+ * but only for the sets that actually contain supplementary characters.
+ * 
+ * Instances are immutable and thus thread-safe.
+ */
+final class UnicodeSetLookupTable {
+
+	/**
+	 * The maximum number of unicode sets, determined by the bit mask type.
+	 */
+	public static final int MAX_SETS = 64;
+
+	private static final int BLOCK_SHIFT = 8;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+	private static final int BMP_SIZE = 0x10000;
+
+	private final String[] _names;
+	private final long[][] _blocks;
+	private final UnicodeSet[] _supplementarySets;
+	private final long[] _supplementaryMasks;
+
+	public UnicodeSetLookupTable(Map<String, UnicodeSet> unicodeSets) {
+		if (unicodeSets.size() > MAX_SETS) {
+			throw new IllegalArgumentException("Cannot build lookup table for more than " + MAX_SETS
+					+ " unicode sets, got " + unicodeSets.size());
+		}
+
+		_names = new String[unicodeSets.size()];
+
+		final long[] bmp = new long[BMP_SIZE];
+		final List<UnicodeSet> supplementarySets = new ArrayList<UnicodeSet>();
+		final List<Long> supplementaryMasks = new ArrayList<Long>();
+
+		int index = 0;
+		for (Entry<String, UnicodeSet> entry : unicodeSets.entrySet()) {
+			_names[index] = entry.getKey();
+			final long mask = 1L << index;
+			final UnicodeSet unicodeSet = entry.getValue();
+
+			boolean supplementary = false;
+			final int rangeCount = unicodeSet.getRangeCount();
+			for (int i = 0; i < rangeCount; i++) {
+				final int start = unicodeSet.getRangeStart(i);
+				final int end = unicodeSet.getRangeEnd(i);
+				final int bmpEnd = Math.min(end, BMP_SIZE - 1);
+				for (int codePoint = start; codePoint <= bmpEnd; codePoint++) {
+					bmp[codePoint] |= mask;
+				}
+				if (end >= BMP_SIZE) {
+					supplementary = true;
+				}
+			}
+
+			if (supplementary) {
+				supplementarySets.add(unicodeSet);
+				supplementaryMasks.add(mask);
+			}
+			index++;
+		}
+
+		_blocks = createBlocks(bmp);
+		_supplementarySets = supplementarySets.toArray(new UnicodeSet[supplementarySets.size()]);
+		_supplementaryMasks = new long[supplementaryMasks.size()];
+		for (int i = 0; i < _supplementaryMasks.length; i++) {
+			_supplementaryMasks[i] = supplementaryMasks.get(i);
+		}
+	}
+
+	private static long[][] createBlocks(long[] bmp) {
+		final long[][] blocks = new long[BMP_SIZE >> BLOCK_SHIFT][];
+		final List<long[]> distinctBlocks = new ArrayList<long[]>();
+		for (int i = 0; i < blocks.length; i++) {
+			final long[] block = Arrays.copyOfRange(bmp, i << BLOCK_SHIFT, (i + 1) << BLOCK_SHIFT);
+			long[] sharedBlock = null;
+			for (long[] distinctBlock : distinctBlocks) {
+				if (Arrays.equals(block, distinctBlock)) {
+					sharedBlock = distinctBlock;
+					break;
+				}
+			}
+			if (sharedBlock == null) {
+				distinctBlocks.add(block);
+				sharedBlock = block;
+			}
+			blocks[i] = sharedBlock;
+		}
+		return blocks;
+	}
+
+	/**
+	 * Gets the names of the unicode sets, in the order of their bit indexes.
+	 * 
+	 * @return
+	 */
+	public String[] getNames() {
+		return Arrays.copyOf(_names, _names.length);
+	}
+
+	/**
+	 * Gets the number of unicode sets in this lookup table.
+	 * 
+	 * @return
+	 */
+	public int getSetCount() {
+		return _names.length;
+	}
+
+	/**
+	 * Gets a bit mask with all unicode sets of this lookup table set.
+	 * 
+	 * @return
+	 */
+	public long getAllSetsMask() {
+		if (_names.length == MAX_SETS) {
+			return -1L;
+		}
+		return (1L << _names.length) - 1;
+	}
+
+	/**
+	 * Looks up the unicode sets that contain a particular code point.
+	 * 
+	 * @param codePoint
+	 * @return a bit mask where bit <i>n</i> is set if the <i>n</i>'th unicode
+	 *         set contains the code point.
+	 */
+	public long lookup(int codePoint) {
+		if (codePoint < BMP_SIZE) {
+			return _blocks[codePoint >>> BLOCK_SHIFT][codePoint & BLOCK_MASK];
+		}
+		long result = 0L;
+		for (int i = 0; i < _supplementarySets.length; i++) {
+			if (_supplementarySets[i].contains(codePoint)) {
+				result |= _supplementaryMasks[i];
+			}
+		}
+		return result;
+	}
+}
@@ -65,6 +65,27 @@ public class CharacterSetDistributionAnalyzerTest extends TestCase {
 		assertTrue(set.contains('æ'));
 	}
 
+	public void testLookupTableConsistentWithUnicodeSets() throws Exception {
+		Map<String, UnicodeSet> unicodeSets = CharacterSetDistributionAnalyzer.createUnicodeSets();
+		UnicodeSetLookupTable lookupTable = new UnicodeSetLookupTable(unicodeSets);
+		String[] names = lookupTable.getNames();
+		assertEquals(CHARSET_NAMES, Arrays.toString(names));
+
+		for (int codePoint = 0; codePoint < 0x10000; codePoint++) {
+			long mask = lookupTable.lookup(codePoint);
+			for (int i = 0; i < names.length; i++) {
+				boolean expected = unicodeSets.get(names[i]).contains(codePoint);
+				assertEquals("Mismatch for " + names[i] + " at code point " + codePoint, expected,
+						(mask & (1L << i)) != 0L);
+			}
+		}
+
+		// supplementary ideograph, U+20000
+		int hanIndex = Arrays.asList(names).indexOf("Han");
+		assertEquals(1L << hanIndex, lookupTable.lookup(0x20000));
+		assertEquals(0L, lookupTable.lookup(0x1F600));
+	}
+
 	public void testSimpleScenario() throws Exception {
 		CharacterSetDistributionAnalyzer analyzer = new CharacterSetDistributionAnalyzer();
 		InputColumn<String> col1 = new MockInputColumn<String>("foo", String.class);
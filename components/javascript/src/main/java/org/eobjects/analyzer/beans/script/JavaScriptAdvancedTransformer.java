@@ -37,7 +37,6 @@ import org.eobjects.analyzer.beans.categories.ScriptingCategory;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.NativeObject;
 import org.mozilla.javascript.Script;
@@ -77,7 +76,11 @@ public class JavaScriptAdvancedTransformer implements Transformer<Object> {
     @Provided
     OutputRowCollector rowCollector;
 
-    private ContextFactory _contextFactory;
+    private JavaScriptContextFactory _contextFactory;
+    private String[] _columnNames;
+    private Object[] _values;
+    private Object _jsColumnNames;
+    private Object _jsValues;
     private Script _script;
     private ScriptableObject _sharedScope;
     private NativeObject _transformerObj;
@@ -100,7 +103,12 @@ public class JavaScriptAdvancedTransformer implements Transformer<Object> {
 
     @Initialize
     public void init() {
-        _contextFactory = new ContextFactory();
+        _contextFactory = new JavaScriptContextFactory();
+
+        _columnNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            _columnNames[i] = columns[i].getName();
+        }
 
         Context context = _contextFactory.enterContext();
         try {
@@ -116,6 +124,12 @@ public class JavaScriptAdvancedTransformer implements Transformer<Object> {
                 throw new IllegalStateException("Required JS object 'transformerObj' not found!");
             }
 
+            // the arrays are wrapped once and updated in place for every row
+            // (the transformer is not concurrent)
+            _values = new Object[columns.length];
+            _jsColumnNames = Context.javaToJS(_columnNames, _sharedScope);
+            _jsValues = Context.javaToJS(_values, _sharedScope);
+
             _initializeFunction = (Function) _transformerObj.get("initialize");
             _transformFunction = (Function) _transformerObj.get("transform");
             _closeFunction = (Function) _transformerObj.get("close");
@@ -138,15 +152,12 @@ public class JavaScriptAdvancedTransformer implements Transformer<Object> {
 
     @Override
     public Object[] transform(InputRow inputRow) {
-        Context context = _contextFactory.enterContext();
+        Context context = _contextFactory.enterReusableContext();
         try {
-            String[] columnNames = new String[columns.length];
-            Object[] values = new Object[columns.length];
             for (int i = 0; i < columns.length; i++) {
-                columnNames[i] = columns[i].getName();
-                values[i] = inputRow.getValue(columns[i]);
+                _values[i] = inputRow.getValue(columns[i]);
             }
-            Object[] args = { columnNames, values, rowCollector };
+            Object[] args = { _jsColumnNames, _jsValues, rowCollector };
             _transformFunction.call(context, _sharedScope, _sharedScope, args);
             return null;
         } finally {
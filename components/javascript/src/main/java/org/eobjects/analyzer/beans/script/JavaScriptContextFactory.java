@@ -0,0 +1,65 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.script;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+
+/**
+ * {@link ContextFactory} used by the JavaScript components. It compiles scripts
+ * with all available optimizations and allows each thread to reuse a single
+ * {@link Context} instance instead of creating a new one every time a script
+ * is executed.
+ */
+final class JavaScriptContextFactory extends ContextFactory {
+
+	/**
+	 * Rhino performs all of its available optimizations at any optimization
+	 * level above 0.
+	 */
+	private static final int OPTIMIZATION_LEVEL = 9;
+
+	private final ThreadLocal<Context> _contexts = new ThreadLocal<Context>();
+
+	@Override
+	protected Context makeContext() {
+		final Context context = super.makeContext();
+		context.setOptimizationLevel(OPTIMIZATION_LEVEL);
+		return context;
+	}
+
+	/**
+	 * Enters a context, reusing the {@link Context} instance previously used by
+	 * the current thread, if any. Like
+	 * {@link ContextFactory#enterContext()} the context must be exited
+	 * afterwards, using {@link Context#exit()}.
+	 * 
+	 * @return the entered context
+	 */
+	public Context enterReusableContext() {
+		final Context cachedContext = _contexts.get();
+		if (cachedContext == null && Context.getCurrentContext() == null) {
+			final Context context = enterContext();
+			_contexts.set(context);
+			return context;
+		}
+		return enterContext(cachedContext);
+	}
+}
@@ -19,10 +19,12 @@
  */
 package org.eobjects.analyzer.beans.script;
 
+import java.util.List;
+
+import org.eobjects.analyzer.beans.api.BatchProcessingFilter;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
-import org.eobjects.analyzer.beans.api.Filter;
 import org.eobjects.analyzer.beans.api.FilterBean;
 import org.eobjects.analyzer.beans.api.Initialize;
 import org.eobjects.analyzer.beans.api.StringProperty;
@@ -30,7 +32,6 @@ import org.eobjects.analyzer.beans.categories.ScriptingCategory;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
@@ -40,7 +41,7 @@ import org.slf4j.LoggerFactory;
 @FilterBean("JavaScript filter")
 @Description("Supply your own piece of JavaScript that evaluates whether rows should be included or excluded from processing.")
 @Categorized({ ScriptingCategory.class })
-public class JavaScriptFilter implements Filter<JavaScriptFilter.Category> {
+public class JavaScriptFilter implements BatchProcessingFilter<JavaScriptFilter.Category> {
 
     public static enum Category {
         VALID, INVALID;
@@ -56,7 +57,8 @@ public class JavaScriptFilter implements Filter<JavaScriptFilter.Category> {
     @StringProperty(multiline = true, mimeType = { "text/javascript", "application/x-javascript" })
     String sourceCode = "function eval() {\n  return values[0] != null;\n}\n\neval();";
 
-    private ContextFactory _contextFactory;
+    private JavaScriptContextFactory _contextFactory;
+    private ThreadLocal<JavaScriptRowBinding> _rowBindings;
     private Script _script;
 
     // this scope is shared between all threads
@@ -64,15 +66,23 @@ public class JavaScriptFilter implements Filter<JavaScriptFilter.Category> {
 
     @Initialize
     public void init() {
-        _contextFactory = new ContextFactory();
+        _contextFactory = new JavaScriptContextFactory();
         Context context = _contextFactory.enterContext();
 
         try {
             _script = context.compileString(sourceCode, this.getClass().getSimpleName(), 1, null);
-            _sharedScope = context.initStandardObjects();
+            _sharedScope = context.initStandardObjects(null, true);
 
             JavaScriptUtils.addToScope(_sharedScope, logger, "logger", "log");
             JavaScriptUtils.addToScope(_sharedScope, System.out, "out");
+            _sharedScope.sealObject();
+
+            _rowBindings = new ThreadLocal<JavaScriptRowBinding>() {
+                @Override
+                protected JavaScriptRowBinding initialValue() {
+                    return new JavaScriptRowBinding(_sharedScope, columns, "values");
+                }
+            };
         } finally {
             Context.exit();
         }
@@ -80,27 +90,46 @@ public class JavaScriptFilter implements Filter<JavaScriptFilter.Category> {
 
     @Override
     public Category categorize(InputRow inputRow) {
-        Context context = _contextFactory.enterContext();
+        Context context = _contextFactory.enterReusableContext();
 
         try {
+            return evaluate(context, _rowBindings.get(), inputRow);
+        } finally {
+            Context.exit();
+        }
+    }
 
-            // this scope is local to the execution of a single row
-            Scriptable scope = context.newObject(_sharedScope);
-            scope.setPrototype(_sharedScope);
-            scope.setParentScope(null);
-
-            JavaScriptUtils.addToScope(scope, inputRow, columns, "values");
-
-            Object result = _script.exec(context, scope);
-            boolean booleanResult = Context.toBoolean(result);
+    /**
+     * Categorizes a batch of rows, entering the JavaScript context and looking
+     * up the row binding of the current thread only once for the whole batch.
+     */
+    @Override
+    public Category[] categorize(List<InputRow> inputRows) {
+        final Category[] result = new Category[inputRows.size()];
+        final Context context = _contextFactory.enterReusableContext();
 
-            if (booleanResult) {
-                return JavaScriptFilter.Category.VALID;
+        try {
+            final JavaScriptRowBinding rowBinding = _rowBindings.get();
+            for (int i = 0; i < result.length; i++) {
+                result[i] = evaluate(context, rowBinding, inputRows.get(i));
             }
-            return JavaScriptFilter.Category.INVALID;
         } finally {
             Context.exit();
         }
+        return result;
+    }
+
+    private Category evaluate(Context context, JavaScriptRowBinding rowBinding, InputRow inputRow) {
+        // this scope is local to the execution of a single row
+        Scriptable scope = rowBinding.bind(inputRow);
+
+        Object result = _script.exec(context, scope);
+        boolean booleanResult = Context.toBoolean(result);
+
+        if (booleanResult) {
+            return JavaScriptFilter.Category.VALID;
+        }
+        return JavaScriptFilter.Category.INVALID;
     }
 
     public void setSourceCode(String sourceCode) {
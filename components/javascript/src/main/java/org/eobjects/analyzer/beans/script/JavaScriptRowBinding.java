@@ -0,0 +1,90 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.script;
+
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.NativeObject;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Holds the JavaScript objects that expose the values of a row to a script:
+ * the values array and a variable per column. The objects are created once and
+ * updated in place for every row, which avoids allocating and populating new
+ * objects per row.
+ * 
+ * The bindings are placed in the prototype chain of a small per-row scope (see
+ * {@link #bind(InputRow)}), so variables assigned by a script still only live
+ * as long as the row they were assigned in.
+ * 
+ * A row binding is not thread-safe. Use one instance per thread.
+ */
+final class JavaScriptRowBinding {
+
+	private final InputColumn<?>[] _columns;
+	private final String[][] _variableNames;
+	private final String _arrayName;
+	private final NativeObject _bindings;
+	private final NativeArray _values;
+
+	public JavaScriptRowBinding(Scriptable sharedScope, InputColumn<?>[] columns, String arrayName) {
+		_columns = columns;
+		_variableNames = JavaScriptUtils.getVariableNames(columns);
+		_arrayName = arrayName;
+
+		_bindings = new NativeObject();
+		_bindings.setPrototype(sharedScope);
+		_bindings.setParentScope(null);
+
+		_values = new NativeArray(columns.length * 2);
+	}
+
+	/**
+	 * Updates the bindings with the values of a row and creates the scope to
+	 * execute a script in for that row.
+	 * 
+	 * @param inputRow
+	 * @return a new scope, local to the execution of a single row
+	 */
+	public Scriptable bind(InputRow inputRow) {
+		for (int i = 0; i < _columns.length; i++) {
+			final InputColumn<?> column = _columns[i];
+			final Object value = JavaScriptUtils.getJavaScriptValue(inputRow, column);
+
+			_values.put(i, _values, value);
+			_values.put(column.getName(), _values, value);
+
+			final Object jsObject = Context.javaToJS(value, _bindings);
+			for (String name : _variableNames[i]) {
+				_bindings.put(name, _bindings, jsObject);
+			}
+		}
+
+		// re-bind the array, in case a script has reassigned the variable
+		_bindings.put(_arrayName, _bindings, _values);
+
+		final Scriptable scope = new NativeObject();
+		scope.setPrototype(_bindings);
+		scope.setParentScope(null);
+		return scope;
+	}
+}
@@ -19,20 +19,21 @@
  */
 package org.eobjects.analyzer.beans.script;
 
+import java.util.List;
+
 import org.eobjects.analyzer.beans.api.Alias;
+import org.eobjects.analyzer.beans.api.BatchProcessingTransformer;
 import org.eobjects.analyzer.beans.api.Categorized;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.Initialize;
 import org.eobjects.analyzer.beans.api.OutputColumns;
 import org.eobjects.analyzer.beans.api.StringProperty;
-import org.eobjects.analyzer.beans.api.Transformer;
 import org.eobjects.analyzer.beans.api.TransformerBean;
 import org.eobjects.analyzer.beans.categories.ScriptingCategory;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
 import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
@@ -46,7 +47,7 @@ import org.slf4j.LoggerFactory;
 @Alias("JavaScript transformer")
 @Description("Supply your own piece of JavaScript to do a custom transformation")
 @Categorized({ ScriptingCategory.class })
-public class JavaScriptTransformer implements Transformer<Object> {
+public class JavaScriptTransformer implements BatchProcessingTransformer<Object> {
 
 	private static final Logger logger = LoggerFactory
 			.getLogger(JavaScriptTransformer.class);
@@ -67,7 +68,8 @@ public class JavaScriptTransformer implements Transformer<Object> {
 			"application/x-javascript" })
 	String sourceCode = "function eval() {\n\treturn \"hello \" + values[0];\n}\n\neval();";
 
-	private ContextFactory _contextFactory;
+	private JavaScriptContextFactory _contextFactory;
+	private ThreadLocal<JavaScriptRowBinding> _rowBindings;
 	private Script _script;
 
 	// this scope is shared between all threads
@@ -88,16 +90,24 @@ public class JavaScriptTransformer implements Transformer<Object> {
 
 	@Initialize
 	public void init() {
-		_contextFactory = new ContextFactory();
+		_contextFactory = new JavaScriptContextFactory();
 		Context context = _contextFactory.enterContext();
 
 		try {
 			_script = context.compileString(sourceCode, this.getClass()
 					.getSimpleName(), 1, null);
-			_sharedScope = context.initStandardObjects();
+			_sharedScope = context.initStandardObjects(null, true);
 
 			JavaScriptUtils.addToScope(_sharedScope, logger, "logger", "log");
 			JavaScriptUtils.addToScope(_sharedScope, System.out, "out");
+			_sharedScope.sealObject();
+
+			_rowBindings = new ThreadLocal<JavaScriptRowBinding>() {
+				@Override
+				protected JavaScriptRowBinding initialValue() {
+					return new JavaScriptRowBinding(_sharedScope, columns, "values");
+				}
+			};
 		} finally {
 			Context.exit();
 		}
@@ -105,33 +115,55 @@ public class JavaScriptTransformer implements Transformer<Object> {
 
 	@Override
 	public Object[] transform(InputRow inputRow) {
-		Context context = _contextFactory.enterContext();
+		Context context = _contextFactory.enterReusableContext();
 
 		try {
+			return new Object[] { evaluate(context, _rowBindings.get(),
+					inputRow) };
+		} finally {
+			Context.exit();
+		}
+	}
 
-			// this scope is local to the execution of a single row
-			Scriptable scope = context.newObject(_sharedScope);
-			scope.setPrototype(_sharedScope);
-			scope.setParentScope(null);
-
-			JavaScriptUtils.addToScope(scope, inputRow, columns, "values");
-
-			Object result = _script.exec(context, scope);
-			// String stringResult = Context.toString(result);
+	/**
+	 * Transforms a batch of rows, entering the JavaScript context and looking up
+	 * the row binding of the current thread only once for the whole batch.
+	 */
+	@Override
+	public Object[][] transform(List<InputRow> inputRows) {
+		final Object[] columnResult = new Object[inputRows.size()];
+		final Context context = _contextFactory.enterReusableContext();
 
-			if (result == null) {
-				result = null;
-			} else if (returnType == ReturnType.NUMBER) {
-				result = Context.toNumber(result);
-			} else if (returnType == ReturnType.BOOLEAN) {
-				result = Context.toBoolean(result);
-			} else {
-				result = Context.toString(result);
+		try {
+			final JavaScriptRowBinding rowBinding = _rowBindings.get();
+			for (int i = 0; i < columnResult.length; i++) {
+				columnResult[i] = evaluate(context, rowBinding,
+						inputRows.get(i));
 			}
-			return new Object[] { result };
 		} finally {
 			Context.exit();
 		}
+		return new Object[][] { columnResult };
+	}
+
+	private Object evaluate(Context context, JavaScriptRowBinding rowBinding,
+			InputRow inputRow) {
+		// this scope is local to the execution of a single row
+		Scriptable scope = rowBinding.bind(inputRow);
+
+		Object result = _script.exec(context, scope);
+		// String stringResult = Context.toString(result);
+
+		if (result == null) {
+			result = null;
+		} else if (returnType == ReturnType.NUMBER) {
+			result = Context.toNumber(result);
+		} else if (returnType == ReturnType.BOOLEAN) {
+			result = Context.toBoolean(result);
+		} else {
+			result = Context.toString(result);
+		}
+		return result;
 	}
 
 	public void setSourceCode(String sourceCode) {
@@ -65,16 +65,7 @@ final class JavaScriptUtils {
 		NativeArray values = new NativeArray(columns.length * 2);
 		for (int i = 0; i < columns.length; i++) {
 			InputColumn<?> column = columns[i];
-			Object value = inputRow.getValue(column);
-
-			if (value != null) {
-				Class<?> dataType = column.getDataType();
-				if (ReflectionUtils.isNumber(dataType)) {
-					value = Context.toNumber(value);
-				} else if (ReflectionUtils.isBoolean(dataType)) {
-					value = Context.toBoolean(value);
-				}
-			}
+			Object value = getJavaScriptValue(inputRow, column);
 
 			values.put(i, values, value);
 			values.put(column.getName(), values, value);
@@ -84,4 +75,44 @@ final class JavaScriptUtils {
 
 		addToScope(scope, values, arrayName);
 	}
+
+	/**
+	 * Gets the value of a column in a row, converted to a JavaScript number or
+	 * boolean if the column has such a data type.
+	 * 
+	 * @param inputRow
+	 * @param column
+	 * @return
+	 */
+	public static Object getJavaScriptValue(InputRow inputRow, InputColumn<?> column) {
+		Object value = inputRow.getValue(column);
+		if (value != null) {
+			Class<?> dataType = column.getDataType();
+			if (ReflectionUtils.isNumber(dataType)) {
+				value = Context.toNumber(value);
+			} else if (ReflectionUtils.isBoolean(dataType)) {
+				value = Context.toBoolean(value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Gets the variable names of a set of columns, as they are exposed in the
+	 * JavaScript scope when rows are added using
+	 * {@link #addToScope(Scriptable, InputRow, InputColumn[], String)} or bound
+	 * using a {@link JavaScriptRowBinding}.
+	 * 
+	 * @param columns
+	 * @return
+	 */
+	public static String[][] getVariableNames(InputColumn<?>[] columns) {
+		String[][] variableNames = new String[columns.length][];
+		for (int i = 0; i < columns.length; i++) {
+			String name = columns[i].getName();
+			variableNames[i] = new String[] { name.replaceAll(" ", "_"), name.toLowerCase().replaceAll(" ", "_"),
+					name.toUpperCase().replaceAll(" ", "_") };
+		}
+		return variableNames;
+	}
 }
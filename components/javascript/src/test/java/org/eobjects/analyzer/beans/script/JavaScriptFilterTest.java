@@ -19,9 +19,14 @@
  */
 package org.eobjects.analyzer.beans.script;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.data.MockInputColumn;
 import org.eobjects.analyzer.data.MockInputRow;
 
@@ -52,4 +57,20 @@ public class JavaScriptFilterTest extends TestCase {
 		assertEquals(JavaScriptFilter.Category.VALID, filter.categorize(new MockInputRow().put(myCol, 0)));
 		assertEquals(JavaScriptFilter.Category.INVALID, filter.categorize(new MockInputRow().put(myCol, null)));
 	}
+
+	public void testCategorizeBatch() throws Exception {
+		JavaScriptFilter filter = new JavaScriptFilter();
+		filter.setSourceCode("my_col != null;");
+		InputColumn<String> myCol = new MockInputColumn<String>("my_col", String.class);
+		filter.setColumns(new InputColumn[] { myCol });
+		filter.init();
+
+		List<InputRow> rows = new ArrayList<InputRow>();
+		rows.add(new MockInputRow().put(myCol, "hi"));
+		rows.add(new MockInputRow().put(myCol, null));
+		rows.add(new MockInputRow().put(myCol, ""));
+
+		JavaScriptFilter.Category[] categories = filter.categorize(rows);
+		assertEquals("[VALID, INVALID, VALID]", Arrays.toString(categories));
+	}
 }
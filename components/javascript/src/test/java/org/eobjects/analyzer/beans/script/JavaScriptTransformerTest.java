@@ -21,10 +21,14 @@ package org.eobjects.analyzer.beans.script;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import junit.framework.TestCase;
 
 import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.data.MockInputColumn;
 import org.eobjects.analyzer.data.MockInputRow;
 
@@ -101,4 +105,62 @@ public class JavaScriptTransformerTest extends TestCase {
 		assertEquals("3", t.transform(new MockInputRow().put(col, 1.0))[0]);
 		assertEquals("3.5", t.transform(new MockInputRow().put(col, 1.5))[0]);
 	}
+
+	/**
+	 * Tests that variables assigned by the script in one row are not visible
+	 * when processing the next row, even though contexts and the shared scope
+	 * are reused.
+	 * 
+	 * @throws Exception
+	 */
+	public void testRowScopeIsNotShared() throws Exception {
+		JavaScriptTransformer t = new JavaScriptTransformer();
+		t.setSourceCode("if (typeof counter == 'undefined') { counter = 0; }; counter++; counter + ' ' + my_col;");
+		InputColumn<String> col = new MockInputColumn<String>("my col", String.class);
+		t.setColumns(new InputColumn[] { col });
+
+		t.init();
+
+		assertEquals("1 foo", t.transform(new MockInputRow().put(col, "foo"))[0]);
+		assertEquals("1 bar", t.transform(new MockInputRow().put(col, "bar"))[0]);
+	}
+
+	/**
+	 * Tests that the reused row bindings expose the values of the current row,
+	 * also when a script has reassigned a bound variable.
+	 * 
+	 * @throws Exception
+	 */
+	public void testRowBindingsAreUpdatedInPlace() throws Exception {
+		JavaScriptTransformer t = new JavaScriptTransformer();
+		t.setSourceCode("var r = values[0] + ' ' + values['my col'] + ' ' + my_col; values = null; my_col = null; r;");
+		InputColumn<String> col = new MockInputColumn<String>("my col", String.class);
+		t.setColumns(new InputColumn[] { col });
+
+		t.init();
+
+		assertEquals("foo foo foo", t.transform(new MockInputRow().put(col, "foo"))[0]);
+		assertEquals("bar bar bar", t.transform(new MockInputRow().put(col, "bar"))[0]);
+	}
+
+	public void testTransformBatch() throws Exception {
+		JavaScriptTransformer t = new JavaScriptTransformer();
+		t.setSourceCode("if (typeof counter == 'undefined') { counter = 0; }; counter++; counter + ' ' + my_col;");
+		InputColumn<String> col = new MockInputColumn<String>("my col", String.class);
+		t.setColumns(new InputColumn[] { col });
+
+		t.init();
+
+		List<InputRow> rows = new ArrayList<InputRow>();
+		rows.add(new MockInputRow().put(col, "foo"));
+		rows.add(new MockInputRow().put(col, null));
+		rows.add(new MockInputRow().put(col, "bar"));
+
+		Object[][] result = t.transform(rows);
+		assertEquals(1, result.length);
+		assertEquals("[1 foo, 1 null, 1 bar]", Arrays.toString(result[0]));
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(t.transform(rows.get(i))[0], result[0][i]);
+		}
+	}
 }
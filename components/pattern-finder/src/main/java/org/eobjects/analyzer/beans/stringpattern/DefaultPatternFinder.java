@@ -19,8 +19,8 @@
  */
 package org.eobjects.analyzer.beans.stringpattern;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.storage.InMemoryRowAnnotationFactory;
@@ -49,7 +49,7 @@ public final class DefaultPatternFinder extends PatternFinder<InputRow> {
 		if (annotationFactory == null) {
 			throw new IllegalArgumentException("RowAnnotationFactory cannot be null");
 		}
-		_annotations = new HashMap<TokenPattern, RowAnnotation>();
+		_annotations = new ConcurrentHashMap<TokenPattern, RowAnnotation>();
 		_annotationFactory = annotationFactory;
 	}
 
@@ -62,7 +62,7 @@ public final class DefaultPatternFinder extends PatternFinder<InputRow> {
 	 */
 	public DefaultPatternFinder(TokenizerConfiguration configuration, int inMemoryRowThreshold) {
 		super(configuration);
-		_annotations = new HashMap<TokenPattern, RowAnnotation>();
+		_annotations = new ConcurrentHashMap<TokenPattern, RowAnnotation>();
 		_annotationFactory = new InMemoryRowAnnotationFactory(inMemoryRowThreshold);
 	}
 
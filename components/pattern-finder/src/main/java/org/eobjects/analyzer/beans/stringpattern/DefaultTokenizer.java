@@ -103,6 +103,175 @@ public class DefaultTokenizer implements Serializable, Tokenizer {
 		return tokens;
 	}
 
+	/**
+	 * Tokenizes a string into a reusable {@link TokenBuffer}. This produces the
+	 * same tokens as {@link #tokenize(String)}, but without allocating token
+	 * objects. Null and empty strings are not supported by this method, since
+	 * they are represented by special token instances (see {@link NullToken}
+	 * and {@link BlankToken}).
+	 * 
+	 * @param string
+	 * @param buffer
+	 */
+	public void tokenize(String string, TokenBuffer buffer) {
+		if (string == null || "".equals(string)) {
+			throw new IllegalArgumentException("Cannot tokenize null or empty string into a token buffer");
+		}
+
+		if (_predefinedTokens) {
+			final List<PredefinedTokenDefinition> predefinedTokens = _configuration.getPredefinedTokens();
+			final PredefinedTokenTokenizer tokenizer = new PredefinedTokenTokenizer(predefinedTokens);
+			tokenizer.tokenize(string, buffer);
+			for (int i = 0; i < buffer.size(); i++) {
+				if (buffer.getType(i) == TokenType.UNDEFINED) {
+					final int start = buffer.getStart(i);
+					final int end = buffer.getEnd(i);
+					buffer.remove(i);
+					i = tokenizeInternal(buffer, i, start, end) - 1;
+				}
+			}
+		} else {
+			buffer.reset(string);
+			tokenizeInternal(buffer, 0, 0, string.length());
+		}
+	}
+
+	/**
+	 * Tokenizes a region of the string in a buffer, inserting the tokens at a
+	 * particular index.
+	 * 
+	 * @return the index after the last inserted token
+	 */
+	private int tokenizeInternal(TokenBuffer buffer, int index, int start, int end) {
+		final int endIndex = preliminaryTokenize(buffer, index, start, end, _configuration);
+
+		if (_configuration.isTokenTypeEnabled(TokenType.MIXED)) {
+			return flattenMixedTokens(buffer, index, endIndex);
+		}
+
+		return endIndex;
+	}
+
+	/**
+	 * Buffer based variant of
+	 * {@link #preliminaryTokenize(String, TokenizerConfiguration)}.
+	 */
+	private static int preliminaryTokenize(final TokenBuffer buffer, final int index, final int start, final int end,
+			final TokenizerConfiguration configuration) {
+		final String string = buffer.getString();
+		final Character thousandsSeparator = configuration.getThousandsSeparator();
+		final Character decimalSeparator = configuration.getDecimalSeparator();
+		final Character minusSign = configuration.getMinusSign();
+		final boolean discriminateTextCase = configuration.isDiscriminateTextCase();
+
+		int insertIndex = index;
+		int lastToken = -1;
+
+		for (int i = start; i < end; i++) {
+			final char c = string.charAt(i);
+
+			if (is(c, thousandsSeparator) || is(c, decimalSeparator)) {
+				boolean treatAsSeparator = false;
+				if (lastToken != -1 && buffer.getType(lastToken) == TokenType.NUMBER) {
+					// there's a previous NUMBER token, and if the next token is
+					// also a NUMBER we assume that this is a separator
+					if (i + 1 < end && Character.isDigit(string.charAt(i + 1))) {
+						treatAsSeparator = true;
+						lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.NUMBER);
+						i++;
+						lastToken = registerChar(buffer, lastToken, lastToken + 1, i, TokenType.NUMBER);
+					}
+				}
+
+				if (!treatAsSeparator) {
+					// the thousand separator is treated as a delim
+					lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.DELIM);
+				}
+			} else if (is(c, minusSign)) {
+				// the meaning of minus sign is dependent on the next token
+				// (maybe it's the negative number operator)
+				boolean treatAsMinus = false;
+
+				if (lastToken == -1 || buffer.getType(lastToken) != TokenType.NUMBER) {
+					if (i + 1 < end && Character.isDigit(string.charAt(i + 1))) {
+						// the minus sign was the number operator
+						treatAsMinus = true;
+						lastToken = registerChar(buffer, -1, insertIndex, i, TokenType.NUMBER);
+						i++;
+						lastToken = registerChar(buffer, lastToken, lastToken + 1, i, TokenType.NUMBER);
+					}
+				}
+
+				if (!treatAsMinus) {
+					// the minus sign is treated as a delim
+					lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.DELIM);
+				}
+			} else if (Character.isDigit(c)) {
+				lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.NUMBER);
+			} else if (Character.isLetter(c)) {
+				if (discriminateTextCase) {
+					if (lastToken != -1 && buffer.getType(lastToken) == TokenType.TEXT) {
+						// only append to the previous token if they share the
+						// same case
+						char charFromPreviousToken = buffer.charAt(lastToken, 0);
+						if (Character.isUpperCase(charFromPreviousToken) != Character.isUpperCase(c)) {
+							lastToken = -1;
+						}
+					}
+				}
+				lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.TEXT);
+			} else if (Character.isWhitespace(c)) {
+				lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.WHITESPACE);
+			} else {
+				lastToken = registerChar(buffer, lastToken, insertIndex, i, TokenType.DELIM);
+			}
+
+			insertIndex = lastToken + 1;
+		}
+
+		return insertIndex;
+	}
+
+	private static boolean is(char c, Character character) {
+		return character != null && character.charValue() == c;
+	}
+
+	private static int registerChar(TokenBuffer buffer, int lastToken, int insertIndex, int charIndex,
+			TokenType tokenType) {
+		if (lastToken != -1 && buffer.getType(lastToken) == tokenType) {
+			buffer.setEnd(lastToken, charIndex + 1);
+			return lastToken;
+		}
+		buffer.insert(insertIndex, tokenType, charIndex, charIndex + 1, null);
+		return insertIndex;
+	}
+
+	/**
+	 * Buffer based variant of {@link #flattenMixedTokens(List)}.
+	 * 
+	 * @return the index after the last token of the flattened region
+	 */
+	private static int flattenMixedTokens(TokenBuffer buffer, int index, int endIndex) {
+		int previousToken = -1;
+		int i = index;
+		while (i < endIndex) {
+			if (previousToken != -1) {
+				TokenType previousType = buffer.getType(previousToken);
+				TokenType currentType = buffer.getType(i);
+				if (previousType != currentType && isMixedCandidate(previousType) && isMixedCandidate(currentType)) {
+					buffer.setEnd(previousToken, buffer.getEnd(i));
+					buffer.setType(previousToken, TokenType.MIXED);
+					buffer.remove(i);
+					endIndex--;
+					continue;
+				}
+			}
+			previousToken = i;
+			i++;
+		}
+		return endIndex;
+	}
+
 	private List<SimpleToken> tokenizeInternal(String string) {
 		List<SimpleToken> tokens = preliminaryTokenize(string, _configuration);
 
@@ -19,19 +19,23 @@
  */
 package org.eobjects.analyzer.beans.stringpattern;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /***
  * A string pattern finder. This component can consume rows and produce string
  * patterns. It does not contain the actual logic to store/persist the rows, but
  * has callback methods so that it's rather easy to implement this on your own.
  * 
- * 
+ * The pattern finder is thread-safe. Patterns are kept in buckets per pattern
+ * code and only the bucket of the value being run is locked, so values with
+ * different token structures can be processed concurrently. This also implies
+ * that the storeNewPattern(...) and storeMatch(...) callbacks may be invoked
+ * concurrently for patterns of different buckets.
  * 
  * @param <R>
  *            the type representing the row. Enables the user of the class to
@@ -40,14 +44,21 @@ import java.util.Set;
  */
 public abstract class PatternFinder<R> {
 
-    private final Map<String, Set<TokenPattern>> _patterns;
+    private final ConcurrentMap<Long, List<TokenPatternImpl>> _patterns;
     private final TokenizerConfiguration _configuration;
     private final Tokenizer _tokenizer;
-    
+    private final ThreadLocal<BufferedTokens> _tokenBuffers;
+
     public PatternFinder(Tokenizer tokenizer, TokenizerConfiguration configuration) {
         _configuration = configuration;
         _tokenizer = tokenizer;
-        _patterns = new HashMap<String, Set<TokenPattern>>();
+        _tokenBuffers = new ThreadLocal<BufferedTokens>() {
+            @Override
+            protected BufferedTokens initialValue() {
+                return new BufferedTokens();
+            }
+        };
+        _patterns = new ConcurrentHashMap<Long, List<TokenPatternImpl>>();
     }
 
     public PatternFinder(TokenizerConfiguration configuration) {
@@ -69,33 +80,27 @@ public abstract class PatternFinder<R> {
      *            the count of the value
      */
     public void run(R row, String value, int distinctCount) {
-        final List<Token> tokens;
-        boolean match = false;
+        final TokenizedValue tokenizedValue;
         try {
-            tokens = _tokenizer.tokenize(value);
+            tokenizedValue = tokenize(value);
         } catch (RuntimeException e) {
             throw new IllegalStateException("Error occurred while tokenizing value: " + value, e);
         }
 
-        final String patternCode = getPatternCode(tokens);
-        Set<TokenPattern> patterns;
-
-        synchronized (this) {
-            patterns = _patterns.get(patternCode);
-            if (patterns == null) {
-                patterns = new HashSet<TokenPattern>();
-                _patterns.put(patternCode, patterns);
-            }
+        final List<TokenPatternImpl> patterns = getPatternBucket(tokenizedValue.getPatternCode());
 
-            for (TokenPattern pattern : patterns) {
-                if (pattern.match(tokens)) {
+        boolean match = false;
+        synchronized (patterns) {
+            for (TokenPatternImpl pattern : patterns) {
+                if (tokenizedValue.match(pattern)) {
                     storeMatch(pattern, row, value, distinctCount);
                     match = true;
                 }
             }
 
             if (!match) {
-                final TokenPattern pattern;
+                final List<Token> tokens = tokenizedValue.getTokens();
+                final TokenPatternImpl pattern;
                 try {
                     pattern = new TokenPatternImpl(value, tokens, _configuration);
                 } catch (RuntimeException e) {
@@ -109,26 +114,128 @@ public abstract class PatternFinder<R> {
     }
 
     /**
-     * Creates an almost unique String code for a list of tokens. This code is
-     * used to improve search time when looking for potential matching patterns.
-     * 
-     * @param tokens
-     * @return
+     * Tokenizes a value. Non-empty values are tokenized into a thread-local
+     * {@link TokenBuffer} when the tokenizer is a plain {@link DefaultTokenizer},
+     * so that token objects are only materialized when a new pattern is
+     * created. Subclasses of {@link DefaultTokenizer} may override the
+     * tokenization and are therefore always invoked through
+     * {@link Tokenizer#tokenize(String)}.
+     */
+    private TokenizedValue tokenize(String value) {
+        if (_tokenizer.getClass() == DefaultTokenizer.class && value != null && !"".equals(value)) {
+            final BufferedTokens bufferedTokens = _tokenBuffers.get();
+            ((DefaultTokenizer) _tokenizer).tokenize(value, bufferedTokens.buffer);
+            return bufferedTokens;
+        }
+        return new ListTokens(_tokenizer.tokenize(value));
+    }
+
+    private List<TokenPatternImpl> getPatternBucket(long patternCode) {
+        final Long key = patternCode;
+        List<TokenPatternImpl> patterns = _patterns.get(key);
+        if (patterns == null) {
+            patterns = new ArrayList<TokenPatternImpl>();
+            final List<TokenPatternImpl> existingPatterns = _patterns.putIfAbsent(key, patterns);
+            if (existingPatterns != null) {
+                patterns = existingPatterns;
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * The tokens of a value, either as a list of {@link Token}s or in a
+     * {@link TokenBuffer}.
      */
-    private String getPatternCode(List<Token> tokens) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(tokens.size());
-        for (Token token : tokens) {
-            sb.append(token.getType().ordinal());
+    private static abstract class TokenizedValue {
+
+        /**
+         * Creates an almost unique code for the tokens. This code is used to
+         * improve search time when looking for potential matching patterns.
+         * Very long token lists may share codes, which is harmless since the
+         * candidate patterns are always matched against the tokens anyway.
+         * 
+         * @return
+         */
+        public final long getPatternCode() {
+            final int size = size();
+            long code = size;
+            for (int i = 0; i < size; i++) {
+                // 3 bits are enough to hold any token type ordinal
+                code = Long.rotateLeft(code, 3) ^ getType(i).ordinal();
+            }
+            return code;
+        }
+
+        protected abstract int size();
+
+        protected abstract TokenType getType(int index);
+
+        public abstract boolean match(TokenPatternImpl pattern);
+
+        public abstract List<Token> getTokens();
+    }
+
+    private static final class ListTokens extends TokenizedValue {
+
+        private final List<Token> _tokens;
+
+        public ListTokens(List<Token> tokens) {
+            _tokens = tokens;
+        }
+
+        @Override
+        protected int size() {
+            return _tokens.size();
+        }
+
+        @Override
+        protected TokenType getType(int index) {
+            return _tokens.get(index).getType();
+        }
+
+        @Override
+        public boolean match(TokenPatternImpl pattern) {
+            return pattern.match(_tokens);
+        }
+
+        @Override
+        public List<Token> getTokens() {
+            return _tokens;
+        }
+    }
+
+    private static final class BufferedTokens extends TokenizedValue {
+
+        private final TokenBuffer buffer = new TokenBuffer();
+
+        @Override
+        protected int size() {
+            return buffer.size();
+        }
+
+        @Override
+        protected TokenType getType(int index) {
+            return buffer.getType(index);
+        }
+
+        @Override
+        public boolean match(TokenPatternImpl pattern) {
+            return pattern.match(buffer);
+        }
+
+        @Override
+        public List<Token> getTokens() {
+            return buffer.toTokens();
         }
-        return sb.toString();
     }
 
     public Set<TokenPattern> getPatterns() {
         final Set<TokenPattern> result = new HashSet<TokenPattern>();
-        final Collection<Set<TokenPattern>> values = _patterns.values();
-        for (Set<TokenPattern> set : values) {
-            result.addAll(set);
+        for (List<TokenPatternImpl> patterns : _patterns.values()) {
+            synchronized (patterns) {
+                result.addAll(patterns);
+            }
         }
         return result;
     }
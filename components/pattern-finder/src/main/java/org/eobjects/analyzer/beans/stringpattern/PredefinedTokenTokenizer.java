@@ -72,6 +72,78 @@ public class PredefinedTokenTokenizer implements Tokenizer {
 		return result;
 	}
 
+	/**
+	 * Tokenizes a string into a {@link TokenBuffer} instead of a list of token
+	 * objects. Like {@link #tokenize(String)} this will only produce tokens
+	 * with type PREDEFINED or UNDEFINED.
+	 * 
+	 * @param s
+	 * @param buffer
+	 */
+	public void tokenize(String s, TokenBuffer buffer) {
+		buffer.reset(s);
+		buffer.add(TokenType.UNDEFINED, 0, s.length());
+
+		for (PredefinedTokenDefinition predefinedTokenDefinition : _predefinedTokenDefitions) {
+			Set<Pattern> patterns = predefinedTokenDefinition.getTokenRegexPatterns();
+			for (Pattern pattern : patterns) {
+				for (int i = 0; i < buffer.size(); i++) {
+					if (buffer.getType(i) == TokenType.UNDEFINED) {
+						i = tokenizeInternal(buffer, i, predefinedTokenDefinition, pattern);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits an UNDEFINED token of a buffer, the same way as
+	 * {@link #tokenizeInternal(String, PredefinedTokenDefinition, Pattern)}
+	 * does.
+	 * 
+	 * @return the index of the last token that replaced the UNDEFINED token
+	 */
+	private static int tokenizeInternal(TokenBuffer buffer, int index,
+			PredefinedTokenDefinition predefinedTokenDefinition, Pattern pattern) {
+		final int regionStart = buffer.getStart(index);
+		final int regionEnd = buffer.getEnd(index);
+
+		final Matcher matcher = pattern.matcher(buffer.getString());
+		matcher.region(regionStart, regionEnd);
+		if (!matcher.find()) {
+			return index;
+		}
+		if (matcher.start() == regionStart && matcher.end() == regionEnd) {
+			// a single replacement token, which is not applied
+			return index;
+		}
+
+		buffer.remove(index);
+		int insertIndex = index;
+		int start = regionStart;
+		while (true) {
+			final int matchStart = matcher.start();
+			final int matchEnd = matcher.end();
+
+			if (matchStart > start) {
+				buffer.insert(insertIndex++, TokenType.UNDEFINED, start, matchStart, null);
+			}
+			buffer.insert(insertIndex++, TokenType.PREDEFINED, matchStart, matchEnd, predefinedTokenDefinition);
+
+			if (matchEnd == regionEnd) {
+				break;
+			}
+
+			start = matchEnd;
+			matcher.region(start, regionEnd);
+			if (matchStart == matchEnd || !matcher.find()) {
+				buffer.insert(insertIndex++, TokenType.UNDEFINED, start, regionEnd, null);
+				break;
+			}
+		}
+		return insertIndex - 1;
+	}
+
 	protected static List<Token> tokenizeInternal(String string, PredefinedTokenDefinition predefinedTokenDefinition,
 			Pattern pattern) {
 		LinkedList<Token> result = new LinkedList<Token>();
@@ -19,7 +19,8 @@
  */
 package org.eobjects.analyzer.beans.stringpattern;
 
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -27,13 +28,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ReversePatternFinder extends PatternFinder<String> {
 
-    private final HashMap<TokenPattern, AtomicInteger> _patternCounts;
-    private final HashMap<TokenPattern, String> _patternSamples;
+    private final Map<TokenPattern, AtomicInteger> _patternCounts;
+    private final Map<TokenPattern, String> _patternSamples;
 
     public ReversePatternFinder(TokenizerConfiguration configuration) {
         super(new ReverseTokenizer(configuration), configuration);
-        _patternCounts = new HashMap<TokenPattern, AtomicInteger>();
-        _patternSamples = new HashMap<TokenPattern, String>();
+        _patternCounts = new ConcurrentHashMap<TokenPattern, AtomicInteger>();
+        _patternSamples = new ConcurrentHashMap<TokenPattern, String>();
     }
 
     @Override
@@ -49,7 +50,7 @@ public class ReversePatternFinder extends PatternFinder<String> {
         counter.addAndGet(distinctCount);
     }
     
-    public HashMap<TokenPattern, AtomicInteger> getPatternCounts() {
+    public Map<TokenPattern, AtomicInteger> getPatternCounts() {
         return _patternCounts;
     }
     
@@ -0,0 +1,226 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.stringpattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reusable buffer of tokens, represented as offsets and token types over the
+ * original string value. Tokenizing into a buffer does not allocate any
+ * {@link Token} objects, which makes it suitable for hot paths such as the
+ * {@link PatternFinder}, where only values that produce new patterns need
+ * materialized tokens (see {@link #toTokens()}).
+ * 
+ * A token buffer is not thread-safe. Reuse it within a single thread only.
+ */
+public final class TokenBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String _string;
+    private int _size;
+    private TokenType[] _types;
+    private int[] _starts;
+    private int[] _ends;
+    private PredefinedTokenDefinition[] _predefinedTokenDefinitions;
+
+    public TokenBuffer() {
+        _types = new TokenType[INITIAL_CAPACITY];
+        _starts = new int[INITIAL_CAPACITY];
+        _ends = new int[INITIAL_CAPACITY];
+        _predefinedTokenDefinitions = new PredefinedTokenDefinition[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Clears the buffer and prepares it for tokens of a new string value.
+     * 
+     * @param string
+     */
+    public void reset(String string) {
+        _string = string;
+        for (int i = 0; i < _size; i++) {
+            _predefinedTokenDefinitions[i] = null;
+        }
+        _size = 0;
+    }
+
+    public String getString() {
+        return _string;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public TokenType getType(int index) {
+        return _types[index];
+    }
+
+    public int getStart(int index) {
+        return _starts[index];
+    }
+
+    public int getEnd(int index) {
+        return _ends[index];
+    }
+
+    public int length(int index) {
+        return _ends[index] - _starts[index];
+    }
+
+    public char charAt(int index, int offset) {
+        return _string.charAt(_starts[index] + offset);
+    }
+
+    public PredefinedTokenDefinition getPredefinedTokenDefinition(int index) {
+        return _predefinedTokenDefinitions[index];
+    }
+
+    /**
+     * Determines if a token contains a particular character
+     * 
+     * @param index
+     *            the index of the token
+     * @param c
+     *            the character to look for
+     * @return
+     */
+    public boolean contains(int index, char c) {
+        final int end = _ends[index];
+        for (int i = _starts[index]; i < end; i++) {
+            if (_string.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the string of a token is equal to a particular string,
+     * without creating a substring for the token.
+     * 
+     * @param index
+     *            the index of the token
+     * @param str
+     *            the string to compare with
+     * @return
+     */
+    public boolean contentEquals(int index, String str) {
+        final int length = length(index);
+        if (str.length() != length) {
+            return false;
+        }
+        return _string.regionMatches(_starts[index], str, 0, length);
+    }
+
+    public String getTokenString(int index) {
+        return _string.substring(_starts[index], _ends[index]);
+    }
+
+    public void add(TokenType type, int start, int end) {
+        insert(_size, type, start, end, null);
+    }
+
+    public void insert(int index, TokenType type, int start, int end, PredefinedTokenDefinition predefinedTokenDefinition) {
+        ensureCapacity(_size + 1);
+        final int numMoved = _size - index;
+        if (numMoved > 0) {
+            System.arraycopy(_types, index, _types, index + 1, numMoved);
+            System.arraycopy(_starts, index, _starts, index + 1, numMoved);
+            System.arraycopy(_ends, index, _ends, index + 1, numMoved);
+            System.arraycopy(_predefinedTokenDefinitions, index, _predefinedTokenDefinitions, index + 1, numMoved);
+        }
+        _types[index] = type;
+        _starts[index] = start;
+        _ends[index] = end;
+        _predefinedTokenDefinitions[index] = predefinedTokenDefinition;
+        _size++;
+    }
+
+    public void remove(int index) {
+        final int numMoved = _size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(_types, index + 1, _types, index, numMoved);
+            System.arraycopy(_starts, index + 1, _starts, index, numMoved);
+            System.arraycopy(_ends, index + 1, _ends, index, numMoved);
+            System.arraycopy(_predefinedTokenDefinitions, index + 1, _predefinedTokenDefinitions, index, numMoved);
+        }
+        _size--;
+        _predefinedTokenDefinitions[_size] = null;
+    }
+
+    public void setType(int index, TokenType type) {
+        _types[index] = type;
+    }
+
+    public void setEnd(int index, int end) {
+        _ends[index] = end;
+    }
+
+    /**
+     * Materializes the tokens of the buffer as {@link Token} objects.
+     * 
+     * @return
+     */
+    public List<Token> toTokens() {
+        final List<Token> tokens = new ArrayList<Token>(_size);
+        for (int i = 0; i < _size; i++) {
+            final TokenType type = _types[i];
+            final String tokenString = getTokenString(i);
+            if (type == TokenType.PREDEFINED) {
+                tokens.add(new PredefinedToken(_predefinedTokenDefinitions[i], tokenString));
+            } else if (type == TokenType.UNDEFINED) {
+                tokens.add(new UndefinedToken(tokenString));
+            } else {
+                tokens.add(new SimpleToken(type, tokenString));
+            }
+        }
+        return tokens;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= _types.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, _types.length * 2);
+
+        final TokenType[] types = new TokenType[newCapacity];
+        System.arraycopy(_types, 0, types, 0, _size);
+        _types = types;
+
+        final int[] starts = new int[newCapacity];
+        System.arraycopy(_starts, 0, starts, 0, _size);
+        _starts = starts;
+
+        final int[] ends = new int[newCapacity];
+        System.arraycopy(_ends, 0, ends, 0, _size);
+        _ends = ends;
+
+        final PredefinedTokenDefinition[] predefinedTokenDefinitions = new PredefinedTokenDefinition[newCapacity];
+        System.arraycopy(_predefinedTokenDefinitions, 0, predefinedTokenDefinitions, 0, _size);
+        _predefinedTokenDefinitions = predefinedTokenDefinitions;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBuffer" + toTokens();
+    }
+}
@@ -29,14 +29,14 @@ public final class TokenPatternImpl implements TokenPattern {
 	private static final long serialVersionUID = 1L;
 
 	private final TokenizerConfiguration _configuration;
-	private final List<TokenPatternSymbol> _symbols;
+	private final List<TokenPatternSymbolImpl> _symbols;
 	private final String _sampleString;
 
 	public TokenPatternImpl(String sampleString, List<Token> tokens, TokenizerConfiguration configuration) {
 		if (tokens == null) {
 			throw new IllegalArgumentException("tokens cannot be null");
 		}
-		_symbols = new ArrayList<TokenPatternSymbol>(tokens.size());
+		_symbols = new ArrayList<TokenPatternSymbolImpl>(tokens.size());
 		for (Token token : tokens) {
 			_symbols.add(new TokenPatternSymbolImpl(token, configuration));
 		}
@@ -50,7 +50,7 @@ public final class TokenPatternImpl implements TokenPattern {
 			return false;
 		}
 
-		Iterator<TokenPatternSymbol> it1 = _symbols.iterator();
+		Iterator<TokenPatternSymbolImpl> it1 = _symbols.iterator();
 		Iterator<Token> it2 = tokens.iterator();
 		while (it1.hasNext()) {
 			TokenPatternSymbol tokenSymbol = it1.next();
@@ -79,9 +79,44 @@ public final class TokenPatternImpl implements TokenPattern {
 		return true;
 	}
 
+	/**
+	 * Attempts to match the tokens of a {@link TokenBuffer} against this
+	 * pattern. If it succeeds, true will be returned.
+	 * 
+	 * @param buffer
+	 * @return true if the match was succesful, false otherwise.
+	 */
+	public boolean match(TokenBuffer buffer) {
+		final int size = buffer.size();
+		if (_symbols.size() != size) {
+			return false;
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (!_symbols.get(i).matches(buffer, i, _configuration)) {
+				return false;
+			}
+		}
+
+		// it's a match. now expand sizes of tokens if needed
+		for (int i = 0; i < size; i++) {
+			final TokenPatternSymbolImpl tokenSymbol = _symbols.get(i);
+			if (tokenSymbol.isExpandable()) {
+				int length1 = tokenSymbol.length();
+				int length2 = buffer.length(i);
+				if (length1 < length2) {
+					int diff = length2 - length1;
+					tokenSymbol.expandLenght(diff);
+				}
+			}
+		}
+
+		return true;
+	}
+
 	@Override
 	public List<TokenPatternSymbol> getSymbols() {
-		return Collections.unmodifiableList(_symbols);
+		return Collections.<TokenPatternSymbol> unmodifiableList(_symbols);
 	}
 
 	@Override
@@ -181,6 +181,85 @@ public class TokenPatternSymbolImpl implements TokenPatternSymbol {
         return false;
     }
 
+    /**
+     * Determines if a token in a {@link TokenBuffer} matches this symbol. This
+     * is equivalent to {@link #matches(Token, TokenizerConfiguration)}, but
+     * works directly on the offsets of the buffer.
+     * 
+     * @param buffer
+     * @param index
+     * @param configuration
+     * @return
+     */
+    public boolean matches(TokenBuffer buffer, int index, TokenizerConfiguration configuration) {
+        if (_tokenType != buffer.getType(index)) {
+            return false;
+        }
+
+        if (configuration.isDistriminateTokenLength(_tokenType)) {
+            if (getSymbolicLength() != buffer.length(index)) {
+                // not a match, based on length
+                return false;
+            }
+        }
+
+        switch (_tokenType) {
+        case TEXT:
+            return matchesText(buffer.charAt(index, 0), buffer.length(index), configuration);
+        case NUMBER:
+            return matchesNumber(buffer, index, configuration);
+        case DELIM:
+            return buffer.contentEquals(index, toSymbolicString());
+        case WHITESPACE:
+            if (configuration.isDiscriminateWhiteSpaces()) {
+                return buffer.contentEquals(index, toSymbolicString());
+            }
+            return true;
+        case MIXED:
+            return true;
+        case PREDEFINED:
+            final PredefinedTokenDefinition predefinedTokenDefinition = buffer.getPredefinedTokenDefinition(index);
+            if (predefinedTokenDefinition == null) {
+                return buffer.contentEquals(index, _symbolicString);
+            }
+            return _symbolicString.equals('[' + predefinedTokenDefinition.getName() + ']');
+        default:
+            throw new UnsupportedOperationException("Unsupported token type for matching: " + _tokenType);
+        }
+    }
+
+    private int getSymbolicLength() {
+        if (_symbolicString != null) {
+            return _symbolicString.length();
+        }
+        return _length;
+    }
+
+    private boolean matchesNumber(TokenBuffer buffer, int index, TokenizerConfiguration configuration) {
+        boolean discriminateNegativeNumbers = configuration.isDiscriminateNegativeNumbers();
+        boolean discriminateDecimalNumbers = configuration.isDiscriminateDecimalNumbers();
+        if (!discriminateDecimalNumbers && !discriminateNegativeNumbers) {
+            return true;
+        }
+
+        Character minusSign = configuration.getMinusSign();
+        if (discriminateNegativeNumbers && minusSign != null) {
+            boolean negative2 = minusSign.charValue() == buffer.charAt(index, 0);
+            if (isNegative() != negative2) {
+                return false;
+            }
+        }
+        Character decimalSeparator = configuration.getDecimalSeparator();
+        if (discriminateDecimalNumbers && decimalSeparator != null) {
+            boolean decimal2 = buffer.contains(index, decimalSeparator.charValue());
+            if (isDecimal() != decimal2) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private boolean matchesPredefined(Token token) {
         if (token instanceof PredefinedToken) {
             PredefinedToken pt = (PredefinedToken) token;
@@ -192,14 +271,16 @@ public class TokenPatternSymbolImpl implements TokenPatternSymbol {
     }
 
     private boolean matchesText(Token token, TokenizerConfiguration configuration) {
+        return matchesText(token.charAt(0), token.length(), configuration);
+    }
+
+    private boolean matchesText(char char2, int length2, TokenizerConfiguration configuration) {
         boolean discriminateTextCase = configuration.isDiscriminateTextCase();
         if (discriminateTextCase) {
 
             // if 'discriminateTextCase' is true then we can assume that all the
             // characters are either upper or lower case. Thus it is only
             // nescesary to check a single character from each string
-            String str2 = token.getString();
-            char char2 = str2.charAt(0);
             boolean upperCase = Character.isUpperCase(char2);
 
             boolean caseMatches = isUpperCaseOnly() == upperCase;
@@ -209,12 +290,12 @@ public class TokenPatternSymbolImpl implements TokenPatternSymbol {
 
             if (upperCase && !configuration.isUpperCaseExpandable()) {
                 // the token is not expandable, we need to verify same length
-                return str2.length() == _length;
+                return length2 == _length;
             }
 
             if (!upperCase && !configuration.isLowerCaseExpandable()) {
                 // the token is not expandable, we need to verify same length
-                return str2.length() == _length;
+                return length2 == _length;
             }
 
             return true;
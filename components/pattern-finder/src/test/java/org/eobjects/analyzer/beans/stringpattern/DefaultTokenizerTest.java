@@ -133,4 +133,24 @@ public class DefaultTokenizerTest extends TestCase {
 		assertEquals("Token['.' (DELIM)]", tokens.get(3).toString());
 		assertEquals("Token['20213' (NUMBER)]", tokens.get(4).toString());
 	}
+
+	public void testTokenizeIntoBuffer() throws Exception {
+		final String[] values = new String[] { "hi \t123there - yay -10", "w00p", "yay 10.1 whut 20,632. hmm",
+				"20,632,.20213", ",-20,632.20213", "20,632-20213,", "Sales manager (EMEA)", "Dear Mr. Winfried",
+				"Mr. Kasper", "Mr.", "hello hi there" };
+
+		final TokenizerConfiguration mixedConf = new TokenizerConfiguration(true, '.', ',', '-');
+		final TokenizerConfiguration predefinedConf = new TokenizerConfiguration(true, '.', ',', '-');
+		predefinedConf.getPredefinedTokens().add(new PredefinedTokenDefinition("titulation", "(Mr|Ms)\\."));
+		predefinedConf.getPredefinedTokens().add(new PredefinedTokenDefinition("greeting", "hello .*", "hi .*"));
+
+		final TokenBuffer buffer = new TokenBuffer();
+		for (TokenizerConfiguration configuration : new TokenizerConfiguration[] { conf, mixedConf, predefinedConf }) {
+			final DefaultTokenizer tokenizer = new DefaultTokenizer(configuration);
+			for (String value : values) {
+				tokenizer.tokenize(value, buffer);
+				assertEquals(value, tokenizer.tokenize(value).toString(), buffer.toTokens().toString());
+			}
+		}
+	}
 }
@@ -19,6 +19,10 @@
  */
 package org.eobjects.analyzer.beans.stringpattern;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import junit.framework.TestCase;
 
 import org.eobjects.analyzer.data.MockInputColumn;
@@ -167,4 +171,33 @@ public class PatternFinderAnalyzerTest extends TestCase {
 		assertEquals("aaaaaa.aaaaaaaa           1 kasper.sorensen ", resultLines[11]);
 		assertEquals(12, resultLines.length);
 	}
+
+	public void testConcurrentRun() throws Exception {
+		final PatternFinderAnalyzer pf = new PatternFinderAnalyzer();
+		final MockInputColumn<String> column = new MockInputColumn<String>("code", String.class);
+
+		pf.setRowAnnotationFactory(new InMemoryRowAnnotationFactory());
+		pf.setColumn(column);
+
+		pf.init();
+
+		final String[] values = new String[] { "abc 123", "ABC/1234", "1 abc", "hello world", "a.b" };
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 1000; i++) {
+			final String value = values[i % values.length];
+			executorService.submit(new Runnable() {
+				@Override
+				public void run() {
+					pf.run(new MockInputRow().put(column, value), 1);
+				}
+			});
+		}
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+		String[] resultLines = new PatternFinderResultTextRenderer().render(pf.getResult()).split("\n");
+		assertEquals(6, resultLines.length);
+		assertEquals("aaaaa aaaaa         200 hello world ", resultLines[5]);
+	}
 }
@@ -0,0 +1,85 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.beans.stringpattern;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class PatternFinderTest extends TestCase {
+
+	private static final String[] VALUES = { "hello world", "Hello World", "foo", "123-456", "", null,
+			"kasper@eobjects.dk", "+45 12 34 56 78", "FOO BAR", "foo123" };
+
+	public void testBufferedAndListTokenizationProduceSamePatterns() throws Exception {
+		final TokenizerConfiguration configuration = new TokenizerConfiguration(true);
+		final DefaultTokenizer defaultTokenizer = new DefaultTokenizer(configuration);
+
+		final Set<String> bufferedPatterns = runAll(defaultTokenizer, configuration);
+		final Set<String> listPatterns = runAll(new Tokenizer() {
+			@Override
+			public List<Token> tokenize(String s) {
+				return defaultTokenizer.tokenize(s);
+			}
+		}, configuration);
+
+		assertFalse(bufferedPatterns.isEmpty());
+		assertEquals(listPatterns, bufferedPatterns);
+	}
+
+	public void testDefaultTokenizerSubclassIsInvoked() throws Exception {
+		final TokenizerConfiguration configuration = new TokenizerConfiguration(true);
+		final AtomicInteger invocations = new AtomicInteger();
+		final DefaultTokenizer tokenizer = new DefaultTokenizer(configuration) {
+			@Override
+			public List<Token> tokenize(String string) {
+				invocations.incrementAndGet();
+				return super.tokenize(string);
+			}
+		};
+
+		runAll(tokenizer, configuration);
+		assertEquals(VALUES.length, invocations.get());
+	}
+
+	private Set<String> runAll(Tokenizer tokenizer, TokenizerConfiguration configuration) {
+		final PatternFinder<Object> patternFinder = new PatternFinder<Object>(tokenizer, configuration) {
+			@Override
+			protected void storeNewPattern(TokenPattern pattern, Object row, String value, int distinctCount) {
+			}
+
+			@Override
+			protected void storeMatch(TokenPattern pattern, Object row, String value, int distinctCount) {
+			}
+		};
+		for (String value : VALUES) {
+			patternFinder.run(null, value, 1);
+		}
+
+		final Set<String> result = new TreeSet<String>();
+		for (TokenPattern pattern : patternFinder.getPatterns()) {
+			result.add(pattern.toSymbolicString());
+		}
+		return result;
+	}
+}
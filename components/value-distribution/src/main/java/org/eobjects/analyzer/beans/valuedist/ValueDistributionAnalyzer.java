@@ -26,13 +26,13 @@ import java.util.TreeSet;
 
 import javax.inject.Inject;
 
-import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.AnalyzerBean;
 import org.eobjects.analyzer.beans.api.ColumnProperty;
 import org.eobjects.analyzer.beans.api.Concurrent;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.beans.api.Description;
 import org.eobjects.analyzer.beans.api.Provided;
+import org.eobjects.analyzer.beans.api.QueryOptimizedAnalyzer;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.storage.CollectionFactory;
@@ -47,7 +47,7 @@ import org.slf4j.LoggerFactory;
 @AnalyzerBean("Value distribution")
 @Description("Gets the distributions of values that occur in a dataset.\nOften used as an initial way to see if a lot of repeated values are to be expected, if nulls occur and if a few un-repeated values add exceptions to the typical usage-pattern.")
 @Concurrent(true)
-public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnalyzerResult> {
+public class ValueDistributionAnalyzer implements QueryOptimizedAnalyzer<ValueDistributionAnalyzerResult> {
 
     private static final Logger logger = LoggerFactory.getLogger(ValueDistributionAnalyzer.class);
 
@@ -179,6 +179,18 @@ public class ValueDistributionAnalyzer implements Analyzer<ValueDistributionAnal
         return valueDistributionGroup;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The value distribution can be computed from the grouped counts of values,
+     * unless drill-down information should be recorded, since that requires the
+     * actual records.
+     */
+    @Override
+    public boolean isOptimizable() {
+        return !_recordDrillDownInformation;
+    }
+
     @Override
     public ValueDistributionAnalyzerResult getResult() {
         if (_groupColumn == null) {
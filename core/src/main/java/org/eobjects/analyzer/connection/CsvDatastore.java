@@ -22,12 +22,14 @@ package org.eobjects.analyzer.connection;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.eobjects.analyzer.util.ReadObjectBuilder;
 import org.apache.metamodel.UpdateableDataContext;
 import org.apache.metamodel.csv.CsvConfiguration;
 import org.apache.metamodel.csv.CsvDataContext;
+import org.apache.metamodel.query.Query;
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.FileResource;
 import org.apache.metamodel.util.Resource;
@@ -39,7 +41,7 @@ import org.slf4j.LoggerFactory;
  * Datastore implementation for CSV files.
  */
 public final class CsvDatastore extends UsageAwareDatastore<UpdateableDataContext> implements FileDatastore,
-        ResourceDatastore, UpdateableDatastore {
+        ResourceDatastore, UpdateableDatastore, SplitReadableDatastore {
 
     private static final long serialVersionUID = 1L;
 
@@ -171,6 +173,50 @@ public final class CsvDatastore extends UsageAwareDatastore<UpdateableDataContex
         return new UpdateableDatastoreConnectionImpl<UpdateableDataContext>(dataContext, this);
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * CSV files can be split if they are local files that do not contain
+     * multiline values.
+     */
+    @Override
+    public List<DataSetSplit> createSplits(Query query, int maxSplits) {
+        if (_multilineValues || maxSplits < 2 || !LineBasedFileSplit.isSplittable(query)) {
+            return null;
+        }
+
+        final CsvConfiguration configuration = getCsvConfiguration();
+        if (!LineBasedFileSplit.isSplittable(configuration.getEncoding())) {
+            return null;
+        }
+
+        final File file;
+        final Resource resource = getResource();
+        if (resource == null) {
+            file = new File(_filename);
+        } else if (resource instanceof FileResource) {
+            file = ((FileResource) resource).getFile();
+        } else {
+            return null;
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final long[] boundaries = LineBasedFileSplit.createBoundaries(file, configuration.getColumnNameLineNumber(),
+                maxSplits);
+        if (boundaries == null) {
+            return null;
+        }
+
+        final long headerEnd = LineBasedFileSplit.findHeaderEnd(file, configuration.getColumnNameLineNumber());
+        final List<DataSetSplit> splits = new ArrayList<DataSetSplit>(boundaries.length - 1);
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            splits.add(new CsvFileSplit(file, configuration, headerEnd, boundaries[i], boundaries[i + 1], query));
+        }
+        return splits;
+    }
+
     public CsvConfiguration getCsvConfiguration() {
         final char separatorChar = _separatorChar == null ? DEFAULT_SEPARATOR_CHAR : _separatorChar;
         final char quoteChar = _quoteChar == null ? DEFAULT_QUOTE_CHAR : _quoteChar;
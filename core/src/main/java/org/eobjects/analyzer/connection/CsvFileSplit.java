@@ -0,0 +1,46 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection;
+
+import java.io.File;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.csv.CsvDataContext;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.util.Resource;
+
+/**
+ * {@link DataSetSplit} for CSV files that do not contain multiline values.
+ */
+final class CsvFileSplit extends LineBasedFileSplit {
+
+    private final CsvConfiguration _configuration;
+
+    public CsvFileSplit(File file, CsvConfiguration configuration, long headerEnd, long start, long end, Query query) {
+        super(file, headerEnd, start, end, query);
+        _configuration = configuration;
+    }
+
+    @Override
+    protected DataContext createDataContext(Resource resource) {
+        return new CsvDataContext(resource, _configuration);
+    }
+}
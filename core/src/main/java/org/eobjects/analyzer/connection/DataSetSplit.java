@@ -0,0 +1,36 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection;
+
+import org.apache.metamodel.data.DataSet;
+
+/**
+ * Represents a part of a query result which can be read independently of the
+ * other parts. See {@link SplitReadableDatastore}.
+ */
+public interface DataSetSplit {
+
+    /**
+     * Opens a {@link DataSet} with the records of this split.
+     * 
+     * @return
+     */
+    public DataSet read();
+}
@@ -22,6 +22,7 @@ package org.eobjects.analyzer.connection;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -29,11 +30,13 @@ import org.eobjects.analyzer.util.ReadObjectBuilder;
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.DataContextFactory;
 import org.apache.metamodel.fixedwidth.FixedWidthConfiguration;
+import org.apache.metamodel.query.Query;
 
 /**
  * Datastore based on fixed width files
  */
-public class FixedWidthDatastore extends UsageAwareDatastore<DataContext> implements FileDatastore {
+public class FixedWidthDatastore extends UsageAwareDatastore<DataContext> implements FileDatastore,
+		SplitReadableDatastore {
 
 	private static final long serialVersionUID = 1L;
 
@@ -99,16 +102,45 @@ public class FixedWidthDatastore extends UsageAwareDatastore<DataContext> implem
 		final File file = new File(_filename);
 		assert file.exists();
 
-		final FixedWidthConfiguration configuration;
+		final FixedWidthConfiguration configuration = getConfiguration();
+
+		DataContext dataContext = DataContextFactory.createFixedWidthDataContext(file, configuration);
+		return new DatastoreConnectionImpl<DataContext>(dataContext, this);
+	}
+
+	@Override
+	public List<DataSetSplit> createSplits(Query query, int maxSplits) {
+		if (maxSplits < 2 || !LineBasedFileSplit.isSplittable(query) || !LineBasedFileSplit.isSplittable(_encoding)) {
+			return null;
+		}
+
+		final File file = new File(_filename);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		final long[] boundaries = LineBasedFileSplit.createBoundaries(file, _headerLineNumber, maxSplits);
+		if (boundaries == null) {
+			return null;
+		}
+
+		final FixedWidthConfiguration configuration = getConfiguration();
+		final long headerEnd = LineBasedFileSplit.findHeaderEnd(file, _headerLineNumber);
+		final List<DataSetSplit> splits = new ArrayList<DataSetSplit>(boundaries.length - 1);
+		for (int i = 0; i < boundaries.length - 1; i++) {
+			splits.add(new FixedWidthFileSplit(file, configuration, headerEnd, boundaries[i], boundaries[i + 1],
+					query));
+		}
+		return splits;
+	}
+
+	private FixedWidthConfiguration getConfiguration() {
 		if (_fixedValueWidth == -1) {
-			configuration = new FixedWidthConfiguration(_headerLineNumber, _encoding, _valueWidths, _failOnInconsistencies);
+			return new FixedWidthConfiguration(_headerLineNumber, _encoding, _valueWidths, _failOnInconsistencies);
 		} else {
-			configuration = new FixedWidthConfiguration(_headerLineNumber, _encoding, _fixedValueWidth,
+			return new FixedWidthConfiguration(_headerLineNumber, _encoding, _fixedValueWidth,
 					_failOnInconsistencies);
 		}
-
-		DataContext dataContext = DataContextFactory.createFixedWidthDataContext(file, configuration);
-		return new DatastoreConnectionImpl<DataContext>(dataContext, this);
 	}
 
 	public String getEncoding() {
@@ -0,0 +1,468 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.Action;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.util.Func;
+import org.apache.metamodel.util.Resource;
+import org.apache.metamodel.util.ResourceException;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A {@link DataSetSplit} for files where every record is represented by a
+ * single line, such as CSV files without multiline values and fixed width
+ * files. The split covers a byte range of the file which is aligned to line
+ * boundaries, so that each split can be parsed independently.
+ * 
+ * The split is parsed by MetaModel, using the same configuration as a
+ * sequential read of the file. MetaModel reads a {@link Resource} consisting of
+ * the header of the file followed by the byte range of the split, so that
+ * column names, blank lines and inconsistent rows are treated exactly as in a
+ * sequential read.
+ * 
+ * Only encodings where the line feed character is encoded as a single byte
+ * (which cannot occur as part of any other character) are supported, see
+ * {@link #isSplittable(String)}.
+ */
+abstract class LineBasedFileSplit implements DataSetSplit {
+
+    /**
+     * The minimum size (in bytes) of a split. Smaller files are not worth the
+     * overhead of splitting.
+     */
+    public static final long MIN_SPLIT_SIZE = 16 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte LINE_FEED = '\n';
+
+    private final File _file;
+    private final long _headerEnd;
+    private final long _start;
+    private final long _end;
+    private final SelectItem[] _selectItems;
+    private final int[] _columnIndexes;
+    private volatile int _headerRecordCount = -1;
+
+    /**
+     * Creates a split.
+     * 
+     * @param file
+     * @param headerEnd
+     *            the end offset of the header of the file, see
+     *            {@link #findHeaderEnd(File, int)}
+     * @param start
+     * @param end
+     * @param query
+     */
+    public LineBasedFileSplit(File file, long headerEnd, long start, long end, Query query) {
+        _file = file;
+        _headerEnd = headerEnd;
+        _start = start;
+        _end = end;
+
+        final List<SelectItem> selectItems = query.getSelectClause().getItems();
+        _selectItems = selectItems.toArray(new SelectItem[selectItems.size()]);
+        _columnIndexes = new int[_selectItems.length];
+        for (int i = 0; i < _selectItems.length; i++) {
+            _columnIndexes[i] = _selectItems[i].getColumn().getColumnNumber();
+        }
+    }
+
+    /**
+     * Creates a {@link DataContext} which parses a resource with the same
+     * configuration as the datastore of the split.
+     * 
+     * @param resource
+     * @return
+     */
+    protected abstract DataContext createDataContext(Resource resource);
+
+    @Override
+    public DataSet read() {
+        // the header alone may contain records, eg. when the column names are
+        // derived from the first record. These are skipped.
+        if (_headerRecordCount == -1) {
+            _headerRecordCount = countRecords(executeQuery(_headerEnd, _headerEnd));
+        }
+
+        final DataSet dataSet = executeQuery(_start, _end);
+        for (int i = 0; i < _headerRecordCount; i++) {
+            if (!dataSet.next()) {
+                break;
+            }
+        }
+        return new SplitDataSet(dataSet);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[file=" + _file + ",start=" + _start + ",end=" + _end + "]";
+    }
+
+    private DataSet executeQuery(long start, long end) {
+        final DataContext dataContext = createDataContext(new SplitResource(start, end));
+        final Table table = dataContext.getDefaultSchema().getTables()[0];
+        return dataContext.query().from(table).select(table.getColumns()).execute();
+    }
+
+    private static int countRecords(DataSet dataSet) {
+        int count = 0;
+        try {
+            while (dataSet.next()) {
+                count++;
+            }
+        } finally {
+            dataSet.close();
+        }
+        return count;
+    }
+
+    /**
+     * Determines if a query is simple enough to be split, ie. if it is a plain
+     * selection of columns from a single table.
+     * 
+     * @param query
+     * @return
+     */
+    public static boolean isSplittable(Query query) {
+        final List<FromItem> fromItems = query.getFromClause().getItems();
+        if (fromItems.size() != 1 || fromItems.get(0).getTable() == null) {
+            return false;
+        }
+        if (query.getSelectClause().isDistinct() || !query.getWhereClause().isEmpty()
+                || !query.getGroupByClause().isEmpty() || !query.getHavingClause().isEmpty()
+                || !query.getOrderByClause().isEmpty()) {
+            return false;
+        }
+        if (query.getFirstRow() != null || query.getMaxRows() != null) {
+            return false;
+        }
+        final List<SelectItem> selectItems = query.getSelectClause().getItems();
+        if (selectItems.isEmpty()) {
+            return false;
+        }
+        for (SelectItem selectItem : selectItems) {
+            if (selectItem.getColumn() == null || selectItem.getFunction() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines if files of a particular encoding can be split on line feed
+     * bytes.
+     * 
+     * @param encoding
+     * @return
+     */
+    public static boolean isSplittable(String encoding) {
+        final Charset charset;
+        try {
+            charset = Charset.forName(getEncoding(encoding));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!charset.canEncode()) {
+            return false;
+        }
+        return Arrays.equals(new byte[] { '\n' }, "\n".getBytes(charset))
+                && Arrays.equals(new byte[] { '\r' }, "\r".getBytes(charset))
+                && Arrays.equals(new byte[] { 'a' }, "a".getBytes(charset));
+    }
+
+    /**
+     * Computes the byte offsets of the splits of a file. The returned array
+     * contains the start offset of each split, followed by the end offset of
+     * the last split.
+     * 
+     * @param file
+     * @param headerLineNumber
+     *            the number of lines before the first record, which will be
+     *            skipped
+     * @param maxSplits
+     * @return an array of offsets, or null if the file is too small to be
+     *         split.
+     */
+    public static long[] createBoundaries(File file, int headerLineNumber, int maxSplits) {
+        return createBoundaries(file, headerLineNumber, maxSplits, MIN_SPLIT_SIZE);
+    }
+
+    static long[] createBoundaries(File file, int headerLineNumber, int maxSplits, long minSplitSize) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = randomAccessFile.getChannel();
+            final long length = channel.size();
+
+            long dataStart = 0;
+            for (int i = 0; i < headerLineNumber && dataStart < length; i++) {
+                dataStart = findNextLineStart(channel, dataStart, length);
+            }
+
+            final int numSplits = (int) Math.min(maxSplits, (length - dataStart) / minSplitSize);
+            if (numSplits < 2) {
+                return null;
+            }
+
+            final List<Long> boundaries = new ArrayList<Long>(numSplits + 1);
+            boundaries.add(dataStart);
+            final long splitSize = (length - dataStart) / numSplits;
+            for (int i = 1; i < numSplits; i++) {
+                final long position = dataStart + i * splitSize;
+                final long boundary = findNextLineStart(channel, position - 1, length);
+                if (boundary > boundaries.get(boundaries.size() - 1) && boundary < length) {
+                    boundaries.add(boundary);
+                }
+            }
+            boundaries.add(length);
+
+            if (boundaries.size() < 3) {
+                return null;
+            }
+
+            final long[] result = new long[boundaries.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = boundaries.get(i);
+            }
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getEncoding(String encoding) {
+        if (encoding == null) {
+            return FileHelper.DEFAULT_ENCODING;
+        }
+        return encoding;
+    }
+
+    /**
+     * Finds the end offset of the header of a file, ie. the lines up to and
+     * including the column name line. If the file has no column name line,
+     * the header consists of the first line, since the columns are then
+     * derived from the first record.
+     * 
+     * @param file
+     * @param headerLineNumber
+     *            the line number of the column names, or 0 if there are none
+     * @return
+     */
+    public static long findHeaderEnd(File file, int headerLineNumber) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = randomAccessFile.getChannel();
+            final long length = channel.size();
+            long headerEnd = 0;
+            for (int i = 0; i < Math.max(1, headerLineNumber) && headerEnd < length; i++) {
+                headerEnd = findNextLineStart(channel, headerEnd, length);
+            }
+            return headerEnd;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finds the offset of the first line starting after a particular position,
+     * ie. the offset following the first line feed at or after the position.
+     */
+    private static long findNextLineStart(FileChannel channel, long position, long limit) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long offset = position;
+        while (offset < limit) {
+            buffer.clear();
+            final int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == LINE_FEED) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return limit;
+    }
+
+    /**
+     * A read only {@link Resource} with the header of the file followed by a
+     * byte range of the file.
+     */
+    private final class SplitResource implements Resource {
+
+        private final long _rangeStart;
+        private final long _rangeEnd;
+
+        public SplitResource(long rangeStart, long rangeEnd) {
+            _rangeStart = rangeStart;
+            _rangeEnd = rangeEnd;
+        }
+
+        @Override
+        public String getName() {
+            return _file.getName();
+        }
+
+        @Override
+        public String getQualifiedPath() {
+            return _file.getPath() + "[" + _rangeStart + "-" + _rangeEnd + "]";
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public boolean isExists() {
+            return _file.exists();
+        }
+
+        @Override
+        public long getSize() {
+            return _headerEnd + (_rangeEnd - _rangeStart);
+        }
+
+        @Override
+        public long getLastModified() {
+            return _file.lastModified();
+        }
+
+        @Override
+        public void write(Action<OutputStream> writeCallback) throws ResourceException {
+            throw new ResourceException(this, "Resource is read only: " + this);
+        }
+
+        @Override
+        public void append(Action<OutputStream> appendCallback) throws ResourceException {
+            throw new ResourceException(this, "Resource is read only: " + this);
+        }
+
+        @Override
+        public InputStream read() throws ResourceException {
+            InputStream header = null;
+            try {
+                header = ByteStreams.limit(new FileInputStream(_file), _headerEnd);
+                final FileInputStream range = new FileInputStream(_file);
+                range.getChannel().position(_rangeStart);
+                return new SequenceInputStream(header, ByteStreams.limit(range, _rangeEnd - _rangeStart));
+            } catch (IOException e) {
+                FileHelper.safeClose(header);
+                throw new ResourceException(this, e);
+            }
+        }
+
+        @Override
+        public void read(Action<InputStream> readCallback) throws ResourceException {
+            final InputStream in = read();
+            try {
+                readCallback.run(in);
+            } catch (Exception e) {
+                throw new ResourceException(this, e);
+            } finally {
+                FileHelper.safeClose(in);
+            }
+        }
+
+        @Override
+        public <E> E read(Func<InputStream, E> readCallback) throws ResourceException {
+            final InputStream in = read();
+            try {
+                return readCallback.eval(in);
+            } catch (Exception e) {
+                throw new ResourceException(this, e);
+            } finally {
+                FileHelper.safeClose(in);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "SplitResource[" + getQualifiedPath() + "]";
+        }
+    }
+
+    /**
+     * The {@link DataSet} of a split, which exposes the records parsed by
+     * MetaModel with the select items of the query of the split.
+     */
+    private final class SplitDataSet extends AbstractDataSet {
+
+        private final DataSet _dataSet;
+        private Row _row;
+
+        public SplitDataSet(DataSet dataSet) {
+            super(_selectItems);
+            _dataSet = dataSet;
+        }
+
+        @Override
+        public boolean next() {
+            if (!_dataSet.next()) {
+                _row = null;
+                return false;
+            }
+
+            final Row row = _dataSet.getRow();
+            final Object[] rowValues = new Object[_columnIndexes.length];
+            for (int i = 0; i < _columnIndexes.length; i++) {
+                rowValues[i] = row.getValue(_columnIndexes[i]);
+            }
+            _row = new DefaultRow(getHeader(), rowValues);
+            return true;
+        }
+
+        @Override
+        public Row getRow() {
+            return _row;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            _dataSet.close();
+        }
+    }
+}
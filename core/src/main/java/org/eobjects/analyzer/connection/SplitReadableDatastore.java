@@ -0,0 +1,45 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection;
+
+import java.util.List;
+
+import org.apache.metamodel.query.Query;
+
+/**
+ * Interface for datastores that are able to read the result of (some) queries
+ * in several independent splits. This allows the row processing engine to
+ * parse the datastore's source in parallel, which is typically relevant for
+ * large files where parsing, not I/O, is the bottleneck.
+ */
+public interface SplitReadableDatastore extends Datastore {
+
+    /**
+     * Creates splits for reading the result of a query.
+     * 
+     * @param query
+     *            the query to split
+     * @param maxSplits
+     *            the maximum number of splits to create
+     * @return a list of splits which, read in order, yields the same records
+     *         as executing the query, or null if the query cannot be split.
+     */
+    public List<DataSetSplit> createSplits(Query query, int maxSplits);
+}
@@ -0,0 +1,70 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the values of a single column from a memory mapped snapshot column
+ * file.
+ * 
+ * @see ColumnWriter
+ */
+final class ColumnReader implements Closeable {
+
+    private final MappedFileInput _input;
+    private final List<Object> _dictionary;
+    private Object _runValue;
+    private int _runRemaining;
+
+    public ColumnReader(File file) throws IOException {
+        _input = new MappedFileInput(file);
+        _dictionary = new ArrayList<Object>();
+        _runRemaining = 0;
+    }
+
+    public Object read() throws IOException {
+        if (_runRemaining == 0) {
+            _runRemaining = _input.readVarInt();
+            final int code = _input.readVarInt();
+            if (code == 0) {
+                _runValue = SnapshotValueCodec.read(_input);
+            } else if (code == _dictionary.size() + 1) {
+                _runValue = SnapshotValueCodec.read(_input);
+                _dictionary.add(_runValue);
+            } else if (code <= _dictionary.size()) {
+                _runValue = _dictionary.get(code - 1);
+            } else {
+                throw new IOException("Corrupt snapshot, unknown dictionary code: " + code);
+            }
+        }
+        _runRemaining--;
+        return _runValue;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _input.close();
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Writes the values of a single column to a snapshot column file.
+ * 
+ * Values are run length encoded: Each run consists of the run length, a
+ * dictionary code and (optionally) the value itself. Code 0 means that a
+ * literal value follows, a code equal to the dictionary size + 1 means that a
+ * new dictionary entry follows and any other code refers to an existing
+ * dictionary entry. The dictionary is built while writing (and reading), so no
+ * separate dictionary section is needed.
+ * 
+ * @see ColumnReader
+ */
+final class ColumnWriter implements Closeable {
+
+    /**
+     * The maximum number of dictionary entries of a column. Values of columns
+     * with more distinct values than this are written as literals.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+
+    private final CountingOutputStream _countingOutputStream;
+    private final DataOutputStream _out;
+    private final Map<Object, Integer> _dictionary;
+    private final List<Object> _dictionaryValues;
+    private Object _runValue;
+    private int _runLength;
+
+    public ColumnWriter(File file) throws IOException {
+        _countingOutputStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        _out = new DataOutputStream(_countingOutputStream);
+        _dictionary = new HashMap<Object, Integer>();
+        _dictionaryValues = new ArrayList<Object>();
+        _runLength = 0;
+    }
+
+    public void write(Object value) throws IOException {
+        if (_runLength > 0 && SnapshotValueCodec.isSame(_runValue, value)) {
+            _runLength++;
+            return;
+        }
+        flushRun();
+        _runValue = value;
+        _runLength = 1;
+    }
+
+    /**
+     * Gets the number of bytes written to the file so far
+     * 
+     * @return
+     */
+    public long getSize() {
+        return _countingOutputStream.getCount();
+    }
+
+    private void flushRun() throws IOException {
+        if (_runLength == 0) {
+            return;
+        }
+
+        SnapshotValueCodec.writeVarInt(_out, _runLength);
+
+        final Object value = _runValue;
+        final Integer index = (value instanceof byte[] ? null : _dictionary.get(value));
+        if (index != null && SnapshotValueCodec.isSame(_dictionaryValues.get(index), value)) {
+            SnapshotValueCodec.writeVarInt(_out, index + 1);
+        } else if (index == null && !(value instanceof byte[]) && _dictionaryValues.size() < MAX_DICTIONARY_SIZE) {
+            final int newIndex = _dictionaryValues.size();
+            _dictionary.put(value, newIndex);
+            _dictionaryValues.add(value);
+            SnapshotValueCodec.writeVarInt(_out, newIndex + 1);
+            SnapshotValueCodec.write(_out, value);
+        } else {
+            SnapshotValueCodec.writeVarInt(_out, 0);
+            SnapshotValueCodec.write(_out, value);
+        }
+
+        _runValue = null;
+        _runLength = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRun();
+        } finally {
+            _out.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Reads a file through a (sliding) read-only memory mapped window. Multiple
+ * windows are used so that files larger than what can be mapped in a single
+ * buffer can be read as well.
+ */
+final class MappedFileInput implements Closeable {
+
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final RandomAccessFile _file;
+    private final FileChannel _channel;
+    private final long _size;
+    private long _windowStart;
+    private MappedByteBuffer _buffer;
+
+    public MappedFileInput(File file) throws IOException {
+        _file = new RandomAccessFile(file, "r");
+        _channel = _file.getChannel();
+        _size = _channel.size();
+        map(0, 0);
+    }
+
+    private void map(long position, int minSize) throws IOException {
+        final long size = Math.min(Math.max(WINDOW_SIZE, minSize), _size - position);
+        _windowStart = position;
+        _buffer = _channel.map(MapMode.READ_ONLY, position, size);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (_buffer.remaining() < bytes) {
+            final long position = _windowStart + _buffer.position();
+            if (position + bytes > _size) {
+                throw new EOFException("Unexpected end of snapshot file");
+            }
+            map(position, bytes);
+        }
+    }
+
+    public boolean hasRemaining() {
+        return _windowStart + _buffer.position() < _size;
+    }
+
+    public byte readByte() throws IOException {
+        ensure(1);
+        return _buffer.get();
+    }
+
+    public short readShort() throws IOException {
+        ensure(2);
+        return _buffer.getShort();
+    }
+
+    public char readChar() throws IOException {
+        ensure(2);
+        return _buffer.getChar();
+    }
+
+    public int readInt() throws IOException {
+        ensure(4);
+        return _buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensure(8);
+        return _buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        ensure(4);
+        return _buffer.getFloat();
+    }
+
+    public double readDouble() throws IOException {
+        ensure(8);
+        return _buffer.getDouble();
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            final byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Corrupt snapshot, malformed variable length int");
+            }
+        }
+    }
+
+    public byte[] readBytes(int length) throws IOException {
+        ensure(length);
+        final byte[] bytes = new byte[length];
+        _buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _buffer = null;
+        _file.close();
+    }
+}
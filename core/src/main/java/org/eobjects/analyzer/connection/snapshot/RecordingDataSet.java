@@ -0,0 +1,118 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.IOException;
+
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DataSet} wrapper which records the rows of the wrapped data set into a
+ * new {@link Snapshot}. The snapshot is only committed to the
+ * {@link SnapshotCache} if the data set was read completely.
+ */
+final class RecordingDataSet extends AbstractDataSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingDataSet.class);
+
+    private static final int SIZE_CHECK_INTERVAL = 10000;
+
+    private final SnapshotCache _cache;
+    private final DataSet _dataSet;
+    private final String _key;
+    private final String _datastoreName;
+    private final String _tableName;
+    private SnapshotWriter _writer;
+    private boolean _completed;
+    private int _rowCount;
+
+    public RecordingDataSet(SnapshotCache cache, DataSet dataSet, SnapshotWriter writer, String key,
+            String datastoreName, String tableName) {
+        super(dataSet.getSelectItems());
+        _cache = cache;
+        _dataSet = dataSet;
+        _writer = writer;
+        _key = key;
+        _datastoreName = datastoreName;
+        _tableName = tableName;
+        _completed = false;
+        _rowCount = 0;
+    }
+
+    @Override
+    public boolean next() {
+        final boolean next = _dataSet.next();
+        if (!next) {
+            _completed = true;
+        } else if (_writer != null) {
+            record(_dataSet.getRow());
+        }
+        return next;
+    }
+
+    private void record(Row row) {
+        try {
+            if (!_writer.write(row.getValues())) {
+                logger.info("Row contains values that cannot be stored in a snapshot, not recording snapshot: {}",
+                        row);
+                abort();
+                return;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write snapshot, not recording snapshot", e);
+            abort();
+            return;
+        }
+
+        _rowCount++;
+        if (_rowCount % SIZE_CHECK_INTERVAL == 0 && _writer.getSize() > _cache.getMaxSize()) {
+            logger.info("Snapshot exceeds maximum cache size, not recording snapshot");
+            abort();
+        }
+    }
+
+    private void abort() {
+        _writer.abort();
+        _writer = null;
+    }
+
+    @Override
+    public Row getRow() {
+        return _dataSet.getRow();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        _dataSet.close();
+        if (_writer != null) {
+            if (_completed) {
+                _cache.commit(_writer, _key, _datastoreName, _tableName);
+            } else {
+                abort();
+            }
+            _writer = null;
+        }
+    }
+}
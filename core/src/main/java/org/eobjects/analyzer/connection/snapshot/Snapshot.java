@@ -0,0 +1,199 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.apache.metamodel.util.FileHelper;
+
+/**
+ * A snapshot of the result of a single query, stored in a directory of a
+ * {@link SnapshotCache}. The directory contains a metadata file and a column
+ * file for each select item of the query.
+ */
+final class Snapshot {
+
+    private static final String METADATA_FILENAME = "snapshot.properties";
+
+    private static final String PROPERTY_KEY = "key";
+    private static final String PROPERTY_DATASTORE = "datastore";
+    private static final String PROPERTY_TABLE = "table";
+    private static final String PROPERTY_CREATED = "created";
+    private static final String PROPERTY_ROWS = "rows";
+    private static final String PROPERTY_COLUMNS = "columns";
+
+    private final File _directory;
+    private final String _key;
+    private final String _datastoreName;
+    private final String _tableName;
+    private final long _created;
+    private final int _rowCount;
+    private final int _columnCount;
+    private final long _size;
+
+    // guarded by the SnapshotCache
+    private int _readers;
+    private boolean _removed;
+
+    private Snapshot(File directory, Properties properties) {
+        _directory = directory;
+        _key = properties.getProperty(PROPERTY_KEY);
+        _datastoreName = properties.getProperty(PROPERTY_DATASTORE);
+        _tableName = properties.getProperty(PROPERTY_TABLE);
+        _created = Long.parseLong(properties.getProperty(PROPERTY_CREATED));
+        _rowCount = Integer.parseInt(properties.getProperty(PROPERTY_ROWS));
+        _columnCount = Integer.parseInt(properties.getProperty(PROPERTY_COLUMNS));
+
+        long size = getMetadataFile(directory).length();
+        for (int i = 0; i < _columnCount; i++) {
+            size += getColumnFile(directory, i).length();
+        }
+        _size = size;
+    }
+
+    /**
+     * Loads a snapshot from its directory
+     * 
+     * @param directory
+     * @return
+     * @throws IOException
+     *             if the directory does not contain a valid snapshot
+     */
+    public static Snapshot load(File directory) throws IOException {
+        final Properties properties = new Properties();
+        final InputStream in = new FileInputStream(getMetadataFile(directory));
+        try {
+            properties.load(in);
+        } finally {
+            FileHelper.safeClose(in);
+        }
+
+        try {
+            return new Snapshot(directory, properties);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid snapshot metadata in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes the metadata file of a snapshot.
+     */
+    public static void saveMetadata(File directory, String key, String datastoreName, String tableName,
+            int rowCount, int columnCount) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(PROPERTY_KEY, key);
+        properties.setProperty(PROPERTY_DATASTORE, datastoreName);
+        properties.setProperty(PROPERTY_TABLE, tableName);
+        properties.setProperty(PROPERTY_CREATED, Long.toString(System.currentTimeMillis()));
+        properties.setProperty(PROPERTY_ROWS, Integer.toString(rowCount));
+        properties.setProperty(PROPERTY_COLUMNS, Integer.toString(columnCount));
+
+        final OutputStream out = new FileOutputStream(getMetadataFile(directory));
+        try {
+            properties.store(out, null);
+        } finally {
+            FileHelper.safeClose(out);
+        }
+    }
+
+    private static File getMetadataFile(File directory) {
+        return new File(directory, METADATA_FILENAME);
+    }
+
+    public static File getColumnFile(File directory, int columnIndex) {
+        return new File(directory, "column" + columnIndex + ".dat");
+    }
+
+    public File getColumnFile(int columnIndex) {
+        return getColumnFile(_directory, columnIndex);
+    }
+
+    /**
+     * Gets the last time the snapshot was accessed (or created)
+     * 
+     * @return
+     */
+    public long getLastAccessed() {
+        return getMetadataFile(_directory).lastModified();
+    }
+
+    public void touch() {
+        getMetadataFile(_directory).setLastModified(System.currentTimeMillis());
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    public String getKey() {
+        return _key;
+    }
+
+    public String getDatastoreName() {
+        return _datastoreName;
+    }
+
+    public String getTableName() {
+        return _tableName;
+    }
+
+    public long getCreated() {
+        return _created;
+    }
+
+    public int getRowCount() {
+        return _rowCount;
+    }
+
+    public int getColumnCount() {
+        return _columnCount;
+    }
+
+    public long getSize() {
+        return _size;
+    }
+
+    int getReaders() {
+        return _readers;
+    }
+
+    void setReaders(int readers) {
+        _readers = readers;
+    }
+
+    boolean isRemoved() {
+        return _removed;
+    }
+
+    void setRemoved(boolean removed) {
+        _removed = removed;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot[datastore=" + _datastoreName + ",table=" + _tableName + ",rows=" + _rowCount + "]";
+    }
+}
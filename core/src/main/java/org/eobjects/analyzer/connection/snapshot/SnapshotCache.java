@@ -0,0 +1,449 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Table;
+import org.apache.metamodel.util.Resource;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.FileDatastore;
+import org.eobjects.analyzer.connection.ResourceDatastore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * A local cache of columnar snapshots of query results. When the same table
+ * is read repeatedly (eg. while iterating on the design of a job), the rows can
+ * be read from the snapshot instead of from the (potentially remote and slow)
+ * datastore.
+ * 
+ * Snapshots are keyed by the datastore name and the exact query, ie. the table,
+ * the selected columns and any pushed down filtering or paging. For file based
+ * datastores the key also contains the size and last modification time of the
+ * file, so that a snapshot is never read after the file has changed. Each column is
+ * stored in a separate file using run length and dictionary encoding and read
+ * through memory mapping, see {@link ColumnWriter} and {@link ColumnReader}.
+ * 
+ * Snapshots are considered fresh for a configurable amount of time, after which
+ * they will be re-recorded. Snapshots can be invalidated explicitly, eg. when
+ * the source data is known to have changed, and the least recently used
+ * snapshots are evicted when the cache exceeds its maximum size.
+ */
+public class SnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotCache.class);
+
+    private static final String TEMP_DIRECTORY_MARKER = ".tmp";
+
+    private final File _directory;
+    private final long _maxSize;
+    private final long _maxAgeMillis;
+    private final Map<String, Snapshot> _snapshots;
+    private long _size;
+
+    /**
+     * Creates a snapshot cache.
+     * 
+     * @param directory
+     *            the directory to store snapshots in. Existing snapshots in the
+     *            directory will be reused.
+     * @param maxSize
+     *            the maximum size (in bytes) of all snapshots in the cache
+     * @param maxAgeMillis
+     *            the amount of milliseconds that a snapshot is considered
+     *            fresh, or 0 if snapshots should only be invalidated
+     *            explicitly
+     */
+    public SnapshotCache(File directory, long maxSize, long maxAgeMillis) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        _directory = directory;
+        _maxSize = maxSize;
+        _maxAgeMillis = maxAgeMillis;
+
+        // access ordered, ie. least recently used first
+        _snapshots = new LinkedHashMap<String, Snapshot>(16, 0.75f, true);
+        _size = 0;
+
+        loadSnapshots();
+    }
+
+    private void loadSnapshots() {
+        if (!_directory.exists() && !_directory.mkdirs()) {
+            throw new IllegalStateException("Could not create snapshot cache directory: " + _directory);
+        }
+
+        final List<Snapshot> snapshots = new ArrayList<Snapshot>();
+        final File[] files = _directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.isDirectory()) {
+                    continue;
+                }
+                if (file.getName().contains(TEMP_DIRECTORY_MARKER)) {
+                    // left over from an interrupted recording
+                    deleteDirectory(file);
+                    continue;
+                }
+                try {
+                    snapshots.add(Snapshot.load(file));
+                } catch (IOException e) {
+                    logger.warn("Removing invalid snapshot directory: {}", file, e);
+                    deleteDirectory(file);
+                }
+            }
+        }
+
+        Collections.sort(snapshots, new Comparator<Snapshot>() {
+            @Override
+            public int compare(Snapshot o1, Snapshot o2) {
+                return Long.compare(o1.getLastAccessed(), o2.getLastAccessed());
+            }
+        });
+
+        synchronized (this) {
+            for (Snapshot snapshot : snapshots) {
+                final Snapshot existing = _snapshots.get(snapshot.getKey());
+                if (existing == null) {
+                    putSnapshot(snapshot);
+                } else if (existing.getCreated() < snapshot.getCreated()) {
+                    removeSnapshot(existing);
+                    putSnapshot(snapshot);
+                } else {
+                    deleteDirectory(snapshot.getDirectory());
+                }
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Determines if the result of a query can be stored in a snapshot. This is
+     * the case for queries of a single table that select plain columns.
+     * 
+     * @param query
+     * @return
+     */
+    public static boolean isCacheable(Query query) {
+        final List<FromItem> fromItems = query.getFromClause().getItems();
+        if (fromItems.size() != 1 || fromItems.get(0).getTable() == null) {
+            return false;
+        }
+        if (!query.getGroupByClause().isEmpty() || query.getSelectClause().isDistinct()) {
+            return false;
+        }
+        for (SelectItem selectItem : query.getSelectClause().getItems()) {
+            if (selectItem.getColumn() == null || selectItem.getFunction() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens a {@link DataSet} of a fresh snapshot of a query, if available.
+     * 
+     * @param datastore
+     * @param query
+     * @return a data set, or null if no fresh snapshot of the query exists
+     */
+    public DataSet read(Datastore datastore, Query query) {
+        if (!isCacheable(query)) {
+            return null;
+        }
+
+        final String key = createKey(datastore, query);
+        final Snapshot snapshot;
+        synchronized (this) {
+            snapshot = _snapshots.get(key);
+            if (snapshot == null) {
+                return null;
+            }
+            if (_maxAgeMillis > 0 && snapshot.getCreated() + _maxAgeMillis < System.currentTimeMillis()) {
+                logger.info("Snapshot has expired: {}", snapshot);
+                removeSnapshot(snapshot);
+                return null;
+            }
+            snapshot.setReaders(snapshot.getReaders() + 1);
+        }
+
+        snapshot.touch();
+
+        try {
+            final DataSet dataSet = new SnapshotDataSet(this, snapshot, query.getSelectClause().getItems());
+            logger.info("Reading {}", snapshot);
+            return dataSet;
+        } catch (IOException e) {
+            logger.warn("Failed to open snapshot, removing it: {}", snapshot, e);
+            synchronized (this) {
+                removeSnapshot(snapshot);
+            }
+            release(snapshot);
+            return null;
+        }
+    }
+
+    /**
+     * Wraps the {@link DataSet} of a query in order to record a new snapshot
+     * of it. The snapshot will be available once the data set has been read
+     * completely and closed.
+     * 
+     * @param datastore
+     * @param query
+     * @param dataSet
+     * @return a recording data set, or the original data set if the query
+     *         cannot be recorded
+     */
+    public DataSet record(Datastore datastore, Query query, DataSet dataSet) {
+        if (!isCacheable(query)) {
+            return dataSet;
+        }
+
+        final String key = createKey(datastore, query);
+        final File directory = new File(_directory, createDirectoryName(key) + TEMP_DIRECTORY_MARKER
+                + System.nanoTime());
+        final SnapshotWriter writer;
+        try {
+            writer = new SnapshotWriter(directory, query.getSelectClause().getItemCount());
+        } catch (IOException e) {
+            logger.warn("Failed to create snapshot directory, not recording snapshot", e);
+            return dataSet;
+        }
+
+        final Table table = query.getFromClause().getItem(0).getTable();
+        return new RecordingDataSet(this, dataSet, writer, key, datastore.getName(), table.getQualifiedLabel());
+    }
+
+    /**
+     * Invalidates all snapshots of a datastore
+     * 
+     * @param datastore
+     */
+    public synchronized void invalidate(Datastore datastore) {
+        for (Snapshot snapshot : new ArrayList<Snapshot>(_snapshots.values())) {
+            if (snapshot.getDatastoreName().equals(datastore.getName())) {
+                removeSnapshot(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Invalidates all snapshots of a particular table of a datastore
+     * 
+     * @param datastore
+     * @param table
+     */
+    public synchronized void invalidate(Datastore datastore, Table table) {
+        final String tableName = table.getQualifiedLabel();
+        for (Snapshot snapshot : new ArrayList<Snapshot>(_snapshots.values())) {
+            if (snapshot.getDatastoreName().equals(datastore.getName())
+                    && snapshot.getTableName().equals(tableName)) {
+                removeSnapshot(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Invalidates all snapshots in the cache
+     */
+    public synchronized void invalidateAll() {
+        for (Snapshot snapshot : new ArrayList<Snapshot>(_snapshots.values())) {
+            removeSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * Gets the total size (in bytes) of the snapshots in the cache
+     * 
+     * @return
+     */
+    public synchronized long getSize() {
+        return _size;
+    }
+
+    public long getMaxSize() {
+        return _maxSize;
+    }
+
+    public long getMaxAgeMillis() {
+        return _maxAgeMillis;
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    /**
+     * Commits a completely recorded snapshot to the cache.
+     */
+    void commit(SnapshotWriter writer, String key, String datastoreName, String tableName) {
+        final Snapshot snapshot;
+        try {
+            writer.finish(key, datastoreName, tableName);
+            final File directory = new File(_directory, createDirectoryName(key) + '-' + System.nanoTime());
+            if (!writer.getDirectory().renameTo(directory)) {
+                throw new IOException("Could not rename snapshot directory to " + directory);
+            }
+            snapshot = Snapshot.load(directory);
+        } catch (IOException e) {
+            logger.warn("Failed to commit snapshot, discarding it", e);
+            writer.abort();
+            return;
+        }
+
+        logger.info("Recorded {}", snapshot);
+        synchronized (this) {
+            final String keyPrefix = getKeyPrefix(key);
+            for (Snapshot existing : new ArrayList<Snapshot>(_snapshots.values())) {
+                if (existing.getKey().equals(key)) {
+                    removeSnapshot(existing);
+                } else if (existing.getDatastoreName().equals(datastoreName)
+                        && existing.getTableName().equals(tableName) && !existing.getKey().startsWith(keyPrefix)) {
+                    // recorded from an older version of the source file
+                    removeSnapshot(existing);
+                }
+            }
+            putSnapshot(snapshot);
+            evict();
+        }
+    }
+
+    /**
+     * Releases a snapshot after reading it
+     * 
+     * @param snapshot
+     */
+    synchronized void release(Snapshot snapshot) {
+        snapshot.setReaders(snapshot.getReaders() - 1);
+        if (snapshot.isRemoved() && snapshot.getReaders() == 0) {
+            deleteDirectory(snapshot.getDirectory());
+        }
+    }
+
+    private void putSnapshot(Snapshot snapshot) {
+        _snapshots.put(snapshot.getKey(), snapshot);
+        _size += snapshot.getSize();
+    }
+
+    private void removeSnapshot(Snapshot snapshot) {
+        if (_snapshots.get(snapshot.getKey()) == snapshot) {
+            _snapshots.remove(snapshot.getKey());
+            _size -= snapshot.getSize();
+        }
+        snapshot.setRemoved(true);
+        if (snapshot.getReaders() == 0) {
+            deleteDirectory(snapshot.getDirectory());
+        }
+    }
+
+    /**
+     * Evicts the least recently used snapshots until the cache size is within
+     * bounds.
+     */
+    private void evict() {
+        while (_size > _maxSize && !_snapshots.isEmpty()) {
+            final Snapshot eldest = _snapshots.values().iterator().next();
+            logger.info("Evicting {}", eldest);
+            removeSnapshot(eldest);
+        }
+    }
+
+    private static String createKey(Datastore datastore, Query query) {
+        return datastore.getName() + '\n' + getSourceVersion(datastore) + '\n' + query.toSql() + "\nfirstRow="
+                + query.getFirstRow() + "\nmaxRows=" + query.getMaxRows();
+    }
+
+    /**
+     * Gets the part of a key that identifies the datastore and the version of
+     * its source file, ie. the first two lines of the key.
+     */
+    private static String getKeyPrefix(String key) {
+        final int index = key.indexOf('\n', key.indexOf('\n') + 1);
+        if (index == -1) {
+            return key;
+        }
+        return key.substring(0, index + 1);
+    }
+
+    /**
+     * Gets a string that changes whenever the source file of a file based
+     * datastore is changed.
+     * 
+     * @param datastore
+     * @return the size and last modification time of the source file, or an
+     *         empty string if the datastore is not file based
+     */
+    private static String getSourceVersion(Datastore datastore) {
+        try {
+            if (datastore instanceof ResourceDatastore) {
+                final Resource resource = ((ResourceDatastore) datastore).getResource();
+                if (resource != null && resource.isExists()) {
+                    return "size=" + resource.getSize() + ",lastModified=" + resource.getLastModified();
+                }
+            }
+            if (datastore instanceof FileDatastore) {
+                final String filename = ((FileDatastore) datastore).getFilename();
+                if (filename != null) {
+                    final File file = new File(filename);
+                    if (file.exists()) {
+                        return "size=" + file.length() + ",lastModified=" + file.lastModified();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not determine the version of the source file of datastore: {}", datastore.getName(), e);
+        }
+        return "";
+    }
+
+    private static String createDirectoryName(String key) {
+        return Hashing.sha1().hashString(key, Charsets.UTF_8).toString();
+    }
+
+    static void deleteDirectory(File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    logger.debug("Could not delete snapshot file: {}", file);
+                }
+            }
+        }
+        if (directory.exists() && !directory.delete()) {
+            logger.warn("Could not delete snapshot directory: {}", directory);
+        }
+    }
+}
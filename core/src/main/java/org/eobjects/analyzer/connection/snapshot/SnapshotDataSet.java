@@ -0,0 +1,102 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.metamodel.data.AbstractDataSet;
+import org.apache.metamodel.data.DefaultRow;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.util.FileHelper;
+
+/**
+ * {@link org.apache.metamodel.data.DataSet} implementation which reads the
+ * rows of a {@link Snapshot}.
+ */
+final class SnapshotDataSet extends AbstractDataSet {
+
+    private final SnapshotCache _cache;
+    private final Snapshot _snapshot;
+    private final ColumnReader[] _columnReaders;
+    private int _rowsRead;
+    private Row _row;
+    private boolean _closed;
+
+    public SnapshotDataSet(SnapshotCache cache, Snapshot snapshot, List<SelectItem> selectItems) throws IOException {
+        super(selectItems);
+        _cache = cache;
+        _snapshot = snapshot;
+        _columnReaders = new ColumnReader[snapshot.getColumnCount()];
+        try {
+            for (int i = 0; i < _columnReaders.length; i++) {
+                _columnReaders[i] = new ColumnReader(snapshot.getColumnFile(i));
+            }
+        } catch (IOException e) {
+            closeReaders();
+            throw e;
+        }
+        _rowsRead = 0;
+    }
+
+    @Override
+    public boolean next() {
+        if (_rowsRead == _snapshot.getRowCount()) {
+            _row = null;
+            return false;
+        }
+
+        final Object[] values = new Object[_columnReaders.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = _columnReaders[i].read();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read " + _snapshot, e);
+        }
+        _rowsRead++;
+        _row = new DefaultRow(getHeader(), values);
+        return true;
+    }
+
+    @Override
+    public Row getRow() {
+        return _row;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (!_closed) {
+            _closed = true;
+            closeReaders();
+            _cache.release(_snapshot);
+        }
+    }
+
+    private void closeReaders() {
+        for (ColumnReader columnReader : _columnReaders) {
+            if (columnReader != null) {
+                FileHelper.safeClose(columnReader);
+            }
+        }
+    }
+}
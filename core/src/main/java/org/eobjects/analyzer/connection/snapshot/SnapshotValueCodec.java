@@ -0,0 +1,265 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Encodes and decodes the (type tagged) values of snapshot column files.
+ * 
+ * Only value types with an exact binary representation are supported, so that
+ * values read from a snapshot are of the same type as the values that were
+ * originally read from the datastore.
+ */
+final class SnapshotValueCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_SQL_DATE = 6;
+    private static final byte TYPE_SQL_TIME = 7;
+    private static final byte TYPE_SQL_TIMESTAMP = 8;
+    private static final byte TYPE_DATE = 9;
+    private static final byte TYPE_BIG_DECIMAL = 10;
+    private static final byte TYPE_BIG_INTEGER = 11;
+    private static final byte TYPE_SHORT = 12;
+    private static final byte TYPE_BYTE = 13;
+    private static final byte TYPE_FLOAT = 14;
+    private static final byte TYPE_CHARACTER = 15;
+    private static final byte TYPE_BYTES = 16;
+
+    private SnapshotValueCodec() {
+        // prevent instantiation
+    }
+
+    /**
+     * Determines if a value can be stored in a snapshot.
+     * 
+     * @param value
+     * @return
+     */
+    public static boolean isSupported(Object value) {
+        return getType(value) != -1;
+    }
+
+    private static byte getType(Object value) {
+        if (value == null) {
+            return TYPE_NULL;
+        }
+        final Class<?> cls = value.getClass();
+        if (cls == String.class) {
+            return TYPE_STRING;
+        } else if (cls == Integer.class) {
+            return TYPE_INTEGER;
+        } else if (cls == Long.class) {
+            return TYPE_LONG;
+        } else if (cls == Double.class) {
+            return TYPE_DOUBLE;
+        } else if (cls == Boolean.class) {
+            return TYPE_BOOLEAN;
+        } else if (cls == java.sql.Date.class) {
+            return TYPE_SQL_DATE;
+        } else if (cls == Time.class) {
+            return TYPE_SQL_TIME;
+        } else if (cls == Timestamp.class) {
+            return TYPE_SQL_TIMESTAMP;
+        } else if (cls == Date.class) {
+            return TYPE_DATE;
+        } else if (cls == BigDecimal.class) {
+            return TYPE_BIG_DECIMAL;
+        } else if (cls == BigInteger.class) {
+            return TYPE_BIG_INTEGER;
+        } else if (cls == Short.class) {
+            return TYPE_SHORT;
+        } else if (cls == Byte.class) {
+            return TYPE_BYTE;
+        } else if (cls == Float.class) {
+            return TYPE_FLOAT;
+        } else if (cls == Character.class) {
+            return TYPE_CHARACTER;
+        } else if (cls == byte[].class) {
+            return TYPE_BYTES;
+        }
+        return -1;
+    }
+
+    /**
+     * Determines if two values are equal and of the same type, ie.
+     * interchangeable in a snapshot.
+     * 
+     * @param value1
+     * @param value2
+     * @return
+     */
+    public static boolean isSame(Object value1, Object value2) {
+        if (value1 == value2) {
+            return true;
+        }
+        if (value1 == null || value2 == null || value1.getClass() != value2.getClass()) {
+            return false;
+        }
+        if (value1 instanceof byte[]) {
+            // arrays are mutable and never shared between rows
+            return false;
+        }
+        return value1.equals(value2);
+    }
+
+    public static void write(DataOutput out, Object value) throws IOException {
+        final byte type = getType(value);
+        if (type == -1) {
+            throw new IllegalArgumentException("Unsupported snapshot value type: " + value.getClass().getName());
+        }
+        out.writeByte(type);
+        switch (type) {
+        case TYPE_NULL:
+            break;
+        case TYPE_STRING:
+            writeBytes(out, ((String) value).getBytes(UTF8));
+            break;
+        case TYPE_INTEGER:
+            out.writeInt((Integer) value);
+            break;
+        case TYPE_LONG:
+            out.writeLong((Long) value);
+            break;
+        case TYPE_DOUBLE:
+            out.writeDouble((Double) value);
+            break;
+        case TYPE_BOOLEAN:
+            out.writeBoolean((Boolean) value);
+            break;
+        case TYPE_SQL_DATE:
+        case TYPE_SQL_TIME:
+        case TYPE_DATE:
+            out.writeLong(((Date) value).getTime());
+            break;
+        case TYPE_SQL_TIMESTAMP:
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+            break;
+        case TYPE_BIG_DECIMAL:
+            writeBytes(out, ((BigDecimal) value).toString().getBytes(UTF8));
+            break;
+        case TYPE_BIG_INTEGER:
+            writeBytes(out, ((BigInteger) value).toByteArray());
+            break;
+        case TYPE_SHORT:
+            out.writeShort((Short) value);
+            break;
+        case TYPE_BYTE:
+            out.writeByte((Byte) value);
+            break;
+        case TYPE_FLOAT:
+            out.writeFloat((Float) value);
+            break;
+        case TYPE_CHARACTER:
+            out.writeChar((Character) value);
+            break;
+        case TYPE_BYTES:
+            writeBytes(out, (byte[]) value);
+            break;
+        default:
+            throw new IllegalStateException("Unexpected type: " + type);
+        }
+    }
+
+    public static Object read(MappedFileInput in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+        case TYPE_NULL:
+            return null;
+        case TYPE_STRING:
+            return new String(readBytes(in), UTF8);
+        case TYPE_INTEGER:
+            return in.readInt();
+        case TYPE_LONG:
+            return in.readLong();
+        case TYPE_DOUBLE:
+            return in.readDouble();
+        case TYPE_BOOLEAN:
+            return in.readByte() != 0;
+        case TYPE_SQL_DATE:
+            return new java.sql.Date(in.readLong());
+        case TYPE_SQL_TIME:
+            return new Time(in.readLong());
+        case TYPE_DATE:
+            return new Date(in.readLong());
+        case TYPE_SQL_TIMESTAMP:
+            final Timestamp timestamp = new Timestamp(in.readLong());
+            timestamp.setNanos(in.readInt());
+            return timestamp;
+        case TYPE_BIG_DECIMAL:
+            return new BigDecimal(new String(readBytes(in), UTF8));
+        case TYPE_BIG_INTEGER:
+            return new BigInteger(readBytes(in));
+        case TYPE_SHORT:
+            return in.readShort();
+        case TYPE_BYTE:
+            return in.readByte();
+        case TYPE_FLOAT:
+            return in.readFloat();
+        case TYPE_CHARACTER:
+            return in.readChar();
+        case TYPE_BYTES:
+            return readBytes(in);
+        default:
+            throw new IOException("Corrupt snapshot, unknown value type: " + type);
+        }
+    }
+
+    /**
+     * Writes a non-negative int using a variable amount of bytes (7 bits per
+     * byte).
+     * 
+     * @param out
+     * @param value
+     * @throws IOException
+     */
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(MappedFileInput in) throws IOException {
+        final int length = in.readVarInt();
+        return in.readBytes(length);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.metamodel.util.FileHelper;
+
+/**
+ * Writes the rows of a query result to a (temporary) snapshot directory.
+ */
+final class SnapshotWriter {
+
+    private final File _directory;
+    private final ColumnWriter[] _columnWriters;
+    private int _rowCount;
+
+    public SnapshotWriter(File directory, int columnCount) throws IOException {
+        if (!directory.mkdirs()) {
+            throw new IOException("Could not create snapshot directory: " + directory);
+        }
+        _directory = directory;
+        _columnWriters = new ColumnWriter[columnCount];
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                _columnWriters[i] = new ColumnWriter(Snapshot.getColumnFile(directory, i));
+            }
+        } catch (IOException e) {
+            closeWriters();
+            throw e;
+        }
+        _rowCount = 0;
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    /**
+     * Writes the values of a row.
+     * 
+     * @param values
+     * @return false if the row contains values that cannot be stored in a
+     *         snapshot
+     * @throws IOException
+     */
+    public boolean write(Object[] values) throws IOException {
+        for (Object value : values) {
+            if (!SnapshotValueCodec.isSupported(value)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < _columnWriters.length; i++) {
+            _columnWriters[i].write(values[i]);
+        }
+        _rowCount++;
+        return true;
+    }
+
+    /**
+     * Gets the (approximate) number of bytes written so far
+     * 
+     * @return
+     */
+    public long getSize() {
+        long size = 0;
+        for (ColumnWriter columnWriter : _columnWriters) {
+            size += columnWriter.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * Completes the snapshot by closing the column files and writing the
+     * metadata file.
+     */
+    public void finish(String key, String datastoreName, String tableName) throws IOException {
+        for (ColumnWriter columnWriter : _columnWriters) {
+            columnWriter.close();
+        }
+        Snapshot.saveMetadata(_directory, key, datastoreName, tableName, _rowCount, _columnWriters.length);
+    }
+
+    /**
+     * Discards the snapshot
+     */
+    public void abort() {
+        closeWriters();
+        SnapshotCache.deleteDirectory(_directory);
+    }
+
+    private void closeWriters() {
+        for (ColumnWriter columnWriter : _columnWriters) {
+            if (columnWriter != null) {
+                FileHelper.safeClose(columnWriter);
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.metamodel.data.Row;
+
+/**
+ * An {@link InputRow} backed by a flat array of values, laid out according to
+ * a {@link RowLayout}. Holds both the physical values of a record and the
+ * virtual values added by transformers, so that values are accessed by slot
+ * index rather than by looking up select items or hashing columns.
+ * 
+ * Rows created using {@link #ArrayInputRow(RowLayout)} are owned by a row pool
+ * and are recycled using the reset methods, see {@link RecyclableInputRow}.
+ */
+public final class ArrayInputRow extends AbstractInputRow implements RecyclableInputRow {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RowLayout _layout;
+    private final Object[] _values;
+    private final boolean[] _virtualValuesSet;
+    private final transient boolean _recyclable;
+    private int _id;
+
+    /**
+     * Creates a row from a MetaModel {@link Row}, which is expected to have
+     * the physical columns of the layout as select items.
+     * 
+     * @param layout
+     * @param id
+     * @param row
+     */
+    public ArrayInputRow(RowLayout layout, int id, Row row) {
+        this(layout, id, new Object[layout.getColumnCount()],
+                new boolean[layout.getColumnCount() - layout.getPhysicalColumnCount()], false);
+        setPhysicalValues(row);
+    }
+
+    /**
+     * Creates a row from an array of physical values, ordered like the
+     * physical columns of the layout.
+     * 
+     * @param layout
+     * @param id
+     * @param physicalValues
+     */
+    public ArrayInputRow(RowLayout layout, int id, Object[] physicalValues) {
+        this(layout, id, new Object[layout.getColumnCount()],
+                new boolean[layout.getColumnCount() - layout.getPhysicalColumnCount()], false);
+        setPhysicalValues(physicalValues);
+    }
+
+    /**
+     * Creates an empty, recyclable row which is owned by a row pool. The row
+     * is filled using {@link #reset(int, Row)} or
+     * {@link #reset(int, Object[])}.
+     * 
+     * @param layout
+     */
+    public ArrayInputRow(RowLayout layout) {
+        this(layout, -1, new Object[layout.getColumnCount()],
+                new boolean[layout.getColumnCount() - layout.getPhysicalColumnCount()], true);
+    }
+
+    private ArrayInputRow(RowLayout layout, int id, Object[] values, boolean[] virtualValuesSet, boolean recyclable) {
+        _layout = layout;
+        _id = id;
+        _values = values;
+        _virtualValuesSet = virtualValuesSet;
+        _recyclable = recyclable;
+    }
+
+    /**
+     * Resets a recyclable row to hold the values of another record.
+     * 
+     * @param id
+     * @param row
+     */
+    public void reset(int id, Row row) {
+        clear(id);
+        setPhysicalValues(row);
+    }
+
+    /**
+     * Resets a recyclable row to hold the values of another record.
+     * 
+     * @param id
+     * @param physicalValues
+     */
+    public void reset(int id, Object[] physicalValues) {
+        clear(id);
+        setPhysicalValues(physicalValues);
+    }
+
+    private void clear(int id) {
+        if (!_recyclable) {
+            throw new IllegalStateException("Row is not recyclable: " + this);
+        }
+        _id = id;
+        Arrays.fill(_values, null);
+        Arrays.fill(_virtualValuesSet, false);
+    }
+
+    private void setPhysicalValues(Row row) {
+        final int physicalColumnCount = _layout.getPhysicalColumnCount();
+        final Object[] rowValues = row.getValues();
+        if (rowValues.length == physicalColumnCount) {
+            System.arraycopy(rowValues, 0, _values, 0, physicalColumnCount);
+        } else {
+            for (int i = 0; i < physicalColumnCount; i++) {
+                _values[i] = row.getValue(_layout.getPhysicalColumn(i));
+            }
+        }
+    }
+
+    private void setPhysicalValues(Object[] physicalValues) {
+        if (physicalValues.length != _layout.getPhysicalColumnCount()) {
+            throw new IllegalArgumentException("Expected " + _layout.getPhysicalColumnCount()
+                    + " physical values, got " + physicalValues.length);
+        }
+        System.arraycopy(physicalValues, 0, _values, 0, physicalValues.length);
+    }
+
+    @Override
+    public int getId() {
+        return _id;
+    }
+
+    public RowLayout getLayout() {
+        return _layout;
+    }
+
+    /**
+     * Sets the value of a virtual column
+     * 
+     * @param slot
+     *            the slot index of the column, see
+     *            {@link RowLayout#getSlot(InputColumn)}
+     * @param value
+     */
+    public void setValue(int slot, Object value) {
+        if (_layout.isPhysicalSlot(slot)) {
+            throw new IllegalArgumentException("Cannot set physical column values of an InputRow.");
+        }
+        _values[slot] = value;
+        _virtualValuesSet[slot - _layout.getPhysicalColumnCount()] = true;
+    }
+
+    /**
+     * Creates a copy of this row with another id, eg. for additional records
+     * produced by a transformer. The copy is never recyclable.
+     * 
+     * @param id
+     * @return
+     */
+    public ArrayInputRow copy(int id) {
+        return new ArrayInputRow(_layout, id, _values.clone(), _virtualValuesSet.clone(), false);
+    }
+
+    @Override
+    public boolean isRecyclable() {
+        return _recyclable;
+    }
+
+    @Override
+    public InputRow retain() {
+        if (_recyclable) {
+            return copy(_id);
+        }
+        return this;
+    }
+
+    private boolean isSet(int slot) {
+        if (slot == -1) {
+            return false;
+        }
+        if (_layout.isPhysicalSlot(slot)) {
+            return true;
+        }
+        return _virtualValuesSet[slot - _layout.getPhysicalColumnCount()];
+    }
+
+    @Override
+    public boolean containsInputColumn(InputColumn<?> inputColumn) {
+        return isSet(_layout.getSlot(inputColumn));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <E> E getValueInternal(InputColumn<E> column) {
+        final int slot = _layout.getSlot(column);
+        if (slot == -1) {
+            return null;
+        }
+        Object value = _values[slot];
+        if (value != null && _layout.isPhysicalSlot(slot)) {
+            final Object convertedValue = MetaModelInputRow.convertValue(value);
+            if (convertedValue != value) {
+                _values[slot] = convertedValue;
+                value = convertedValue;
+            }
+        }
+        return (E) value;
+    }
+
+    @Override
+    public List<InputColumn<?>> getInputColumns() {
+        final List<InputColumn<?>> result = new ArrayList<InputColumn<?>>(_values.length);
+        for (int i = 0; i < _values.length; i++) {
+            if (isSet(i)) {
+                result.add(_layout.getColumn(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ArrayInputRow[values=[");
+        boolean first = true;
+        for (int i = 0; i < _values.length; i++) {
+            if (isSet(i)) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(_values[i]);
+                first = false;
+            }
+        }
+        sb.append("]]");
+        return sb.toString();
+    }
+}
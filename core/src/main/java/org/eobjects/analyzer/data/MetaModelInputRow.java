@@ -92,7 +92,14 @@ public final class MetaModelInputRow extends AbstractInputRow {
         return (E) value;
     }
 
-    private Object convertValue(Object value) {
+    /**
+     * Converts values that are only valid while the originating data set is
+     * open (CLOBs and BLOBs) into their String and byte[] representations.
+     * 
+     * @param value
+     * @return
+     */
+    static Object convertValue(Object value) {
         if (value instanceof Clob) {
             try {
                 Reader reader = ((Clob) value).getCharacterStream();
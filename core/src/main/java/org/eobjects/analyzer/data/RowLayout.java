@@ -0,0 +1,169 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.data;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.metamodel.schema.Column;
+
+/**
+ * Describes the layout of {@link ArrayInputRow}s by assigning every
+ * {@link InputColumn} (physical and virtual) of a row processing flow a fixed
+ * slot index. Physical columns occupy the first slots (in the order of the
+ * select items of the query), followed by the virtual columns.
+ * 
+ * Slots of the columns known when the layout is created can be resolved once,
+ * using {@link #getSlots(InputColumn[])}. Other lookups are done by identity
+ * first and only then by equality.
+ */
+public final class RowLayout implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Layouts with up to this number of columns are searched linearly by
+     * identity, which is cheaper than hashing.
+     */
+    private static final int LINEAR_SCAN_THRESHOLD = 32;
+
+    private final InputColumn<?>[] _columns;
+    private final int _physicalColumnCount;
+    private final Column[] _physicalColumns;
+    private final Map<InputColumn<?>, Integer> _identitySlots;
+    private final Map<InputColumn<?>, Integer> _virtualSlots;
+    private final Map<Column, Integer> _physicalSlots;
+
+    /**
+     * Creates a row layout.
+     * 
+     * @param physicalColumns
+     *            the physical columns, in the order of the select items of the
+     *            query that produces the rows
+     * @param virtualColumns
+     *            the virtual columns, typically the output columns of
+     *            transformers
+     */
+    public RowLayout(List<? extends InputColumn<?>> physicalColumns, List<? extends InputColumn<?>> virtualColumns) {
+        _physicalColumnCount = physicalColumns.size();
+        _columns = new InputColumn<?>[_physicalColumnCount + virtualColumns.size()];
+        _physicalColumns = new Column[_physicalColumnCount];
+        _physicalSlots = new HashMap<Column, Integer>();
+        _virtualSlots = new HashMap<InputColumn<?>, Integer>();
+
+        int slot = 0;
+        for (InputColumn<?> column : physicalColumns) {
+            if (!column.isPhysicalColumn()) {
+                throw new IllegalArgumentException("Not a physical column: " + column);
+            }
+            _columns[slot] = column;
+            _physicalColumns[slot] = column.getPhysicalColumn();
+            _physicalSlots.put(column.getPhysicalColumn(), slot);
+            slot++;
+        }
+        for (InputColumn<?> column : virtualColumns) {
+            if (!column.isVirtualColumn()) {
+                throw new IllegalArgumentException("Not a virtual column: " + column);
+            }
+            _columns[slot] = column;
+            _virtualSlots.put(column, slot);
+            slot++;
+        }
+
+        if (_columns.length > LINEAR_SCAN_THRESHOLD) {
+            _identitySlots = new IdentityHashMap<InputColumn<?>, Integer>();
+            for (int i = 0; i < _columns.length; i++) {
+                _identitySlots.put(_columns[i], i);
+            }
+        } else {
+            _identitySlots = null;
+        }
+    }
+
+    /**
+     * Gets the slot index of a column
+     * 
+     * @param column
+     * @return the slot index, or -1 if the column is not part of the layout
+     */
+    public int getSlot(InputColumn<?> column) {
+        if (_identitySlots == null) {
+            for (int i = 0; i < _columns.length; i++) {
+                if (_columns[i] == column) {
+                    return i;
+                }
+            }
+        } else {
+            final Integer slot = _identitySlots.get(column);
+            if (slot != null) {
+                return slot.intValue();
+            }
+        }
+
+        // an equal (but not identical) column, eg. after deserialization
+        final Integer slot;
+        if (column.isPhysicalColumn()) {
+            slot = _physicalSlots.get(column.getPhysicalColumn());
+        } else {
+            slot = _virtualSlots.get(column);
+        }
+        if (slot == null) {
+            return -1;
+        }
+        return slot.intValue();
+    }
+
+    /**
+     * Resolves the slot indexes of a number of columns
+     * 
+     * @param columns
+     * @return
+     */
+    public int[] getSlots(InputColumn<?>[] columns) {
+        final int[] slots = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            slots[i] = getSlot(columns[i]);
+        }
+        return slots;
+    }
+
+    public InputColumn<?> getColumn(int slot) {
+        return _columns[slot];
+    }
+
+    public Column getPhysicalColumn(int slot) {
+        return _physicalColumns[slot];
+    }
+
+    public int getColumnCount() {
+        return _columns.length;
+    }
+
+    public int getPhysicalColumnCount() {
+        return _physicalColumnCount;
+    }
+
+    public boolean isPhysicalSlot(int slot) {
+        return slot < _physicalColumnCount;
+    }
+}
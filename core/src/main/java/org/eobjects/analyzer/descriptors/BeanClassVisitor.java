@@ -55,6 +55,7 @@ final class BeanClassVisitor extends ClassVisitor {
     private final Predicate<Class<? extends RenderingFormat<?>>> _renderingFormatPredicate;
     private Class<?> _beanClazz;
     private String _name;
+    private boolean _componentAnnotationPresent;
 
     public BeanClassVisitor(ClassLoader classLoader,
             Predicate<Class<? extends RenderingFormat<?>>> renderingFormatPredicate) {
@@ -71,6 +72,7 @@ final class BeanClassVisitor extends ClassVisitor {
     @Override
     public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
         if (isAnnotation(desc, RendererBean.class)) {
+            _componentAnnotationPresent = true;
             if (_renderingFormatPredicate == null || _renderingFormatPredicate instanceof TruePredicate) {
                 initializeClass();
                 return null;
@@ -105,6 +107,7 @@ final class BeanClassVisitor extends ClassVisitor {
         }
         if (isAnnotation(desc, AnalyzerBean.class) || isAnnotation(desc, TransformerBean.class)
                 || isAnnotation(desc, FilterBean.class)) {
+            _componentAnnotationPresent = true;
             initializeClass();
         }
         return null;
@@ -170,6 +173,16 @@ final class BeanClassVisitor extends ClassVisitor {
         return false;
     }
 
+    /**
+     * Determines if the visited class has one of the component annotations,
+     * regardless of whether the class could be loaded or was accepted.
+     * 
+     * @return
+     */
+    public boolean isComponentAnnotationPresent() {
+        return _componentAnnotationPresent;
+    }
+
     public Class<?> getBeanClass() {
         return _beanClazz;
     }
@@ -29,10 +29,12 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
@@ -52,6 +54,7 @@ import org.eobjects.analyzer.job.concurrent.TaskListener;
 import org.eobjects.analyzer.job.concurrent.TaskRunner;
 import org.eobjects.analyzer.job.tasks.Task;
 import org.eobjects.analyzer.util.ClassLoaderUtils;
+import org.eobjects.analyzer.util.SystemProperties;
 import org.apache.metamodel.util.ExclusionPredicate;
 import org.apache.metamodel.util.FileHelper;
 import org.apache.metamodel.util.Predicate;
@@ -61,6 +64,8 @@ import org.kohsuke.asm5.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Strings;
+
 /**
  * Descriptor provider implementation that works by scanning particular packages
  * in the classpath for annotated classes. Descriptors will be generated based
@@ -78,12 +83,56 @@ import org.slf4j.LoggerFactory;
  * <li>{@link RendererBean}</li>
  * </ul>
  * 
+ * To avoid reading every class file of unchanged JAR files on every startup, a
+ * {@link ClasspathScanIndex} can be set using {@link #setIndex(ClasspathScanIndex)}
+ * or by the {@link SystemProperties#CLASSPATH_SCAN_INDEX} system property.
+ * 
  * 
  */
 public final class ClasspathScanDescriptorProvider extends AbstractDescriptorProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(ClasspathScanDescriptorProvider.class);
 
+    /**
+     * The number of class files of a JAR file to scan in a single task.
+     */
+    static final int ENTRIES_PER_TASK = 250;
+
+    /**
+     * Creates descriptors of a particular kind of component.
+     */
+    private static interface DescriptorFactory<C, D> {
+        public D create(Class<? extends C> clazz);
+    }
+
+    private static final DescriptorFactory<Analyzer<?>, AnalyzerBeanDescriptor<?>> ANALYZER_DESCRIPTOR_FACTORY = new DescriptorFactory<Analyzer<?>, AnalyzerBeanDescriptor<?>>() {
+        @Override
+        public AnalyzerBeanDescriptor<?> create(Class<? extends Analyzer<?>> clazz) {
+            return Descriptors.ofAnalyzer(clazz);
+        }
+    };
+
+    private static final DescriptorFactory<Transformer<?>, TransformerBeanDescriptor<?>> TRANSFORMER_DESCRIPTOR_FACTORY = new DescriptorFactory<Transformer<?>, TransformerBeanDescriptor<?>>() {
+        @Override
+        public TransformerBeanDescriptor<?> create(Class<? extends Transformer<?>> clazz) {
+            return Descriptors.ofTransformer(clazz);
+        }
+    };
+
+    private static final DescriptorFactory<Filter<?>, FilterBeanDescriptor<?, ?>> FILTER_DESCRIPTOR_FACTORY = new DescriptorFactory<Filter<?>, FilterBeanDescriptor<?, ?>>() {
+        @Override
+        public FilterBeanDescriptor<?, ?> create(Class<? extends Filter<?>> clazz) {
+            return Descriptors.ofFilterUnbound(clazz);
+        }
+    };
+
+    private static final DescriptorFactory<Renderer<?, ?>, RendererBeanDescriptor<?>> RENDERER_DESCRIPTOR_FACTORY = new DescriptorFactory<Renderer<?, ?>, RendererBeanDescriptor<?>>() {
+        @Override
+        public RendererBeanDescriptor<?> create(Class<? extends Renderer<?, ?>> clazz) {
+            return Descriptors.ofRenderer(clazz);
+        }
+    };
+
     private final Map<String, AnalyzerBeanDescriptor<?>> _analyzerBeanDescriptors = new HashMap<String, AnalyzerBeanDescriptor<?>>();
     private final Map<String, FilterBeanDescriptor<?, ?>> _filterBeanDescriptors = new HashMap<String, FilterBeanDescriptor<?, ?>>();
     private final Map<String, TransformerBeanDescriptor<?>> _transformerBeanDescriptors = new HashMap<String, TransformerBeanDescriptor<?>>();
@@ -91,6 +140,7 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
     private final TaskRunner _taskRunner;
     private final Predicate<Class<? extends RenderingFormat<?>>> _renderingFormatPredicate;
     private final AtomicInteger _tasksPending;
+    private volatile ClasspathScanIndex _index;
 
     /**
      * Default constructor. Will perform classpath scanning in the calling
@@ -149,6 +199,31 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
         _taskRunner = taskRunner;
         _tasksPending = new AtomicInteger(0);
         _renderingFormatPredicate = renderingFormatPredicate;
+        _index = createIndex();
+    }
+
+    private static ClasspathScanIndex createIndex() {
+        final String indexPath = System.getProperty(SystemProperties.CLASSPATH_SCAN_INDEX);
+        if (Strings.isNullOrEmpty(indexPath)) {
+            return null;
+        }
+        return new ClasspathScanIndex(new File(indexPath.trim()));
+    }
+
+    /**
+     * Sets the index to use for skipping the scan of unchanged JAR files.
+     * 
+     * @param index
+     *            the index to use, or null to always scan JAR files
+     * @return
+     */
+    public ClasspathScanDescriptorProvider setIndex(ClasspathScanIndex index) {
+        _index = index;
+        return this;
+    }
+
+    public ClasspathScanIndex getIndex() {
+        return _index;
     }
 
     /**
@@ -264,7 +339,7 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                 logger.debug("Using ClassLoader: {}", classLoader);
 
                 if (jarFiles != null && jarFiles.length > 0) {
-                    for (File file : jarFiles) {
+                    for (final File file : jarFiles) {
                         if (!file.exists()) {
                             logger.debug("Omitting JAR file because it does not exist: {}", file);
                         } else if (file.isDirectory()) {
@@ -276,13 +351,23 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                                 logger.debug("Omitting directory because it does not exist: {}", packageDirectory);
                             }
                         } else {
-                            logger.info("Scanning JAR file: {}", file);
-
-                            try (JarFile jarFile = new JarFile(file)) {
-                                scanJar(jarFile, classLoader, packagePath, recursive, strictClassLoader);
-                            } catch (Exception e) {
-                                logger.error("Failed to scan package '" + packageName + "' in file: " + file, e);
-                            }
+                            // each JAR file is scanned in a separate task
+                            runSubTask(new Task() {
+                                @Override
+                                public void execute() throws Exception {
+                                    logger.info("Scanning JAR file: {}", file);
+
+                                    final JarFile jarFile;
+                                    try {
+                                        jarFile = new JarFile(file);
+                                    } catch (Exception e) {
+                                        logger.error("Failed to scan package '" + packageName + "' in file: " + file,
+                                                e);
+                                        return;
+                                    }
+                                    scanJar(jarFile, true, classLoader, packagePath, recursive, strictClassLoader);
+                                }
+                            });
                         }
                     }
                 } else {
@@ -295,14 +380,22 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                         final URL resource = resources.nextElement();
                         logger.debug("Scanning resource/URL no. {}: {}", count, resource);
 
-                        try {
-                            scanUrl(resource, classLoader, packagePath, recursive, strictClassLoader);
-                        } catch (Exception e) {
-                            logger.error("Failed to scan package '" + packageName + "' in resource/URL: " + resource, e);
-                        }
+                        // each resource (directory or JAR file) is scanned in a
+                        // separate task
+                        runSubTask(new Task() {
+                            @Override
+                            public void execute() throws Exception {
+                                try {
+                                    scanUrl(resource, classLoader, packagePath, recursive, strictClassLoader);
+                                } catch (Exception e) {
+                                    logger.error("Failed to scan package '" + packageName + "' in resource/URL: "
+                                            + resource, e);
+                                }
+                            }
+                        });
                     }
 
-                    logger.debug("Scanned resources of {}: {}", packageName, count);
+                    logger.debug("Found resources of {}: {}", packageName, count);
                 }
             }
         };
@@ -310,6 +403,32 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
         return this;
     }
 
+    /**
+     * Runs a part of a scan as a separate task, allowing the task runner to
+     * execute it in parallel with other parts of the scan.
+     * 
+     * @param task
+     */
+    private void runSubTask(Task task) {
+        _tasksPending.incrementAndGet();
+        _taskRunner.run(task, new TaskListener() {
+            @Override
+            public void onBegin(Task task) {
+            }
+
+            @Override
+            public void onComplete(Task task) {
+                taskDone();
+            }
+
+            @Override
+            public void onError(Task task, Throwable throwable) {
+                logger.warn("Exception occurred while scanning classpath", throwable);
+                taskDone();
+            }
+        });
+    }
+
     private void scanUrl(URL resource, final ClassLoader classLoader, final String packagePath,
             final boolean recursive, final boolean strictClassLoader) throws IOException {
 
@@ -329,7 +448,7 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                 JarFile jarFile = ((JarURLConnection) connection).getJarFile();
                 // note: We are NOT closing this JarFile, because it is still
                 // used by the JarURLConnection
-                scanJar(jarFile, classLoader, packagePath, recursive, strictClassLoader);
+                scanJar(jarFile, false, classLoader, packagePath, recursive, strictClassLoader);
             } else {
                 // We'll assume URLs of the format "jar:path!/entry", with the
                 // protocol being arbitrary as long as following the entry
@@ -341,7 +460,6 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                 final String jarFileUrl;
                 final int separatorIndex = file.indexOf("!/");
 
-                @SuppressWarnings("resource")
                 JarFile jarFile = null;
                 try {
                     if (separatorIndex != -1) {
@@ -361,13 +479,15 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                         // here, but BEA JRockit does.
                         rootEntryPath = rootEntryPath + "/";
                     }
-
-                    scanJar(jarFile, classLoader, packagePath, recursive, strictClassLoader);
-                } finally {
+                } catch (IOException | RuntimeException e) {
                     if (jarFile != null) {
                         jarFile.close();
                     }
+                    throw e;
                 }
+
+                // scanJar(...) takes ownership of the JarFile and closes it
+                scanJar(jarFile, true, classLoader, packagePath, recursive, strictClassLoader);
             }
         }
     }
@@ -416,27 +536,180 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
         return trailingPart.indexOf('/') == -1;
     }
 
-    private void scanJar(final JarFile jarFile, final ClassLoader classLoader, final String packagePath,
-            final boolean recursive, final boolean strictClassLoader) throws IOException {
-        Enumeration<JarEntry> entries = jarFile.entries();
+    /**
+     * Scans the class files of a JAR file. If closeJarFile is true, the JAR
+     * file is closed when the scan is done, also if the scan fails. Until the
+     * scan has been split into tasks, this method is responsible for closing
+     * it, and afterwards the {@link JarScan} is.
+     */
+    protected void scanJar(final JarFile jarFile, final boolean closeJarFile, final ClassLoader classLoader,
+            final String packagePath, final boolean recursive, final boolean strictClassLoader) throws IOException {
+        final ClasspathScanIndex index = _index;
+        final File file = new File(jarFile.getName());
+        final String scope = packagePath + (recursive ? "/**" : "/*");
+
+        final List<JarEntry> classEntries = new ArrayList<JarEntry>();
+        boolean closeNow = closeJarFile;
+        try {
+            if (index != null && file.isFile()) {
+                final List<String> indexedEntries = index.getComponentEntries(file, scope);
+                if (indexedEntries != null
+                        && scanIndexedEntries(jarFile, indexedEntries, classLoader, strictClassLoader)) {
+                    logger.info("Scanned {} indexed component classes of JAR file: {}", indexedEntries.size(), file);
+                    return;
+                }
+            }
+
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                if (isClassInPackage(entry.getName(), packagePath, recursive)) {
+                    classEntries.add(entry);
+                } else if (logger.isDebugEnabled() && isClass(entry.getName())) {
+                    logger.debug("Omitting JAR class file entry: {} (looking for package path: {})", entry.getName(),
+                            packagePath);
+                }
+            }
+
+            // from here on the JarScan owns the JAR file
+            closeNow = false;
+        } finally {
+            if (closeNow) {
+                FileHelper.safeClose(jarFile);
+            }
+        }
+
+        // large JAR files are split into several tasks
+        final int chunks = Math.max(1, (classEntries.size() + ENTRIES_PER_TASK - 1) / ENTRIES_PER_TASK);
+        final JarScan jarScan = new JarScan(jarFile, closeJarFile, (index != null && file.isFile() ? index : null),
+                file, scope, chunks);
+        if (classEntries.isEmpty()) {
+            jarScan.chunkDone();
+            return;
+        }
+        if (chunks > 1) {
+            logger.info("Scanning {} class files of JAR file in {} tasks: {}", new Object[] { classEntries.size(),
+                    chunks, file });
+        }
 
-        while (entries.hasMoreElements()) {
-            final JarEntry entry = entries.nextElement();
-            final Ref<InputStream> entryInputStream = new Ref<InputStream>() {
+        for (int i = 0; i < chunks; i++) {
+            final List<JarEntry> chunk = classEntries.subList(i * ENTRIES_PER_TASK,
+                    Math.min(classEntries.size(), (i + 1) * ENTRIES_PER_TASK));
+            final Task task = new Task() {
                 @Override
-                public InputStream get() {
+                public void execute() throws Exception {
                     try {
-                        return jarFile.getInputStream(entry);
-                    } catch (IOException e) {
-                        throw new IllegalStateException("Failed to read JAR entry InputStream", e);
+                        for (JarEntry entry : chunk) {
+                            final Ref<InputStream> entryInputStream = createEntryInputStreamRef(jarFile, entry);
+                            if (scanEntry(entry, packagePath, recursive, classLoader, strictClassLoader,
+                                    entryInputStream)) {
+                                jarScan.addComponentEntry(entry.getName());
+                            }
+                        }
+                    } finally {
+                        jarScan.chunkDone();
                     }
                 }
             };
-            scanEntry(entry, packagePath, recursive, classLoader, strictClassLoader, entryInputStream);
+            if (chunks == 1) {
+                task.execute();
+            } else {
+                runSubTask(task);
+            }
+        }
+    }
+
+    /**
+     * The state of a scan of a single JAR file, which may be split into
+     * several tasks. When the last task is done, the JAR file is registered in
+     * the index and closed (if required).
+     */
+    private static final class JarScan {
+
+        private final JarFile _jarFile;
+        private final boolean _closeJarFile;
+        private final ClasspathScanIndex _index;
+        private final File _file;
+        private final String _scope;
+        private final AtomicInteger _chunksPending;
+        private final List<String> _componentEntries;
+
+        public JarScan(JarFile jarFile, boolean closeJarFile, ClasspathScanIndex index, File file, String scope,
+                int chunks) {
+            _jarFile = jarFile;
+            _closeJarFile = closeJarFile;
+            _index = index;
+            _file = file;
+            _scope = scope;
+            _chunksPending = new AtomicInteger(chunks);
+            _componentEntries = Collections.synchronizedList(new ArrayList<String>());
+        }
+
+        public void addComponentEntry(String entryName) {
+            _componentEntries.add(entryName);
+        }
+
+        public void chunkDone() {
+            if (_chunksPending.decrementAndGet() == 0) {
+                if (_index != null) {
+                    _index.putComponentEntries(_file, _scope, _componentEntries);
+                }
+                if (_closeJarFile) {
+                    FileHelper.safeClose(_jarFile);
+                }
+            }
         }
     }
 
-    private void scanEntry(JarEntry entry, String packagePath, boolean recursive, ClassLoader classLoader,
+    /**
+     * Scans the class file entries of a JAR file that were registered in the
+     * index.
+     * 
+     * @return true if the entries were scanned, or false if the JAR file did
+     *         not match the index
+     */
+    private boolean scanIndexedEntries(JarFile jarFile, List<String> indexedEntries, ClassLoader classLoader,
+            boolean strictClassLoader) {
+        final List<JarEntry> entries = new ArrayList<JarEntry>(indexedEntries.size());
+        for (String entryName : indexedEntries) {
+            final JarEntry entry = jarFile.getJarEntry(entryName);
+            if (entry == null) {
+                logger.info("Indexed entry {} not found in JAR file, ignoring index: {}", entryName, jarFile.getName());
+                return false;
+            }
+            entries.add(entry);
+        }
+
+        for (JarEntry entry : entries) {
+            logger.debug("Scanning indexed JAR class file entry: {}", entry.getName());
+            try {
+                scanClassFile(createEntryInputStreamRef(jarFile, entry).get(), classLoader, strictClassLoader);
+            } catch (Exception e) {
+                logger.error("Failed to scan JAR class file entry: " + entry.getName(), e);
+            }
+        }
+        return true;
+    }
+
+    private Ref<InputStream> createEntryInputStreamRef(final JarFile jarFile, final JarEntry entry) {
+        return new Ref<InputStream>() {
+            @Override
+            public InputStream get() {
+                try {
+                    return jarFile.getInputStream(entry);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to read JAR entry InputStream", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Scans a JAR entry if it is a class file in the package.
+     * 
+     * @return true if the entry is a class with a component annotation
+     */
+    private boolean scanEntry(JarEntry entry, String packagePath, boolean recursive, ClassLoader classLoader,
             boolean strictClassLoader, Ref<InputStream> entryInputStream) throws IOException {
         String entryName = entry.getName();
         if (isClassInPackage(entryName, packagePath, recursive)) {
@@ -444,7 +717,7 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
             InputStream inputStream = entryInputStream.get();
 
             try {
-                scanInputStreamOfClassFile(inputStream, classLoader, strictClassLoader);
+                return scanClassFile(inputStream, classLoader, strictClassLoader);
             } catch (RuntimeException e) {
                 logger.error("Failed to scan JAR class file entry: " + entryName, e);
             }
@@ -460,6 +733,7 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                 }
             }
         }
+        return false;
     }
 
     private void scanDirectory(File dir, boolean recursive, ClassLoader classLoader, final boolean strictClassLoader) {
@@ -526,19 +800,32 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
 
     protected void scanInputStreamOfClassFile(final InputStream inputStream, final ClassLoader classLoader,
             final boolean strictClassLoader) throws IOException {
+        scanClassFile(inputStream, classLoader, strictClassLoader);
+    }
+
+    /**
+     * Scans a class file and adds it to the provider if it is a component.
+     * 
+     * @return true if the class has a component annotation (even if it was not
+     *         added)
+     */
+    private boolean scanClassFile(final InputStream inputStream, final ClassLoader classLoader,
+            final boolean strictClassLoader) throws IOException {
         try {
             final ClassReader classReader = new ClassReader(inputStream);
             final BeanClassVisitor visitor = new BeanClassVisitor(classLoader, _renderingFormatPredicate);
             classReader.accept(visitor, ClassReader.SKIP_CODE);
 
+            final boolean componentAnnotationPresent = visitor.isComponentAnnotationPresent();
+
             Class<?> beanClass = visitor.getBeanClass();
             if (beanClass == null) {
-                return;
+                return componentAnnotationPresent;
             }
 
             if (strictClassLoader && classLoader != null && beanClass.getClassLoader() != classLoader) {
                 logger.warn("Scanned class did not belong to required classloader: " + beanClass + ", ignoring");
-                return;
+                return componentAnnotationPresent;
             }
 
             if (visitor.isAnalyzer()) {
@@ -565,60 +852,47 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
                 logger.info("Adding renderer class: {}", beanClass);
                 addRendererClass(rendererClass);
             }
+            return componentAnnotationPresent;
         } finally {
             FileHelper.safeClose(inputStream);
         }
     }
 
     public ClasspathScanDescriptorProvider addAnalyzerClass(Class<? extends Analyzer<?>> clazz) {
-        AnalyzerBeanDescriptor<?> descriptor = _analyzerBeanDescriptors.get(clazz.getName());
-        if (descriptor == null) {
-            try {
-                descriptor = Descriptors.ofAnalyzer(clazz);
-                _analyzerBeanDescriptors.put(clazz.getName(), descriptor);
-            } catch (Exception e) {
-                logger.error("Unexpected error occurred while creating descriptor for: " + clazz, e);
-            }
-        }
-        return this;
+        return addComponentClass(_analyzerBeanDescriptors, clazz, ANALYZER_DESCRIPTOR_FACTORY);
     }
 
     public ClasspathScanDescriptorProvider addTransformerClass(Class<? extends Transformer<?>> clazz) {
-        TransformerBeanDescriptor<? extends Transformer<?>> descriptor = _transformerBeanDescriptors.get(clazz
-                .getName());
-        if (descriptor == null) {
-            try {
-                descriptor = Descriptors.ofTransformer(clazz);
-                _transformerBeanDescriptors.put(clazz.getName(), descriptor);
-            } catch (Exception e) {
-                logger.error("Unexpected error occurred while creating descriptor for: " + clazz, e);
-            }
-        }
-        return this;
+        return addComponentClass(_transformerBeanDescriptors, clazz, TRANSFORMER_DESCRIPTOR_FACTORY);
     }
 
     public ClasspathScanDescriptorProvider addFilterClass(Class<? extends Filter<?>> clazz) {
-        FilterBeanDescriptor<? extends Filter<?>, ?> descriptor = _filterBeanDescriptors.get(clazz.getName());
-        if (descriptor == null) {
-            try {
-                descriptor = Descriptors.ofFilterUnbound(clazz);
-                _filterBeanDescriptors.put(clazz.getName(), descriptor);
-            } catch (Exception e) {
-                logger.error("Unexpected error occurred while creating descriptor for: " + clazz, e);
-            }
-        }
-        return this;
+        return addComponentClass(_filterBeanDescriptors, clazz, FILTER_DESCRIPTOR_FACTORY);
     }
 
     public ClasspathScanDescriptorProvider addRendererClass(Class<? extends Renderer<?, ?>> clazz) {
-        RendererBeanDescriptor<?> descriptor = _rendererBeanDescriptors.get(clazz.getName());
-        if (descriptor == null) {
-            try {
-                descriptor = Descriptors.ofRenderer(clazz);
-                _rendererBeanDescriptors.put(clazz.getName(), descriptor);
-            } catch (Exception e) {
-                logger.error("Unexpected error occurred while creating descriptor for: " + clazz, e);
+        return addComponentClass(_rendererBeanDescriptors, clazz, RENDERER_DESCRIPTOR_FACTORY);
+    }
+
+    private <C, D> ClasspathScanDescriptorProvider addComponentClass(Map<String, D> descriptors,
+            Class<? extends C> clazz, DescriptorFactory<C, D> descriptorFactory) {
+        final String className = clazz.getName();
+        synchronized (descriptors) {
+            if (descriptors.containsKey(className)) {
+                return this;
+            }
+        }
+        try {
+            // the descriptor is created outside the lock, allowing concurrent
+            // scan tasks to create descriptors in parallel
+            final D descriptor = descriptorFactory.create(clazz);
+            synchronized (descriptors) {
+                if (!descriptors.containsKey(className)) {
+                    descriptors.put(className, descriptor);
+                }
             }
+        } catch (Exception e) {
+            logger.error("Unexpected error occurred while creating descriptor for: " + clazz, e);
         }
         return this;
     }
@@ -626,6 +900,10 @@ public final class ClasspathScanDescriptorProvider extends AbstractDescriptorPro
     private void taskDone() {
         int tasks = _tasksPending.decrementAndGet();
         if (tasks == 0) {
+            final ClasspathScanIndex index = _index;
+            if (index != null) {
+                index.save();
+            }
             synchronized (this) {
                 notifyAll();
             }
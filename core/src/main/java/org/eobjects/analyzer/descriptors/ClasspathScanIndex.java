@@ -0,0 +1,326 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.descriptors;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.apache.metamodel.util.FileHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent index of the component classes found when scanning JAR files
+ * with the {@link ClasspathScanDescriptorProvider}. For every scanned JAR file
+ * and package, the index records which class file entries carry one of the
+ * component annotations. When the JAR file has not changed, the scanner only
+ * needs to read those entries, instead of reading every class file in the
+ * package.
+ * 
+ * A JAR file is considered unchanged if it has the same length and
+ * modification date as when it was indexed, or otherwise the same CRC32
+ * checksum (which covers JAR files that are copied or touched without being
+ * changed).
+ * 
+ * The index is stored in a simple text file, and is written when
+ * {@link #save()} is invoked.
+ */
+public final class ClasspathScanIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClasspathScanIndex.class);
+
+    private static final String HEADER = "# AnalyzerBeans classpath scan index, version 1";
+    private static final String JAR_PREFIX = "jar\t";
+    private static final String ENTRY_PREFIX = "entry\t";
+
+    /**
+     * The indexed state of a single JAR file and package scope.
+     */
+    private static final class IndexedJar {
+        private final long _length;
+        private final long _lastModified;
+        private final long _checksum;
+        private final List<String> _entries;
+
+        public IndexedJar(long length, long lastModified, long checksum, List<String> entries) {
+            _length = length;
+            _lastModified = lastModified;
+            _checksum = checksum;
+            _entries = entries;
+        }
+    }
+
+    /**
+     * The checksum of a JAR file, as computed for a particular length and
+     * modification date of the file.
+     */
+    private static final class JarChecksum {
+        private final long _length;
+        private final long _lastModified;
+        private final long _checksum;
+
+        public JarChecksum(long length, long lastModified, long checksum) {
+            _length = length;
+            _lastModified = lastModified;
+            _checksum = checksum;
+        }
+    }
+
+    private final File _file;
+    private final Map<String, IndexedJar> _jars;
+    private final Map<String, JarChecksum> _checksums;
+    private volatile boolean _changed;
+
+    /**
+     * Creates an index stored in a particular file. If the file exists, the
+     * index is read from it.
+     * 
+     * @param file
+     */
+    public ClasspathScanIndex(File file) {
+        _file = file;
+        _jars = new ConcurrentHashMap<String, IndexedJar>();
+        _checksums = new ConcurrentHashMap<String, JarChecksum>();
+        _changed = false;
+        if (file.exists()) {
+            read();
+        }
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Gets the class file entries of a JAR file that contain components, if
+     * the JAR file has been indexed and has not changed since.
+     * 
+     * @param jarFile
+     *            the JAR file
+     * @param scope
+     *            the scope of the scan, typically the package path and whether
+     *            it is scanned recursively
+     * @return the names of the class file entries of components, or null if
+     *         the JAR file needs to be scanned.
+     */
+    public List<String> getComponentEntries(File jarFile, String scope) {
+        final String key = createKey(jarFile, scope);
+        final IndexedJar indexedJar = _jars.get(key);
+        if (indexedJar == null) {
+            return null;
+        }
+
+        final long length = jarFile.length();
+        final long lastModified = jarFile.lastModified();
+        if (indexedJar._length == length && indexedJar._lastModified == lastModified) {
+            return indexedJar._entries;
+        }
+
+        if (indexedJar._length == length) {
+            final long checksum = getChecksum(jarFile, length, lastModified);
+            if (checksum != -1 && checksum == indexedJar._checksum) {
+                logger.debug("JAR file modified but checksum is unchanged: {}", jarFile);
+                _jars.put(key, new IndexedJar(length, lastModified, checksum, indexedJar._entries));
+                _changed = true;
+                return indexedJar._entries;
+            }
+        }
+
+        logger.info("JAR file changed since it was indexed: {}", jarFile);
+        return null;
+    }
+
+    /**
+     * Registers the class file entries of a JAR file that contain components.
+     * 
+     * @param jarFile
+     *            the JAR file
+     * @param scope
+     *            the scope of the scan, typically the package path and whether
+     *            it is scanned recursively
+     * @param entries
+     *            the names of the class file entries of components
+     */
+    public void putComponentEntries(File jarFile, String scope, List<String> entries) {
+        final long length = jarFile.length();
+        final long lastModified = jarFile.lastModified();
+        final long checksum = getChecksum(jarFile, length, lastModified);
+        if (checksum == -1) {
+            return;
+        }
+        final List<String> entriesCopy = Collections.unmodifiableList(new ArrayList<String>(entries));
+        _jars.put(createKey(jarFile, scope), new IndexedJar(length, lastModified, checksum, entriesCopy));
+        _changed = true;
+    }
+
+    /**
+     * Determines if the index has changed since it was read or saved.
+     * 
+     * @return
+     */
+    public boolean isChanged() {
+        return _changed;
+    }
+
+    /**
+     * Writes the index to its file, if it has changed.
+     */
+    public synchronized void save() {
+        if (!_changed) {
+            return;
+        }
+        _changed = false;
+
+        final File parentFile = _file.getAbsoluteFile().getParentFile();
+        if (parentFile != null && !parentFile.exists()) {
+            parentFile.mkdirs();
+        }
+
+        final File tempFile = new File(_file.getPath() + ".tmp");
+        final Writer writer = FileHelper.getBufferedWriter(tempFile, FileHelper.UTF_8_ENCODING);
+        try {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Map.Entry<String, IndexedJar> entry : _jars.entrySet()) {
+                final IndexedJar indexedJar = entry.getValue();
+                writer.write(JAR_PREFIX + entry.getKey() + '\t' + indexedJar._length + '\t'
+                        + indexedJar._lastModified + '\t' + indexedJar._checksum + '\n');
+                for (String entryName : indexedJar._entries) {
+                    writer.write(ENTRY_PREFIX + entryName + '\n');
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write classpath scan index: " + _file, e);
+            return;
+        } finally {
+            FileHelper.safeClose(writer);
+        }
+
+        if (_file.exists() && !_file.delete()) {
+            logger.warn("Could not replace classpath scan index: {}", _file);
+            return;
+        }
+        if (!tempFile.renameTo(_file)) {
+            logger.warn("Could not rename classpath scan index file: {}", tempFile);
+            return;
+        }
+        logger.info("Saved classpath scan index with {} entries: {}", _jars.size(), _file);
+    }
+
+    private void read() {
+        final BufferedReader reader = FileHelper.getBufferedReader(_file, FileHelper.UTF_8_ENCODING);
+        try {
+            final String header = reader.readLine();
+            if (!HEADER.equals(header)) {
+                logger.info("Ignoring classpath scan index with unknown format: {}", _file);
+                return;
+            }
+
+            String key = null;
+            long length = 0;
+            long lastModified = 0;
+            long checksum = 0;
+            List<String> entries = null;
+
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith(ENTRY_PREFIX) && entries != null) {
+                    entries.add(line.substring(ENTRY_PREFIX.length()));
+                } else if (line.startsWith(JAR_PREFIX)) {
+                    if (key != null) {
+                        _jars.put(key, new IndexedJar(length, lastModified, checksum, entries));
+                    }
+                    final String[] tokens = line.split("\t");
+                    if (tokens.length != 5) {
+                        throw new IOException("Malformed line in classpath scan index: " + line);
+                    }
+                    key = tokens[1];
+                    length = Long.parseLong(tokens[2]);
+                    lastModified = Long.parseLong(tokens[3]);
+                    checksum = Long.parseLong(tokens[4]);
+                    entries = new ArrayList<String>();
+                }
+            }
+            if (key != null) {
+                _jars.put(key, new IndexedJar(length, lastModified, checksum, entries));
+            }
+            logger.info("Read classpath scan index with {} entries: {}", _jars.size(), _file);
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read classpath scan index, ignoring it: " + _file, e);
+            _jars.clear();
+        } finally {
+            FileHelper.safeClose(reader);
+        }
+    }
+
+    private static String createKey(File jarFile, String scope) {
+        return jarFile.getAbsolutePath() + "!" + scope;
+    }
+
+    /**
+     * Gets the checksum of a JAR file. The checksum is computed once per JAR
+     * file (and length and modification date), since the same JAR file is
+     * indexed for every scanned package.
+     * 
+     * @param jarFile
+     * @param length
+     * @param lastModified
+     * @return the checksum, or -1 if it could not be computed
+     */
+    private long getChecksum(File jarFile, long length, long lastModified) {
+        final String path = jarFile.getAbsolutePath();
+        final JarChecksum jarChecksum = _checksums.get(path);
+        if (jarChecksum != null && jarChecksum._length == length && jarChecksum._lastModified == lastModified) {
+            return jarChecksum._checksum;
+        }
+
+        final long checksum = checksum(jarFile);
+        if (checksum != -1) {
+            _checksums.put(path, new JarChecksum(length, lastModified, checksum));
+        }
+        return checksum;
+    }
+
+    private static long checksum(File jarFile) {
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[64 * 1024];
+        final InputStream inputStream = FileHelper.getInputStream(jarFile);
+        try {
+            for (int read = inputStream.read(buffer); read != -1; read = inputStream.read(buffer)) {
+                crc.update(buffer, 0, read);
+            }
+            return crc.getValue();
+        } catch (IOException e) {
+            logger.warn("Could not compute checksum of JAR file: " + jarFile, e);
+            return -1;
+        } finally {
+            FileHelper.safeClose(inputStream);
+        }
+    }
+}
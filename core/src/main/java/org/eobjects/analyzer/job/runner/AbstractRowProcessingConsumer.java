@@ -19,8 +19,11 @@
  */
 package org.eobjects.analyzer.job.runner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.eobjects.analyzer.data.InputColumn;
@@ -32,6 +35,7 @@ import org.eobjects.analyzer.job.ComponentRequirement;
 import org.eobjects.analyzer.job.HasComponentRequirement;
 import org.eobjects.analyzer.job.InputColumnSinkJob;
 import org.eobjects.analyzer.util.SourceColumnFinder;
+import org.eobjects.analyzer.util.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +53,44 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
     private final HasComponentRequirement _hasComponentRequirement;
     private final Set<HasComponentRequirement> _sourceJobsOfInputColumns;
     private final boolean _alwaysSatisfiedForConsume;
+    private final ComponentMetricsImpl _componentMetrics;
+    private final boolean _componentMetricsEnabled;
+    private volatile CompiledRequirements _compiledRequirements;
+
+    /**
+     * The requirements of a consumer compiled into bitmasks against a
+     * {@link FilterOutcomeIndex}.
+     */
+    private static final class CompiledRequirements {
+
+        private final FilterOutcomeIndex _index;
+        private final long[] _requirementMask;
+        private final boolean _inputsAlwaysSatisfied;
+        private final long[][] _sourceJobRequirementMasks;
+
+        public CompiledRequirements(FilterOutcomeIndex index, long[] requirementMask, boolean inputsAlwaysSatisfied,
+                long[][] sourceJobRequirementMasks) {
+            _index = index;
+            _requirementMask = requirementMask;
+            _inputsAlwaysSatisfied = inputsAlwaysSatisfied;
+            _sourceJobRequirementMasks = sourceJobRequirementMasks;
+        }
+
+        public boolean isSatisfied(FilterOutcomesImpl outcomes) {
+            if (_requirementMask != null && !outcomes.containsAny(_requirementMask)) {
+                return false;
+            }
+            if (_inputsAlwaysSatisfied) {
+                return true;
+            }
+            for (long[] mask : _sourceJobRequirementMasks) {
+                if (outcomes.containsAny(mask)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 
     protected AbstractRowProcessingConsumer(RowProcessingPublishers publishers, HasComponentRequirement outcomeSinkJob,
             InputColumnSinkJob inputColumnSinkJob) {
@@ -70,6 +112,19 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
         _hasComponentRequirement = outcomeSinkJob;
         _sourceJobsOfInputColumns = sourceJobsOfInputColumns;
         _alwaysSatisfiedForConsume = isAlwaysSatisfiedForConsume();
+        _componentMetrics = new ComponentMetricsImpl(this);
+        _componentMetricsEnabled = isComponentMetricsEnabled();
+    }
+
+    /**
+     * Determines if component metrics should be gathered, see
+     * {@link SystemProperties#ROW_PROCESSING_COMPONENT_METRICS}.
+     * 
+     * @return
+     */
+    private static boolean isComponentMetricsEnabled() {
+        final String property = System.getProperty(SystemProperties.ROW_PROCESSING_COMPONENT_METRICS);
+        return !"false".equalsIgnoreCase(property);
     }
 
     private boolean isAlwaysSatisfiedForConsume() {
@@ -114,11 +169,63 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
         return result;
     }
 
+    Set<HasComponentRequirement> getSourceJobsOfInputColumns() {
+        return _sourceJobsOfInputColumns;
+    }
+
+    /**
+     * Compiles the requirements of this consumer into bitmasks, which will be
+     * used when evaluating {@link FilterOutcomesImpl}s based on the same
+     * index.
+     * 
+     * @param index
+     */
+    void setFilterOutcomeIndex(FilterOutcomeIndex index) {
+        _compiledRequirements = compileRequirements(index);
+    }
+
+    private CompiledRequirements compileRequirements(FilterOutcomeIndex index) {
+        final ComponentRequirement componentRequirement = _hasComponentRequirement.getComponentRequirement();
+        long[] requirementMask = null;
+        if (componentRequirement != null && !(componentRequirement instanceof AnyComponentRequirement)) {
+            requirementMask = index.compile(componentRequirement);
+            if (requirementMask == null) {
+                return null;
+            }
+        }
+
+        boolean inputsAlwaysSatisfied = _alwaysSatisfiedForConsume || componentRequirement != null;
+        final List<long[]> sourceJobRequirementMasks = new ArrayList<long[]>();
+        if (!inputsAlwaysSatisfied) {
+            for (HasComponentRequirement sourceJob : _sourceJobsOfInputColumns) {
+                final ComponentRequirement sourceJobRequirement = sourceJob.getComponentRequirement();
+                if (sourceJobRequirement == null || sourceJobRequirement instanceof AnyComponentRequirement) {
+                    inputsAlwaysSatisfied = true;
+                    break;
+                }
+                final long[] mask = index.compile(sourceJobRequirement);
+                if (mask == null) {
+                    return null;
+                }
+                sourceJobRequirementMasks.add(mask);
+            }
+        }
+
+        return new CompiledRequirements(index, requirementMask, inputsAlwaysSatisfied,
+                sourceJobRequirementMasks.toArray(new long[sourceJobRequirementMasks.size()][]));
+    }
+
     /**
      * Ensures that just a single outcome is satisfied
      */
     @Override
     public final boolean satisfiedForConsume(FilterOutcomes outcomes, InputRow row) {
+        final CompiledRequirements compiledRequirements = _compiledRequirements;
+        if (compiledRequirements != null && outcomes instanceof FilterOutcomesImpl
+                && ((FilterOutcomesImpl) outcomes).getIndex() == compiledRequirements._index) {
+            return compiledRequirements.isSatisfied((FilterOutcomesImpl) outcomes);
+        }
+
         boolean satisfiedOutcomesForConsume = satisfiedOutcomesForConsume(_hasComponentRequirement, row, outcomes);
         if (!satisfiedOutcomesForConsume) {
             return false;
@@ -134,18 +241,184 @@ abstract class AbstractRowProcessingConsumer implements RowProcessingConsumer {
 
     @Override
     public final void consume(InputRow row, int distinctCount, FilterOutcomes outcomes, RowProcessingChain chain) {
+        if (!_componentMetricsEnabled) {
+            try {
+                consumeInternal(row, distinctCount, outcomes, chain);
+            } catch (RuntimeException e) {
+                handleError(row, e);
+            }
+            return;
+        }
+
+        final ComponentMetricsImpl.Counters counters = _componentMetrics.getCounters();
+        final RowProcessingChain previousChain = counters.begin(chain);
+        final long nestedNanosBefore = counters.getNestedNanos();
+        final long startNanos = System.nanoTime();
+        try {
+            consumeInternal(row, distinctCount, outcomes, counters);
+        } catch (RuntimeException e) {
+            counters.error();
+            handleError(row, e);
+        } finally {
+            counters.end(previousChain, startNanos, nestedNanosBefore);
+        }
+    }
+
+    private void handleError(InputRow row, RuntimeException e) {
+        final ComponentJob componentJob = getComponentJob();
+        if (_analysisListener == null) {
+            logger.error("Error occurred in component '" + componentJob + "' and no AnalysisListener is available", e);
+            throw e;
+        } else {
+            _analysisListener.errorInComponent(_analysisJob, componentJob, row, e);
+        }
+    }
+
+    /**
+     * Determines if this consumer can be used by
+     * {@link #consumeBatch(List, List)}, ie. if it passes on at most one
+     * record for every record it consumes.
+     * 
+     * @return
+     */
+    boolean isBatchable() {
+        return true;
+    }
+
+    /**
+     * Consumes a batch of records. Records that do not satisfy the
+     * requirements of this consumer are left untouched. The consumed records
+     * are replaced by the record that this consumer passes on, or null if it
+     * does not pass on anything.
+     * 
+     * @param rows
+     * @param outcomes
+     *            the outcomes of each record
+     */
+    final void consumeBatch(final List<InputRow> rows, final List<FilterOutcomes> outcomes) {
+        final int size = rows.size();
+        final List<InputRow> satisfiedRows = new ArrayList<InputRow>(size);
+        final List<FilterOutcomes> satisfiedOutcomes = new ArrayList<FilterOutcomes>(size);
+        final int[] satisfiedIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            final InputRow row = rows.get(i);
+            final FilterOutcomes rowOutcomes = outcomes.get(i);
+            if (satisfiedForConsume(rowOutcomes, row)) {
+                satisfiedIndexes[satisfiedRows.size()] = i;
+                satisfiedRows.add(row);
+                satisfiedOutcomes.add(rowOutcomes);
+            }
+        }
+
+        if (satisfiedRows.isEmpty()) {
+            return;
+        }
+
+        final InputRow[] resultRows = new InputRow[satisfiedRows.size()];
+        if (isConcurrent()) {
+            consumeSatisfiedBatch(satisfiedRows, satisfiedOutcomes, resultRows);
+        } else {
+            synchronized (this) {
+                consumeSatisfiedBatch(satisfiedRows, satisfiedOutcomes, resultRows);
+            }
+        }
+
+        for (int i = 0; i < resultRows.length; i++) {
+            rows.set(satisfiedIndexes[i], resultRows[i]);
+        }
+    }
+
+    private void consumeSatisfiedBatch(final List<InputRow> rows, final List<FilterOutcomes> outcomes,
+            final InputRow[] resultRows) {
+        final ComponentMetricsImpl.Counters counters = (_componentMetricsEnabled ? _componentMetrics.getCounters()
+                : null);
+        final long nestedNanosBefore = (counters == null ? 0 : counters.getNestedNanos());
+        final long startNanos = (counters == null ? 0 : System.nanoTime());
+        final boolean consumed;
         try {
-            consumeInternal(row, distinctCount, outcomes, chain);
+            consumed = consumeBatchInternal(rows, outcomes, resultRows);
         } catch (RuntimeException e) {
-            final ComponentJob componentJob = getComponentJob();
-            if (_analysisListener == null) {
-                logger.error("Error occurred in component '" + componentJob + "' and no AnalysisListener is available",
-                        e);
-                throw e;
-            } else {
-                _analysisListener.errorInComponent(_analysisJob, componentJob, row, e);
+            // the component may have handled some of the records already, so
+            // they cannot be consumed again. Report the error for every record
+            // of the batch instead.
+            Arrays.fill(resultRows, null);
+            if (counters != null) {
+                counters.endBatch(startNanos, nestedNanosBefore, rows.size(), 0);
+            }
+            for (InputRow row : rows) {
+                if (counters != null) {
+                    counters.error();
+                }
+                handleError(row, e);
             }
+            return;
         }
+
+        if (consumed) {
+            if (counters == null) {
+                return;
+            }
+            int outputRowCount = 0;
+            for (InputRow resultRow : resultRows) {
+                if (resultRow != null) {
+                    outputRowCount++;
+                }
+            }
+            counters.endBatch(startNanos, nestedNanosBefore, rows.size(), outputRowCount);
+            return;
+        }
+
+        // the component does not support batches, consume a record at a time
+        final BatchRowProcessingChain chain = new BatchRowProcessingChain();
+        for (int i = 0; i < resultRows.length; i++) {
+            chain._row = null;
+            consume(rows.get(i), 1, outcomes.get(i), chain);
+            resultRows[i] = chain._row;
+        }
+    }
+
+    /**
+     * Overrideable method for subclasses whose component can process a batch
+     * of records at a time. If the batch cannot be consumed, false must be
+     * returned before any of the records are handled. If an exception is
+     * thrown, the error is reported for every record of the batch and none of
+     * them are passed on.
+     * 
+     * @param rows
+     *            the records to consume
+     * @param outcomes
+     *            the outcomes of each record
+     * @param resultRows
+     *            an array to fill with the record that is passed on for each
+     *            consumed record, or null if it should not be passed on
+     * @return true if the batch was consumed, or false if the records should
+     *         be consumed one at a time
+     */
+    protected boolean consumeBatchInternal(List<InputRow> rows, List<FilterOutcomes> outcomes,
+            InputRow[] resultRows) {
+        return false;
+    }
+
+    /**
+     * {@link RowProcessingChain} that captures the record passed on when a
+     * record of a batch is consumed on its own.
+     */
+    private static final class BatchRowProcessingChain implements RowProcessingChain {
+
+        private InputRow _row;
+
+        @Override
+        public void processNext(InputRow row, int distinctCount, FilterOutcomes outcomes) {
+            if (_row != null) {
+                throw new IllegalStateException("Only a single record can be passed on when consuming batches");
+            }
+            _row = row;
+        }
+    }
+
+    @Override
+    public ComponentMetrics getComponentMetrics() {
+        return _componentMetrics;
     }
 
     /**
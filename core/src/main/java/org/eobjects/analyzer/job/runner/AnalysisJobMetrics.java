@@ -21,6 +21,7 @@ package org.eobjects.analyzer.job.runner;
 
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.AnalyzerJob;
+import org.eobjects.analyzer.job.ComponentJob;
 import org.apache.metamodel.schema.Table;
 
 /**
@@ -42,4 +43,15 @@ public interface AnalysisJobMetrics {
 	public Table[] getRowProcessingTables();
 
 	public RowProcessingMetrics getRowProcessingMetrics(Table table);
+
+	/**
+	 * Gets the metrics of a component (transformer, filter or analyzer) of the
+	 * job, gathered while the component consumes records.
+	 * 
+	 * @param componentJob
+	 *            the component to get metrics for
+	 * @return the metrics of the component, or null if the component is not
+	 *         consuming records in the job.
+	 */
+	public ComponentMetrics getComponentMetrics(ComponentJob componentJob);
 }
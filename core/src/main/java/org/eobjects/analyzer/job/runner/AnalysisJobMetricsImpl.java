@@ -21,6 +21,7 @@ package org.eobjects.analyzer.job.runner;
 
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.AnalyzerJob;
+import org.eobjects.analyzer.job.ComponentJob;
 import org.apache.metamodel.schema.Table;
 
 final class AnalysisJobMetricsImpl implements AnalysisJobMetrics {
@@ -59,6 +60,17 @@ final class AnalysisJobMetricsImpl implements AnalysisJobMetrics {
         return publisher.getRowProcessingMetrics();
     }
 
+    @Override
+    public ComponentMetrics getComponentMetrics(ComponentJob componentJob) {
+        for (RowProcessingPublisher publisher : _publishers.getRowProcessingPublishers()) {
+            final ComponentMetrics componentMetrics = publisher.getComponentMetrics(componentJob);
+            if (componentMetrics != null) {
+                return componentMetrics;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Table getRowProcessingTable(AnalyzerJob analyzerJob) {
         Table[] tables = _publishers.getTables(analyzerJob);
@@ -51,6 +51,10 @@ public interface AnalysisListener {
 
     /**
      * Notifies the listener about progress in the row processing operation.
+     * Progress is reported on an interval (see
+     * {@link RowProcessingProgressReporter}), except for the final progress
+     * report, which is only reported to
+     * {@link RowProcessingProgressAnalysisListener}s.
      * 
      * @param job
      *            the job that is being run
@@ -59,10 +63,15 @@ public interface AnalysisListener {
      * @param row
      *            the {@link InputRow} that just finished processing
      * @param rowNumber
-     *            the number of the row that just finished processing. This will
-     *            start at 1 and continue typically to
+     *            the number of rows that have finished processing so far. This
+     *            will continue typically to
      *            {@link RowProcessingMetrics#getExpectedRows()}.
+     * 
+     * @deprecated implement
+     *             {@link RowProcessingProgressAnalysisListener#rowProcessingProgress(AnalysisJob, RowProcessingMetrics, RowProcessingProgress)}
+     *             instead.
      */
+    @Deprecated
     public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, InputRow row, int rowNumber);
 
     /**
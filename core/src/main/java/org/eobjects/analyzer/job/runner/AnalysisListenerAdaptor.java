@@ -31,8 +31,18 @@ import org.eobjects.analyzer.result.AnalyzerResult;
  * An {@link AnalysisListener} that does nothing. Useful base-class for
  * implementing only particular methods of the {@link AnalysisListener}
  * interface.
+ * 
+ * The adaptor also implements the optional
+ * {@link ComponentMetricsAnalysisListener} and
+ * {@link RowProcessingProgressAnalysisListener} interfaces, so subclasses can
+ * receive component metrics and progress by overriding
+ * {@link #rowProcessingComponentMetrics(AnalysisJob, RowProcessingMetrics, ComponentMetrics)}
+ * and
+ * {@link #rowProcessingProgress(AnalysisJob, RowProcessingMetrics, RowProcessingProgress)}
+ * .
  */
-public class AnalysisListenerAdaptor implements AnalysisListener {
+public class AnalysisListenerAdaptor implements ComponentMetricsAnalysisListener,
+        RowProcessingProgressAnalysisListener {
 
     @Override
     public void jobBegin(AnalysisJob job, AnalysisJobMetrics metrics) {
@@ -46,6 +56,10 @@ public class AnalysisListenerAdaptor implements AnalysisListener {
     public void rowProcessingBegin(AnalysisJob job, RowProcessingMetrics metrics) {
     }
 
+    @Override
+    public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, RowProcessingProgress progress) {
+    }
+
     @Override
     public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, InputRow row, int currentRow) {
         rowProcessingProgress(job, metrics, currentRow);
@@ -69,6 +83,11 @@ public class AnalysisListenerAdaptor implements AnalysisListener {
     public void rowProcessingSuccess(AnalysisJob job, RowProcessingMetrics metrics) {
     }
 
+    @Override
+    public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+            ComponentMetrics componentMetrics) {
+    }
+
     @Override
     public void analyzerBegin(AnalysisJob job, AnalyzerJob analyzerJob, AnalyzerMetrics metrics) {
     }
@@ -24,6 +24,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 
 import org.eobjects.analyzer.beans.api.Initialize;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.connection.snapshot.SnapshotCache;
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.concurrent.TaskRunner;
 
@@ -36,6 +37,8 @@ public class AnalysisRunnerImpl implements AnalysisRunner {
 
     private final AnalyzerBeansConfiguration _configuration;
     private final AnalysisListener[] _sharedAnalysisListeners;
+    private final SharedScanCoordinator _sharedScanCoordinator;
+    private final SnapshotCache _snapshotCache;
 
     /**
      * Creates an AnalysisRunner based on a configuration, with no listeners
@@ -54,11 +57,45 @@ public class AnalysisRunnerImpl implements AnalysisRunner {
      * @param sharedAnalysisListeners
      */
     public AnalysisRunnerImpl(AnalyzerBeansConfiguration configuration, AnalysisListener... sharedAnalysisListeners) {
+        this(configuration, null, sharedAnalysisListeners);
+    }
+
+    /**
+     * Create an AnalysisRunner with a snapshot cache and a set of listeners,
+     * based on a configuration. Tables will be read from the snapshot cache if
+     * a fresh snapshot exists, and otherwise recorded into it.
+     * 
+     * @param configuration
+     * @param snapshotCache
+     * @param sharedAnalysisListeners
+     */
+    public AnalysisRunnerImpl(AnalyzerBeansConfiguration configuration, SnapshotCache snapshotCache,
+            AnalysisListener... sharedAnalysisListeners) {
+        this(configuration, snapshotCache, null, sharedAnalysisListeners);
+    }
+
+    /**
+     * Create an AnalysisRunner with a snapshot cache, a shared scan coordinator
+     * and a set of listeners, based on a configuration. Jobs that are run
+     * concurrently with the same {@link SharedScanCoordinator} will share the
+     * scans of the tables they read.
+     * 
+     * @param configuration
+     * @param snapshotCache
+     *            the cache of table snapshots to use, or null
+     * @param sharedScanCoordinator
+     *            the coordinator of shared table scans, or null
+     * @param sharedAnalysisListeners
+     */
+    public AnalysisRunnerImpl(AnalyzerBeansConfiguration configuration, SnapshotCache snapshotCache,
+            SharedScanCoordinator sharedScanCoordinator, AnalysisListener... sharedAnalysisListeners) {
         if (configuration == null) {
             throw new IllegalArgumentException("configuration cannot be null");
         }
         _configuration = configuration;
         _sharedAnalysisListeners = sharedAnalysisListeners;
+        _sharedScanCoordinator = sharedScanCoordinator;
+        _snapshotCache = snapshotCache;
     }
 
     @Override
@@ -86,7 +123,8 @@ public class AnalysisRunnerImpl implements AnalysisRunner {
 
         // the delegate will do all the actual work
         final AnalysisRunnerJobDelegate delegate = new AnalysisRunnerJobDelegate(job, _configuration, taskRunner,
-                analysisListener, resultQueue, errorListener, includedNonDistributed);
+                analysisListener, resultQueue, errorListener, includedNonDistributed, _sharedScanCoordinator,
+                _snapshotCache);
         return delegate.run();
     }
 
@@ -27,6 +27,7 @@ import java.util.Queue;
 import org.eobjects.analyzer.beans.api.Initialize;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
 import org.eobjects.analyzer.configuration.InjectionManager;
+import org.eobjects.analyzer.connection.snapshot.SnapshotCache;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.AnalyzerJob;
@@ -67,6 +68,8 @@ final class AnalysisRunnerJobDelegate {
     private final Collection<FilterJob> _filterJobs;
     private final SourceColumnFinder _sourceColumnFinder;
     private final boolean _includeNonDistributedTasks;
+    private final SharedScanCoordinator _sharedScanCoordinator;
+    private final SnapshotCache _snapshotCache;
 
     /**
      * 
@@ -82,16 +85,24 @@ final class AnalysisRunnerJobDelegate {
      *            executed or not. On single-node executions, this will
      *            typically be true, on slave nodes in a cluster, this will
      *            typically be false.
+     * @param sharedScanCoordinator
+     *            the coordinator for sharing table scans with other jobs of
+     *            the same runner, or null
+     * @param snapshotCache
+     *            the cache of table snapshots to use, or null
      */
     public AnalysisRunnerJobDelegate(AnalysisJob job, AnalyzerBeansConfiguration configuration, TaskRunner taskRunner,
             AnalysisListener analysisListener, Queue<JobAndResult> resultQueue, ErrorAware errorAware,
-            boolean includeNonDistributedTasks) {
+            boolean includeNonDistributedTasks, SharedScanCoordinator sharedScanCoordinator,
+            SnapshotCache snapshotCache) {
         _job = job;
         _configuration = configuration;
         _taskRunner = taskRunner;
         _analysisListener = analysisListener;
         _resultQueue = resultQueue;
         _includeNonDistributedTasks = includeNonDistributedTasks;
+        _sharedScanCoordinator = sharedScanCoordinator;
+        _snapshotCache = snapshotCache;
 
         _sourceColumnFinder = new SourceColumnFinder();
         _sourceColumnFinder.addSources(_job);
@@ -118,7 +129,8 @@ final class AnalysisRunnerJobDelegate {
                     new ReferenceDataActivationManager(), _includeNonDistributedTasks);
 
             final RowProcessingPublishers publishers = new RowProcessingPublishers(_job, _analysisListener,
-                    _taskRunner, rowProcessingLifeCycleHelper, _sourceColumnFinder);
+                    _taskRunner, rowProcessingLifeCycleHelper, _sourceColumnFinder, _sharedScanCoordinator,
+                    _snapshotCache);
 
             final AnalysisJobMetrics analysisJobMetrics = publishers.getAnalysisJobMetrics();
 
@@ -19,7 +19,11 @@
  */
 package org.eobjects.analyzer.job.runner;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.eobjects.analyzer.beans.api.Analyzer;
+import org.eobjects.analyzer.beans.api.BatchProcessingAnalyzer;
 import org.eobjects.analyzer.beans.api.Concurrent;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
@@ -81,6 +85,20 @@ final class AnalyzerConsumer extends AbstractRowProcessingConsumer implements Ro
         chain.processNext(row, distinctCount, outcomes);
     }
 
+    @Override
+    protected boolean consumeBatchInternal(List<InputRow> rows, List<FilterOutcomes> outcomes,
+            InputRow[] resultRows) {
+        if (!(_analyzer instanceof BatchProcessingAnalyzer)) {
+            return false;
+        }
+
+        final int[] distinctCounts = new int[rows.size()];
+        Arrays.fill(distinctCounts, 1);
+        ((BatchProcessingAnalyzer<?>) _analyzer).run(rows, distinctCounts);
+        rows.toArray(resultRows);
+        return true;
+    }
+
     @Override
     public AnalyzerJob getComponentJob() {
         return _analyzerJob;
@@ -0,0 +1,82 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import org.eobjects.analyzer.job.ComponentJob;
+
+/**
+ * Provides metrics about the execution of a single component (transformer,
+ * filter or analyzer) in a row processing flow. The metrics are gathered while
+ * the component consumes records, so they can be used to find out which
+ * component in a flow is consuming the time.
+ * 
+ * Time is measured as the time spent in the component itself, ie. excluding
+ * the time spent in the components that consume the records that it passes on
+ * to the rest of the flow. While row processing is ongoing, the metrics may be
+ * slightly behind.
+ */
+public interface ComponentMetrics {
+
+    /**
+     * Gets the component job that these metrics pertain to.
+     * 
+     * @return the component job that these metrics pertain to.
+     */
+    public ComponentJob getComponentJob();
+
+    /**
+     * Gets the number of records that the component has consumed.
+     * 
+     * @return the number of records that the component has consumed.
+     */
+    public long getInputRowCount();
+
+    /**
+     * Gets the number of records that the component has passed on to the rest
+     * of the flow. Typically this is the same as the input row count, but
+     * transformers may generate multiple records for a single input record, or
+     * none at all.
+     * 
+     * @return the number of records that the component has passed on.
+     */
+    public long getOutputRowCount();
+
+    /**
+     * Gets the cumulative time (in nanoseconds) spent in the component.
+     * 
+     * @return the cumulative time spent in the component.
+     */
+    public long getTotalNanos();
+
+    /**
+     * Gets the maximum time (in nanoseconds) spent in the component for a
+     * single record.
+     * 
+     * @return the maximum time spent in the component for a single record.
+     */
+    public long getMaxNanos();
+
+    /**
+     * Gets the number of records for which the component threw an exception.
+     * 
+     * @return the number of errors that occurred in the component.
+     */
+    public long getErrorCount();
+}
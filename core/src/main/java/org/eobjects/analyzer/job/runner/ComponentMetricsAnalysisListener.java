@@ -0,0 +1,48 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import org.eobjects.analyzer.job.AnalysisJob;
+
+/**
+ * Extension of the {@link AnalysisListener} interface for listeners that want
+ * to be notified about {@link ComponentMetrics}. This is a separate interface
+ * so that existing implementations of {@link AnalysisListener} are not
+ * affected. Listeners that extend {@link AnalysisListenerAdaptor} implement it
+ * already and only need to override the method.
+ */
+public interface ComponentMetricsAnalysisListener extends AnalysisListener {
+
+    /**
+     * Notifies the listener about the metrics of a component in a row
+     * processing operation. Invoked for each component once all records have
+     * been processed, just before
+     * {@link #rowProcessingSuccess(AnalysisJob, RowProcessingMetrics)}.
+     * 
+     * @param job
+     *            the job that is being run
+     * @param metrics
+     *            metrics for the row processing operation
+     * @param componentMetrics
+     *            metrics for the component, see {@link ComponentMetrics}
+     */
+    public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+            ComponentMetrics componentMetrics);
+}
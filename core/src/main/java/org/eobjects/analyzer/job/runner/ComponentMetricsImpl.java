@@ -0,0 +1,245 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.ComponentJob;
+import org.eobjects.analyzer.util.SystemProperties;
+
+/**
+ * Default {@link ComponentMetrics} implementation. Counters are kept per
+ * thread, so that gathering them does not require any locking, and are
+ * aggregated when the metrics are read. Gathering can be turned off with the
+ * {@link SystemProperties#ROW_PROCESSING_COMPONENT_METRICS} system property,
+ * in which case all metrics are zero.
+ */
+final class ComponentMetricsImpl implements ComponentMetrics {
+
+    /**
+     * Keeps track of the time spent in consumers on a single thread, used to
+     * subtract the time spent in the rest of the flow (which is invoked
+     * recursively by the consumers) from the time of a consumer.
+     */
+    private static final class NestedTime {
+        private long _nanos;
+    }
+
+    private static final ThreadLocal<NestedTime> NESTED_TIME = new ThreadLocal<NestedTime>() {
+        @Override
+        protected NestedTime initialValue() {
+            return new NestedTime();
+        }
+    };
+
+    /**
+     * The counters of a single component on a single thread. Also acts as the
+     * {@link RowProcessingChain} that is passed to the component, in order to
+     * count the records that it passes on.
+     * 
+     * The counters are only written by their own thread, so they are plain
+     * fields and the increments do not need to be atomic. They are read by
+     * other threads when the metrics are aggregated, which happens once the
+     * row processing tasks have completed. Task completion is signalled
+     * through the task listeners, which publishes the values to the reader.
+     * Metrics read while records are still being processed may be stale.
+     */
+    static final class Counters implements RowProcessingChain {
+
+        private final NestedTime _nestedTime;
+        private RowProcessingChain _chain;
+        private long _inputRowCount;
+        private long _outputRowCount;
+        private long _totalNanos;
+        private long _maxNanos;
+        private long _errorCount;
+
+        private Counters(NestedTime nestedTime) {
+            _nestedTime = nestedTime;
+        }
+
+        /**
+         * Begins the consumption of a record.
+         * 
+         * @param chain
+         *            the chain that the component should pass records on to
+         * @return the previous chain, to be passed to
+         *         {@link #end(RowProcessingChain, long, long)}
+         */
+        public RowProcessingChain begin(RowProcessingChain chain) {
+            final RowProcessingChain previousChain = _chain;
+            _chain = chain;
+            return previousChain;
+        }
+
+        public long getNestedNanos() {
+            return _nestedTime._nanos;
+        }
+
+        /**
+         * Ends the consumption of a record.
+         * 
+         * @param previousChain
+         *            the chain returned by {@link #begin(RowProcessingChain)}
+         * @param startNanos
+         *            the time that consumption began
+         * @param nestedNanosBefore
+         *            the nested time ({@link #getNestedNanos()}) when
+         *            consumption began
+         */
+        public void end(RowProcessingChain previousChain, long startNanos, long nestedNanosBefore) {
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            final long nanos = elapsedNanos - (_nestedTime._nanos - nestedNanosBefore);
+            _nestedTime._nanos = nestedNanosBefore + elapsedNanos;
+
+            _inputRowCount++;
+            _totalNanos += nanos;
+            if (nanos > _maxNanos) {
+                _maxNanos = nanos;
+            }
+            _chain = previousChain;
+        }
+
+        /**
+         * Registers the consumption of a batch of records, which does not
+         * involve the chain.
+         * 
+         * @param startNanos
+         *            the time that consumption of the batch began
+         * @param nestedNanosBefore
+         *            the nested time ({@link #getNestedNanos()}) when
+         *            consumption began
+         * @param inputRowCount
+         *            the number of records in the batch
+         * @param outputRowCount
+         *            the number of records passed on
+         */
+        public void endBatch(long startNanos, long nestedNanosBefore, int inputRowCount, int outputRowCount) {
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            final long nanos = elapsedNanos - (_nestedTime._nanos - nestedNanosBefore);
+            _nestedTime._nanos = nestedNanosBefore + elapsedNanos;
+
+            _inputRowCount += inputRowCount;
+            _outputRowCount += outputRowCount;
+            _totalNanos += nanos;
+
+            // the time of the individual records is not known, use the average
+            final long averageNanos = nanos / Math.max(1, inputRowCount);
+            if (averageNanos > _maxNanos) {
+                _maxNanos = averageNanos;
+            }
+        }
+
+        public void error() {
+            _errorCount++;
+        }
+
+        @Override
+        public void processNext(InputRow row, int distinctCount, FilterOutcomes outcomes) {
+            _outputRowCount++;
+            _chain.processNext(row, distinctCount, outcomes);
+        }
+    }
+
+    private final RowProcessingConsumer _consumer;
+    private final List<Counters> _allCounters;
+    private final ThreadLocal<Counters> _counters;
+
+    public ComponentMetricsImpl(RowProcessingConsumer consumer) {
+        _consumer = consumer;
+        _allCounters = new CopyOnWriteArrayList<Counters>();
+        _counters = new ThreadLocal<Counters>() {
+            @Override
+            protected Counters initialValue() {
+                final Counters counters = new Counters(NESTED_TIME.get());
+                _allCounters.add(counters);
+                return counters;
+            }
+        };
+    }
+
+    /**
+     * Gets the counters of the current thread.
+     * 
+     * @return
+     */
+    public Counters getCounters() {
+        return _counters.get();
+    }
+
+    @Override
+    public ComponentJob getComponentJob() {
+        return _consumer.getComponentJob();
+    }
+
+    @Override
+    public long getInputRowCount() {
+        long result = 0;
+        for (Counters counters : _allCounters) {
+            result += counters._inputRowCount;
+        }
+        return result;
+    }
+
+    @Override
+    public long getOutputRowCount() {
+        long result = 0;
+        for (Counters counters : _allCounters) {
+            result += counters._outputRowCount;
+        }
+        return result;
+    }
+
+    @Override
+    public long getTotalNanos() {
+        long result = 0;
+        for (Counters counters : _allCounters) {
+            result += counters._totalNanos;
+        }
+        return result;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        long result = 0;
+        for (Counters counters : _allCounters) {
+            result = Math.max(result, counters._maxNanos);
+        }
+        return result;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long result = 0;
+        for (Counters counters : _allCounters) {
+            result += counters._errorCount;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ComponentMetrics[" + getComponentJob() + ",rows in=" + getInputRowCount() + ",rows out="
+                + getOutputRowCount() + ",total nanos=" + getTotalNanos() + ",max nanos=" + getMaxNanos()
+                + ",errors=" + getErrorCount() + "]";
+    }
+}
@@ -32,7 +32,8 @@ import org.eobjects.analyzer.result.AnalyzerResult;
  * {@link AnalysisListener} that wraps a list of inner listeners. Makes life
  * easier for the invokers of the listeners.
  */
-public final class CompositeAnalysisListener implements AnalysisListener {
+public final class CompositeAnalysisListener implements ComponentMetricsAnalysisListener,
+        RowProcessingProgressAnalysisListener {
 
     private final List<AnalysisListener> _delegates;
 
@@ -100,6 +101,15 @@ public final class CompositeAnalysisListener implements AnalysisListener {
         }
     }
 
+    @Override
+    public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, RowProcessingProgress progress) {
+        for (AnalysisListener delegate : _delegates) {
+            if (delegate instanceof RowProcessingProgressAnalysisListener) {
+                ((RowProcessingProgressAnalysisListener) delegate).rowProcessingProgress(job, metrics, progress);
+            }
+        }
+    }
+
     @Override
     public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, InputRow row, int currentRow) {
         for (AnalysisListener delegate : _delegates) {
@@ -114,6 +124,17 @@ public final class CompositeAnalysisListener implements AnalysisListener {
         }
     }
 
+    @Override
+    public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+            ComponentMetrics componentMetrics) {
+        for (AnalysisListener delegate : _delegates) {
+            if (delegate instanceof ComponentMetricsAnalysisListener) {
+                ((ComponentMetricsAnalysisListener) delegate).rowProcessingComponentMetrics(job, metrics,
+                        componentMetrics);
+            }
+        }
+    }
+
     @Override
     public void analyzerBegin(AnalysisJob job, AnalyzerJob analyzerJob, AnalyzerMetrics metrics) {
         for (AnalysisListener delegate : _delegates) {
@@ -26,6 +26,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.metamodel.schema.Table;
 import org.eobjects.analyzer.beans.api.Analyzer;
+import org.eobjects.analyzer.beans.api.BatchProcessingAnalyzer;
+import org.eobjects.analyzer.beans.api.BatchProcessingFilter;
+import org.eobjects.analyzer.beans.api.BatchProcessingTransformer;
+import org.eobjects.analyzer.beans.api.OutputRowCollector;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
 import org.eobjects.analyzer.configuration.InjectionManager;
 import org.eobjects.analyzer.data.InputColumn;
@@ -52,6 +56,26 @@ public class ConsumeRowHandler {
 
     private final List<RowProcessingConsumer> _consumers;
     private final Collection<? extends FilterOutcome> _alwaysSatisfiedOutcomes;
+    private final FilterOutcomeIndex _filterOutcomeIndex;
+    private final ThreadLocal<PooledState> _pooledState = new ThreadLocal<PooledState>();
+
+    /**
+     * The structures needed to consume a record, kept per thread by
+     * {@link ConsumeRowHandler#consumeRowPooled(InputRow)}.
+     */
+    private static final class PooledState {
+        final FilterOutcomesImpl outcomes;
+        final List<InputRow> resultRecords = new ArrayList<InputRow>(1);
+        final List<FilterOutcomes> resultOutcomes = new ArrayList<FilterOutcomes>(1);
+        final ConsumeRowResult result = new ConsumeRowResult(resultRecords, resultOutcomes);
+        final ConsumeRowHandlerDelegate delegate;
+        boolean inUse = false;
+
+        public PooledState(List<RowProcessingConsumer> consumers, FilterOutcomeIndex filterOutcomeIndex) {
+            outcomes = new FilterOutcomesImpl(filterOutcomeIndex, null);
+            delegate = ConsumeRowHandlerDelegate.createReusableChain(consumers, resultRecords, resultOutcomes);
+        }
+    }
 
     public static class Configuration {
         public boolean includeNonDistributedTasks = true;
@@ -73,6 +97,7 @@ public class ConsumeRowHandler {
             Configuration configuration) {
         _consumers = extractConsumers(job, analyzerBeansConfiguration, configuration);
         _alwaysSatisfiedOutcomes = configuration.alwaysSatisfiedOutcomes;
+        _filterOutcomeIndex = createFilterOutcomeIndex(_consumers, _alwaysSatisfiedOutcomes);
     }
 
     /**
@@ -95,6 +120,26 @@ public class ConsumeRowHandler {
             Collection<? extends FilterOutcome> alwaysSatisfiedOutcomes) {
         _consumers = consumers;
         _alwaysSatisfiedOutcomes = alwaysSatisfiedOutcomes;
+        _filterOutcomeIndex = createFilterOutcomeIndex(_consumers, _alwaysSatisfiedOutcomes);
+    }
+
+    /**
+     * Assigns bit indexes to all the outcomes involved in consuming a record
+     * and compiles the requirements of the consumers against them.
+     * 
+     * @param consumers
+     * @param alwaysSatisfiedOutcomes
+     * @return
+     */
+    private static FilterOutcomeIndex createFilterOutcomeIndex(List<RowProcessingConsumer> consumers,
+            Collection<? extends FilterOutcome> alwaysSatisfiedOutcomes) {
+        final FilterOutcomeIndex index = FilterOutcomeIndex.create(consumers, alwaysSatisfiedOutcomes);
+        for (RowProcessingConsumer consumer : consumers) {
+            if (consumer instanceof AbstractRowProcessingConsumer) {
+                ((AbstractRowProcessingConsumer) consumer).setFilterOutcomeIndex(index);
+            }
+        }
+        return index;
     }
 
     /**
@@ -140,12 +185,110 @@ public class ConsumeRowHandler {
      * @return
      */
     public ConsumeRowResult consumeRow(final InputRow row) {
-        final FilterOutcomes outcomes = new FilterOutcomesImpl(_alwaysSatisfiedOutcomes);
+        final FilterOutcomes outcomes = new FilterOutcomesImpl(_filterOutcomeIndex, _alwaysSatisfiedOutcomes);
         final ConsumeRowHandlerDelegate delegate = new ConsumeRowHandlerDelegate(_consumers, row, 0, outcomes);
         final ConsumeRowResult result = delegate.consume();
         return result;
     }
 
+    /**
+     * Consumes a batch of {@link InputRow}s, returning a combined result of
+     * the transformed rows and their {@link FilterOutcomes}s.
+     * 
+     * Instead of passing each record through the whole chain of consumers, the
+     * batch is passed to one consumer at a time. This allows components
+     * implementing {@link BatchProcessingTransformer},
+     * {@link BatchProcessingFilter} or {@link BatchProcessingAnalyzer} to
+     * process the whole batch in one invocation. If any of the consumers may
+     * produce multiple records per record (using an {@link OutputRowCollector}
+     * ), the rows are consumed one at a time instead.
+     * 
+     * @param rows
+     * @return
+     */
+    public ConsumeRowResult consumeRows(final List<? extends InputRow> rows) {
+        if (!isBatchable()) {
+            final List<InputRow> resultRecords = new ArrayList<InputRow>(rows.size());
+            final List<FilterOutcomes> resultOutcomes = new ArrayList<FilterOutcomes>(rows.size());
+            for (final InputRow row : rows) {
+                final ConsumeRowResult result = consumeRow(row);
+                resultRecords.addAll(result.getRows());
+                resultOutcomes.addAll(result.getOutcomeSinks());
+            }
+            return new ConsumeRowResult(resultRecords, resultOutcomes);
+        }
+
+        List<InputRow> currentRows = new ArrayList<InputRow>(rows);
+        List<FilterOutcomes> currentOutcomes = new ArrayList<FilterOutcomes>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            currentOutcomes.add(new FilterOutcomesImpl(_filterOutcomeIndex, _alwaysSatisfiedOutcomes));
+        }
+
+        for (final RowProcessingConsumer consumer : _consumers) {
+            ((AbstractRowProcessingConsumer) consumer).consumeBatch(currentRows, currentOutcomes);
+
+            // remove the records which were not passed on by the consumer
+            if (currentRows.contains(null)) {
+                final List<InputRow> nextRows = new ArrayList<InputRow>(currentRows.size());
+                final List<FilterOutcomes> nextOutcomes = new ArrayList<FilterOutcomes>(currentRows.size());
+                for (int i = 0; i < currentRows.size(); i++) {
+                    final InputRow row = currentRows.get(i);
+                    if (row != null) {
+                        nextRows.add(row);
+                        nextOutcomes.add(currentOutcomes.get(i));
+                    }
+                }
+                currentRows = nextRows;
+                currentOutcomes = nextOutcomes;
+            }
+        }
+
+        return new ConsumeRowResult(currentRows, currentOutcomes);
+    }
+
+    private boolean isBatchable() {
+        for (final RowProcessingConsumer consumer : _consumers) {
+            if (!(consumer instanceof AbstractRowProcessingConsumer)
+                    || !((AbstractRowProcessingConsumer) consumer).isBatchable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consumes a {@link InputRow} like {@link #consumeRow(InputRow)}, but
+     * reuses the structures needed to do so between the records consumed by
+     * the same thread. The returned result (and the {@link FilterOutcomes} in
+     * it) is therefore only valid until the next invocation on the same
+     * thread.
+     * 
+     * @param row
+     * @return
+     */
+    public ConsumeRowResult consumeRowPooled(final InputRow row) {
+        PooledState state = _pooledState.get();
+        if (state == null) {
+            state = new PooledState(_consumers, _filterOutcomeIndex);
+            _pooledState.set(state);
+        } else if (state.inUse) {
+            // reentrant invocation (eg. a consumer which assists execution of
+            // other tasks), the pooled state is taken
+            return consumeRow(row);
+        }
+
+        state.inUse = true;
+        try {
+            state.resultRecords.clear();
+            state.resultOutcomes.clear();
+            state.outcomes.reset(_alwaysSatisfiedOutcomes);
+            state.delegate.consume(row, state.outcomes);
+            return state.result;
+        } finally {
+            state.inUse = false;
+        }
+    }
+
     private List<RowProcessingConsumer> extractConsumers(AnalysisJob analysisJob,
             AnalyzerBeansConfiguration analyzerBeansConfiguration, Configuration configuration) {
         final InjectionManager injectionManager = analyzerBeansConfiguration.getInjectionManager(analysisJob);
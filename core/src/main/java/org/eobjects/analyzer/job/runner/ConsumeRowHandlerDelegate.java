@@ -28,33 +28,84 @@ import org.eobjects.analyzer.data.InputRow;
  * Delegate execution object for {@link ConsumeRowHandler}. Contains state
  * particular to processing of a single consumer in the chain, and also handles
  * recursive logic coming from {@link RowProcessingChain} callbacks.
+ * 
+ * Delegates are either created per record, or created once per consumer and
+ * reused for every record (see {@link #createReusableChain(List, List, List)}
+ * ). Reuse is safe since only one delegate per consumer index is active at any
+ * time while a record is being consumed.
  */
 final class ConsumeRowHandlerDelegate implements RowProcessingChain {
 
     private final List<RowProcessingConsumer> _consumers;
-    private final InputRow _row;
     private final int _consumerIndex;
-    private final FilterOutcomes _outcomes;
     private final List<InputRow> _resultRecords;
     private final List<FilterOutcomes> _resultOutcomes;
+    private final ConsumeRowHandlerDelegate[] _chain;
+    private InputRow _row;
+    private FilterOutcomes _outcomes;
 
     public ConsumeRowHandlerDelegate(final List<RowProcessingConsumer> consumers, final InputRow row,
             final int consumerIndex, final FilterOutcomes outcomes) {
-        this(consumers, row, consumerIndex, outcomes, new ArrayList<InputRow>(1), new ArrayList<FilterOutcomes>(1));
+        this(consumers, row, consumerIndex, outcomes, new ArrayList<InputRow>(1), new ArrayList<FilterOutcomes>(1),
+                null);
     }
 
     private ConsumeRowHandlerDelegate(final List<RowProcessingConsumer> consumers, final InputRow row,
             final int consumerIndex, final FilterOutcomes outcomes, final List<InputRow> resultRecords,
-            final List<FilterOutcomes> resultOutcomes) {
+            final List<FilterOutcomes> resultOutcomes, final ConsumeRowHandlerDelegate[] chain) {
         _consumers = consumers;
         _row = row;
         _consumerIndex = consumerIndex;
         _outcomes = outcomes;
         _resultRecords = resultRecords;
         _resultOutcomes = resultOutcomes;
+        _chain = chain;
+    }
+
+    /**
+     * Creates a chain of reusable delegates, one for each consumer, which add
+     * their results to the given lists.
+     * 
+     * @param consumers
+     * @param resultRecords
+     * @param resultOutcomes
+     * @return the first delegate of the chain, to be used with
+     *         {@link #consume(InputRow, FilterOutcomes)}
+     */
+    public static ConsumeRowHandlerDelegate createReusableChain(final List<RowProcessingConsumer> consumers,
+            final List<InputRow> resultRecords, final List<FilterOutcomes> resultOutcomes) {
+        final ConsumeRowHandlerDelegate[] chain = new ConsumeRowHandlerDelegate[consumers.size()];
+        for (int i = 0; i < chain.length; i++) {
+            chain[i] = new ConsumeRowHandlerDelegate(consumers, null, i, null, resultRecords, resultOutcomes, chain);
+        }
+        return chain[0];
     }
 
     public ConsumeRowResult consume() {
+        consumeInternal();
+        return new ConsumeRowResult(_resultRecords, _resultOutcomes);
+    }
+
+    /**
+     * Consumes a record using a reusable delegate. Results are added to the
+     * lists that the chain was created with.
+     * 
+     * @param row
+     * @param outcomes
+     */
+    public void consume(final InputRow row, final FilterOutcomes outcomes) {
+        _row = row;
+        _outcomes = outcomes;
+        try {
+            consumeInternal();
+        } finally {
+            // don't keep references to the record after it's been consumed
+            _row = null;
+            _outcomes = null;
+        }
+    }
+
+    private void consumeInternal() {
         final RowProcessingConsumer consumer = _consumers.get(_consumerIndex);
 
         final boolean process = consumer.satisfiedForConsume(_outcomes, _row);
@@ -70,8 +121,6 @@ final class ConsumeRowHandlerDelegate implements RowProcessingChain {
             // jump to the next step
             processNext(_row, 1, _outcomes);
         }
-
-        return new ConsumeRowResult(_resultRecords, _resultOutcomes);
     }
 
     @Override
@@ -84,9 +133,14 @@ final class ConsumeRowHandlerDelegate implements RowProcessingChain {
             return;
         }
 
+        if (_chain != null) {
+            _chain[nextIndex].consume(row, outcomes);
+            return;
+        }
+
         final ConsumeRowHandlerDelegate subDelegate = new ConsumeRowHandlerDelegate(_consumers, row, nextIndex,
-                outcomes, _resultRecords, _resultOutcomes);
-        subDelegate.consume();
+                outcomes, _resultRecords, _resultOutcomes, null);
+        subDelegate.consumeInternal();
     }
 
 }
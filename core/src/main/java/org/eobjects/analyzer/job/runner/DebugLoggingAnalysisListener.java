@@ -33,7 +33,8 @@ import org.slf4j.LoggerFactory;
  * 
  * 
  */
-public class DebugLoggingAnalysisListener implements AnalysisListener {
+public class DebugLoggingAnalysisListener implements ComponentMetricsAnalysisListener,
+        RowProcessingProgressAnalysisListener {
 
     private static final Logger logger = LoggerFactory.getLogger(DebugLoggingAnalysisListener.class);
 
@@ -60,6 +61,11 @@ public class DebugLoggingAnalysisListener implements AnalysisListener {
         logger.debug("rowProcessingBegin({}, {})", new Object[] { job, metrics.getTable() });
     }
 
+    @Override
+    public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, RowProcessingProgress progress) {
+        logger.debug("rowProcessingProgress({}, {}, {})", new Object[] { job, metrics.getTable(), progress });
+    }
+
     @Override
     public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, InputRow row, int currentRow) {
         logger.debug("rowProcessingProgress({}, {}, {}, {})", new Object[] { job, metrics.getTable(), row, currentRow });
@@ -70,6 +76,13 @@ public class DebugLoggingAnalysisListener implements AnalysisListener {
         logger.debug("rowProcessingSuccess({}, {})", new Object[] { job, metrics.getTable() });
     }
 
+    @Override
+    public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+            ComponentMetrics componentMetrics) {
+        logger.debug("rowProcessingComponentMetrics({}, {}, {})", new Object[] { job, metrics.getTable(),
+                componentMetrics });
+    }
+
     @Override
     public void analyzerBegin(AnalysisJob job, AnalyzerJob analyzerJob, AnalyzerMetrics metrics) {
         logger.debug("analyzerBegin({}, {})", new Object[] { job, analyzerJob });
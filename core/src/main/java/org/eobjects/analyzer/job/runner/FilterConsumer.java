@@ -19,6 +19,9 @@
  */
 package org.eobjects.analyzer.job.runner;
 
+import java.util.List;
+
+import org.eobjects.analyzer.beans.api.BatchProcessingFilter;
 import org.eobjects.analyzer.beans.api.Concurrent;
 import org.eobjects.analyzer.beans.api.Filter;
 import org.eobjects.analyzer.beans.api.Optimizeable;
@@ -37,6 +40,22 @@ final class FilterConsumer extends AbstractRowProcessingConsumer implements RowP
     private final FilterJob _filterJob;
     private final InputColumn<?>[] _inputColumns;
     private final boolean _concurrent;
+    private final FilterOutcome[] _outcomesByOrdinal;
+    private volatile IndexedOutcomes _indexedOutcomes;
+
+    /**
+     * The bit indexes of the outcomes of the filter, as assigned by a
+     * {@link FilterOutcomeIndex}.
+     */
+    private static final class IndexedOutcomes {
+        private final FilterOutcomeIndex _index;
+        private final int[] _bitsByOrdinal;
+
+        public IndexedOutcomes(FilterOutcomeIndex index, int[] bitsByOrdinal) {
+            _index = index;
+            _bitsByOrdinal = bitsByOrdinal;
+        }
+    }
 
     public FilterConsumer(Filter<?> filter, FilterJob filterJob, InputColumn<?>[] inputColumns,
             SourceColumnFinder sourceColumnFinder) {
@@ -45,6 +64,7 @@ final class FilterConsumer extends AbstractRowProcessingConsumer implements RowP
         _filterJob = filterJob;
         _inputColumns = inputColumns;
         _concurrent = determineConcurrent();
+        _outcomesByOrdinal = createOutcomesByOrdinal();
     }
     
     public FilterConsumer(Filter<?> filter, FilterJob filterJob, InputColumn<?>[] inputColumns,
@@ -54,6 +74,26 @@ final class FilterConsumer extends AbstractRowProcessingConsumer implements RowP
         _filterJob = filterJob;
         _inputColumns = inputColumns;
         _concurrent = determineConcurrent();
+        _outcomesByOrdinal = createOutcomesByOrdinal();
+    }
+
+    private FilterOutcome[] createOutcomesByOrdinal() {
+        final Enum<?>[] categories = _filterJob.getDescriptor().getOutcomeCategoryEnum().getEnumConstants();
+        final FilterOutcome[] outcomes = new FilterOutcome[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            outcomes[categories[i].ordinal()] = new ImmutableFilterOutcome(_filterJob, categories[i]);
+        }
+        return outcomes;
+    }
+
+    @Override
+    void setFilterOutcomeIndex(FilterOutcomeIndex index) {
+        super.setFilterOutcomeIndex(index);
+        final int[] bitsByOrdinal = new int[_outcomesByOrdinal.length];
+        for (int i = 0; i < bitsByOrdinal.length; i++) {
+            bitsByOrdinal[i] = index.indexOf(_outcomesByOrdinal[i]);
+        }
+        _indexedOutcomes = new IndexedOutcomes(index, bitsByOrdinal);
     }
 
     private boolean determineConcurrent() {
@@ -82,12 +122,43 @@ final class FilterConsumer extends AbstractRowProcessingConsumer implements RowP
 
     @Override
     public void consumeInternal(InputRow row, int distinctCount, FilterOutcomes outcomes, RowProcessingChain chain) {
-        Enum<?> category = _filter.categorize(row);
-        FilterOutcome outcome = new ImmutableFilterOutcome(_filterJob, category);
-        outcomes.add(outcome);
+        final Enum<?> category = _filter.categorize(row);
+        addOutcome(category, outcomes);
         chain.processNext(row, distinctCount, outcomes);
     }
 
+    @Override
+    protected boolean consumeBatchInternal(List<InputRow> rows, List<FilterOutcomes> outcomes,
+            InputRow[] resultRows) {
+        if (!(_filter instanceof BatchProcessingFilter)) {
+            return false;
+        }
+
+        final Enum<?>[] categories = ((BatchProcessingFilter<?>) _filter).categorize(rows);
+        for (int i = 0; i < resultRows.length; i++) {
+            addOutcome(categories[i], outcomes.get(i));
+            resultRows[i] = rows.get(i);
+        }
+        return true;
+    }
+
+    private void addOutcome(final Enum<?> category, final FilterOutcomes outcomes) {
+        if (category == null || category.ordinal() >= _outcomesByOrdinal.length
+                || _outcomesByOrdinal[category.ordinal()].getCategory() != category) {
+            outcomes.add(new ImmutableFilterOutcome(_filterJob, category));
+        } else {
+            final int ordinal = category.ordinal();
+            final IndexedOutcomes indexedOutcomes = _indexedOutcomes;
+            if (indexedOutcomes != null && indexedOutcomes._bitsByOrdinal[ordinal] != -1
+                    && outcomes instanceof FilterOutcomesImpl
+                    && ((FilterOutcomesImpl) outcomes).getIndex() == indexedOutcomes._index) {
+                ((FilterOutcomesImpl) outcomes).add(indexedOutcomes._bitsByOrdinal[ordinal]);
+            } else {
+                outcomes.add(_outcomesByOrdinal[ordinal]);
+            }
+        }
+    }
+
     @Override
     public FilterJob getComponentJob() {
         return _filterJob;
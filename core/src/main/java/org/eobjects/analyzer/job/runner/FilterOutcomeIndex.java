@@ -0,0 +1,172 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eobjects.analyzer.job.ComponentJob;
+import org.eobjects.analyzer.job.ComponentRequirement;
+import org.eobjects.analyzer.job.CompoundComponentRequirement;
+import org.eobjects.analyzer.job.FilterOutcome;
+import org.eobjects.analyzer.job.HasComponentRequirement;
+import org.eobjects.analyzer.job.HasFilterOutcomes;
+import org.eobjects.analyzer.job.SimpleComponentRequirement;
+
+/**
+ * Assigns a bit index to every {@link FilterOutcome} that may occur while a
+ * list of consumers process a record. This allows {@link FilterOutcomesImpl}
+ * to hold outcomes in a bitset and {@link ComponentRequirement}s to be
+ * compiled into bitmasks, so that evaluating them per record does not involve
+ * hashing and comparing {@link FilterOutcome} objects.
+ */
+final class FilterOutcomeIndex {
+
+    private final Map<FilterOutcome, Integer> _indexes;
+    private final FilterOutcome[] _outcomes;
+
+    /**
+     * Creates an index of all the outcomes that the consumers produce or
+     * require, and the outcomes that are always satisfied.
+     * 
+     * @param consumers
+     * @param alwaysSatisfiedOutcomes
+     * @return
+     */
+    public static FilterOutcomeIndex create(Collection<? extends RowProcessingConsumer> consumers,
+            Collection<? extends FilterOutcome> alwaysSatisfiedOutcomes) {
+        final List<FilterOutcome> outcomes = new ArrayList<FilterOutcome>();
+        if (alwaysSatisfiedOutcomes != null) {
+            outcomes.addAll(alwaysSatisfiedOutcomes);
+        }
+        for (RowProcessingConsumer consumer : consumers) {
+            final ComponentJob componentJob = consumer.getComponentJob();
+            if (componentJob instanceof HasFilterOutcomes) {
+                outcomes.addAll(((HasFilterOutcomes) componentJob).getFilterOutcomes());
+            }
+            if (componentJob instanceof HasComponentRequirement) {
+                addProcessingDependencies(outcomes, (HasComponentRequirement) componentJob);
+            }
+            if (consumer instanceof AbstractRowProcessingConsumer) {
+                for (HasComponentRequirement sourceJob : ((AbstractRowProcessingConsumer) consumer)
+                        .getSourceJobsOfInputColumns()) {
+                    addProcessingDependencies(outcomes, sourceJob);
+                }
+            }
+        }
+        return new FilterOutcomeIndex(outcomes);
+    }
+
+    private static void addProcessingDependencies(List<FilterOutcome> outcomes,
+            HasComponentRequirement hasComponentRequirement) {
+        final ComponentRequirement requirement = hasComponentRequirement.getComponentRequirement();
+        if (requirement != null) {
+            final Collection<FilterOutcome> processingDependencies = requirement.getProcessingDependencies();
+            if (processingDependencies != null) {
+                outcomes.addAll(processingDependencies);
+            }
+        }
+    }
+
+    public FilterOutcomeIndex(Collection<? extends FilterOutcome> outcomes) {
+        _indexes = new HashMap<FilterOutcome, Integer>();
+        final List<FilterOutcome> indexedOutcomes = new ArrayList<FilterOutcome>();
+        for (FilterOutcome outcome : outcomes) {
+            if (outcome != null && !_indexes.containsKey(outcome)) {
+                _indexes.put(outcome, indexedOutcomes.size());
+                indexedOutcomes.add(outcome);
+            }
+        }
+        _outcomes = indexedOutcomes.toArray(new FilterOutcome[indexedOutcomes.size()]);
+    }
+
+    /**
+     * Gets the bit index of an outcome.
+     * 
+     * @param outcome
+     * @return the index, or -1 if the outcome is not part of the index
+     */
+    public int indexOf(FilterOutcome outcome) {
+        final Integer index = _indexes.get(outcome);
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+
+    public FilterOutcome getOutcome(int index) {
+        return _outcomes[index];
+    }
+
+    public int size() {
+        return _outcomes.length;
+    }
+
+    /**
+     * Gets the number of longs needed for a bitset of this index.
+     * 
+     * @return
+     */
+    public int getWordCount() {
+        return (_outcomes.length + 63) >>> 6;
+    }
+
+    /**
+     * Creates a bitmask that matches any of the given outcomes.
+     * 
+     * @param outcomes
+     * @return the mask, or null if one of the outcomes is not part of the
+     *         index
+     */
+    public long[] createMask(Collection<? extends FilterOutcome> outcomes) {
+        final long[] mask = new long[getWordCount()];
+        for (FilterOutcome outcome : outcomes) {
+            final int index = indexOf(outcome);
+            if (index == -1) {
+                return null;
+            }
+            mask[index >>> 6] |= 1L << index;
+        }
+        return mask;
+    }
+
+    /**
+     * Compiles a {@link ComponentRequirement} into a bitmask, which is
+     * satisfied if any of its bits are set in a {@link FilterOutcomesImpl}.
+     * 
+     * @param requirement
+     * @return the mask, or null if the requirement cannot be represented as a
+     *         mask against this index
+     */
+    public long[] compile(ComponentRequirement requirement) {
+        if (requirement instanceof SimpleComponentRequirement) {
+            final FilterOutcome outcome = ((SimpleComponentRequirement) requirement).getOutcome();
+            return createMask(Collections.singleton(outcome));
+        }
+        if (requirement instanceof CompoundComponentRequirement) {
+            return createMask(((CompoundComponentRequirement) requirement).getOutcomes());
+        }
+        return null;
+    }
+}
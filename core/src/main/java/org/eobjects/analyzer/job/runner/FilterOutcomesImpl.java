@@ -19,56 +19,158 @@
  */
 package org.eobjects.analyzer.job.runner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eobjects.analyzer.job.FilterOutcome;
 
 /**
- * Default implementation of {@link FilterOutcomes}
+ * Default implementation of {@link FilterOutcomes}.
+ * 
+ * When created with a {@link FilterOutcomeIndex}, the indexed outcomes are held
+ * in a bitset, which makes adding, cloning and evaluating requirements cheap.
+ * Outcomes that are not part of the index are kept in a regular set.
  */
 public final class FilterOutcomesImpl implements FilterOutcomes {
 
+    private final FilterOutcomeIndex _index;
+    private final long[] _bits;
     private final Set<FilterOutcome> _outcomes;
 
-    @SuppressWarnings("unchecked")
     public FilterOutcomesImpl() {
-        this(Collections.EMPTY_LIST);
+        this(null, null);
     }
 
     public FilterOutcomesImpl(Collection<? extends FilterOutcome> availableOutcomes) {
-        if (availableOutcomes == null) {
-            _outcomes = new HashSet<FilterOutcome>();
-        } else {
+        this(null, availableOutcomes);
+    }
+
+    FilterOutcomesImpl(FilterOutcomeIndex index, Collection<? extends FilterOutcome> availableOutcomes) {
+        _index = index;
+        _bits = (index == null ? null : new long[index.getWordCount()]);
+        _outcomes = new HashSet<FilterOutcome>();
+        if (availableOutcomes != null) {
             // always take a copy of the collection argument
-            _outcomes = new HashSet<FilterOutcome>(availableOutcomes);
+            for (FilterOutcome outcome : availableOutcomes) {
+                add(outcome);
+            }
+        }
+    }
+
+    private FilterOutcomesImpl(FilterOutcomesImpl original) {
+        _index = original._index;
+        _bits = (original._bits == null ? null : original._bits.clone());
+        _outcomes = new HashSet<FilterOutcome>(original._outcomes);
+    }
+
+    /**
+     * Resets the outcomes, so that the object can be reused for another
+     * record.
+     * 
+     * @param availableOutcomes
+     *            the outcomes that are available before any filters are
+     *            applied, or null if none
+     */
+    public void reset(Collection<? extends FilterOutcome> availableOutcomes) {
+        if (_bits != null) {
+            Arrays.fill(_bits, 0L);
+        }
+        if (!_outcomes.isEmpty()) {
+            _outcomes.clear();
+        }
+        if (availableOutcomes != null) {
+            for (FilterOutcome outcome : availableOutcomes) {
+                add(outcome);
+            }
+        }
+    }
+
+    /**
+     * Gets the index that the bitset of this object is based on.
+     * 
+     * @return the index, or null if outcomes are not indexed
+     */
+    FilterOutcomeIndex getIndex() {
+        return _index;
+    }
+
+    /**
+     * Adds an outcome by its bit index. Only to be used with indexes obtained
+     * from {@link #getIndex()}.
+     * 
+     * @param index
+     */
+    void add(int index) {
+        _bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Determines if any of the outcomes of a mask (see
+     * {@link FilterOutcomeIndex#createMask(Collection)}) are active.
+     * 
+     * @param mask
+     * @return
+     */
+    boolean containsAny(long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            if ((_bits[i] & mask[i]) != 0) {
+                return true;
+            }
         }
+        return false;
     }
 
     @Override
     public void add(FilterOutcome filterOutcome) {
+        if (_index != null) {
+            final int index = _index.indexOf(filterOutcome);
+            if (index != -1) {
+                add(index);
+                return;
+            }
+        }
         _outcomes.add(filterOutcome);
     }
 
     @Override
     public boolean contains(FilterOutcome outcome) {
+        if (_index != null) {
+            final int index = _index.indexOf(outcome);
+            if (index != -1) {
+                return (_bits[index >>> 6] & (1L << index)) != 0;
+            }
+        }
         return _outcomes.contains(outcome);
     }
 
     @Override
     public FilterOutcome[] getOutcomes() {
-        return _outcomes.toArray(new FilterOutcome[_outcomes.size()]);
+        if (_index == null) {
+            return _outcomes.toArray(new FilterOutcome[_outcomes.size()]);
+        }
+        final List<FilterOutcome> result = new ArrayList<FilterOutcome>(_outcomes);
+        for (int i = 0; i < _bits.length; i++) {
+            long word = _bits[i];
+            while (word != 0) {
+                final int bit = Long.numberOfTrailingZeros(word);
+                result.add(_index.getOutcome((i << 6) + bit));
+                word &= word - 1;
+            }
+        }
+        return result.toArray(new FilterOutcome[result.size()]);
     }
 
     @Override
     public String toString() {
-        return "FilterOutcomes[" + _outcomes + "]";
+        return "FilterOutcomes[" + Arrays.asList(getOutcomes()) + "]";
     }
 
     @Override
     public FilterOutcomes clone() {
-        return new FilterOutcomesImpl(_outcomes);
+        return new FilterOutcomesImpl(this);
     }
 }
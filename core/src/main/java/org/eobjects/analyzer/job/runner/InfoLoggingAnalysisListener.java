@@ -25,7 +25,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * AnalysisListener used for INFO level logging. This listener will log
- * interesting progress information for each thousands rows being processed.
+ * interesting progress information whenever row processing progress is
+ * reported.
  */
 public class InfoLoggingAnalysisListener extends AnalysisListenerAdaptor {
 
@@ -45,9 +46,23 @@ public class InfoLoggingAnalysisListener extends AnalysisListenerAdaptor {
 	}
 
 	@Override
-	public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, int currentRow) {
-		if (currentRow > 0 && currentRow % 1000 == 0) {
-			logger.info("Reading row no. {} in {}", new Object[] { currentRow, metrics.getTable().getName() });
+	public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, RowProcessingProgress progress) {
+		final long remainingMillis = progress.getEstimatedRemainingMillis();
+		if (progress.isFinished() || remainingMillis < 0) {
+			logger.info("Processed {} rows in {} ({} rows/s)", new Object[] { progress.getProcessedRows(),
+					metrics.getTable().getName(), (long) progress.getRowsPerSecond() });
+		} else {
+			logger.info("Processed {} rows in {} ({} rows/s, ETA {} s)", new Object[] { progress.getProcessedRows(),
+					metrics.getTable().getName(), (long) progress.getRowsPerSecond(), remainingMillis / 1000 });
 		}
 	}
+
+	@Override
+	public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+			ComponentMetrics componentMetrics) {
+		logger.info("Component {} consumed {} rows in {} ms (max. {} ms per row, {} errors)", new Object[] {
+				componentMetrics.getComponentJob(), componentMetrics.getInputRowCount(),
+				componentMetrics.getTotalNanos() / 1000000, componentMetrics.getMaxNanos() / 1000000,
+				componentMetrics.getErrorCount() });
+	}
 }
@@ -0,0 +1,146 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.metamodel.data.Row;
+import org.eobjects.analyzer.data.ArrayInputRow;
+import org.eobjects.analyzer.data.RecyclableInputRow;
+import org.eobjects.analyzer.data.RowLayout;
+import org.eobjects.analyzer.job.tasks.ConsumeRowTask;
+
+/**
+ * Creates the {@link ConsumeRowTask}s (and their {@link ArrayInputRow}s) that
+ * are dispatched for every record of a {@link RowProcessingPublisher}.
+ * 
+ * When pooling is enabled, executed tasks are handed back to the pool and
+ * reused for subsequent records, which keeps the row processing of large
+ * datasets almost free of per-record allocations. Tasks are acquired by the
+ * threads reading records and released by the worker threads consuming them,
+ * so the pool is shared by these threads. The structures needed while
+ * consuming a record are kept per worker thread, see
+ * {@link ConsumeRowHandler#consumeRowPooled(org.eobjects.analyzer.data.InputRow)}
+ * .
+ * 
+ * Since rows are recycled, components that keep references to rows must retain
+ * them using {@link RecyclableInputRow#retain()}.
+ */
+public final class RowPool {
+
+    /**
+     * The default capacity of a pool. The number of records in flight is
+     * bounded by the work queue of the task runner, so this is rarely
+     * exhausted.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final RowLayout _rowLayout;
+    private final ConsumeRowHandler _consumeRowHandler;
+    private final RowProcessingProgressReporter _progressReporter;
+    private final BlockingQueue<ConsumeRowTask> _freeTasks;
+
+    /**
+     * Creates a row pool
+     * 
+     * @param rowLayout
+     * @param consumeRowHandler
+     * @param progressReporter
+     * @param capacity
+     *            the maximum number of idle tasks to keep in the pool, or 0 to
+     *            disable pooling, in which case a new task and row is created
+     *            for every record
+     */
+    public RowPool(RowLayout rowLayout, ConsumeRowHandler consumeRowHandler,
+            RowProcessingProgressReporter progressReporter, int capacity) {
+        _rowLayout = rowLayout;
+        _consumeRowHandler = consumeRowHandler;
+        _progressReporter = progressReporter;
+        if (capacity > 0) {
+            _freeTasks = new ArrayBlockingQueue<ConsumeRowTask>(capacity);
+        } else {
+            _freeTasks = null;
+        }
+    }
+
+    public boolean isPooling() {
+        return _freeTasks != null;
+    }
+
+    public RowLayout getRowLayout() {
+        return _rowLayout;
+    }
+
+    /**
+     * Gets a task for consuming a record read by a MetaModel {@link Row}.
+     * 
+     * @param rowId
+     * @param row
+     * @return
+     */
+    public ConsumeRowTask acquire(int rowId, Row row) {
+        if (_freeTasks == null) {
+            final ArrayInputRow inputRow = new ArrayInputRow(_rowLayout, rowId, row);
+            return new ConsumeRowTask(_consumeRowHandler, _progressReporter, inputRow);
+        }
+        final ConsumeRowTask task = pollTask();
+        ((ArrayInputRow) task.getRow()).reset(rowId, row);
+        return task;
+    }
+
+    /**
+     * Gets a task for consuming a record, given the values of the physical
+     * columns of the row layout.
+     * 
+     * @param rowId
+     * @param physicalValues
+     * @return
+     */
+    public ConsumeRowTask acquire(int rowId, Object[] physicalValues) {
+        if (_freeTasks == null) {
+            final ArrayInputRow inputRow = new ArrayInputRow(_rowLayout, rowId, physicalValues);
+            return new ConsumeRowTask(_consumeRowHandler, _progressReporter, inputRow);
+        }
+        final ConsumeRowTask task = pollTask();
+        ((ArrayInputRow) task.getRow()).reset(rowId, physicalValues);
+        return task;
+    }
+
+    private ConsumeRowTask pollTask() {
+        final ConsumeRowTask task = _freeTasks.poll();
+        if (task != null) {
+            return task;
+        }
+        return new ConsumeRowTask(_consumeRowHandler, _progressReporter, new ArrayInputRow(_rowLayout), this);
+    }
+
+    /**
+     * Hands back a task once it has been executed. If the pool is full, the
+     * task is discarded.
+     * 
+     * @param task
+     */
+    public void release(ConsumeRowTask task) {
+        if (_freeTasks != null) {
+            _freeTasks.offer(task);
+        }
+    }
+}
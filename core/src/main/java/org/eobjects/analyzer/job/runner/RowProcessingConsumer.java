@@ -90,4 +90,9 @@ public interface RowProcessingConsumer {
      * @return the component instance
      */
     public Object getComponent();
+
+    /**
+     * @return the metrics gathered while this consumer consumes records
+     */
+    public ComponentMetrics getComponentMetrics();
 }
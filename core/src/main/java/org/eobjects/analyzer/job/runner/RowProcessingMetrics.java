@@ -66,4 +66,12 @@ public interface RowProcessingMetrics {
 	 *         count could not be determined.
 	 */
 	public int getExpectedRows();
+
+	/**
+	 * Gets the metrics of the components (transformers, filters and
+	 * analyzers) that consume the records of this row processing flow.
+	 * 
+	 * @return an array of {@link ComponentMetrics}, one for each component.
+	 */
+	public ComponentMetrics[] getComponentMetrics();
 }
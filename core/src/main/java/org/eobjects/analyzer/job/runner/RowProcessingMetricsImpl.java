@@ -67,6 +67,11 @@ final class RowProcessingMetricsImpl implements RowProcessingMetrics {
         return _publisher.getAnalyzerJobs();
     }
 
+    @Override
+    public ComponentMetrics[] getComponentMetrics() {
+        return _publisher.getComponentMetrics();
+    }
+
     private Ref<Integer> createExpectedRowsRef() {
         return new LazyRef<Integer>() {
 
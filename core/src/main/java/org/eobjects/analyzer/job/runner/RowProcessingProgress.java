@@ -0,0 +1,116 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+/**
+ * Represents the progress of a row processing operation at a particular point
+ * in time, as reported to
+ * {@link RowProcessingProgressAnalysisListener#rowProcessingProgress(org.eobjects.analyzer.job.AnalysisJob, RowProcessingMetrics, RowProcessingProgress)}
+ * .
+ */
+public final class RowProcessingProgress {
+
+    private final int _processedRows;
+    private final int _expectedRows;
+    private final long _elapsedMillis;
+    private final boolean _finished;
+
+    public RowProcessingProgress(int processedRows, int expectedRows, long elapsedMillis, boolean finished) {
+        _processedRows = processedRows;
+        _expectedRows = expectedRows;
+        _elapsedMillis = elapsedMillis;
+        _finished = finished;
+    }
+
+    /**
+     * Gets the number of rows that have been processed.
+     * 
+     * @return the number of rows that have been processed.
+     */
+    public int getProcessedRows() {
+        return _processedRows;
+    }
+
+    /**
+     * Gets the expected number of rows to process, see
+     * {@link RowProcessingMetrics#getExpectedRows()}.
+     * 
+     * @return the expected number of rows to process, or -1 if unknown.
+     */
+    public int getExpectedRows() {
+        return _expectedRows;
+    }
+
+    /**
+     * Gets the number of milliseconds that have elapsed since row processing
+     * began.
+     * 
+     * @return the number of milliseconds since row processing began.
+     */
+    public long getElapsedMillis() {
+        return _elapsedMillis;
+    }
+
+    /**
+     * Determines if this is the final progress report, sent when all rows
+     * have been processed.
+     * 
+     * @return true if all rows have been processed.
+     */
+    public boolean isFinished() {
+        return _finished;
+    }
+
+    /**
+     * Gets the throughput of the row processing so far.
+     * 
+     * @return the number of rows processed per second.
+     */
+    public double getRowsPerSecond() {
+        if (_elapsedMillis <= 0) {
+            return 0d;
+        }
+        return _processedRows * 1000d / _elapsedMillis;
+    }
+
+    /**
+     * Gets the estimated time until all rows have been processed, based on the
+     * throughput so far and the expected number of rows.
+     * 
+     * @return the estimated number of milliseconds remaining, or -1 if it
+     *         cannot be estimated.
+     */
+    public long getEstimatedRemainingMillis() {
+        if (_finished) {
+            return 0;
+        }
+        if (_expectedRows < 0 || _processedRows <= 0) {
+            return -1;
+        }
+        final int remainingRows = Math.max(0, _expectedRows - _processedRows);
+        return (long) (remainingRows * ((double) _elapsedMillis / _processedRows));
+    }
+
+    @Override
+    public String toString() {
+        return "RowProcessingProgress[processed=" + _processedRows + ",expected=" + _expectedRows + ",elapsedMillis="
+                + _elapsedMillis + ",finished=" + _finished + "]";
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import org.eobjects.analyzer.job.AnalysisJob;
+
+/**
+ * Extension of the {@link AnalysisListener} interface for listeners that want
+ * to be notified about the {@link RowProcessingProgress} of row processing
+ * operations. This is a separate interface so that existing implementations of
+ * {@link AnalysisListener} are not affected. Listeners that extend
+ * {@link AnalysisListenerAdaptor} implement it already and only need to
+ * override the method.
+ */
+public interface RowProcessingProgressAnalysisListener extends AnalysisListener {
+
+    /**
+     * Notifies the listener about progress in the row processing operation.
+     * Progress is reported on an interval (see
+     * {@link RowProcessingProgressReporter}) and once when all rows have been
+     * processed.
+     * 
+     * @param job
+     *            the job that is being run
+     * @param metrics
+     *            metrics for the row processing operation
+     * @param progress
+     *            the progress of the row processing operation, including
+     *            throughput and estimated remaining time
+     */
+    public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, RowProcessingProgress progress);
+}
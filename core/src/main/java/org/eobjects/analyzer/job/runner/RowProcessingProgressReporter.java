@@ -0,0 +1,197 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.util.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+
+/**
+ * Reports the progress of a row processing operation to an
+ * {@link AnalysisListener}. Instead of notifying the listener for every single
+ * row, processed rows are counted per worker thread and progress is reported
+ * on a configurable time interval (and optionally also a row count interval),
+ * plus once when all rows have been processed.
+ * 
+ * The intervals can be configured using the
+ * {@link SystemProperties#ROW_PROCESSING_PROGRESS_INTERVAL} and
+ * {@link SystemProperties#ROW_PROCESSING_PROGRESS_ROWS} system properties.
+ */
+public final class RowProcessingProgressReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RowProcessingProgressReporter.class);
+
+    /**
+     * The default number of milliseconds between progress reports
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The maximum number of rows that a worker counts before adding them to
+     * the shared count.
+     */
+    private static final int MAX_UNFLUSHED_ROWS = 100;
+
+    /**
+     * The rows counted by a single worker thread, not yet added to the shared
+     * count.
+     */
+    private static final class Worker {
+        private int _unflushedRows;
+        private long _lastFlushNanos;
+    }
+
+    private final AnalysisJob _analysisJob;
+    private final RowProcessingMetrics _rowProcessingMetrics;
+    private final AnalysisListener _analysisListener;
+    private final long _intervalNanos;
+    private final int _intervalRows;
+    private final int _maxUnflushedRows;
+    private final long _startNanos;
+    private final AtomicInteger _processedRows;
+    private final AtomicLong _lastReportNanos;
+    private final List<Worker> _workers;
+    private final ThreadLocal<Worker> _worker;
+    private volatile int _lastReportedRows;
+
+    /**
+     * Creates a progress reporter configured by system properties.
+     * 
+     * @param analysisJob
+     * @param rowProcessingMetrics
+     * @param analysisListener
+     */
+    public RowProcessingProgressReporter(AnalysisJob analysisJob, RowProcessingMetrics rowProcessingMetrics,
+            AnalysisListener analysisListener) {
+        this(analysisJob, rowProcessingMetrics, analysisListener, getLongProperty(
+                SystemProperties.ROW_PROCESSING_PROGRESS_INTERVAL, DEFAULT_INTERVAL_MILLIS), (int) getLongProperty(
+                SystemProperties.ROW_PROCESSING_PROGRESS_ROWS, 0));
+    }
+
+    /**
+     * Creates a progress reporter
+     * 
+     * @param analysisJob
+     * @param rowProcessingMetrics
+     * @param analysisListener
+     * @param intervalMillis
+     *            the minimum number of milliseconds between progress reports
+     * @param intervalRows
+     *            the number of rows after which progress is reported, even if
+     *            the time interval has not passed, or 0 to only report on the
+     *            time interval
+     */
+    public RowProcessingProgressReporter(AnalysisJob analysisJob, RowProcessingMetrics rowProcessingMetrics,
+            AnalysisListener analysisListener, long intervalMillis, int intervalRows) {
+        _analysisJob = analysisJob;
+        _rowProcessingMetrics = rowProcessingMetrics;
+        _analysisListener = analysisListener;
+        _intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+        _intervalRows = Math.max(0, intervalRows);
+        _maxUnflushedRows = (_intervalRows > 0 ? Math.min(_intervalRows, MAX_UNFLUSHED_ROWS) : MAX_UNFLUSHED_ROWS);
+        _startNanos = System.nanoTime();
+        _processedRows = new AtomicInteger();
+        _lastReportNanos = new AtomicLong(_startNanos);
+        _workers = new CopyOnWriteArrayList<Worker>();
+        _worker = new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                final Worker worker = new Worker();
+                worker._lastFlushNanos = _startNanos;
+                _workers.add(worker);
+                return worker;
+            }
+        };
+    }
+
+    /**
+     * Notifies the reporter that a row has been processed. Invoked by the
+     * worker thread that processed the row.
+     * 
+     * @param row
+     *            the row that was processed
+     */
+    public void rowProcessed(InputRow row) {
+        final Worker worker = _worker.get();
+        worker._unflushedRows++;
+
+        final long nanos = System.nanoTime();
+        if (worker._unflushedRows >= _maxUnflushedRows || nanos - worker._lastFlushNanos >= _intervalNanos) {
+            final int processedRows = _processedRows.addAndGet(worker._unflushedRows);
+            worker._unflushedRows = 0;
+            worker._lastFlushNanos = nanos;
+
+            final long lastReportNanos = _lastReportNanos.get();
+            final boolean due = nanos - lastReportNanos >= _intervalNanos
+                    || (_intervalRows > 0 && processedRows - _lastReportedRows >= _intervalRows);
+            if (due && _lastReportNanos.compareAndSet(lastReportNanos, nanos)) {
+                _lastReportedRows = processedRows;
+                report(row, processedRows, nanos, false);
+            }
+        }
+    }
+
+    /**
+     * Reports the final progress, once all rows have been processed.
+     */
+    public void finish() {
+        int processedRows = _processedRows.get();
+        for (Worker worker : _workers) {
+            processedRows += worker._unflushedRows;
+        }
+        report(null, processedRows, System.nanoTime(), true);
+    }
+
+    private void report(InputRow row, int processedRows, long nanos, boolean finished) {
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(nanos - _startNanos);
+        final RowProcessingProgress progress = new RowProcessingProgress(processedRows,
+                _rowProcessingMetrics.getExpectedRows(), elapsedMillis, finished);
+        if (_analysisListener instanceof RowProcessingProgressAnalysisListener) {
+            ((RowProcessingProgressAnalysisListener) _analysisListener).rowProcessingProgress(_analysisJob,
+                    _rowProcessingMetrics, progress);
+        }
+        if (row != null) {
+            // also notify listeners that only implement the row-based callback
+            _analysisListener.rowProcessingProgress(_analysisJob, _rowProcessingMetrics, row, processedRows);
+        }
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+        final String property = System.getProperty(key);
+        if (!Strings.isNullOrEmpty(property)) {
+            try {
+                return Long.parseLong(property.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Could not parse system property {}: {}", key, property);
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -27,12 +27,14 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.metamodel.DataContext;
 import org.apache.metamodel.data.DataSet;
 import org.apache.metamodel.data.Row;
 import org.apache.metamodel.jdbc.JdbcDataContext;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
 import org.apache.metamodel.schema.Column;
 import org.apache.metamodel.schema.Table;
 import org.apache.metamodel.util.CollectionUtils;
@@ -41,11 +43,18 @@ import org.apache.metamodel.util.LazyRef;
 import org.apache.metamodel.util.Predicate;
 import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.Filter;
+import org.eobjects.analyzer.beans.api.QueryOptimizedAnalyzer;
 import org.eobjects.analyzer.beans.api.Transformer;
+import org.eobjects.analyzer.connection.DataSetSplit;
 import org.eobjects.analyzer.connection.Datastore;
 import org.eobjects.analyzer.connection.DatastoreConnection;
+import org.eobjects.analyzer.connection.SplitReadableDatastore;
+import org.eobjects.analyzer.connection.snapshot.SnapshotCache;
+import org.eobjects.analyzer.data.ArrayInputRow;
 import org.eobjects.analyzer.data.InputColumn;
-import org.eobjects.analyzer.data.MetaModelInputRow;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MetaModelInputColumn;
+import org.eobjects.analyzer.data.RowLayout;
 import org.eobjects.analyzer.descriptors.ComponentDescriptor;
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.AnalyzerJob;
@@ -58,6 +67,7 @@ import org.eobjects.analyzer.job.HasFilterOutcomes;
 import org.eobjects.analyzer.job.TransformerJob;
 import org.eobjects.analyzer.job.concurrent.ForkTaskListener;
 import org.eobjects.analyzer.job.concurrent.JoinTaskListener;
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
 import org.eobjects.analyzer.job.concurrent.RunNextTaskTaskListener;
 import org.eobjects.analyzer.job.concurrent.TaskListener;
 import org.eobjects.analyzer.job.concurrent.TaskRunnable;
@@ -65,8 +75,11 @@ import org.eobjects.analyzer.job.concurrent.TaskRunner;
 import org.eobjects.analyzer.job.tasks.CloseTaskListener;
 import org.eobjects.analyzer.job.tasks.CollectResultsTask;
 import org.eobjects.analyzer.job.tasks.ConsumeRowTask;
+import org.eobjects.analyzer.job.tasks.ConsumeRowsTask;
 import org.eobjects.analyzer.job.tasks.InitializeReferenceDataTask;
 import org.eobjects.analyzer.job.tasks.InitializeTask;
+import org.eobjects.analyzer.job.tasks.ReadDataSetSplitTask;
+import org.eobjects.analyzer.job.tasks.RunQueryOptimizedAnalyzerTask;
 import org.eobjects.analyzer.job.tasks.RunRowProcessingPublisherTask;
 import org.eobjects.analyzer.job.tasks.Task;
 import org.eobjects.analyzer.lifecycle.LifeCycleHelper;
@@ -74,6 +87,8 @@ import org.eobjects.analyzer.util.SystemProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Strings;
+
 public final class RowProcessingPublisher {
 
     private final static Logger logger = LoggerFactory.getLogger(RowProcessingPublisher.class);
@@ -84,6 +99,7 @@ public final class RowProcessingPublisher {
     private final List<RowProcessingConsumer> _consumers = new ArrayList<RowProcessingConsumer>();
     private final LazyRef<RowProcessingQueryOptimizer> _queryOptimizerRef;
     private final AtomicBoolean _successful = new AtomicBoolean(true);
+    private volatile SharedScanCoordinator.ScanGroup _sharedScan;
 
     public RowProcessingPublisher(RowProcessingPublishers publishers, Table table) {
         if (publishers == null) {
@@ -251,8 +267,20 @@ public final class RowProcessingPublisher {
      * @see #runRowProcessing(Queue, TaskListener)
      */
     public void processRows(RowProcessingMetrics rowProcessingMetrics) {
-        final RowProcessingQueryOptimizer queryOptimizer = getQueryOptimizer();
-        final Query finalQuery = queryOptimizer.getOptimizedQuery();
+        final RowProcessingQueryOptimizer queryOptimizer;
+        final Query finalQuery;
+        try {
+            queryOptimizer = getQueryOptimizer();
+            finalQuery = queryOptimizer.getOptimizedQuery();
+        } catch (RuntimeException e) {
+            withdrawSharedScan();
+            throw e;
+        }
+
+        if (!SharedScanCoordinator.isShareable(finalQuery)) {
+            // don't let other jobs wait for a scan we will not join
+            withdrawSharedScan();
+        }
 
         final RowIdGenerator idGenerator;
         if (finalQuery.getFirstRow() == null) {
@@ -261,6 +289,8 @@ public final class RowProcessingPublisher {
             idGenerator = new SimpleRowIdGenerator(finalQuery.getFirstRow());
         }
 
+        final RowLayout rowLayout = createRowLayout(finalQuery);
+
         final AnalysisJob analysisJob = _publishers.getAnalysisJob();
         final AnalysisListener analysisListener = _publishers.getAnalysisListener();
         final TaskRunner taskRunner = _publishers.getTaskRunner();
@@ -276,9 +306,13 @@ public final class RowProcessingPublisher {
 
             if (rowProcessingConsumer instanceof TransformerConsumer) {
                 ((TransformerConsumer) rowProcessingConsumer).setRowIdGenerator(idGenerator);
+                ((TransformerConsumer) rowProcessingConsumer).setRowLayout(rowLayout);
             }
         }
-        final List<RowProcessingConsumer> consumers = queryOptimizer.getOptimizedConsumers();
+        final List<AnalyzerConsumer> queryOptimizedAnalyzers = queryOptimizer.getQueryOptimizedAnalyzers();
+        final List<RowProcessingConsumer> consumers = new ArrayList<RowProcessingConsumer>(
+                queryOptimizer.getOptimizedConsumers());
+        consumers.removeAll(queryOptimizedAnalyzers);
         final Collection<? extends FilterOutcome> availableOutcomes = queryOptimizer.getOptimizedAvailableOutcomes();
 
         analysisListener.rowProcessingBegin(analysisJob, rowProcessingMetrics);
@@ -288,6 +322,7 @@ public final class RowProcessingPublisher {
 
         final Datastore datastore = _publishers.getDatastore();
 
+        RowProcessingProgressReporter progressReporter = null;
         try (final DatastoreConnection con = datastore.openConnection()) {
             final DataContext dataContext = con.getDataContext();
 
@@ -303,38 +338,378 @@ public final class RowProcessingPublisher {
                 logger.debug("Final query firstRow={}, maxRows={}", finalQuery.getFirstRow(), finalQuery.getMaxRows());
             }
 
-            // represents the distinct count of rows as well as the number of
-            // tasks to execute
-            int numTasks = 0;
+            if (!queryOptimizedAnalyzers.isEmpty()) {
+                final boolean analyzersRun = runQueryOptimizedAnalyzers(dataContext, queryOptimizer,
+                        queryOptimizedAnalyzers, idGenerator);
+                if (!analyzersRun) {
+                    _successful.set(false);
+                    return;
+                }
+            }
 
-            try (final DataSet dataSet = dataContext.executeQuery(finalQuery)) {
+            if (queryOptimizedAnalyzers.isEmpty() || containsAnalyzers(consumers)) {
                 final ConsumeRowHandler consumeRowHandler = new ConsumeRowHandler(consumers, availableOutcomes);
-                while (dataSet.next()) {
-                    if (taskListener.isErrornous()) {
-                        break;
+                progressReporter = new RowProcessingProgressReporter(analysisJob, rowProcessingMetrics,
+                        analysisListener);
+                final RowPool rowPool = createRowPool(rowLayout, consumeRowHandler, progressReporter);
+
+                final SnapshotCache snapshotCache = _publishers.getSnapshotCache();
+                final DataSet snapshotDataSet = (snapshotCache == null ? null : snapshotCache.read(datastore,
+                        finalQuery));
+
+                final List<DataSetSplit> splits = (snapshotDataSet == null ? createSplits(datastore, finalQuery,
+                        taskRunner) : null);
+
+                if (snapshotDataSet != null) {
+                    withdrawSharedScan();
+                    processRowsSequentially(snapshotDataSet, rowPool, consumeRowHandler, progressReporter,
+                            idGenerator, taskListener);
+                } else if (splits != null) {
+                    withdrawSharedScan();
+                    final boolean splitsRead = processRowsInSplits(splits, rowPool, taskListener);
+                    if (!splitsRead) {
+                        _successful.set(false);
+                        return;
                     }
+                } else if (_sharedScan != null && SharedScanCoordinator.isShareable(finalQuery)) {
+                    processRowsInSharedScan(dataContext, finalQuery, rowPool, idGenerator, taskListener);
+                } else {
+                    withdrawSharedScan();
+                    DataSet dataSet = dataContext.executeQuery(finalQuery);
+                    if (snapshotCache != null) {
+                        dataSet = snapshotCache.record(datastore, finalQuery, dataSet);
+                    }
+                    processRowsSequentially(dataSet, rowPool, consumeRowHandler, progressReporter, idGenerator,
+                            taskListener);
+                }
+            } else {
+                withdrawSharedScan();
+                logger.info("All analyzers of table {} were query optimized, skipping row processing", _table);
+            }
+        } finally {
+            withdrawSharedScan();
+        }
 
-                    numTasks++;
+        if (taskListener.isErrornous()) {
+            _successful.set(false);
+            return;
+        }
+
+        if (progressReporter != null) {
+            progressReporter.finish();
+        }
+        if (analysisListener instanceof ComponentMetricsAnalysisListener) {
+            final ComponentMetricsAnalysisListener componentMetricsListener = (ComponentMetricsAnalysisListener) analysisListener;
+            for (RowProcessingConsumer consumer : _consumers) {
+                componentMetricsListener.rowProcessingComponentMetrics(analysisJob, rowProcessingMetrics,
+                        consumer.getComponentMetrics());
+            }
+        }
+        analysisListener.rowProcessingSuccess(analysisJob, rowProcessingMetrics);
+    }
+
+    private void processRowsSequentially(DataSet source, RowPool rowPool, ConsumeRowHandler consumeRowHandler,
+            RowProcessingProgressReporter progressReporter, RowIdGenerator idGenerator,
+            RowConsumerTaskListener taskListener) {
+        final int batchSize = getBatchSize();
+        if (batchSize > 1) {
+            processRowsInBatches(source, rowPool.getRowLayout(), consumeRowHandler, progressReporter, idGenerator,
+                    taskListener, batchSize);
+            return;
+        }
 
-                    final Row metaModelRow = dataSet.getRow();
-                    final int rowId = idGenerator.nextPhysicalRowId();
-                    final MetaModelInputRow inputRow = new MetaModelInputRow(rowId, metaModelRow);
+        final TaskRunner taskRunner = _publishers.getTaskRunner();
 
-                    final ConsumeRowTask task = new ConsumeRowTask(consumeRowHandler, rowProcessingMetrics, inputRow,
-                            analysisListener, numTasks);
-                    taskRunner.run(task, taskListener);
+        // represents the distinct count of rows as well as the number of
+        // tasks to execute
+        int numTasks = 0;
 
+        try (final DataSet dataSet = source) {
+            while (dataSet.next()) {
+                if (taskListener.isErrornous()) {
+                    break;
                 }
+
+                numTasks++;
+
+                final Row metaModelRow = dataSet.getRow();
+                final int rowId = idGenerator.nextPhysicalRowId();
+
+                final ConsumeRowTask task = rowPool.acquire(rowId, metaModelRow);
+                taskRunner.run(task, taskListener);
+
             }
-            taskListener.awaitTasks(numTasks);
         }
+        taskListener.awaitTasks(numTasks);
+    }
 
-        if (taskListener.isErrornous()) {
-            _successful.set(false);
+    /**
+     * Reads records like {@link #processRowsSequentially}, but dispatches them
+     * in batches, see {@link ConsumeRowHandler#consumeRows(List)}.
+     */
+    private void processRowsInBatches(DataSet source, RowLayout rowLayout, ConsumeRowHandler consumeRowHandler,
+            RowProcessingProgressReporter progressReporter, RowIdGenerator idGenerator,
+            RowConsumerTaskListener taskListener, int batchSize) {
+        final TaskRunner taskRunner = _publishers.getTaskRunner();
+
+        int numTasks = 0;
+        List<InputRow> batch = new ArrayList<InputRow>(batchSize);
+
+        try (final DataSet dataSet = source) {
+            while (dataSet.next()) {
+                if (taskListener.isErrornous()) {
+                    break;
+                }
+
+                final Row metaModelRow = dataSet.getRow();
+                final int rowId = idGenerator.nextPhysicalRowId();
+                batch.add(new ArrayInputRow(rowLayout, rowId, metaModelRow));
+
+                if (batch.size() == batchSize) {
+                    numTasks++;
+                    taskRunner.run(new ConsumeRowsTask(consumeRowHandler, progressReporter, batch), taskListener);
+                    batch = new ArrayList<InputRow>(batchSize);
+                }
+            }
+        }
+
+        if (!batch.isEmpty() && !taskListener.isErrornous()) {
+            numTasks++;
+            taskRunner.run(new ConsumeRowsTask(consumeRowHandler, progressReporter, batch), taskListener);
+        }
+        taskListener.awaitTasks(numTasks);
+    }
+
+    private int getBatchSize() {
+        final String batchSizeProperty = System.getProperty(SystemProperties.ROW_PROCESSING_BATCH_SIZE);
+        if (!Strings.isNullOrEmpty(batchSizeProperty)) {
+            try {
+                return Integer.parseInt(batchSizeProperty.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Could not parse system property {}: {}", SystemProperties.ROW_PROCESSING_BATCH_SIZE,
+                        batchSizeProperty);
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Consumes the rows of the final query as part of a scan shared with other
+     * jobs reading the same table, see {@link SharedScanCoordinator}.
+     */
+    private void processRowsInSharedScan(DataContext dataContext, Query finalQuery, RowPool rowPool,
+            RowIdGenerator idGenerator, RowConsumerTaskListener taskListener) {
+        final SharedScanCoordinator.ScanGroup sharedScan = _sharedScan;
+        _sharedScan = null;
+
+        final SelectItem[] selectItems = finalQuery.getSelectClause().getItems()
+                .toArray(new SelectItem[finalQuery.getSelectClause().getItemCount()]);
+        final SharedScanParticipant participant = new SharedScanParticipant(selectItems, rowPool, idGenerator,
+                _publishers.getTaskRunner(), taskListener);
+
+        final Table table = finalQuery.getFromClause().getItem(0).getTable();
+        _publishers.getSharedScanCoordinator().scan(sharedScan, dataContext, table, participant);
+    }
+
+    /**
+     * Announces the upcoming row processing to the
+     * {@link SharedScanCoordinator}, if the table can be read in a scan shared
+     * with other jobs. Whether the final query is shareable is only known once
+     * the consumers are initialized, so the announcement may be withdrawn
+     * later.
+     */
+    private void announceSharedScan() {
+        final SharedScanCoordinator coordinator = _publishers.getSharedScanCoordinator();
+        if (coordinator == null) {
             return;
         }
+        final Datastore datastore = _publishers.getDatastore();
+        if (SharedScanCoordinator.isShareable(datastore)) {
+            _sharedScan = coordinator.announce(datastore, _table);
+        }
+    }
 
-        analysisListener.rowProcessingSuccess(analysisJob, rowProcessingMetrics);
+    private void withdrawSharedScan() {
+        final SharedScanCoordinator.ScanGroup sharedScan = _sharedScan;
+        if (sharedScan != null) {
+            _sharedScan = null;
+            _publishers.getSharedScanCoordinator().withdraw(sharedScan);
+        }
+    }
+
+    /**
+     * Wraps a task listener so that the shared scan announcement is withdrawn
+     * if initialization or row processing fails, since the scan will then
+     * never be joined.
+     */
+    private TaskListener withdrawSharedScanOnError(final TaskListener delegate) {
+        return new TaskListener() {
+            @Override
+            public void onBegin(Task task) {
+                delegate.onBegin(task);
+            }
+
+            @Override
+            public void onComplete(Task task) {
+                delegate.onComplete(task);
+            }
+
+            @Override
+            public void onError(Task task, Throwable throwable) {
+                withdrawSharedScan();
+                delegate.onError(task, throwable);
+            }
+        };
+    }
+
+    /**
+     * Runs the aggregating queries of the analyzers that can be fed with
+     * aggregated records, see {@link QueryOptimizedAnalyzer}.
+     * 
+     * @return true if all queries were run successfully
+     */
+    private boolean runQueryOptimizedAnalyzers(DataContext dataContext, RowProcessingQueryOptimizer queryOptimizer,
+            List<AnalyzerConsumer> analyzerConsumers, RowIdGenerator idGenerator) {
+        final AnalysisJob analysisJob = _publishers.getAnalysisJob();
+        final AnalysisListener analysisListener = _publishers.getAnalysisListener();
+        final TaskRunner taskRunner = _publishers.getTaskRunner();
+
+        final RowConsumerTaskListener listener = new RowConsumerTaskListener(analysisJob, analysisListener,
+                taskRunner);
+        for (AnalyzerConsumer analyzerConsumer : analyzerConsumers) {
+            final Query aggregateQuery = queryOptimizer.getAggregateQuery(analyzerConsumer);
+            logger.info("Query optimizing {} using query: {}", analyzerConsumer, aggregateQuery);
+            taskRunner.run(new RunQueryOptimizedAnalyzerTask(analyzerConsumer.getComponent(), dataContext,
+                    aggregateQuery, idGenerator), listener);
+        }
+        listener.awaitTasks(analyzerConsumers.size());
+        return !listener.isErrornous();
+    }
+
+    /**
+     * Creates the layout of the rows produced by the final query: The
+     * selected physical columns, followed by the output columns of all
+     * transformers.
+     */
+    private RowLayout createRowLayout(Query finalQuery) {
+        final Collection<InputColumn<?>> sourceColumns = _publishers.getAnalysisJob().getSourceColumns();
+        final List<InputColumn<?>> physicalColumns = new ArrayList<InputColumn<?>>();
+        for (SelectItem selectItem : finalQuery.getSelectClause().getItems()) {
+            final Column column = selectItem.getColumn();
+            InputColumn<?> physicalColumn = null;
+            for (InputColumn<?> sourceColumn : sourceColumns) {
+                if (column.equals(sourceColumn.getPhysicalColumn())) {
+                    physicalColumn = sourceColumn;
+                    break;
+                }
+            }
+            if (physicalColumn == null) {
+                physicalColumn = new MetaModelInputColumn(column);
+            }
+            physicalColumns.add(physicalColumn);
+        }
+
+        final List<InputColumn<?>> virtualColumns = new ArrayList<InputColumn<?>>();
+        for (RowProcessingConsumer consumer : _consumers) {
+            if (consumer instanceof TransformerConsumer) {
+                virtualColumns.addAll(Arrays.asList(((TransformerConsumer) consumer).getOutputColumns()));
+            }
+        }
+
+        return new RowLayout(physicalColumns, virtualColumns);
+    }
+
+    /**
+     * Creates the {@link RowPool} that provides the tasks and rows for every
+     * record. Pooling is only enabled if requested by the
+     * {@link SystemProperties#ROW_PROCESSING_POOLING} system property.
+     */
+    private RowPool createRowPool(RowLayout rowLayout, ConsumeRowHandler consumeRowHandler,
+            RowProcessingProgressReporter progressReporter) {
+        final boolean pooling = "true".equalsIgnoreCase(System.getProperty(SystemProperties.ROW_PROCESSING_POOLING));
+        final int capacity = (pooling ? RowPool.DEFAULT_CAPACITY : 0);
+        return new RowPool(rowLayout, consumeRowHandler, progressReporter, capacity);
+    }
+
+    private static boolean containsAnalyzers(List<RowProcessingConsumer> consumers) {
+        for (RowProcessingConsumer consumer : consumers) {
+            if (consumer instanceof AnalyzerConsumer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads and dispatches the records of a {@link SplitReadableDatastore} in
+     * parallel. Each split is read by a separate {@link ReadDataSetSplitTask}
+     * and assigns row ids from its own range of the (positive) physical row id
+     * space, so that the splits don't have to be counted up front. Row ids are
+     * therefore not consecutive, but still ordered like the records of a
+     * sequential read.
+     * 
+     * @return true if all splits were read successfully
+     */
+    private boolean processRowsInSplits(List<DataSetSplit> splits, RowPool rowPool,
+            RowConsumerTaskListener taskListener) {
+        final AnalysisJob analysisJob = _publishers.getAnalysisJob();
+        final AnalysisListener analysisListener = _publishers.getAnalysisListener();
+        final TaskRunner taskRunner = _publishers.getTaskRunner();
+
+        final int rowIdRange = Integer.MAX_VALUE / splits.size();
+
+        final AtomicInteger dispatchedCounter = new AtomicInteger();
+        final RowConsumerTaskListener splitListener = new RowConsumerTaskListener(analysisJob, analysisListener,
+                taskRunner);
+        for (int i = 0; i < splits.size(); i++) {
+            final ReadDataSetSplitTask task = new ReadDataSetSplitTask(splits.get(i), rowPool, i * rowIdRange,
+                    rowIdRange, taskRunner, taskListener, dispatchedCounter);
+            taskRunner.run(task, splitListener);
+        }
+        splitListener.awaitTasks(splits.size());
+
+        // also when a split failed, the records that have already been
+        // dispatched must be consumed before the consumers are closed
+        taskListener.awaitTasks(dispatchedCounter.get());
+        return !splitListener.isErrornous();
+    }
+
+    /**
+     * Creates splits for reading the final query in parallel, if the
+     * datastore, the query and the task runner permits it.
+     * 
+     * @return a list of splits, or null if the query should be executed
+     *         sequentially.
+     */
+    private List<DataSetSplit> createSplits(Datastore datastore, Query finalQuery, TaskRunner taskRunner) {
+        if (!(datastore instanceof SplitReadableDatastore)) {
+            return null;
+        }
+        if (!(taskRunner instanceof MultiThreadedTaskRunner)) {
+            return null;
+        }
+
+        int maxSplits = Runtime.getRuntime().availableProcessors();
+        final String maxSplitsProperty = System.getProperty(SystemProperties.ROW_PROCESSING_MAX_SPLITS);
+        if (!Strings.isNullOrEmpty(maxSplitsProperty)) {
+            try {
+                maxSplits = Integer.parseInt(maxSplitsProperty.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Could not parse system property {}: {}", SystemProperties.ROW_PROCESSING_MAX_SPLITS,
+                        maxSplitsProperty);
+            }
+        }
+        maxSplits = Math.min(maxSplits, ((MultiThreadedTaskRunner) taskRunner).getNumThreads());
+        if (maxSplits < 2) {
+            return null;
+        }
+
+        final List<DataSetSplit> splits = ((SplitReadableDatastore) datastore).createSplits(finalQuery, maxSplits);
+        if (splits == null || splits.size() < 2) {
+            return null;
+        }
+        logger.info("Reading {} in {} splits", datastore.getName(), splits.size());
+        return splits;
     }
 
     public void addAnalyzerBean(Analyzer<?> analyzer, AnalyzerJob analyzerJob, InputColumn<?>[] inputColumns) {
@@ -401,6 +776,8 @@ public final class RowProcessingPublisher {
 
         final List<RowProcessingConsumer> configurableConsumers = getConfigurableConsumers();
 
+        announceSharedScan();
+
         final int numConsumerTasks = configurableConsumers.size();
 
         // add tasks for closing components
@@ -424,8 +801,8 @@ public final class RowProcessingPublisher {
             }
         }
 
-        final TaskListener runCompletionListener = new ForkTaskListener("run row processing", taskRunner,
-                getResultTasks);
+        final TaskListener runCompletionListener = withdrawSharedScanOnError(new ForkTaskListener(
+                "run row processing", taskRunner, getResultTasks));
 
         final RowProcessingMetrics rowProcessingMetrics = getRowProcessingMetrics();
         final RunRowProcessingPublisherTask runTask = new RunRowProcessingPublisherTask(this, rowProcessingMetrics);
@@ -512,6 +889,35 @@ public final class RowProcessingPublisher {
         return "RowProcessingPublisher[table=" + _table.getQualifiedLabel() + ", consumers=" + _consumers.size() + "]";
     }
 
+    /**
+     * Gets the metrics of all the consumers of this publisher.
+     * 
+     * @return
+     */
+    public ComponentMetrics[] getComponentMetrics() {
+        final ComponentMetrics[] result = new ComponentMetrics[_consumers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = _consumers.get(i).getComponentMetrics();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the metrics of a particular component of this publisher.
+     * 
+     * @param componentJob
+     * @return the metrics of the component, or null if the component is not
+     *         consuming the records of this publisher
+     */
+    public ComponentMetrics getComponentMetrics(ComponentJob componentJob) {
+        for (RowProcessingConsumer consumer : _consumers) {
+            if (componentJob.equals(consumer.getComponentJob())) {
+                return consumer.getComponentMetrics();
+            }
+        }
+        return null;
+    }
+
     public AnalyzerJob[] getAnalyzerJobs() {
         List<AnalyzerJob> analyzerJobs = new ArrayList<AnalyzerJob>();
         for (RowProcessingConsumer consumer : _consumers) {
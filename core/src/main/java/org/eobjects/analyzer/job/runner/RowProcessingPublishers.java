@@ -34,6 +34,7 @@ import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.Filter;
 import org.eobjects.analyzer.beans.api.Transformer;
 import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.snapshot.SnapshotCache;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.job.AnalysisJob;
 import org.eobjects.analyzer.job.AnalyzerJob;
@@ -57,14 +58,38 @@ public final class RowProcessingPublishers {
     private final TaskRunner _taskRunner;
     private final LifeCycleHelper _lifeCycleHelper;
     private final SourceColumnFinder _sourceColumnFinder;
+    private final SharedScanCoordinator _sharedScanCoordinator;
+    private final SnapshotCache _snapshotCache;
     private final Map<Table, RowProcessingPublisher> _rowProcessingPublishers;
 
     public RowProcessingPublishers(AnalysisJob analysisJob, AnalysisListener analysisListener, TaskRunner taskRunner,
             LifeCycleHelper lifeCycleHelper, SourceColumnFinder sourceColumnFinder) {
+        this(analysisJob, analysisListener, taskRunner, lifeCycleHelper, sourceColumnFinder, null, null);
+    }
+
+    /**
+     * 
+     * @param analysisJob
+     * @param analysisListener
+     * @param taskRunner
+     * @param lifeCycleHelper
+     * @param sourceColumnFinder
+     * @param sharedScanCoordinator
+     *            a coordinator for sharing table scans with other jobs, or
+     *            null if the tables should be read by this job alone.
+     * @param snapshotCache
+     *            a cache of table snapshots to read from (and record to), or
+     *            null if the datastore should always be read directly.
+     */
+    public RowProcessingPublishers(AnalysisJob analysisJob, AnalysisListener analysisListener, TaskRunner taskRunner,
+            LifeCycleHelper lifeCycleHelper, SourceColumnFinder sourceColumnFinder,
+            SharedScanCoordinator sharedScanCoordinator, SnapshotCache snapshotCache) {
         _analysisJob = analysisJob;
         _analysisListener = analysisListener;
         _taskRunner = taskRunner;
         _lifeCycleHelper = lifeCycleHelper;
+        _sharedScanCoordinator = sharedScanCoordinator;
+        _snapshotCache = snapshotCache;
 
         if (sourceColumnFinder == null) {
             _sourceColumnFinder = new SourceColumnFinder();
@@ -240,6 +265,14 @@ public final class RowProcessingPublishers {
         return _taskRunner;
     }
 
+    protected SharedScanCoordinator getSharedScanCoordinator() {
+        return _sharedScanCoordinator;
+    }
+
+    protected SnapshotCache getSnapshotCache() {
+        return _snapshotCache;
+    }
+
     public Datastore getDatastore() {
         return _analysisJob.getDatastore();
     }
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,7 +31,11 @@ import java.util.Set;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.ColumnType;
+import org.eobjects.analyzer.beans.api.Analyzer;
 import org.eobjects.analyzer.beans.api.Filter;
+import org.eobjects.analyzer.beans.api.QueryOptimizedAnalyzer;
 import org.eobjects.analyzer.beans.api.QueryOptimizedFilter;
 import org.eobjects.analyzer.beans.filter.MaxRowsFilter;
 import org.eobjects.analyzer.connection.Datastore;
@@ -43,12 +48,14 @@ import org.eobjects.analyzer.job.HasComponentRequirement;
 import org.eobjects.analyzer.job.HasFilterOutcomes;
 import org.eobjects.analyzer.job.InputColumnSinkJob;
 import org.eobjects.analyzer.job.InputColumnSourceJob;
+import org.eobjects.analyzer.job.SimpleComponentRequirement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Optimizer that will apply possible optimizations coming from
- * {@link QueryOptimizedFilter} instances in the job.
+ * {@link QueryOptimizedFilter} and {@link QueryOptimizedAnalyzer} instances in
+ * the job.
  * 
  * 
  */
@@ -265,6 +272,122 @@ public class RowProcessingQueryOptimizer {
         return result;
     }
 
+    /**
+     * Gets the analyzers that can be fed with aggregated records, see
+     * {@link QueryOptimizedAnalyzer}. Since the decision depends on the
+     * configuration of the analyzers, this method should only be invoked after
+     * the consumers have been initialized.
+     * 
+     * @return
+     */
+    public List<AnalyzerConsumer> getQueryOptimizedAnalyzers() {
+        final List<AnalyzerConsumer> result = new ArrayList<AnalyzerConsumer>();
+        if (!_datastore.getPerformanceCharacteristics().isQueryOptimizationPreferred()) {
+            return result;
+        }
+
+        final Query optimizedQuery = getOptimizedQuery();
+        if (optimizedQuery.getFirstRow() != null || optimizedQuery.getMaxRows() != null) {
+            // aggregation would not respect the row limits
+            return result;
+        }
+
+        for (RowProcessingConsumer consumer : _consumers) {
+            if (consumer instanceof AnalyzerConsumer) {
+                final AnalyzerConsumer analyzerConsumer = (AnalyzerConsumer) consumer;
+                if (isOptimizable(analyzerConsumer)) {
+                    result.add(analyzerConsumer);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the aggregating query for a {@link QueryOptimizedAnalyzer}. The
+     * query selects the distinct combinations of the analyzer's (physical)
+     * input columns, followed by a COUNT(*) select item.
+     * 
+     * @param analyzerConsumer
+     * @return
+     */
+    public Query getAggregateQuery(AnalyzerConsumer analyzerConsumer) {
+        final Set<Column> columns = new LinkedHashSet<Column>();
+        for (InputColumn<?> inputColumn : analyzerConsumer.getRequiredInput()) {
+            columns.add(inputColumn.getPhysicalColumn());
+        }
+        final Column[] columnArray = columns.toArray(new Column[columns.size()]);
+
+        final Query query = getOptimizedQuery();
+        query.getSelectClause().removeItems();
+        query.select(columnArray);
+        query.selectCount();
+        query.groupBy(columnArray);
+        return query;
+    }
+
+    private boolean isOptimizable(AnalyzerConsumer analyzerConsumer) {
+        final Analyzer<?> analyzer = analyzerConsumer.getComponent();
+        if (!(analyzer instanceof QueryOptimizedAnalyzer)) {
+            return false;
+        }
+
+        final InputColumn<?>[] input = analyzerConsumer.getRequiredInput();
+        if (input.length == 0) {
+            return false;
+        }
+        for (InputColumn<?> inputColumn : input) {
+            if (inputColumn.isVirtualColumn() || inputColumn.getPhysicalColumn() == null) {
+                logger.debug("InputColumn is virtual: {}, so analyzer is not optimizable: {}", inputColumn,
+                        analyzerConsumer);
+                return false;
+            }
+            if (!isLowCardinality(inputColumn.getPhysicalColumn())) {
+                logger.debug("InputColumn may have many distinct values: {}, so analyzer is not optimizable: {}",
+                        inputColumn, analyzerConsumer);
+                return false;
+            }
+        }
+
+        final ComponentRequirement componentRequirement = analyzerConsumer.getComponentJob()
+                .getComponentRequirement();
+        if (componentRequirement != null) {
+            // only requirements that are already expressed in the query are
+            // acceptable
+            if (!(componentRequirement instanceof SimpleComponentRequirement)) {
+                return false;
+            }
+            final FilterOutcome requiredOutcome = ((SimpleComponentRequirement) componentRequirement).getOutcome();
+            boolean optimizedOutcome = false;
+            for (FilterOutcome outcome : _optimizedFilters.values()) {
+                if (outcome.isEquals(requiredOutcome)) {
+                    optimizedOutcome = true;
+                }
+            }
+            if (!optimizedOutcome) {
+                logger.debug("Requirement {} is not expressed in query, so analyzer is not optimizable: {}",
+                        requiredOutcome, analyzerConsumer);
+                return false;
+            }
+        }
+
+        return ((QueryOptimizedAnalyzer<?>) analyzer).isOptimizable();
+    }
+
+    /**
+     * Determines if a column is known to have only a few distinct values. The
+     * aggregating query only transfers less data than a regular scan when the
+     * number of distinct value combinations is low, and since the datastore
+     * has no statistics to offer, this is only assumed for boolean columns.
+     * 
+     * @param column
+     * @return
+     */
+    private boolean isLowCardinality(Column column) {
+        final ColumnType type = column.getType();
+        return type != null && type.isBoolean();
+    }
+
     /**
      * Gets the {@link RowProcessingConsumer}s that where eliminated while
      * optimizing the query.
@@ -0,0 +1,337 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.FromItem;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.SplitReadableDatastore;
+import org.eobjects.analyzer.util.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Strings;
+
+/**
+ * Coordinates shared table scans between the {@link RowProcessingPublisher}s
+ * of concurrently running jobs.
+ * 
+ * When a publisher is scheduled it announces that it will read a particular
+ * table of a datastore. Once the publisher is ready to process rows, it joins a
+ * scan of that table. The first publisher to join becomes the leader of the
+ * scan: It waits (for a limited amount of time) for the other announced
+ * publishers to join, then executes a single query selecting the union of
+ * their physical columns and dispatches every row to all participants of the
+ * scan. Each participant keeps its own row ids, metrics and task listener, so
+ * results are the same as if the table had been read once per job.
+ * 
+ * Only plain queries (no filtering, ordering, grouping or paging) can be
+ * shared, see {@link #isShareable(Query)}.
+ * 
+ * Shared scans are opt-in: Only jobs that are run with the same coordinator
+ * (passed to the {@link AnalysisRunnerImpl}) share their scans.
+ */
+public final class SharedScanCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedScanCoordinator.class);
+
+    /**
+     * The default amount of milliseconds that a scan will wait for announced
+     * publishers to join.
+     */
+    public static final long DEFAULT_GATHER_TIMEOUT_MILLIS = 2000;
+
+    private final long _gatherTimeoutMillis;
+    private final Map<String, ScanGroup> _pendingGroups;
+    private int _scanCount;
+    private int _participantCount;
+
+    public SharedScanCoordinator() {
+        this(getGatherTimeoutMillisProperty());
+    }
+
+    public SharedScanCoordinator(long gatherTimeoutMillis) {
+        _gatherTimeoutMillis = gatherTimeoutMillis;
+        _pendingGroups = new HashMap<String, ScanGroup>();
+    }
+
+    private static long getGatherTimeoutMillisProperty() {
+        final String property = System.getProperty(SystemProperties.ROW_PROCESSING_SHARED_SCAN_TIMEOUT);
+        if (!Strings.isNullOrEmpty(property)) {
+            try {
+                return Long.parseLong(property.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Could not parse system property {}: {}",
+                        SystemProperties.ROW_PROCESSING_SHARED_SCAN_TIMEOUT, property);
+            }
+        }
+        return DEFAULT_GATHER_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Determines if the tables of a datastore can be read in shared scans.
+     * Datastores that can be read in splits are not shared, since they are
+     * read in parallel instead.
+     * 
+     * @param datastore
+     * @return
+     */
+    public static boolean isShareable(Datastore datastore) {
+        return datastore != null && !(datastore instanceof SplitReadableDatastore);
+    }
+
+    /**
+     * Determines if a query can be executed as part of a shared scan.
+     * 
+     * @param query
+     * @return
+     */
+    public static boolean isShareable(Query query) {
+        if (query.getFirstRow() != null || query.getMaxRows() != null || query.getSelectClause().isDistinct()) {
+            return false;
+        }
+        if (!query.getWhereClause().isEmpty() || !query.getGroupByClause().isEmpty()
+                || !query.getHavingClause().isEmpty() || !query.getOrderByClause().isEmpty()) {
+            return false;
+        }
+        final List<FromItem> fromItems = query.getFromClause().getItems();
+        if (fromItems.size() != 1 || fromItems.get(0).getTable() == null) {
+            return false;
+        }
+        for (SelectItem selectItem : query.getSelectClause().getItems()) {
+            if (selectItem.getColumn() == null || selectItem.getFunction() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Announces that a publisher will (later) join a scan of a table.
+     * 
+     * @param datastore
+     * @param table
+     * @return a handle to pass when joining or withdrawing from the scan
+     */
+    synchronized ScanGroup announce(Datastore datastore, Table table) {
+        final String key = datastore.getName() + '|' + table.getQualifiedLabel();
+        final ScanGroup group = getPendingGroup(key);
+        group._announced++;
+        return group;
+    }
+
+    /**
+     * Withdraws an announcement, used when a publisher will not join the scan
+     * after all (eg. because all it's analyzers were query optimized or because
+     * of errors).
+     * 
+     * @param group
+     */
+    synchronized void withdraw(ScanGroup group) {
+        if (!group._started) {
+            group._announced--;
+            if (group._announced <= 0 && group._participants.isEmpty()) {
+                _pendingGroups.remove(group._key);
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Joins a scan. If the calling publisher is the first to join, the scan is
+     * executed by the calling thread, otherwise the calling thread assists in
+     * executing tasks (typically consuming the rows that the leader dispatches
+     * to it) until the scan has ended. In both cases the method returns when
+     * all of the participant's rows have been consumed.
+     * 
+     * @param announcedGroup
+     *            the group returned by {@link #announce(Datastore, Table)}
+     * @param dataContext
+     *            the data context to use if this participant becomes leader of
+     *            the scan
+     * @param table
+     *            the table to scan
+     * @param participant
+     */
+    void scan(ScanGroup announcedGroup, DataContext dataContext, Table table, SharedScanParticipant participant) {
+        final ScanGroup group;
+        final boolean leader;
+        synchronized (this) {
+            if (announcedGroup._started) {
+                // we were too late for the announced scan
+                group = getPendingGroup(announcedGroup._key);
+            } else {
+                group = announcedGroup;
+            }
+            group._participants.add(participant);
+            leader = group._participants.size() == 1;
+            if (leader) {
+                awaitParticipants(group);
+                group._started = true;
+                _pendingGroups.remove(group._key);
+                _scanCount++;
+                _participantCount += group._participants.size();
+            } else {
+                notifyAll();
+            }
+        }
+
+        if (leader) {
+            try {
+                runScan(dataContext, table, group._participants);
+            } catch (RuntimeException e) {
+                group._error = e;
+                throw e;
+            } finally {
+                group._finished.countDown();
+            }
+        } else {
+            awaitFinished(group, participant);
+            if (group._error != null) {
+                throw new IllegalStateException("Shared scan of " + table.getQualifiedLabel() + " failed",
+                        group._error);
+            }
+        }
+
+        participant.awaitTasks();
+    }
+
+    /**
+     * Gets the number of scans that have been started by this coordinator.
+     * 
+     * @return
+     */
+    synchronized int getScanCount() {
+        return _scanCount;
+    }
+
+    /**
+     * Gets the number of publishers that have been served by the scans of
+     * this coordinator.
+     * 
+     * @return
+     */
+    synchronized int getParticipantCount() {
+        return _participantCount;
+    }
+
+    private ScanGroup getPendingGroup(String key) {
+        ScanGroup group = _pendingGroups.get(key);
+        if (group == null) {
+            group = new ScanGroup(key);
+            _pendingGroups.put(key, group);
+        }
+        return group;
+    }
+
+    private void awaitParticipants(ScanGroup group) {
+        final long deadline = System.currentTimeMillis() + _gatherTimeoutMillis;
+        long remaining = _gatherTimeoutMillis;
+        while (group._participants.size() < group._announced && remaining > 0) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+
+    private void awaitFinished(ScanGroup group, SharedScanParticipant participant) {
+        // rather than blocking a thread of the task runner for the whole scan,
+        // help out consuming the rows dispatched by the leader
+        while (group._finished.getCount() > 0) {
+            participant.assistExecution();
+        }
+    }
+
+    private void runScan(DataContext dataContext, Table table, List<SharedScanParticipant> participants) {
+        final Set<Column> columns = new LinkedHashSet<Column>();
+        for (SharedScanParticipant participant : participants) {
+            for (SelectItem selectItem : participant.getSelectItems()) {
+                final Column column = table.getColumnByName(selectItem.getColumn().getName());
+                if (column == null) {
+                    throw new IllegalStateException("No such column in " + table.getQualifiedLabel() + ": "
+                            + selectItem.getColumn());
+                }
+                columns.add(column);
+            }
+        }
+
+        final Column[] scanColumns = columns.toArray(new Column[columns.size()]);
+        final Query query = new Query().from(table).select(scanColumns);
+        logger.info("Sharing scan of {} between {} publishers: {}", table.getQualifiedLabel(), participants.size(),
+                query);
+
+        for (SharedScanParticipant participant : participants) {
+            participant.prepare(scanColumns);
+        }
+
+        try (final DataSet dataSet = dataContext.executeQuery(query)) {
+            while (dataSet.next()) {
+                final Row row = dataSet.getRow();
+                boolean consumed = false;
+                for (SharedScanParticipant participant : participants) {
+                    if (participant.consume(row)) {
+                        consumed = true;
+                    }
+                }
+                if (!consumed) {
+                    // all participants have failed
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Represents a pending or running shared scan of a table.
+     */
+    public static final class ScanGroup {
+
+        private final String _key;
+        private final List<SharedScanParticipant> _participants;
+        private final CountDownLatch _finished;
+        private int _announced;
+        private boolean _started;
+        private volatile RuntimeException _error;
+
+        private ScanGroup(String key) {
+            _key = key;
+            _participants = new ArrayList<SharedScanParticipant>();
+            _finished = new CountDownLatch(1);
+        }
+    }
+}
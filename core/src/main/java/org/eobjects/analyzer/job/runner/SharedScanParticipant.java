@@ -0,0 +1,121 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.SelectItem;
+import org.apache.metamodel.schema.Column;
+import org.eobjects.analyzer.job.concurrent.TaskRunner;
+import org.eobjects.analyzer.job.tasks.ConsumeRowTask;
+
+/**
+ * A single {@link RowProcessingPublisher}'s part in a shared scan, see
+ * {@link SharedScanCoordinator}. Projects the rows of the shared query onto the
+ * select items of the publisher's own query and dispatches them using the
+ * publisher's {@link RowPool}.
+ */
+final class SharedScanParticipant {
+
+    private final SelectItem[] _selectItems;
+    private final RowPool _rowPool;
+    private final RowIdGenerator _idGenerator;
+    private final TaskRunner _taskRunner;
+    private final RowConsumerTaskListener _taskListener;
+    private int[] _valueIndexes;
+    private Object[] _values;
+    private int _numTasks;
+
+    public SharedScanParticipant(SelectItem[] selectItems, RowPool rowPool, RowIdGenerator idGenerator,
+            TaskRunner taskRunner, RowConsumerTaskListener taskListener) {
+        _selectItems = selectItems;
+        _rowPool = rowPool;
+        _idGenerator = idGenerator;
+        _taskRunner = taskRunner;
+        _taskListener = taskListener;
+    }
+
+    public SelectItem[] getSelectItems() {
+        return _selectItems;
+    }
+
+    /**
+     * Prepares the participant for consuming rows with the columns of the
+     * shared query.
+     * 
+     * @param scanColumns
+     */
+    public void prepare(Column[] scanColumns) {
+        _valueIndexes = new int[_selectItems.length];
+        for (int i = 0; i < _selectItems.length; i++) {
+            final String columnName = _selectItems[i].getColumn().getName();
+            _valueIndexes[i] = -1;
+            for (int j = 0; j < scanColumns.length; j++) {
+                if (scanColumns[j].getName().equals(columnName)) {
+                    _valueIndexes[i] = j;
+                    break;
+                }
+            }
+            if (_valueIndexes[i] == -1) {
+                throw new IllegalStateException("Column not part of shared scan: " + columnName);
+            }
+        }
+        // the values are copied into the rows, so a single array is reused
+        _values = new Object[_valueIndexes.length];
+    }
+
+    /**
+     * Dispatches a row of the shared query to the participant.
+     * 
+     * @param row
+     * @return false if the participant has failed and does not consume
+     *         anymore rows
+     */
+    public boolean consume(Row row) {
+        if (_taskListener.isErrornous()) {
+            return false;
+        }
+
+        for (int i = 0; i < _values.length; i++) {
+            _values[i] = row.getValue(_valueIndexes[i]);
+        }
+
+        _numTasks++;
+
+        final int rowId = _idGenerator.nextPhysicalRowId();
+        final ConsumeRowTask task = _rowPool.acquire(rowId, _values);
+        _taskRunner.run(task, _taskListener);
+        return true;
+    }
+
+    /**
+     * Assists the participant's {@link TaskRunner} in executing tasks, used
+     * while waiting for a scan led by another publisher.
+     */
+    public void assistExecution() {
+        _taskRunner.assistExecution();
+    }
+
+    /**
+     * Waits for all dispatched rows to be consumed.
+     */
+    public void awaitTasks() {
+        _taskListener.awaitTasks(_numTasks);
+    }
+}
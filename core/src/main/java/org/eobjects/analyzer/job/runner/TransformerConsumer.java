@@ -19,14 +19,17 @@
  */
 package org.eobjects.analyzer.job.runner;
 
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eobjects.analyzer.beans.api.BatchProcessingTransformer;
 import org.eobjects.analyzer.beans.api.Concurrent;
 import org.eobjects.analyzer.beans.api.OutputRowCollector;
 import org.eobjects.analyzer.beans.api.Transformer;
+import org.eobjects.analyzer.data.ArrayInputRow;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.RowLayout;
 import org.eobjects.analyzer.data.TransformedInputRow;
 import org.eobjects.analyzer.descriptors.ProvidedPropertyDescriptor;
 import org.eobjects.analyzer.job.TransformerJob;
@@ -44,6 +47,11 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
     private final InputColumn<?>[] _inputColumns;
     private final boolean _concurrent;
     private RowIdGenerator _idGenerator;
+    private RowLayout _rowLayout;
+    private int[] _outputSlots;
+    private final ProvidedPropertyDescriptor[] _outputRowCollectorProperties;
+    private final ThreadLocal<OutputRowCollectorListener> _outputRowCollectorListener;
+    private volatile ThreadLocalOutputRowCollector[] _outputRowCollectors;
 
     public TransformerConsumer(Transformer<?> transformer, TransformerJob transformerJob,
             InputColumn<?>[] inputColumns, SourceColumnFinder sourceColumnFinder) {
@@ -52,6 +60,8 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         _transformerJob = transformerJob;
         _inputColumns = inputColumns;
         _concurrent = determineConcurrent();
+        _outputRowCollectorProperties = determineOutputRowCollectorProperties();
+        _outputRowCollectorListener = new ThreadLocal<OutputRowCollectorListener>();
     }
     
     public TransformerConsumer(Transformer<?> transformer, TransformerJob transformerJob,
@@ -61,6 +71,8 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         _transformerJob = transformerJob;
         _inputColumns = inputColumns;
         _concurrent = determineConcurrent();
+        _outputRowCollectorProperties = determineOutputRowCollectorProperties();
+        _outputRowCollectorListener = new ThreadLocal<OutputRowCollectorListener>();
     }
 
     private boolean determineConcurrent() {
@@ -72,6 +84,15 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         return concurrent.value();
     }
 
+    private ProvidedPropertyDescriptor[] determineOutputRowCollectorProperties() {
+        final Set<ProvidedPropertyDescriptor> properties = _transformerJob.getDescriptor().getProvidedPropertiesByType(
+                OutputRowCollector.class);
+        if (properties == null) {
+            return new ProvidedPropertyDescriptor[0];
+        }
+        return properties.toArray(new ProvidedPropertyDescriptor[properties.size()]);
+    }
+
     /**
      * Sets the row id generator to use, when creating new transformed records.
      * 
@@ -81,6 +102,26 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         _idGenerator = idGenerator;
     }
 
+    /**
+     * Sets the layout of the {@link ArrayInputRow}s that will be consumed, so
+     * that output values can be set by slot index.
+     * 
+     * @param rowLayout
+     */
+    public void setRowLayout(RowLayout rowLayout) {
+        final int[] outputSlots = rowLayout.getSlots(getOutputColumns());
+        for (int slot : outputSlots) {
+            if (slot == -1) {
+                // not all output columns are laid out, use transformed rows
+                _rowLayout = null;
+                _outputSlots = null;
+                return;
+            }
+        }
+        _outputSlots = outputSlots;
+        _rowLayout = rowLayout;
+    }
+
     @Override
     public boolean isConcurrent() {
         return _concurrent;
@@ -106,13 +147,20 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
             final RowProcessingChain chain) {
         final InputColumn<?>[] outputColumns = getOutputColumns();
 
-        registerListener(_transformer, row, outcomes, chain, outputColumns);
+        final OutputRowCollectorListener listener = registerListener(row, outcomes, chain);
 
         try {
             final Object[] values = _transformer.transform(row);
             if (values == null) {
                 return;
             }
+            if (isLaidOut(row)) {
+                // values are added to the row itself
+                final ArrayInputRow resultRow = (ArrayInputRow) row;
+                addValuesToRow(resultRow, values);
+                chain.processNext(resultRow, distinctCount, outcomes);
+                return;
+            }
             final TransformedInputRow resultRow;
             if (row instanceof TransformedInputRow) {
                 // re-use existing transformed input row.
@@ -123,59 +171,111 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
             addValuesToRow(resultRow, outputColumns, values);
             chain.processNext(resultRow, distinctCount, outcomes);
         } finally  {
-            unregisterListener(_transformer);
+            if (listener != null) {
+                unregisterListener(listener);
+            }
         }
     }
 
-    private void unregisterListener(Transformer<?> transformer) {
-        final Set<ProvidedPropertyDescriptor> outputRowCollectorProperties = _transformerJob.getDescriptor()
-                .getProvidedPropertiesByType(OutputRowCollector.class);
-        for (ProvidedPropertyDescriptor descriptor : outputRowCollectorProperties) {
-            OutputRowCollector outputRowCollector = (OutputRowCollector) descriptor.getValue(transformer);
-            if (outputRowCollector instanceof ThreadLocalOutputRowCollector) {
-                ((ThreadLocalOutputRowCollector) outputRowCollector).removeListener();
-            }
-        }
+    @Override
+    boolean isBatchable() {
+        return _outputRowCollectorProperties.length == 0;
     }
 
-    private void registerListener(final Transformer<?> transformer, final InputRow row, final FilterOutcomes outcomes,
-            final RowProcessingChain chain, final InputColumn<?>[] outputColumns) {
-        final Set<ProvidedPropertyDescriptor> outputRowCollectorProperties = _transformerJob.getDescriptor()
-                .getProvidedPropertiesByType(OutputRowCollector.class);
-        if (outputRowCollectorProperties == null || outputRowCollectorProperties.isEmpty()) {
-            return;
+    @Override
+    protected boolean consumeBatchInternal(List<InputRow> rows, List<FilterOutcomes> outcomes,
+            InputRow[] resultRows) {
+        if (!(_transformer instanceof BatchProcessingTransformer)) {
+            return false;
         }
 
-        final Listener listener = new Listener() {
-            private AtomicInteger recordNumber = new AtomicInteger(0);
+        final Object[][] values = ((BatchProcessingTransformer<?>) _transformer).transform(rows);
+        if (values == null) {
+            // nothing is passed on, like when transform(InputRow) returns null
+            return true;
+        }
 
-            @Override
-            public void onValues(Object[] values) {
-                int recordNo = recordNumber.incrementAndGet();
-                boolean isFirst = recordNo == 1;
-                final TransformedInputRow resultRow;
-                if (isFirst) {
-                    // retain the first record's id
-                    resultRow = new TransformedInputRow(row);
+        final int size = rows.size();
+        final boolean[] laidOut = new boolean[size];
+        for (int j = 0; j < size; j++) {
+            final InputRow row = rows.get(j);
+            laidOut[j] = isLaidOut(row);
+            if (laidOut[j] || row instanceof TransformedInputRow) {
+                resultRows[j] = row;
+            } else {
+                resultRows[j] = new TransformedInputRow(row);
+            }
+        }
+
+        // values are column-major, so add them a column at a time
+        final InputColumn<?>[] outputColumns = getOutputColumns();
+        for (int i = 0; i < outputColumns.length; i++) {
+            final Object[] columnValues = (i < values.length ? values[i] : null);
+            for (int j = 0; j < size; j++) {
+                final Object value;
+                if (columnValues != null && j < columnValues.length) {
+                    value = columnValues[j];
                 } else {
-                    resultRow = new TransformedInputRow(row, getNextVirtualRowId(row, recordNo));
+                    value = null;
                 }
+                if (laidOut[j]) {
+                    ((ArrayInputRow) resultRows[j]).setValue(_outputSlots[i], value);
+                } else {
+                    ((TransformedInputRow) resultRows[j]).addValue(outputColumns[i], value);
+                }
+            }
+        }
+        return true;
+    }
 
-                addValuesToRow(resultRow, outputColumns, values);
+    private void unregisterListener(OutputRowCollectorListener listener) {
+        for (ThreadLocalOutputRowCollector outputRowCollector : _outputRowCollectors) {
+            outputRowCollector.removeListener();
+        }
+        listener.unbind();
+    }
 
-                FilterOutcomes clonedOutcomeSink = outcomes.clone();
-                chain.processNext(resultRow, 1, clonedOutcomeSink);
-            }
-        };
+    /**
+     * Registers this thread's (reused) listener on the transformer's output row
+     * collectors, if it has any.
+     * 
+     * @return the registered listener, or null if the transformer does not use
+     *         output row collectors.
+     */
+    private OutputRowCollectorListener registerListener(final InputRow row, final FilterOutcomes outcomes,
+            final RowProcessingChain chain) {
+        if (_outputRowCollectorProperties.length == 0) {
+            return null;
+        }
 
-        for (ProvidedPropertyDescriptor descriptor : outputRowCollectorProperties) {
-            OutputRowCollector outputRowCollector = (OutputRowCollector) descriptor.getValue(transformer);
-            if (outputRowCollector instanceof ThreadLocalOutputRowCollector) {
-                ((ThreadLocalOutputRowCollector) outputRowCollector).setListener(listener);
-            } else {
-                throw new UnsupportedOperationException("Unsupported output row collector type: " + outputRowCollector);
+        ThreadLocalOutputRowCollector[] outputRowCollectors = _outputRowCollectors;
+        if (outputRowCollectors == null) {
+            // the collectors are provided when the transformer is initialized,
+            // so they can first be resolved when rows are being consumed
+            outputRowCollectors = new ThreadLocalOutputRowCollector[_outputRowCollectorProperties.length];
+            for (int i = 0; i < outputRowCollectors.length; i++) {
+                final Object outputRowCollector = _outputRowCollectorProperties[i].getValue(_transformer);
+                if (outputRowCollector instanceof ThreadLocalOutputRowCollector) {
+                    outputRowCollectors[i] = (ThreadLocalOutputRowCollector) outputRowCollector;
+                } else {
+                    throw new UnsupportedOperationException("Unsupported output row collector type: "
+                            + outputRowCollector);
+                }
             }
+            _outputRowCollectors = outputRowCollectors;
         }
+
+        OutputRowCollectorListener listener = _outputRowCollectorListener.get();
+        if (listener == null) {
+            listener = new OutputRowCollectorListener();
+            _outputRowCollectorListener.set(listener);
+        }
+        listener.bind(row, outcomes, chain);
+
+        for (ThreadLocalOutputRowCollector outputRowCollector : outputRowCollectors) {
+            outputRowCollector.setListener(listener);
+        }
+        return listener;
     }
 
     private int getNextVirtualRowId(InputRow row, int recordNo) {
@@ -191,6 +291,22 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         return _idGenerator.nextVirtualRowId();
     }
 
+    private boolean isLaidOut(InputRow row) {
+        return _rowLayout != null && row instanceof ArrayInputRow && ((ArrayInputRow) row).getLayout() == _rowLayout;
+    }
+
+    private void addValuesToRow(ArrayInputRow resultRow, Object[] values) {
+        for (int i = 0; i < _outputSlots.length; i++) {
+            final Object value;
+            if (i < values.length) {
+                value = values[i];
+            } else {
+                value = null;
+            }
+            resultRow.setValue(_outputSlots[i], value);
+        }
+    }
+
     private void addValuesToRow(TransformedInputRow resultRow, final InputColumn<?>[] outputColumns, Object[] values) {
         assert outputColumns.length == values.length;
 
@@ -207,6 +323,66 @@ final class TransformerConsumer extends AbstractRowProcessingConsumer implements
         }
     }
 
+    /**
+     * {@link Listener} for the output row collectors of the transformer. One
+     * instance is kept per thread and bound to the row currently being
+     * transformed.
+     */
+    private final class OutputRowCollectorListener implements Listener {
+
+        private InputRow _row;
+        private FilterOutcomes _outcomes;
+        private RowProcessingChain _chain;
+        private int _recordNumber;
+
+        public void bind(InputRow row, FilterOutcomes outcomes, RowProcessingChain chain) {
+            _row = row;
+            _outcomes = outcomes;
+            _chain = chain;
+            _recordNumber = 0;
+        }
+
+        public void unbind() {
+            _row = null;
+            _outcomes = null;
+            _chain = null;
+        }
+
+        @Override
+        public void onValues(Object[] values) {
+            final InputRow row = _row;
+            final FilterOutcomes outcomes = _outcomes;
+            final RowProcessingChain chain = _chain;
+            final int recordNo = ++_recordNumber;
+            final boolean isFirst = recordNo == 1;
+            if (isLaidOut(row)) {
+                final ArrayInputRow arrayRow = (ArrayInputRow) row;
+                final ArrayInputRow resultRow;
+                if (isFirst) {
+                    // retain the first record's id
+                    resultRow = arrayRow.copy(arrayRow.getId());
+                } else {
+                    resultRow = arrayRow.copy(getNextVirtualRowId(row, recordNo));
+                }
+                addValuesToRow(resultRow, values);
+                chain.processNext(resultRow, 1, outcomes.clone());
+                return;
+            }
+            final TransformedInputRow resultRow;
+            if (isFirst) {
+                // retain the first record's id
+                resultRow = new TransformedInputRow(row);
+            } else {
+                resultRow = new TransformedInputRow(row, getNextVirtualRowId(row, recordNo));
+            }
+
+            addValuesToRow(resultRow, getOutputColumns(), values);
+
+            FilterOutcomes clonedOutcomeSink = outcomes.clone();
+            chain.processNext(resultRow, 1, clonedOutcomeSink);
+        }
+    }
+
     @Override
     public TransformerJob getComponentJob() {
         return _transformerJob;
@@ -20,37 +20,64 @@
 package org.eobjects.analyzer.job.tasks;
 
 import org.eobjects.analyzer.data.InputRow;
-import org.eobjects.analyzer.job.runner.AnalysisListener;
 import org.eobjects.analyzer.job.runner.ConsumeRowHandler;
+import org.eobjects.analyzer.job.runner.RowPool;
 import org.eobjects.analyzer.job.runner.RowProcessingConsumer;
-import org.eobjects.analyzer.job.runner.RowProcessingMetrics;
+import org.eobjects.analyzer.job.runner.RowProcessingProgressReporter;
 
 /**
  * A {@link Task} that dispatches ("consumes") a record to all relevant
  * {@link RowProcessingConsumer}s (eg. analyzerbeans components).
+ * 
+ * Tasks created by a {@link RowPool} are reset for every record, and are handed
+ * back to the pool once executed.
  */
 public final class ConsumeRowTask implements Task {
 
-    private final RowProcessingMetrics _rowProcessingMetrics;
-    private final InputRow _row;
-    private final AnalysisListener _analysisListener;
+    private final RowProcessingProgressReporter _progressReporter;
     private final ConsumeRowHandler _consumeRowHandler;
-    private final int _rowNumber;
+    private final RowPool _rowPool;
+    private final InputRow _row;
+
+    public ConsumeRowTask(ConsumeRowHandler consumeRowHandler, RowProcessingProgressReporter progressReporter,
+            InputRow row) {
+        this(consumeRowHandler, progressReporter, row, null);
+    }
 
-    public ConsumeRowTask(ConsumeRowHandler consumeRowHandler, RowProcessingMetrics rowProcessingMetrics, InputRow row,
-            AnalysisListener analysisListener, int rowNumber) {
+    /**
+     * Creates a task which is owned by a {@link RowPool}.
+     * 
+     * @param consumeRowHandler
+     * @param progressReporter
+     * @param row
+     *            the (recyclable) row of the task
+     * @param rowPool
+     */
+    public ConsumeRowTask(ConsumeRowHandler consumeRowHandler, RowProcessingProgressReporter progressReporter,
+            InputRow row, RowPool rowPool) {
         _consumeRowHandler = consumeRowHandler;
-        _rowProcessingMetrics = rowProcessingMetrics;
+        _progressReporter = progressReporter;
         _row = row;
-        _analysisListener = analysisListener;
-        _rowNumber = rowNumber;
+        _rowPool = rowPool;
+    }
+
+    public InputRow getRow() {
+        return _row;
     }
 
     @Override
     public void execute() {
-        _consumeRowHandler.consumeRow(_row).getRows();
-        _analysisListener.rowProcessingProgress(_rowProcessingMetrics.getAnalysisJobMetrics().getAnalysisJob(),
-                _rowProcessingMetrics, _row, _rowNumber);
+        if (_rowPool == null) {
+            _consumeRowHandler.consumeRow(_row).getRows();
+            _progressReporter.rowProcessed(_row);
+            return;
+        }
+
+        _consumeRowHandler.consumeRowPooled(_row);
+        _progressReporter.rowProcessed(_row);
+
+        // only recycle the task when the row was consumed without errors
+        _rowPool.release(this);
     }
 
 }
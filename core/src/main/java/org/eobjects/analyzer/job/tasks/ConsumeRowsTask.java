@@ -0,0 +1,59 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.tasks;
+
+import java.util.List;
+
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.runner.ConsumeRowHandler;
+import org.eobjects.analyzer.job.runner.RowProcessingConsumer;
+import org.eobjects.analyzer.job.runner.RowProcessingProgressReporter;
+
+/**
+ * A {@link Task} that dispatches ("consumes") a batch of records to all
+ * relevant {@link RowProcessingConsumer}s, see
+ * {@link ConsumeRowHandler#consumeRows(List)}.
+ */
+public final class ConsumeRowsTask implements Task {
+
+    private final ConsumeRowHandler _consumeRowHandler;
+    private final RowProcessingProgressReporter _progressReporter;
+    private final List<InputRow> _rows;
+
+    public ConsumeRowsTask(ConsumeRowHandler consumeRowHandler, RowProcessingProgressReporter progressReporter,
+            List<InputRow> rows) {
+        _consumeRowHandler = consumeRowHandler;
+        _progressReporter = progressReporter;
+        _rows = rows;
+    }
+
+    public List<InputRow> getRows() {
+        return _rows;
+    }
+
+    @Override
+    public void execute() {
+        _consumeRowHandler.consumeRows(_rows);
+        for (InputRow row : _rows) {
+            _progressReporter.rowProcessed(row);
+        }
+    }
+
+}
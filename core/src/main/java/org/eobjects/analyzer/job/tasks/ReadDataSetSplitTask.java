@@ -0,0 +1,98 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.tasks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.metamodel.data.DataSet;
+import org.eobjects.analyzer.connection.DataSetSplit;
+import org.eobjects.analyzer.job.concurrent.TaskRunner;
+import org.eobjects.analyzer.job.runner.RowConsumerTaskListener;
+import org.eobjects.analyzer.job.runner.RowPool;
+
+/**
+ * A {@link Task} that reads the records of a {@link DataSetSplit} and
+ * dispatches a {@link ConsumeRowTask} for each of them.
+ * 
+ * Row ids of the records in the split are assigned from a range starting
+ * after the row id offset of the split. Since the ranges of the splits follow
+ * each other, the row ids are ordered like the records of a sequential read.
+ */
+public final class ReadDataSetSplitTask implements Task {
+
+    private final DataSetSplit _split;
+    private final RowPool _rowPool;
+    private final int _rowIdOffset;
+    private final int _rowIdRange;
+    private final TaskRunner _taskRunner;
+    private final RowConsumerTaskListener _taskListener;
+    private final AtomicInteger _dispatchedCounter;
+
+    /**
+     * 
+     * @param split
+     * @param rowPool
+     * @param rowIdOffset
+     *            the row id preceding the first row id of the split
+     * @param rowIdRange
+     *            the number of row ids available to the split
+     * @param taskRunner
+     * @param taskListener
+     * @param dispatchedCounter
+     */
+    public ReadDataSetSplitTask(DataSetSplit split, RowPool rowPool, int rowIdOffset, int rowIdRange,
+            TaskRunner taskRunner, RowConsumerTaskListener taskListener, AtomicInteger dispatchedCounter) {
+        _split = split;
+        _rowPool = rowPool;
+        _rowIdOffset = rowIdOffset;
+        _rowIdRange = rowIdRange;
+        _taskRunner = taskRunner;
+        _taskListener = taskListener;
+        _dispatchedCounter = dispatchedCounter;
+    }
+
+    @Override
+    public void execute() throws Exception {
+        final int maxRowId = _rowIdOffset + _rowIdRange;
+        int rowId = _rowIdOffset;
+        try (final DataSet dataSet = _split.read()) {
+            while (dataSet.next()) {
+                if (_taskListener.isErrornous()) {
+                    break;
+                }
+
+                if (rowId == maxRowId) {
+                    throw new IllegalStateException("Split contains more than " + _rowIdRange + " records: "
+                            + _split);
+                }
+                rowId++;
+
+                final ConsumeRowTask task = _rowPool.acquire(rowId, dataSet.getRow());
+                _dispatchedCounter.incrementAndGet();
+                _taskRunner.run(task, _taskListener);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReadDataSetSplitTask[" + _split + "]";
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.tasks;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.data.Row;
+import org.apache.metamodel.query.Query;
+import org.eobjects.analyzer.beans.api.Analyzer;
+import org.eobjects.analyzer.beans.api.QueryOptimizedAnalyzer;
+import org.eobjects.analyzer.data.MetaModelInputRow;
+import org.eobjects.analyzer.job.runner.RowIdGenerator;
+
+/**
+ * A {@link Task} that feeds a {@link QueryOptimizedAnalyzer} with the records
+ * of an aggregating query. The last select item of the query is expected to
+ * be the COUNT(*) of the aggregated records, which is passed to the analyzer as
+ * the distinct count. Counts that exceed the range of an int are passed to the
+ * analyzer in several invocations.
+ */
+public final class RunQueryOptimizedAnalyzerTask implements Task {
+
+    private final Analyzer<?> _analyzer;
+    private final DataContext _dataContext;
+    private final Query _query;
+    private final RowIdGenerator _idGenerator;
+
+    public RunQueryOptimizedAnalyzerTask(Analyzer<?> analyzer, DataContext dataContext, Query query,
+            RowIdGenerator idGenerator) {
+        _analyzer = analyzer;
+        _dataContext = dataContext;
+        _query = query;
+        _idGenerator = idGenerator;
+    }
+
+    @Override
+    public void execute() throws Exception {
+        final int countIndex = _query.getSelectClause().getItemCount() - 1;
+        try (final DataSet dataSet = _dataContext.executeQuery(_query)) {
+            while (dataSet.next()) {
+                final Row row = dataSet.getRow();
+                final Number count = (Number) row.getValue(countIndex);
+                if (count == null || count.longValue() <= 0) {
+                    continue;
+                }
+
+                // virtual row ids are used to avoid interfering with the
+                // physical row ids of other consumers
+                final MetaModelInputRow inputRow = new MetaModelInputRow(_idGenerator.nextVirtualRowId(), row);
+
+                // the distinct count is an int, so counts beyond the int range
+                // are passed in several chunks
+                long remaining = count.longValue();
+                while (remaining > 0) {
+                    final int distinctCount = (int) Math.min(remaining, Integer.MAX_VALUE);
+                    _analyzer.run(inputRow, distinctCount);
+                    remaining -= distinctCount;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RunQueryOptimizedAnalyzerTask[" + _analyzer + "]";
+    }
+}
@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.RecyclableInputRow;
 import org.eobjects.analyzer.util.CollectionUtils2;
 
 import com.google.common.cache.Cache;
@@ -81,7 +82,7 @@ public abstract class AbstractRowAnnotationFactory implements RowAnnotationFacto
                 if (previously == null) {
                     // only store row values when they where not present
                     // previously
-                    storeRowValues(rowId, row, distinctCount);
+                    storeRowValues(rowId, retain(row), distinctCount);
                 }
             }
             storeRowAnnotation(rowId, annotation);
@@ -90,6 +91,13 @@ public abstract class AbstractRowAnnotationFactory implements RowAnnotationFacto
         ann.incrementRowCount(distinctCount);
     }
 
+    private static InputRow retain(InputRow row) {
+        if (row instanceof RecyclableInputRow) {
+            return ((RecyclableInputRow) row).retain();
+        }
+        return row;
+    }
+
     private AtomicInteger getCounter(RowAnnotationImpl ann) {
         AtomicInteger count = _rowCounts.get(ann);
         if (count == null) {
@@ -169,6 +177,14 @@ public abstract class AbstractRowAnnotationFactory implements RowAnnotationFacto
 
     protected abstract void storeRowAnnotation(int rowId, RowAnnotation annotation);
 
+    /**
+     * Stores the values of a row. The row passed is safe to keep a reference
+     * to, see {@link RecyclableInputRow}.
+     * 
+     * @param rowId
+     * @param row
+     * @param distinctCount
+     */
     protected abstract void storeRowValues(int rowId, InputRow row, int distinctCount);
 
     public final Integer getStoredRowsThreshold() {
@@ -0,0 +1,104 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * List implementation of {@link AdaptiveStorageProvider}, which starts out in
+ * memory and is spilled to disk when it grows too large.
+ * 
+ * @param <E>
+ */
+final class AdaptiveList<E> extends AbstractList<E> implements List<E> {
+
+	private final AdaptiveStorageProvider _storageProvider;
+	private final Class<E> _valueType;
+	private List<E> _list;
+	private boolean _spilled;
+	private boolean _spillAttempted;
+
+	public AdaptiveList(AdaptiveStorageProvider storageProvider, Class<E> valueType, List<E> list) {
+		_storageProvider = storageProvider;
+		_valueType = valueType;
+		_list = list;
+		_spilled = false;
+		_spillAttempted = false;
+	}
+
+	/**
+	 * Determines if this list has been spilled to disk
+	 * 
+	 * @return
+	 */
+	public boolean isSpilled() {
+		return _spilled;
+	}
+
+	private void spillIfRequired() {
+		if (!_spillAttempted && _storageProvider.isSpillRequired(_list.size())) {
+			// don't attempt again, even if the spill failed
+			_spillAttempted = true;
+			final List<E> diskList = _storageProvider.spillList(_list, _valueType);
+			if (diskList != null) {
+				_list = diskList;
+				_spilled = true;
+			}
+		}
+	}
+
+	@Override
+	public boolean add(E element) {
+		spillIfRequired();
+		return _list.add(element);
+	}
+
+	@Override
+	public void add(int index, E element) {
+		spillIfRequired();
+		_list.add(index, element);
+	}
+
+	@Override
+	public E get(int index) {
+		return _list.get(index);
+	}
+
+	@Override
+	public E set(int index, E element) {
+		return _list.set(index, element);
+	}
+
+	@Override
+	public E remove(int index) {
+		return _list.remove(index);
+	}
+
+	@Override
+	public int size() {
+		return _list.size();
+	}
+
+	@Override
+	public void clear() {
+		_list.clear();
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map implementation of {@link AdaptiveStorageProvider}, which starts out in
+ * memory and is spilled to disk when it grows too large.
+ * 
+ * @param <K>
+ * @param <V>
+ */
+final class AdaptiveMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
+
+	private final AdaptiveStorageProvider _storageProvider;
+	private final Class<K> _keyType;
+	private final Class<V> _valueType;
+	private Map<K, V> _map;
+	private boolean _spilled;
+	private boolean _spillAttempted;
+
+	public AdaptiveMap(AdaptiveStorageProvider storageProvider, Class<K> keyType, Class<V> valueType, Map<K, V> map) {
+		_storageProvider = storageProvider;
+		_keyType = keyType;
+		_valueType = valueType;
+		_map = map;
+		_spilled = false;
+		_spillAttempted = false;
+	}
+
+	/**
+	 * Determines if this map has been spilled to disk
+	 * 
+	 * @return
+	 */
+	public boolean isSpilled() {
+		return _spilled;
+	}
+
+	private void spillIfRequired() {
+		if (!_spillAttempted && _storageProvider.isSpillRequired(_map.size())) {
+			// don't attempt again, even if the spill failed
+			_spillAttempted = true;
+			final Map<K, V> diskMap = _storageProvider.spillMap(_map, _keyType, _valueType);
+			if (diskMap != null) {
+				_map = diskMap;
+				_spilled = true;
+			}
+		}
+	}
+
+	@Override
+	public V put(K key, V value) {
+		spillIfRequired();
+		return _map.put(key, value);
+	}
+
+	@Override
+	public V get(Object key) {
+		return _map.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return _map.containsKey(key);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return _map.remove(key);
+	}
+
+	@Override
+	public int size() {
+		return _map.size();
+	}
+
+	@Override
+	public void clear() {
+		_map.clear();
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return _map.keySet();
+	}
+
+	@Override
+	public Collection<V> values() {
+		return _map.values();
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return _map.entrySet();
+	}
+}
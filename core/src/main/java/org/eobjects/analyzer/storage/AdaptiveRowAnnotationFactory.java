@@ -0,0 +1,173 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RowAnnotationFactory} of the {@link AdaptiveStorageProvider}. Keeps
+ * annotated rows in memory until the spill thresholds of the provider are
+ * exceeded, and from then on stores newly annotated rows using the row
+ * annotation factory of the disk storage provider.
+ * 
+ * Rows that were stored in memory before the spill are not migrated, so
+ * {@link #getRows(RowAnnotation)} returns the rows of both factories.
+ */
+final class AdaptiveRowAnnotationFactory implements RowAnnotationFactory {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveRowAnnotationFactory.class);
+
+	private final AdaptiveStorageProvider _storageProvider;
+	private final AtomicInteger _storedRowsInMemory;
+	private final InMemoryRowAnnotationFactory _memoryFactory;
+	private volatile RowAnnotationFactory _diskFactory;
+	private volatile boolean _spillFailed;
+
+	public AdaptiveRowAnnotationFactory(AdaptiveStorageProvider storageProvider) {
+		_storageProvider = storageProvider;
+		_storedRowsInMemory = new AtomicInteger();
+		_memoryFactory = new InMemoryRowAnnotationFactory() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void storeRowValues(int rowId, InputRow row, int distinctCount) {
+				_storedRowsInMemory.incrementAndGet();
+				super.storeRowValues(rowId, row, distinctCount);
+			}
+		};
+		_diskFactory = null;
+		_spillFailed = false;
+	}
+
+	@Override
+	public RowAnnotation createAnnotation() {
+		return _memoryFactory.createAnnotation();
+	}
+
+	@Override
+	public void annotate(InputRow[] rows, RowAnnotation annotation) {
+		for (InputRow row : rows) {
+			annotate(row, 1, annotation);
+		}
+	}
+
+	@Override
+	public void annotate(InputRow row, int distinctCount, RowAnnotation annotation) {
+		final RowAnnotationFactory diskFactory = getDiskFactory();
+		if (diskFactory == null) {
+			_memoryFactory.annotate(row, distinctCount, annotation);
+		} else {
+			diskFactory.annotate(row, distinctCount, annotation);
+		}
+	}
+
+	/**
+	 * Gets the disk based factory to annotate rows with, creating it if the
+	 * spill thresholds have been exceeded.
+	 * 
+	 * @return the disk based factory, or null if rows should still be stored
+	 *         in memory
+	 */
+	private RowAnnotationFactory getDiskFactory() {
+		if (_diskFactory != null || _spillFailed) {
+			return _diskFactory;
+		}
+		if (!_storageProvider.isSpillRequired(_storedRowsInMemory.get())) {
+			return null;
+		}
+		synchronized (this) {
+			if (_diskFactory == null && !_spillFailed) {
+				try {
+					_diskFactory = _storageProvider.getDiskStorageProvider().createRowAnnotationFactory();
+					logger.info("Spilling row annotations to disk after {} rows stored in memory",
+							_storedRowsInMemory.get());
+				} catch (RuntimeException e) {
+					logger.warn("Could not create disk based row annotation factory, keeping rows in memory", e);
+					_spillFailed = true;
+				}
+			}
+			return _diskFactory;
+		}
+	}
+
+	@Override
+	public void reset(RowAnnotation annotation) {
+		_memoryFactory.reset(annotation);
+		final RowAnnotationFactory diskFactory = _diskFactory;
+		if (diskFactory != null) {
+			diskFactory.reset(annotation);
+		}
+	}
+
+	@Override
+	public InputRow[] getRows(RowAnnotation annotation) {
+		final InputRow[] memoryRows = _memoryFactory.getRows(annotation);
+		final RowAnnotationFactory diskFactory = _diskFactory;
+		if (diskFactory == null) {
+			return memoryRows;
+		}
+		final InputRow[] diskRows = diskFactory.getRows(annotation);
+		if (diskRows == null || diskRows.length == 0) {
+			return memoryRows;
+		}
+		if (memoryRows.length == 0) {
+			return diskRows;
+		}
+		final InputRow[] rows = new InputRow[memoryRows.length + diskRows.length];
+		System.arraycopy(memoryRows, 0, rows, 0, memoryRows.length);
+		System.arraycopy(diskRows, 0, rows, memoryRows.length, diskRows.length);
+		return rows;
+	}
+
+	@Override
+	public Map<Object, Integer> getValueCounts(RowAnnotation annotation, InputColumn<?> inputColumn) {
+		final Map<Object, Integer> valueCounts = _memoryFactory.getValueCounts(annotation, inputColumn);
+		final RowAnnotationFactory diskFactory = _diskFactory;
+		if (diskFactory == null) {
+			return valueCounts;
+		}
+		final Map<Object, Integer> result = new HashMap<Object, Integer>(valueCounts);
+		for (Entry<Object, Integer> entry : diskFactory.getValueCounts(annotation, inputColumn).entrySet()) {
+			final Integer count = result.get(entry.getKey());
+			if (count == null) {
+				result.put(entry.getKey(), entry.getValue());
+			} else {
+				result.put(entry.getKey(), count.intValue() + entry.getValue().intValue());
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void transferAnnotations(RowAnnotation from, RowAnnotation to) {
+		// both the in-memory and the disk based factories only transfer the
+		// row count, which is held by the annotation itself
+		_memoryFactory.transferAnnotations(from, to);
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Set implementation of {@link AdaptiveStorageProvider}, which starts out in
+ * memory and is spilled to disk when it grows too large.
+ * 
+ * @param <E>
+ */
+final class AdaptiveSet<E> extends AbstractSet<E> implements Set<E> {
+
+	private final AdaptiveStorageProvider _storageProvider;
+	private final Class<E> _valueType;
+	private Set<E> _set;
+	private boolean _spilled;
+	private boolean _spillAttempted;
+
+	public AdaptiveSet(AdaptiveStorageProvider storageProvider, Class<E> valueType, Set<E> set) {
+		_storageProvider = storageProvider;
+		_valueType = valueType;
+		_set = set;
+		_spilled = false;
+		_spillAttempted = false;
+	}
+
+	/**
+	 * Determines if this set has been spilled to disk
+	 * 
+	 * @return
+	 */
+	public boolean isSpilled() {
+		return _spilled;
+	}
+
+	private void spillIfRequired() {
+		if (!_spillAttempted && _storageProvider.isSpillRequired(_set.size())) {
+			// don't attempt again, even if the spill failed
+			_spillAttempted = true;
+			final Set<E> diskSet = _storageProvider.spillSet(_set, _valueType);
+			if (diskSet != null) {
+				_set = diskSet;
+				_spilled = true;
+			}
+		}
+	}
+
+	@Override
+	public boolean add(E element) {
+		spillIfRequired();
+		return _set.add(element);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return _set.contains(o);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return _set.remove(o);
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return _set.iterator();
+	}
+
+	@Override
+	public int size() {
+		return _set.size();
+	}
+
+	@Override
+	public void clear() {
+		_set.clear();
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StorageProvider} that keeps collections in memory until they grow
+ * too large, and then transparently migrates them to a disk based storage
+ * provider, such as the Berkeley DB or H2 storage providers.
+ * 
+ * A collection is migrated ("spilled") to disk when either it contains more
+ * than a configured number of elements, or when the heap usage of the JVM
+ * exceeds a configured threshold. In the latter case only collections of a
+ * certain minimum size are spilled, since moving small collections to disk
+ * frees up very little memory.
+ * 
+ * This means that the typical job, which fits in memory, runs at in-memory
+ * speed, while the occasional job with very high cardinality will not run out
+ * of memory.
+ * 
+ * Note that spilling only happens when elements are added to a collection, and
+ * that iterators or views obtained before a spill will continue to refer to the
+ * in-memory collection. Row annotations are spilled in the same way, but rows
+ * that were annotated before the spill stay in memory.
+ */
+public final class AdaptiveStorageProvider implements StorageProvider {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveStorageProvider.class);
+
+	public static final int DEFAULT_MAX_ELEMENTS_IN_MEMORY = 100000;
+	public static final double DEFAULT_HEAP_USAGE_THRESHOLD = 0.75;
+
+	/**
+	 * The minimum size of collections to spill to disk when the heap usage
+	 * threshold is exceeded.
+	 */
+	public static final int MIN_ELEMENTS_TO_SPILL = 1000;
+
+	private final StorageProvider _diskStorageProvider;
+	private final int _maxElementsInMemory;
+	private final double _heapUsageThreshold;
+	private final HeapUsageMonitor _heapUsageMonitor;
+
+	/**
+	 * Creates an adaptive storage provider with default thresholds.
+	 * 
+	 * @param diskStorageProvider
+	 *            the storage provider to spill collections to
+	 */
+	public AdaptiveStorageProvider(StorageProvider diskStorageProvider) {
+		this(diskStorageProvider, DEFAULT_MAX_ELEMENTS_IN_MEMORY, DEFAULT_HEAP_USAGE_THRESHOLD);
+	}
+
+	/**
+	 * Creates an adaptive storage provider.
+	 * 
+	 * @param diskStorageProvider
+	 *            the storage provider to spill collections to
+	 * @param maxElementsInMemory
+	 *            the maximum number of elements that a single collection may
+	 *            hold in memory
+	 * @param heapUsageThreshold
+	 *            the fraction (between 0 and 1) of the maximum heap size, which
+	 *            when exceeded will cause collections to be spilled to disk. A
+	 *            value of 1 or more disables this check.
+	 */
+	public AdaptiveStorageProvider(StorageProvider diskStorageProvider, int maxElementsInMemory,
+			double heapUsageThreshold) {
+		if (diskStorageProvider == null) {
+			throw new IllegalArgumentException("Disk storage provider cannot be null");
+		}
+		if (maxElementsInMemory <= 0) {
+			throw new IllegalArgumentException("Max elements in memory must be a positive number");
+		}
+		_diskStorageProvider = diskStorageProvider;
+		_maxElementsInMemory = maxElementsInMemory;
+		_heapUsageThreshold = heapUsageThreshold;
+		_heapUsageMonitor = new HeapUsageMonitor(heapUsageThreshold);
+	}
+
+	public StorageProvider getDiskStorageProvider() {
+		return _diskStorageProvider;
+	}
+
+	public int getMaxElementsInMemory() {
+		return _maxElementsInMemory;
+	}
+
+	public double getHeapUsageThreshold() {
+		return _heapUsageThreshold;
+	}
+
+	@Override
+	public <E> List<E> createList(Class<E> valueType) throws IllegalStateException {
+		return new AdaptiveList<E>(this, valueType, new ArrayList<E>());
+	}
+
+	@Override
+	public <E> Set<E> createSet(Class<E> valueType) throws IllegalStateException {
+		return new AdaptiveSet<E>(this, valueType, new HashSet<E>());
+	}
+
+	@Override
+	public <K, V> Map<K, V> createMap(Class<K> keyType, Class<V> valueType) throws IllegalStateException {
+		return new AdaptiveMap<K, V>(this, keyType, valueType, new HashMap<K, V>());
+	}
+
+	@Override
+	public RowAnnotationFactory createRowAnnotationFactory() {
+		return new AdaptiveRowAnnotationFactory(this);
+	}
+
+	/**
+	 * Determines if an in-memory collection of a particular size should be
+	 * spilled to disk.
+	 * 
+	 * @param size
+	 *            the current size of the collection
+	 * @return true if the collection should be spilled to disk
+	 */
+	boolean isSpillRequired(int size) {
+		if (size >= _maxElementsInMemory) {
+			return true;
+		}
+		if (size >= MIN_ELEMENTS_TO_SPILL && _heapUsageMonitor.isThresholdExceeded()) {
+			return true;
+		}
+		return false;
+	}
+
+	<E> List<E> spillList(List<E> list, Class<E> valueType) {
+		try {
+			final List<E> diskList = _diskStorageProvider.createList(valueType);
+			diskList.addAll(list);
+			logSpill("list", list);
+			return diskList;
+		} catch (RuntimeException e) {
+			logSpillFailure("list", valueType, e);
+			return null;
+		}
+	}
+
+	<E> Set<E> spillSet(Set<E> set, Class<E> valueType) {
+		try {
+			final Set<E> diskSet = _diskStorageProvider.createSet(valueType);
+			diskSet.addAll(set);
+			logSpill("set", set);
+			return diskSet;
+		} catch (RuntimeException e) {
+			logSpillFailure("set", valueType, e);
+			return null;
+		}
+	}
+
+	<K, V> Map<K, V> spillMap(Map<K, V> map, Class<K> keyType, Class<V> valueType) {
+		try {
+			final Map<K, V> diskMap = _diskStorageProvider.createMap(keyType, valueType);
+			diskMap.putAll(map);
+			logSpill("map", map.keySet());
+			return diskMap;
+		} catch (RuntimeException e) {
+			logSpillFailure("map", valueType, e);
+			return null;
+		}
+	}
+
+	private void logSpill(String collectionType, Collection<?> collection) {
+		logger.info("Spilled in-memory {} with {} elements to disk", collectionType, collection.size());
+	}
+
+	private void logSpillFailure(String collectionType, Class<?> valueType, RuntimeException e) {
+		logger.warn("Could not spill " + collectionType + " of " + valueType.getName()
+				+ " to disk, keeping it in memory", e);
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monitors the heap usage of the JVM, based on the {@link MemoryPoolMXBean}s of
+ * the heap pools that support usage thresholds (typically the tenured
+ * generation). Where available, the usage measured after the latest garbage
+ * collection is used, since it reflects the memory that is actually retained.
+ * 
+ * The memory pools are sampled at most once per check interval, so
+ * {@link #isThresholdExceeded()} is cheap to invoke very frequently.
+ */
+final class HeapUsageMonitor {
+
+	private static final long CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+	private final double _threshold;
+	private final List<MemoryPoolMXBean> _memoryPools;
+	private volatile long _lastCheckNanos;
+	private volatile boolean _thresholdExceeded;
+
+	public HeapUsageMonitor(double threshold) {
+		_threshold = threshold;
+		_memoryPools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (memoryPool.getType() == MemoryType.HEAP && memoryPool.isUsageThresholdSupported()) {
+				_memoryPools.add(memoryPool);
+			}
+		}
+		_lastCheckNanos = System.nanoTime() - CHECK_INTERVAL_NANOS;
+	}
+
+	/**
+	 * Determines if the heap usage currently exceeds the threshold.
+	 * 
+	 * @return true if the threshold is exceeded
+	 */
+	public boolean isThresholdExceeded() {
+		if (_threshold >= 1d || _memoryPools.isEmpty()) {
+			return false;
+		}
+		final long nanos = System.nanoTime();
+		if (nanos - _lastCheckNanos >= CHECK_INTERVAL_NANOS) {
+			_lastCheckNanos = nanos;
+			_thresholdExceeded = checkMemoryPools();
+		}
+		return _thresholdExceeded;
+	}
+
+	private boolean checkMemoryPools() {
+		for (MemoryPoolMXBean memoryPool : _memoryPools) {
+			MemoryUsage usage = memoryPool.getCollectionUsage();
+			if (usage == null) {
+				usage = memoryPool.getUsage();
+			}
+			final long max = usage.getMax();
+			if (max > 0 && usage.getUsed() > max * _threshold) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -23,6 +23,7 @@ import java.util.Map;
 
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.RecyclableInputRow;
 
 /**
  * The RowAnnotationFactory represents a mechanism used to annotate/label rows
@@ -57,7 +58,10 @@ public interface RowAnnotationFactory {
 
     /**
      * Annotates/labels a row with an annotation. The row will be retrievable
-     * using the getRows(...) method later in the process.
+     * using the getRows(...) method later in the process. Implementations
+     * that keep the row must retain it using
+     * {@link RecyclableInputRow#retain()}, since the row may be recycled once
+     * consumed.
      * 
      * @param row
      * @param distinctCount
@@ -22,8 +22,10 @@ package org.eobjects.analyzer.util;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -46,6 +48,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Helper class for traversing dependencies between virtual and physical
  * columns.
+ * 
+ * Once sources have been added, the finder compiles (on demand) an index of
+ * which source produces each input column and filter outcome, so that the
+ * traversals only follow direct edges in the dependency graph instead of
+ * scanning every source for every lookup. Adding more sources discards the
+ * index. The finder is typically shared by all consumers of a job, so access
+ * to the index is synchronized.
  */
 public class SourceColumnFinder {
 
@@ -58,7 +67,16 @@ public class SourceColumnFinder {
     private Set<HasFilterOutcomes> _outcomeSources = new HashSet<HasFilterOutcomes>();
     private Set<HasComponentRequirement> _outcomeSinks = new HashSet<HasComponentRequirement>();
 
+    private Map<InputColumn<?>, InputColumnSourceJob> _inputColumnSourceIndex;
+    private Map<FilterOutcome, HasFilterOutcomes> _outcomeSourceIndex;
+    private final Map<InputColumn<?>, Table> _originatingTables = new HashMap<InputColumn<?>, Table>();
+    private final Map<InputColumn<?>, Set<Column>> _originatingColumns = new HashMap<InputColumn<?>, Set<Column>>();
+
     private void addSources(Object... sources) {
+        _inputColumnSourceIndex = null;
+        _outcomeSourceIndex = null;
+        _originatingTables.clear();
+        _originatingColumns.clear();
         for (Object source : sources) {
             if (source instanceof InputColumnSinkJob) {
                 _inputColumnSinks.add((InputColumnSinkJob) source);
@@ -79,14 +97,14 @@ public class SourceColumnFinder {
         addSources(sources.toArray());
     }
 
-    public void addSources(AnalysisJobBuilder job) {
+    public synchronized void addSources(AnalysisJobBuilder job) {
         addSources(new SourceColumns(job.getSourceColumns()));
         addSources(job.getFilterJobBuilders());
         addSources(job.getTransformerJobBuilders());
         addSources(job.getAnalyzerJobBuilders());
     }
 
-    public void addSources(AnalysisJob job) {
+    public synchronized void addSources(AnalysisJob job) {
         addSources(new SourceColumns(job.getSourceColumns()));
         addSources(job.getFilterJobs());
         addSources(job.getTransformerJobs());
@@ -123,7 +141,7 @@ public class SourceColumnFinder {
      *            typically some {@link InputColumnSinkJob}
      * @return a list of jobs/components that are a source of this job.
      */
-    public Set<Object> findAllSourceJobs(Object job) {
+    public synchronized Set<Object> findAllSourceJobs(Object job) {
         final Set<Object> result = new HashSet<Object>();
         findAllSourceJobs(job, result);
         return result;
@@ -138,8 +156,7 @@ public class SourceColumnFinder {
             final InputColumn<?>[] inputColumns = ((InputColumnSinkJob) job).getInput();
             for (final InputColumn<?> inputColumn : inputColumns) {
                 final InputColumnSourceJob source = findInputColumnSource(inputColumn);
-                if (source != null) {
-                    result.add(source);
+                if (source != null && result.add(source)) {
                     findAllSourceJobs(source, result);
                 }
             }
@@ -155,50 +172,57 @@ public class SourceColumnFinder {
             final Collection<FilterOutcome> requirements = getProcessingDependencies((ComponentRequirement) job);
             for (final FilterOutcome outcome : requirements) {
                 HasFilterOutcomes source = findOutcomeSource(outcome);
-                if (source != null) {
-                    result.add(source);
+                if (source != null && result.add(source)) {
                     findAllSourceJobs(source, result);
                 }
             }
         }
     }
 
-    public InputColumnSourceJob findInputColumnSource(InputColumn<?> inputColumn) {
+    public synchronized InputColumnSourceJob findInputColumnSource(InputColumn<?> inputColumn) {
         if (inputColumn instanceof ExpressionBasedInputColumn) {
             return null;
         }
-        for (InputColumnSourceJob source : _inputColumnSources) {
-            InputColumn<?>[] output = source.getOutput();
-            for (InputColumn<?> column : output) {
-                if (inputColumn.equals(column)) {
-                    return source;
+        if (_inputColumnSourceIndex == null) {
+            final Map<InputColumn<?>, InputColumnSourceJob> index = new HashMap<InputColumn<?>, InputColumnSourceJob>();
+            for (InputColumnSourceJob source : _inputColumnSources) {
+                InputColumn<?>[] output = source.getOutput();
+                for (InputColumn<?> column : output) {
+                    if (column != null && !index.containsKey(column)) {
+                        index.put(column, source);
+                    }
                 }
             }
+            _inputColumnSourceIndex = index;
         }
-        return null;
+        return _inputColumnSourceIndex.get(inputColumn);
     }
 
-    public HasFilterOutcomes findOutcomeSource(final FilterOutcome requirement) {
-        for (final HasFilterOutcomes source : _outcomeSources) {
-            final Collection<FilterOutcome> outcomes = source.getFilterOutcomes();
-            for (final FilterOutcome outcome : outcomes) {
-                if (requirement.equals(outcome)) {
-                    return source;
+    public synchronized HasFilterOutcomes findOutcomeSource(final FilterOutcome requirement) {
+        if (_outcomeSourceIndex == null) {
+            final Map<FilterOutcome, HasFilterOutcomes> index = new HashMap<FilterOutcome, HasFilterOutcomes>();
+            for (final HasFilterOutcomes source : _outcomeSources) {
+                final Collection<FilterOutcome> outcomes = source.getFilterOutcomes();
+                for (final FilterOutcome outcome : outcomes) {
+                    if (!index.containsKey(outcome)) {
+                        index.put(outcome, source);
+                    }
                 }
             }
+            _outcomeSourceIndex = index;
         }
-        return null;
+        return _outcomeSourceIndex.get(requirement);
     }
 
-    public Set<Column> findOriginatingColumns(FilterOutcome requirement) {
+    public synchronized Set<Column> findOriginatingColumns(FilterOutcome requirement) {
         HasFilterOutcomes source = findOutcomeSource(requirement);
 
         HashSet<Column> result = new HashSet<Column>();
-        findOriginatingColumnsOfSource(source, result);
+        findOriginatingColumnsOfSource(source, result, new HashSet<Object>());
         return result;
     }
 
-    public Table findOriginatingTable(FilterOutcome requirement) {
+    public synchronized Table findOriginatingTable(FilterOutcome requirement) {
         return findOriginatingTable(requirement, new HashSet<Object>());
     }
 
@@ -211,8 +235,17 @@ public class SourceColumnFinder {
         return findOriginatingTableOfSource(source, resolvedSet);
     }
 
-    public Table findOriginatingTable(InputColumn<?> inputColumn) {
-        return findOriginatingTable(inputColumn, new HashSet<Object>());
+    public synchronized Table findOriginatingTable(InputColumn<?> inputColumn) {
+        if (inputColumn == null) {
+            logger.warn("InputColumn was null, no originating table found");
+            return null;
+        }
+        if (_originatingTables.containsKey(inputColumn)) {
+            return _originatingTables.get(inputColumn);
+        }
+        final Table table = findOriginatingTable(inputColumn, new HashSet<Object>());
+        _originatingTables.put(inputColumn, table);
+        return table;
     }
 
     private Table findOriginatingTable(InputColumn<?> inputColumn, Set<Object> resolvedSet) {
@@ -283,7 +316,8 @@ public class SourceColumnFinder {
         throw new IllegalStateException("Multiple originating tables (" + sb + ") found for source: " + source);
     }
 
-    private void findOriginatingColumnsOfInputColumn(InputColumn<?> inputColumn, Set<Column> result) {
+    private void findOriginatingColumnsOfInputColumn(InputColumn<?> inputColumn, Set<Column> result,
+            Set<Object> visitedSources) {
         if (inputColumn == null) {
             return;
         }
@@ -291,24 +325,29 @@ public class SourceColumnFinder {
             result.add(inputColumn.getPhysicalColumn());
         } else {
             InputColumnSourceJob source = findInputColumnSource(inputColumn);
-            findOriginatingColumnsOfSource(source, result);
+            findOriginatingColumnsOfSource(source, result, visitedSources);
         }
     }
 
-    private void findOriginatingColumnsOfOutcome(FilterOutcome requirement, Set<Column> result) {
+    private void findOriginatingColumnsOfOutcome(FilterOutcome requirement, Set<Column> result,
+            Set<Object> visitedSources) {
         final HasFilterOutcomes source = findOutcomeSource(requirement);
-        findOriginatingColumnsOfSource(source, result);
+        findOriginatingColumnsOfSource(source, result, visitedSources);
     }
 
-    private void findOriginatingColumnsOfSource(Object source, Set<Column> result) {
+    private void findOriginatingColumnsOfSource(Object source, Set<Column> result, Set<Object> visitedSources) {
         if (source == null) {
             return;
         }
+        if (!visitedSources.add(source)) {
+            // already traversed (or a cyclic dependency)
+            return;
+        }
         if (source instanceof InputColumnSinkJob) {
             InputColumn<?>[] input = ((InputColumnSinkJob) source).getInput();
             if (input != null) {
                 for (InputColumn<?> inputColumn : input) {
-                    findOriginatingColumnsOfInputColumn(inputColumn, result);
+                    findOriginatingColumnsOfInputColumn(inputColumn, result, visitedSources);
                 }
             }
         }
@@ -317,7 +356,7 @@ public class SourceColumnFinder {
             final ComponentRequirement componentRequirement = hasComponentRequirement.getComponentRequirement();
             final Collection<FilterOutcome> requirements = getProcessingDependencies(componentRequirement);
             for (FilterOutcome outcome : requirements) {
-                findOriginatingColumnsOfOutcome(outcome, result);
+                findOriginatingColumnsOfOutcome(outcome, result, visitedSources);
             }
         }
     }
@@ -333,13 +372,15 @@ public class SourceColumnFinder {
         return processingDependencies;
     }
 
-    public Set<Column> findOriginatingColumns(InputColumn<?> inputColumn) {
-        Set<Column> result = new HashSet<Column>();
-
-        // TODO: Detect cyclic dependencies between transformers (A depends on
-        // B, B depends on A)
-
-        findOriginatingColumnsOfInputColumn(inputColumn, result);
-        return result;
+    public synchronized Set<Column> findOriginatingColumns(InputColumn<?> inputColumn) {
+        Set<Column> result = _originatingColumns.get(inputColumn);
+        if (result == null) {
+            result = new HashSet<Column>();
+            findOriginatingColumnsOfInputColumn(inputColumn, result, new HashSet<Object>());
+            if (inputColumn != null) {
+                _originatingColumns.put(inputColumn, result);
+            }
+        }
+        return new HashSet<Column>(result);
     }
 }
@@ -19,7 +19,15 @@
  */
 package org.eobjects.analyzer.util;
 
+import org.eobjects.analyzer.connection.SplitReadableDatastore;
+import org.eobjects.analyzer.data.RecyclableInputRow;
+import org.eobjects.analyzer.descriptors.ClasspathScanIndex;
 import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.runner.ComponentMetrics;
+import org.eobjects.analyzer.job.runner.ConsumeRowHandler;
+import org.eobjects.analyzer.job.runner.RowPool;
+import org.eobjects.analyzer.job.runner.RowProcessingProgressReporter;
+import org.eobjects.analyzer.job.runner.SharedScanCoordinator;
 
 /**
  * Represents commonly referenced system properties which AnalyzerBeans makes
@@ -33,4 +41,70 @@ public class SystemProperties {
      * {@link AnalysisJob} that are not consumed by any component in the job.
      */
     public static final String QUERY_SELECTCLAUSE_OPTIMIZE = "analyzerbeans.query.selectclause.optimize";
+
+    /**
+     * Determines the maximum number of splits that a
+     * {@link SplitReadableDatastore} will be read in during row processing. If
+     * set to "1" (or less), datastores are always read sequentially. By
+     * default the number of available processors is used.
+     */
+    public static final String ROW_PROCESSING_MAX_SPLITS = "analyzerbeans.rowprocessing.maxsplits";
+
+    /**
+     * Determines the amount of milliseconds that a shared scan of a table will
+     * wait for the row processing of other concurrently running jobs on the
+     * same table to join it, see {@link SharedScanCoordinator}. By default 2000
+     * milliseconds are used.
+     */
+    public static final String ROW_PROCESSING_SHARED_SCAN_TIMEOUT = "analyzerbeans.rowprocessing.sharedscan.timeout";
+
+    /**
+     * Determines if the records and the per-record structures of row
+     * processing should be pooled and recycled, see {@link RowPool}. If set to
+     * "true", all components that keep references to rows must retain them
+     * using {@link RecyclableInputRow#retain()}. Disabled by default.
+     */
+    public static final String ROW_PROCESSING_POOLING = "analyzerbeans.rowprocessing.pooling";
+
+    /**
+     * Determines the number of records that are dispatched together when a
+     * table is read sequentially, see
+     * {@link ConsumeRowHandler#consumeRows(java.util.List)}. Batches let
+     * components that process batches of records do so. If set to "1" (or
+     * less), records are dispatched one at a time, which is the default.
+     */
+    public static final String ROW_PROCESSING_BATCH_SIZE = "analyzerbeans.rowprocessing.batchsize";
+
+    /**
+     * Determines if the number of records and the time spent in each
+     * component is measured, see
+     * {@link ComponentMetrics}. Measuring
+     * takes a few clock readings per record and component, so it can be
+     * turned off by setting the property to "false". Enabled by default.
+     */
+    public static final String ROW_PROCESSING_COMPONENT_METRICS = "analyzerbeans.rowprocessing.componentmetrics";
+
+    /**
+     * Determines the minimum number of milliseconds between progress reports
+     * of row processing, see {@link RowProcessingProgressReporter}. By default
+     * 1000 milliseconds are used. If set to "0", progress is reported for
+     * every row.
+     */
+    public static final String ROW_PROCESSING_PROGRESS_INTERVAL = "analyzerbeans.rowprocessing.progress.interval";
+
+    /**
+     * Determines the number of rows after which progress of row processing is
+     * reported, even if the time interval (see
+     * {@link #ROW_PROCESSING_PROGRESS_INTERVAL}) has not passed. By default
+     * progress is only reported on the time interval.
+     */
+    public static final String ROW_PROCESSING_PROGRESS_ROWS = "analyzerbeans.rowprocessing.progress.rows";
+
+    /**
+     * Determines the path of a file in which to store a
+     * {@link ClasspathScanIndex}, allowing the classpath scanner to skip
+     * reading the class files of JAR files that have not changed since the
+     * last scan. By default no index is used.
+     */
+    public static final String CLASSPATH_SCAN_INDEX = "analyzerbeans.classpathscan.index";
 }
@@ -114,12 +114,8 @@ public class AbstractWrappedAnalysisJobTransformerTest extends TestCase {
         List<InputRow> values = analyzerResult.getValues();
         assertEquals(4, values.size());
 
-        assertEquals("TransformedInputRow[values={"
-                + "TransformedInputColumn[id=trans-0001-0002,name=mock output]=mocked: Tomasz},"
-                + "delegate=MetaModelInputRow[Row[values=[Tomasz]]]]", values.get(0).toString());
-        assertEquals("TransformedInputRow[values={"
-                + "TransformedInputColumn[id=trans-0001-0002,name=mock output]=mocked: Kasper},"
-                + "delegate=MetaModelInputRow[Row[values=[Kasper]]]]", values.get(1).toString());
+        assertEquals("ArrayInputRow[values=[Tomasz, mocked: Tomasz]]", values.get(0).toString());
+        assertEquals("ArrayInputRow[values=[Kasper, mocked: Kasper]]", values.get(1).toString());
     }
 
     @TransformerBean("MockWrappedAnalysisJobTransformer")
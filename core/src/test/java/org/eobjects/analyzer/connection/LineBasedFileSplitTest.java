@@ -0,0 +1,195 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.DataContext;
+import org.apache.metamodel.csv.CsvConfiguration;
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.fixedwidth.FixedWidthConfiguration;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Table;
+
+public class LineBasedFileSplitTest extends TestCase {
+
+    public void testCsvSplitsYieldSameRecordsAsSequentialRead() throws Exception {
+        final File file = new File("target/LineBasedFileSplitTest.csv");
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write("id,name,description\n");
+            for (int i = 0; i < 1000; i++) {
+                final String lineEnding = (i % 2 == 0 ? "\n" : "\r\n");
+                if (i % 100 == 0) {
+                    // blank lines and records with a missing value
+                    writer.write(lineEnding);
+                    writer.write(i + ",\"name " + i + "\"" + lineEnding);
+                }
+                writer.write(i + ",\"name " + i + "\",\"hello, wørld " + i + "\"" + lineEnding);
+            }
+        }
+
+        final CsvDatastore datastore = new CsvDatastore("foo", null, file.getPath(), '"', ',', '\\', "UTF-8", false,
+                false, 1);
+        final CsvConfiguration configuration = datastore.getCsvConfiguration();
+        final long headerEnd = LineBasedFileSplit.findHeaderEnd(file, configuration.getColumnNameLineNumber());
+
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            final Table table = dataContext.getDefaultSchema().getTables()[0];
+            final Query query = dataContext.query().from(table).select(table.getColumns()).toQuery();
+
+            final long[] boundaries = LineBasedFileSplit.createBoundaries(file,
+                    configuration.getColumnNameLineNumber(), 4, 1000);
+            assertEquals(5, boundaries.length);
+
+            final List<DataSetSplit> splits = new ArrayList<DataSetSplit>();
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                splits.add(new CsvFileSplit(file, configuration, headerEnd, boundaries[i], boundaries[i + 1], query));
+            }
+
+            assertSameRecords(dataContext, query, splits);
+        }
+    }
+
+    public void testCsvSplitsWithoutColumnNameLine() throws Exception {
+        final File file = new File("target/LineBasedFileSplitTest_no_header.csv");
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            for (int i = 0; i < 1000; i++) {
+                writer.write(i + ",name " + i + "\n");
+            }
+        }
+
+        final CsvDatastore datastore = new CsvDatastore("foo", null, file.getPath(), '"', ',', '\\', "UTF-8", false,
+                false, CsvConfiguration.NO_COLUMN_NAME_LINE);
+        final CsvConfiguration configuration = datastore.getCsvConfiguration();
+        final long headerEnd = LineBasedFileSplit.findHeaderEnd(file, configuration.getColumnNameLineNumber());
+
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            final Table table = dataContext.getDefaultSchema().getTables()[0];
+            final Query query = dataContext.query().from(table).select(table.getColumns()).toQuery();
+
+            final long[] boundaries = LineBasedFileSplit.createBoundaries(file,
+                    configuration.getColumnNameLineNumber(), 3, 1000);
+            final List<DataSetSplit> splits = new ArrayList<DataSetSplit>();
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                splits.add(new CsvFileSplit(file, configuration, headerEnd, boundaries[i], boundaries[i + 1], query));
+            }
+
+            assertSameRecords(dataContext, query, splits);
+        }
+    }
+
+    public void testFixedWidthSplitsYieldSameRecordsAsSequentialRead() throws Exception {
+        final File file = new File("target/LineBasedFileSplitTest.txt");
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write("id   name      \n");
+            for (int i = 0; i < 1000; i++) {
+                if (i % 100 == 0) {
+                    writer.write("\n");
+                }
+                writer.write(String.format("%-5d%-10s\n", i, "name" + i));
+            }
+        }
+
+        final FixedWidthDatastore datastore = new FixedWidthDatastore("foo", file.getPath(), "UTF-8", new int[] { 5,
+                10 }, false, 1);
+        final long headerEnd = LineBasedFileSplit.findHeaderEnd(file, 1);
+
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            final Table table = dataContext.getDefaultSchema().getTables()[0];
+            final Query query = dataContext.query().from(table).select(table.getColumns()).toQuery();
+
+            final List<DataSetSplit> splits = datastore.createSplits(query, 4);
+            assertNull("file is smaller than the minimum split size", splits);
+
+            final long[] boundaries = LineBasedFileSplit.createBoundaries(file, 1, 4, 1000);
+            final FixedWidthConfiguration configuration = new FixedWidthConfiguration(1, "UTF-8", new int[] { 5, 10 },
+                    false);
+            final List<DataSetSplit> testSplits = new ArrayList<DataSetSplit>();
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                testSplits.add(new FixedWidthFileSplit(file, configuration, headerEnd, boundaries[i],
+                        boundaries[i + 1], query));
+            }
+
+            assertSameRecords(dataContext, query, testSplits);
+        }
+    }
+
+    private void assertSameRecords(DataContext dataContext, Query query, List<DataSetSplit> splits) {
+        final List<String> expected = new ArrayList<String>();
+        try (DataSet dataSet = dataContext.executeQuery(query)) {
+            while (dataSet.next()) {
+                expected.add(Arrays.toString(dataSet.getRow().getValues()));
+            }
+        }
+        assertTrue(expected.size() >= 1000);
+
+        final List<String> actual = new ArrayList<String>();
+        for (DataSetSplit split : splits) {
+            try (DataSet dataSet = split.read()) {
+                while (dataSet.next()) {
+                    actual.add(Arrays.toString(dataSet.getRow().getValues()));
+                }
+            }
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    public void testSmallFileIsNotSplit() throws Exception {
+        final CsvDatastore datastore = new CsvDatastore("foo", null, "src/test/resources/employees.csv", '"', ',',
+                '\\', "UTF-8", true, false, 1);
+        try (DatastoreConnection con = datastore.openConnection()) {
+            final DataContext dataContext = con.getDataContext();
+            final Table table = dataContext.getDefaultSchema().getTables()[0];
+            final Query query = dataContext.query().from(table).select(table.getColumns()).toQuery();
+            assertTrue(LineBasedFileSplit.isSplittable(query));
+            assertNull(datastore.createSplits(query, 4));
+
+            final Query maxRowsQuery = dataContext.query().from(table).select(table.getColumns()).maxRows(2)
+                    .toQuery();
+            assertFalse(LineBasedFileSplit.isSplittable(maxRowsQuery));
+        }
+    }
+
+    public void testIsSplittableEncoding() throws Exception {
+        assertTrue(LineBasedFileSplit.isSplittable("UTF-8"));
+        assertTrue(LineBasedFileSplit.isSplittable("ISO-8859-1"));
+        assertTrue(LineBasedFileSplit.isSplittable((String) null));
+        assertFalse(LineBasedFileSplit.isSplittable("UTF-16"));
+        assertFalse(LineBasedFileSplit.isSplittable("foobar"));
+    }
+}
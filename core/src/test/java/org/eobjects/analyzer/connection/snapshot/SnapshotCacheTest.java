@@ -0,0 +1,273 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.connection.snapshot;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.util.FileHelper;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.connection.CsvDatastore;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.connection.DatastoreConnection;
+
+public class SnapshotCacheTest extends TestCase {
+
+    private final Datastore datastore = new CsvDatastore("ds", "src/test/resources/employees.csv");
+    private final File directory = new File("target/SnapshotCacheTest");
+
+    private DatastoreConnection con;
+    private Table table;
+    private Query query;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        delete(directory);
+        con = datastore.openConnection();
+        table = con.getDataContext().getDefaultSchema().getTables()[0];
+        query = con.getDataContext().query().from(table).select(table.getColumns()).toQuery();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        con.close();
+    }
+
+    public void testRecordAndRead() throws Exception {
+        final SnapshotCache cache = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+        assertFalse(hasSnapshot(cache, query));
+
+        final List<Object[]> expected = readAll(cache.record(datastore, query, executeQuery()));
+        assertEquals(7, expected.size());
+        assertTrue(cache.getSize() > 0);
+
+        final DataSet dataSet = cache.read(datastore, query);
+        assertNotNull(dataSet);
+        assertEquals(toString(expected), toString(readAll(dataSet)));
+
+        // snapshots are persistent
+        final SnapshotCache cache2 = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+        assertEquals(cache.getSize(), cache2.getSize());
+        assertEquals(toString(expected), toString(readAll(cache2.read(datastore, query))));
+
+        // other queries don't match
+        final Query otherQuery = query.clone().setMaxRows(2);
+        assertFalse(hasSnapshot(cache, otherQuery));
+    }
+
+    public void testIncompleteRecordingIsDiscarded() throws Exception {
+        final SnapshotCache cache = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+
+        final DataSet dataSet = cache.record(datastore, query, executeQuery());
+        assertTrue(dataSet.next());
+        dataSet.close();
+
+        assertFalse(hasSnapshot(cache, query));
+        assertEquals(0, cache.getSize());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    public void testInvalidate() throws Exception {
+        final SnapshotCache cache = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+        readAll(cache.record(datastore, query, executeQuery()));
+        assertTrue(hasSnapshot(cache, query));
+
+        cache.invalidate(datastore, table);
+        assertFalse(hasSnapshot(cache, query));
+        assertEquals(0, cache.getSize());
+
+        readAll(cache.record(datastore, query, executeQuery()));
+        cache.invalidate(new CsvDatastore("other", "src/test/resources/employees.csv"));
+        assertTrue(hasSnapshot(cache, query));
+
+        cache.invalidateAll();
+        assertFalse(hasSnapshot(cache, query));
+    }
+
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        final Query query2 = query.clone().setMaxRows(3);
+        final Query query3 = query.clone().setMaxRows(5);
+
+        // determine the size of the snapshots
+        final SnapshotCache scratchCache = new SnapshotCache(new File(directory, "scratch"), Long.MAX_VALUE, 0);
+        long maxSize = 0;
+        for (Query q : Arrays.asList(query, query2, query3)) {
+            readAll(scratchCache.record(datastore, q, con.getDataContext().executeQuery(q)));
+            maxSize = scratchCache.getSize();
+        }
+        scratchCache.invalidateAll();
+
+        // leave room for all but the smallest snapshot
+        final SnapshotCache cache = new SnapshotCache(new File(directory, "cache"), maxSize - 1, 0);
+        readAll(cache.record(datastore, query, executeQuery()));
+        readAll(cache.record(datastore, query2, con.getDataContext().executeQuery(query2)));
+
+        // read the first snapshot, making the second the least recently used
+        readAll(cache.read(datastore, query));
+
+        readAll(cache.record(datastore, query3, con.getDataContext().executeQuery(query3)));
+
+        assertTrue(hasSnapshot(cache, query));
+        assertFalse(hasSnapshot(cache, query2));
+        assertTrue(hasSnapshot(cache, query3));
+    }
+
+    public void testExpiredSnapshotIsNotRead() throws Exception {
+        final SnapshotCache cache = new SnapshotCache(directory, Long.MAX_VALUE, 1);
+        readAll(cache.record(datastore, query, executeQuery()));
+        Thread.sleep(10);
+        assertFalse(hasSnapshot(cache, query));
+    }
+
+    public void testDuplicateSnapshotsAreRemovedOnLoad() throws Exception {
+        final SnapshotCache cache1 = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+        final SnapshotCache cache2 = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+        readAll(cache1.record(datastore, query, executeQuery()));
+        readAll(cache2.record(datastore, query, executeQuery()));
+        assertEquals(2, directory.listFiles().length);
+
+        final SnapshotCache cache3 = new SnapshotCache(directory, Long.MAX_VALUE, 0);
+        assertEquals(cache2.getSize(), cache3.getSize());
+        assertEquals(1, directory.listFiles().length);
+        assertTrue(hasSnapshot(cache3, query));
+    }
+
+    public void testChangedSourceFileIsNotRead() throws Exception {
+        final File file = new File(directory, "employees.csv");
+        directory.mkdirs();
+        FileHelper.copy(new File("src/test/resources/employees.csv"), file);
+        file.setLastModified(1000000);
+        final Datastore fileDatastore = new CsvDatastore("file", file.getPath());
+        final SnapshotCache cache = new SnapshotCache(new File(directory, "cache"), Long.MAX_VALUE, 0);
+
+        assertEquals(7, recordAll(cache, fileDatastore).size());
+        assertEquals(7, readAll(cache.read(fileDatastore, createQuery(fileDatastore))).size());
+
+        FileHelper.writeStringAsFile(file, FileHelper.readFileAsString(file).trim() + "\n\"Foo Bar\",foo@bar.com");
+        file.setLastModified(2000000);
+        assertNull(cache.read(fileDatastore, createQuery(fileDatastore)));
+
+        assertEquals(8, recordAll(cache, fileDatastore).size());
+
+        // the snapshot of the old version of the file has been removed
+        assertEquals(1, new File(directory, "cache").listFiles().length);
+        assertEquals(8, readAll(cache.read(fileDatastore, createQuery(fileDatastore))).size());
+    }
+
+    private Query createQuery(Datastore ds) {
+        final DatastoreConnection connection = ds.openConnection();
+        try {
+            final Table t = connection.getDataContext().getDefaultSchema().getTables()[0];
+            return connection.getDataContext().query().from(t).select(t.getColumns()).toQuery();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private List<Object[]> recordAll(SnapshotCache cache, Datastore ds) {
+        final DatastoreConnection connection = ds.openConnection();
+        try {
+            final Query q = createQuery(ds);
+            return readAll(cache.record(ds, q, connection.getDataContext().executeQuery(q)));
+        } finally {
+            connection.close();
+        }
+    }
+
+    public void testColumnEncodingRoundTrip() throws Exception {
+        directory.mkdirs();
+        final File file = new File(directory, "column.dat");
+
+        final Timestamp timestamp = new Timestamp(1000000);
+        timestamp.setNanos(123456789);
+        final List<Object> values = Arrays.<Object> asList("foo", "foo", "foo", null, null, "bar", "foo", 42, 42L,
+                4.2d, true, new Date(1234), new java.sql.Date(1234), timestamp, new BigDecimal("1.50"), "bar");
+
+        final ColumnWriter writer = new ColumnWriter(file);
+        for (Object value : values) {
+            writer.write(value);
+        }
+        writer.close();
+
+        final ColumnReader reader = new ColumnReader(file);
+        for (Object value : values) {
+            final Object readValue = reader.read();
+            assertEquals(value, readValue);
+            if (value != null) {
+                assertEquals(value.getClass(), readValue.getClass());
+            }
+        }
+        reader.close();
+    }
+
+    private boolean hasSnapshot(SnapshotCache cache, Query q) {
+        final DataSet dataSet = cache.read(datastore, q);
+        if (dataSet == null) {
+            return false;
+        }
+        dataSet.close();
+        return true;
+    }
+
+    private void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private DataSet executeQuery() {
+        return con.getDataContext().executeQuery(query);
+    }
+
+    private List<Object[]> readAll(DataSet dataSet) {
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        try {
+            while (dataSet.next()) {
+                rows.add(dataSet.getRow().getValues());
+            }
+        } finally {
+            dataSet.close();
+        }
+        return rows;
+    }
+
+    private String toString(List<Object[]> rows) {
+        final StringBuilder sb = new StringBuilder();
+        for (Object[] row : rows) {
+            sb.append(Arrays.toString(row)).append('\n');
+        }
+        return sb.toString();
+    }
+}
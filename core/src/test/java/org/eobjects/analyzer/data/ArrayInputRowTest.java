@@ -0,0 +1,101 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.schema.MutableColumn;
+
+public class ArrayInputRowTest extends TestCase {
+
+    private final MetaModelInputColumn foo = new MetaModelInputColumn(new MutableColumn("foo"));
+    private final MetaModelInputColumn bar = new MetaModelInputColumn(new MutableColumn("bar"));
+    private final MockInputColumn<String> baz = new MockInputColumn<String>("baz", String.class);
+
+    private RowLayout createLayout() {
+        List<InputColumn<?>> physicalColumns = Arrays.<InputColumn<?>> asList(foo, bar);
+        List<InputColumn<?>> virtualColumns = Arrays.<InputColumn<?>> asList(baz);
+        return new RowLayout(physicalColumns, virtualColumns);
+    }
+
+    public void testGetSlot() throws Exception {
+        RowLayout layout = createLayout();
+        assertEquals(3, layout.getColumnCount());
+        assertEquals(2, layout.getPhysicalColumnCount());
+
+        assertEquals(0, layout.getSlot(foo));
+        assertEquals(1, layout.getSlot(bar));
+        assertEquals(2, layout.getSlot(baz));
+
+        // an equal, but not identical, physical column
+        assertEquals(1, layout.getSlot(new MetaModelInputColumn(new MutableColumn("bar"))));
+        assertEquals(-1, layout.getSlot(new MockInputColumn<String>("qux", String.class)));
+
+        assertTrue(layout.isPhysicalSlot(1));
+        assertFalse(layout.isPhysicalSlot(2));
+    }
+
+    public void testSetValueAndContainsInputColumn() throws Exception {
+        RowLayout layout = createLayout();
+        ArrayInputRow row = new ArrayInputRow(layout, 1, new Object[] { "hello", null });
+
+        assertTrue(row.containsInputColumn(foo));
+        assertTrue(row.containsInputColumn(bar));
+        assertFalse(row.containsInputColumn(baz));
+        assertEquals(2, row.getInputColumns().size());
+        assertEquals("ArrayInputRow[values=[hello, null]]", row.toString());
+
+        row.setValue(layout.getSlot(baz), "world");
+        assertTrue(row.containsInputColumn(baz));
+        assertEquals("hello", row.getValue(foo));
+        assertNull(row.getValue(bar));
+        assertEquals("world", row.getValue(baz));
+        assertEquals(3, row.getInputColumns().size());
+        assertEquals("ArrayInputRow[values=[hello, null, world]]", row.toString());
+    }
+
+    public void testCopy() throws Exception {
+        RowLayout layout = createLayout();
+        ArrayInputRow row = new ArrayInputRow(layout, 1, new Object[] { "hello", "there" });
+        row.setValue(2, "world");
+
+        ArrayInputRow copy = row.copy(2);
+        assertEquals(2, copy.getId());
+        assertSame(layout, copy.getLayout());
+        assertEquals("ArrayInputRow[values=[hello, there, world]]", copy.toString());
+
+        copy.setValue(2, "universe");
+        assertEquals("world", row.getValue(baz));
+        assertEquals("universe", copy.getValue(baz));
+    }
+
+    public void testSetPhysicalValue() throws Exception {
+        ArrayInputRow row = new ArrayInputRow(createLayout(), 1, new Object[] { "hello", "there" });
+        try {
+            row.setValue(0, "foobar");
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot set physical column values of an InputRow.", e.getMessage());
+        }
+    }
+}
@@ -20,11 +20,22 @@
 package org.eobjects.analyzer.descriptors;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
 
+import org.eobjects.analyzer.beans.filter.MaxRowsFilter;
 import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.job.concurrent.SingleThreadedTaskRunner;
 import org.eobjects.analyzer.util.ClassLoaderUtils;
 
 import junit.framework.TestCase;
@@ -49,6 +60,36 @@ public class ClasspathScanDescriptorProviderTest extends TestCase {
                 .getTransformerBeanDescriptors().iterator().next().getComponentClass().getName());
     }
 
+    public void testScanSingleJarWithIndex() throws Exception {
+        File pluginFile1 = new File("src/test/resources/AnalyzerBeans-basic-transformers.jar");
+        File[] files = new File[] { pluginFile1 };
+        File indexFile = new File("target/ClasspathScanDescriptorProviderTest-index.txt");
+        if (indexFile.exists()) {
+            assertTrue(indexFile.delete());
+        }
+
+        ClasspathScanIndex index = new ClasspathScanIndex(indexFile);
+        assertNull(index.getComponentEntries(pluginFile1, "org/eobjects/**"));
+
+        ClasspathScanDescriptorProvider provider = new ClasspathScanDescriptorProvider(taskRunner).setIndex(index);
+        provider.scanPackage("org.eobjects", true, ClassLoaderUtils.createClassLoader(files), false, files);
+        assertEquals(27, provider.getTransformerBeanDescriptors().size());
+        assertTrue(indexFile.exists());
+        assertFalse(index.isChanged());
+
+        // a new index, read from the file
+        index = new ClasspathScanIndex(indexFile);
+        List<String> entries = index.getComponentEntries(pluginFile1, "org/eobjects/**");
+        assertNotNull(entries);
+        assertEquals(27, entries.size());
+        assertNull(index.getComponentEntries(pluginFile1, "org/eobjects/*"));
+
+        provider = new ClasspathScanDescriptorProvider(taskRunner).setIndex(index);
+        provider.scanPackage("org.eobjects", true, ClassLoaderUtils.createClassLoader(files), false, files);
+        assertEquals(0, provider.getAnalyzerBeanDescriptors().size());
+        assertEquals(27, provider.getTransformerBeanDescriptors().size());
+    }
+
     public void testScanNonExistingPackage() throws Exception {
         ClasspathScanDescriptorProvider provider = new ClasspathScanDescriptorProvider(taskRunner);
         Collection<AnalyzerBeanDescriptor<?>> analyzerDescriptors = provider.scanPackage(
@@ -115,6 +156,95 @@ public class ClasspathScanDescriptorProviderTest extends TestCase {
         assertTrue(foundXmlDecoderTransformer);
     }
 
+    public void testConcurrentScanOfLargeJar() throws Exception {
+        final File jarFile = createLargeJarFile();
+        final File[] files = new File[] { jarFile };
+        final ClassLoader classLoader = ClassLoaderUtils.createClassLoader(files);
+
+        final ClasspathScanDescriptorProvider sequentialProvider = new ClasspathScanDescriptorProvider(
+                new SingleThreadedTaskRunner());
+        sequentialProvider.scanPackage("org.eobjects.analyzer", true, classLoader, false, files);
+        final Set<String> sequentialComponents = getComponentClassNames(sequentialProvider);
+        assertTrue(sequentialComponents.contains(MaxRowsFilter.class.getName()));
+
+        final MultiThreadedTaskRunner concurrentTaskRunner = new MultiThreadedTaskRunner(4);
+        try {
+            final ClasspathScanDescriptorProvider concurrentProvider = new ClasspathScanDescriptorProvider(
+                    concurrentTaskRunner);
+            concurrentProvider.scanPackage("org.eobjects.analyzer", true, classLoader, false, files);
+            assertEquals(sequentialComponents, getComponentClassNames(concurrentProvider));
+
+            // scan the JAR file directly, to verify that it is closed once all
+            // tasks are done
+            final AtomicInteger closeCount = new AtomicInteger();
+            final JarFile trackedJarFile = new JarFile(jarFile) {
+                @Override
+                public void close() throws IOException {
+                    closeCount.incrementAndGet();
+                    super.close();
+                }
+            };
+            final ClasspathScanDescriptorProvider jarProvider = new ClasspathScanDescriptorProvider(
+                    concurrentTaskRunner);
+            jarProvider.scanJar(trackedJarFile, true, classLoader, "org/eobjects/analyzer", true, false);
+            assertEquals(sequentialComponents, getComponentClassNames(jarProvider));
+            assertEquals(1, closeCount.get());
+        } finally {
+            concurrentTaskRunner.shutdown();
+        }
+    }
+
+    /**
+     * Creates a JAR file with the class files of the core module, which are
+     * many more than are scanned in a single task.
+     */
+    private File createLargeJarFile() throws Exception {
+        final File classesDirectory = new File(ClasspathScanDescriptorProvider.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        final File jarFile = new File("target/ClasspathScanDescriptorProviderTest-large.jar");
+
+        int classFiles = 0;
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+            classFiles = addClassFiles(out, new File(classesDirectory, "org/eobjects/analyzer"),
+                    "org/eobjects/analyzer/");
+        }
+        assertTrue("Only " + classFiles + " class files in JAR file",
+                classFiles > 2 * ClasspathScanDescriptorProvider.ENTRIES_PER_TASK);
+        return jarFile;
+    }
+
+    private int addClassFiles(JarOutputStream out, File directory, String path) throws IOException {
+        int count = 0;
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                count += addClassFiles(out, file, path + file.getName() + "/");
+            } else if (file.getName().endsWith(".class")) {
+                out.putNextEntry(new JarEntry(path + file.getName()));
+                out.write(Files.readAllBytes(file.toPath()));
+                out.closeEntry();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Set<String> getComponentClassNames(DescriptorProvider provider) {
+        final Set<String> result = new TreeSet<String>();
+        for (ComponentDescriptor<?> descriptor : provider.getAnalyzerBeanDescriptors()) {
+            result.add(descriptor.getComponentClass().getName());
+        }
+        for (ComponentDescriptor<?> descriptor : provider.getTransformerBeanDescriptors()) {
+            result.add(descriptor.getComponentClass().getName());
+        }
+        for (ComponentDescriptor<?> descriptor : provider.getFilterBeanDescriptors()) {
+            result.add(descriptor.getComponentClass().getName());
+        }
+        for (ComponentDescriptor<?> descriptor : provider.getRendererBeanDescriptors()) {
+            result.add(descriptor.getComponentClass().getName());
+        }
+        return result;
+    }
+
     public void testIsClassInPackageNonRecursive() throws Exception {
         ClasspathScanDescriptorProvider provider = new ClasspathScanDescriptorProvider(taskRunner);
 
@@ -0,0 +1,217 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.AnyComponentRequirement;
+import org.eobjects.analyzer.job.ComponentJob;
+import org.eobjects.analyzer.job.ComponentRequirement;
+import org.eobjects.analyzer.job.CompoundComponentRequirement;
+import org.eobjects.analyzer.job.FilterOutcome;
+import org.eobjects.analyzer.job.HasComponentRequirement;
+import org.eobjects.analyzer.job.ImmutableFilterOutcome;
+import org.eobjects.analyzer.test.MockFilter.Category;
+
+/**
+ * Verifies that the requirements compiled against a {@link FilterOutcomeIndex}
+ * are evaluated exactly like the uncompiled requirements, for every
+ * combination of available outcomes.
+ */
+public class AbstractRowProcessingConsumerTest extends TestCase {
+
+    private final FilterOutcome valid = new ImmutableFilterOutcome(null, Category.VALID);
+    private final FilterOutcome invalid = new ImmutableFilterOutcome(null, Category.INVALID);
+    private final FilterOutcome seconds = new ImmutableFilterOutcome(null, TimeUnit.SECONDS);
+    private final FilterOutcome minutes = new ImmutableFilterOutcome(null, TimeUnit.MINUTES);
+    private final FilterOutcome notIndexed = new ImmutableFilterOutcome(null, TimeUnit.HOURS);
+
+    private final List<FilterOutcome> allOutcomes = Arrays.asList(valid, invalid, seconds, minutes, notIndexed);
+
+    private int _evaluations;
+
+    public void testCompoundRequirement() throws Exception {
+        final AbstractRowProcessingConsumer consumer = createConsumer(new CountingRequirement(valid, invalid),
+                createJob(new CountingRequirement(seconds)));
+
+        // satisfied unless neither VALID nor INVALID is available
+        assertEquals(24, assertCompiledEqualsUncompiled(consumer, true));
+    }
+
+    public void testSourceJobRequirementMasks() throws Exception {
+        final AbstractRowProcessingConsumer consumer = createConsumer(null,
+                createJob(new CountingRequirement(valid)), createJob(new CountingRequirement(invalid, seconds)));
+
+        // satisfied if any of the source jobs is satisfied
+        assertEquals(28, assertCompiledEqualsUncompiled(consumer, true));
+    }
+
+    public void testAnyComponentRequirementSource() throws Exception {
+        final AbstractRowProcessingConsumer consumer = createConsumer(null,
+                createJob(new CountingRequirement(valid)), createJob(AnyComponentRequirement.get()));
+        assertEquals(32, assertCompiledEqualsUncompiled(consumer, true));
+
+        final AbstractRowProcessingConsumer anyConsumer = createConsumer(AnyComponentRequirement.get(),
+                createJob(new CountingRequirement(valid)));
+        assertEquals(32, assertCompiledEqualsUncompiled(anyConsumer, true));
+    }
+
+    public void testFallbackWhenRequirementCannotBeCompiled() throws Exception {
+        // the requirement refers to an outcome which is not part of the index
+        final AbstractRowProcessingConsumer consumer = createConsumer(new CountingRequirement(valid, notIndexed),
+                createJob(new CountingRequirement(seconds)));
+        assertEquals(24, assertCompiledEqualsUncompiled(consumer, false));
+
+        // a source job has a type of requirement which the index does not know
+        final ComponentRequirement customRequirement = new ComponentRequirement() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean isSatisfied(InputRow row, FilterOutcomes availableOutcomes) {
+                _evaluations++;
+                return availableOutcomes.contains(notIndexed);
+            }
+
+            @Override
+            public Collection<FilterOutcome> getProcessingDependencies() {
+                return Collections.singleton(notIndexed);
+            }
+        };
+        final AbstractRowProcessingConsumer customConsumer = createConsumer(null,
+                createJob(new CountingRequirement(valid)), createJob(customRequirement));
+        assertEquals(24, assertCompiledEqualsUncompiled(customConsumer, false));
+    }
+
+    /**
+     * Evaluates the consumer with every combination of outcomes, both with
+     * outcomes held in the index (compiled) and without an index (uncompiled).
+     * 
+     * @param consumer
+     * @param expectCompiled
+     *            whether the indexed outcomes are expected to be evaluated
+     *            without invoking the requirements
+     * @return the number of satisfied combinations
+     */
+    private int assertCompiledEqualsUncompiled(AbstractRowProcessingConsumer consumer, boolean expectCompiled) {
+        final FilterOutcomeIndex index = new FilterOutcomeIndex(Arrays.asList(valid, invalid, seconds, minutes));
+        consumer.setFilterOutcomeIndex(index);
+
+        int satisfiedCount = 0;
+        for (int combination = 0; combination < (1 << allOutcomes.size()); combination++) {
+            final List<FilterOutcome> availableOutcomes = new ArrayList<FilterOutcome>();
+            for (int i = 0; i < allOutcomes.size(); i++) {
+                if ((combination & (1 << i)) != 0) {
+                    availableOutcomes.add(allOutcomes.get(i));
+                }
+            }
+
+            final boolean uncompiled = consumer.satisfiedForConsume(new FilterOutcomesImpl(availableOutcomes), null);
+
+            _evaluations = 0;
+            final boolean compiled = consumer.satisfiedForConsume(new FilterOutcomesImpl(index, availableOutcomes),
+                    null);
+            assertEquals(availableOutcomes.toString(), uncompiled, compiled);
+            if (expectCompiled) {
+                assertEquals(availableOutcomes.toString(), 0, _evaluations);
+            } else {
+                assertTrue(availableOutcomes.toString(), _evaluations > 0);
+            }
+
+            if (compiled) {
+                satisfiedCount++;
+            }
+        }
+        return satisfiedCount;
+    }
+
+    private AbstractRowProcessingConsumer createConsumer(ComponentRequirement requirement,
+            HasComponentRequirement... sourceJobs) {
+        final Set<HasComponentRequirement> sourceJobsOfInputColumns = new LinkedHashSet<HasComponentRequirement>(
+                Arrays.asList(sourceJobs));
+        return new AbstractRowProcessingConsumer(null, null, createJob(requirement), sourceJobsOfInputColumns) {
+
+            @Override
+            public boolean isConcurrent() {
+                return true;
+            }
+
+            @Override
+            public InputColumn<?>[] getRequiredInput() {
+                return new InputColumn[0];
+            }
+
+            @Override
+            public ComponentJob getComponentJob() {
+                return null;
+            }
+
+            @Override
+            public Object getComponent() {
+                return null;
+            }
+
+            @Override
+            protected void consumeInternal(InputRow row, int distinctCount, FilterOutcomes outcomes,
+                    RowProcessingChain chain) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private HasComponentRequirement createJob(final ComponentRequirement requirement) {
+        return new HasComponentRequirement() {
+            @Override
+            public ComponentRequirement getComponentRequirement() {
+                return requirement;
+            }
+        };
+    }
+
+    /**
+     * Requirement that counts how many times it is evaluated without being
+     * compiled.
+     */
+    private class CountingRequirement extends CompoundComponentRequirement {
+
+        private static final long serialVersionUID = 1L;
+
+        public CountingRequirement(FilterOutcome... outcomes) {
+            super(outcomes);
+        }
+
+        @Override
+        public boolean isSatisfied(InputRow row, FilterOutcomes outcomes) {
+            _evaluations++;
+            return super.isSatisfied(row, outcomes);
+        }
+    }
+}
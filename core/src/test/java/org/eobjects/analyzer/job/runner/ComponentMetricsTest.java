@@ -0,0 +1,147 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.AnalyzerJob;
+import org.eobjects.analyzer.job.TransformerJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.result.AnalyzerResult;
+import org.eobjects.analyzer.result.ListResult;
+import org.eobjects.analyzer.test.MockAnalyzer;
+import org.eobjects.analyzer.test.MockTransformer;
+import org.eobjects.analyzer.test.TestHelper;
+import org.eobjects.analyzer.util.SystemProperties;
+
+public class ComponentMetricsTest extends TestCase {
+
+    public void testMetricsOfJob() throws Throwable {
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl()
+                .replace(new MultiThreadedTaskRunner(4));
+        final AnalysisJob job = createJob(configuration);
+
+        final AtomicReference<AnalysisJobMetrics> jobMetricsRef = new AtomicReference<AnalysisJobMetrics>();
+        final List<ComponentMetrics> listenedMetrics = new CopyOnWriteArrayList<ComponentMetrics>();
+        final AnalysisListener listener = new AnalysisListenerAdaptor() {
+            @Override
+            public void jobBegin(AnalysisJob job, AnalysisJobMetrics metrics) {
+                jobMetricsRef.set(metrics);
+            }
+
+            @Override
+            public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+                    ComponentMetrics componentMetrics) {
+                listenedMetrics.add(componentMetrics);
+            }
+        };
+
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration, listener).run(job);
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+
+        assertEquals(2, listenedMetrics.size());
+
+        final TransformerJob transformerJob = job.getTransformerJobs().iterator().next();
+        final AnalyzerJob analyzerJob = job.getAnalyzerJobs().iterator().next();
+
+        final AnalysisJobMetrics jobMetrics = jobMetricsRef.get();
+        final ComponentMetrics transformerMetrics = jobMetrics.getComponentMetrics(transformerJob);
+        final ComponentMetrics analyzerMetrics = jobMetrics.getComponentMetrics(analyzerJob);
+        assertTrue(listenedMetrics.contains(transformerMetrics));
+        assertTrue(listenedMetrics.contains(analyzerMetrics));
+
+        assertSame(transformerJob, transformerMetrics.getComponentJob());
+        assertEquals(23, transformerMetrics.getInputRowCount());
+        assertEquals(23, transformerMetrics.getOutputRowCount());
+        assertEquals(0, transformerMetrics.getErrorCount());
+        assertTrue(transformerMetrics.getTotalNanos() > 0);
+        assertTrue(transformerMetrics.getMaxNanos() <= transformerMetrics.getTotalNanos());
+
+        assertSame(analyzerJob, analyzerMetrics.getComponentJob());
+        assertEquals(23, analyzerMetrics.getInputRowCount());
+        assertEquals(0, analyzerMetrics.getErrorCount());
+        assertTrue(analyzerMetrics.getTotalNanos() > 0);
+
+        final RowProcessingMetrics rowProcessingMetrics = jobMetrics.getAnalyzerMetrics(analyzerJob)
+                .getRowProcessingMetrics();
+        assertEquals(2, rowProcessingMetrics.getComponentMetrics().length);
+    }
+
+    public void testMetricsCanBeDisabled() throws Throwable {
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl();
+        final AnalysisJob job = createJob(configuration);
+
+        final List<ComponentMetrics> listenedMetrics = new CopyOnWriteArrayList<ComponentMetrics>();
+        final AnalysisListener listener = new AnalysisListenerAdaptor() {
+            @Override
+            public void rowProcessingComponentMetrics(AnalysisJob job, RowProcessingMetrics metrics,
+                    ComponentMetrics componentMetrics) {
+                listenedMetrics.add(componentMetrics);
+            }
+        };
+
+        System.setProperty(SystemProperties.ROW_PROCESSING_COMPONENT_METRICS, "false");
+        final AnalysisResultFuture resultFuture;
+        try {
+            resultFuture = new AnalysisRunnerImpl(configuration, listener).run(job);
+            resultFuture.await();
+        } finally {
+            System.clearProperty(SystemProperties.ROW_PROCESSING_COMPONENT_METRICS);
+        }
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+
+        assertEquals(2, listenedMetrics.size());
+        for (ComponentMetrics componentMetrics : listenedMetrics) {
+            assertEquals(0, componentMetrics.getInputRowCount());
+            assertEquals(0, componentMetrics.getOutputRowCount());
+            assertEquals(0, componentMetrics.getTotalNanos());
+        }
+
+        final AnalyzerResult result = resultFuture.getResult(job.getAnalyzerJobs().iterator().next());
+        assertEquals(23, ((ListResult<?>) result).getValues().size());
+    }
+
+    private AnalysisJob createJob(AnalyzerBeansConfiguration configuration) {
+        final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            builder.addSourceColumns("EMPLOYEES.LASTNAME");
+            final TransformerJobBuilder<MockTransformer> transformer = builder.addTransformer(MockTransformer.class);
+            transformer.addInputColumn(builder.getSourceColumns().get(0));
+            builder.addAnalyzer(MockAnalyzer.class).addInputColumns(builder.getAvailableInputColumns(Object.class));
+            return builder.toAnalysisJob();
+        }
+    }
+}
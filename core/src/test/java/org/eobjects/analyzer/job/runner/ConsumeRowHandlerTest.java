@@ -22,6 +22,9 @@ package org.eobjects.analyzer.job.runner;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eobjects.analyzer.beans.api.AnalyzerBean;
+import org.eobjects.analyzer.beans.api.BatchProcessingAnalyzer;
+import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
 import org.eobjects.analyzer.connection.PojoDatastore;
@@ -30,11 +33,13 @@ import org.eobjects.analyzer.data.InputRow;
 import org.eobjects.analyzer.data.MetaModelInputColumn;
 import org.eobjects.analyzer.data.MockInputRow;
 import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.ComponentJob;
 import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
 import org.eobjects.analyzer.job.builder.AnalyzerJobBuilder;
 import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
 import org.eobjects.analyzer.job.runner.ConsumeRowHandler.Configuration;
 import org.eobjects.analyzer.job.tasks.MockMultiRowTransformer;
+import org.eobjects.analyzer.result.ListResult;
 import org.eobjects.analyzer.test.MockAnalyzer;
 import org.eobjects.analyzer.test.MockTransformer;
 import org.apache.metamodel.pojo.ArrayTableDataProvider;
@@ -164,4 +169,124 @@ public class ConsumeRowHandlerTest extends TestCase {
         List<InputColumn<?>> outputColumns = outputRow.getInputColumns();
         assertEquals(6, outputColumns.size());
     }
+
+    public void testConsumeRowsBatch() throws Exception {
+        final TransformerJobBuilder<MockTransformer> tr1 = ajb.addTransformer(MockTransformer.class);
+        tr1.addInputColumn(ajb.getSourceColumnByName("name"));
+
+        final TransformerJobBuilder<MockTransformer> tr2 = ajb.addTransformer(MockTransformer.class);
+        tr2.addInputColumn(tr1.getOutputColumns().get(0));
+
+        final AnalyzerJobBuilder<MockAnalyzer> analyzer = ajb.addAnalyzer(MockAnalyzer.class);
+        analyzer.addInputColumns(sourceColumns);
+
+        final AnalysisJob job = ajb.toAnalysisJob(true);
+
+        final ConsumeRowHandler handler = new ConsumeRowHandler(job, analyzerBeansConfiguration, new Configuration());
+
+        final List<InputRow> inputRows = new ArrayList<InputRow>();
+        inputRows.add(new MockInputRow(1).put(nameColumn, "Kasper").put(ageColumn, 31).put(countryColumn, "DK"));
+        inputRows.add(new MockInputRow(2).put(nameColumn, "Vera").put(ageColumn, 3).put(countryColumn, "DK"));
+        inputRows.add(new MockInputRow(3).put(nameColumn, null).put(ageColumn, null).put(countryColumn, null));
+
+        final List<InputRow> result = handler.consumeRows(inputRows).getRows();
+        assertEquals(3, result.size());
+
+        for (int i = 0; i < inputRows.size(); i++) {
+            final InputRow expected = handler.consumeRow(inputRows.get(i)).getRows().get(0);
+            final InputRow actual = result.get(i);
+            assertEquals(expected.getId(), actual.getId());
+
+            final List<InputColumn<?>> outputColumns = expected.getInputColumns();
+            assertEquals(outputColumns, actual.getInputColumns());
+            for (InputColumn<?> outputColumn : outputColumns) {
+                assertEquals(expected.getValue(outputColumn), actual.getValue(outputColumn));
+            }
+        }
+    }
+
+    public void testConsumeRowsDoesNotReplayFailedBatch() throws Exception {
+        final AnalyzerJobBuilder<HalfwayFailingAnalyzer> analyzer = ajb.addAnalyzer(HalfwayFailingAnalyzer.class);
+        analyzer.addInputColumn(nameColumn);
+
+        final AnalysisJob job = ajb.toAnalysisJob(true);
+
+        final List<InputRow> failedRows = new ArrayList<InputRow>();
+        final Configuration configuration = new Configuration();
+        configuration.analysisListener = new AnalysisListenerAdaptor() {
+            @Override
+            public void errorInComponent(AnalysisJob job, ComponentJob componentJob, InputRow row, Throwable throwable) {
+                failedRows.add(row);
+            }
+        };
+
+        final ConsumeRowHandler handler = new ConsumeRowHandler(job, analyzerBeansConfiguration, configuration);
+
+        final List<InputRow> inputRows = new ArrayList<InputRow>();
+        inputRows.add(new MockInputRow(1).put(nameColumn, "Kasper").put(ageColumn, 31).put(countryColumn, "DK"));
+        inputRows.add(new MockInputRow(2).put(nameColumn, null).put(ageColumn, 3).put(countryColumn, "DK"));
+        inputRows.add(new MockInputRow(3).put(nameColumn, "Vera").put(ageColumn, null).put(countryColumn, null));
+
+        handler.consumeRows(inputRows);
+
+        // the error is reported for the whole batch
+        assertEquals(inputRows, failedRows);
+
+        // the record handled before the failure is not handled again
+        final HalfwayFailingAnalyzer analyzerInstance = (HalfwayFailingAnalyzer) handler.getConsumers().get(0)
+                .getComponent();
+        assertEquals("[Kasper]", analyzerInstance.values.toString());
+    }
+
+    @AnalyzerBean("Halfway failing analyzer")
+    public static class HalfwayFailingAnalyzer implements BatchProcessingAnalyzer<ListResult<String>> {
+
+        @Configured
+        InputColumn<String> input;
+
+        final List<String> values = new ArrayList<String>();
+
+        @Override
+        public void run(InputRow row, int distinctCount) {
+            final String value = row.getValue(input);
+            if (value == null) {
+                throw new IllegalArgumentException("Value cannot be null");
+            }
+            values.add(value);
+        }
+
+        @Override
+        public void run(List<InputRow> rows, int[] distinctCounts) {
+            for (int i = 0; i < rows.size(); i++) {
+                run(rows.get(i), distinctCounts[i]);
+            }
+        }
+
+        @Override
+        public ListResult<String> getResult() {
+            return new ListResult<String>(values);
+        }
+    }
+
+    public void testConsumeRowsWithOutputRowCollector() throws Exception {
+        final TransformerJobBuilder<MockMultiRowTransformer> tr1 = ajb.addTransformer(MockMultiRowTransformer.class);
+        tr1.setConfiguredProperty("Count to what?", ajb.getSourceColumnByName("age"));
+
+        final AnalyzerJobBuilder<MockAnalyzer> analyzer = ajb.addAnalyzer(MockAnalyzer.class);
+        analyzer.addInputColumns(sourceColumns);
+
+        final AnalysisJob job = ajb.toAnalysisJob(true);
+
+        final ConsumeRowHandler handler = new ConsumeRowHandler(job, analyzerBeansConfiguration, new Configuration());
+
+        final List<InputRow> inputRows = new ArrayList<InputRow>();
+        inputRows.add(new MockInputRow(1).put(nameColumn, "Kasper").put(ageColumn, 2).put(countryColumn, "DK"));
+        inputRows.add(new MockInputRow(2).put(nameColumn, "Vera").put(ageColumn, 3).put(countryColumn, "DK"));
+
+        final ConsumeRowResult result = handler.consumeRows(inputRows);
+        assertEquals(5, result.getRows().size());
+        assertEquals(5, result.getOutcomeSinks().size());
+        assertEquals(1, result.getRows().get(0).getId());
+        assertEquals(2, result.getRows().get(2).getId());
+    }
 }
@@ -0,0 +1,85 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eobjects.analyzer.job.CompoundComponentRequirement;
+import org.eobjects.analyzer.job.FilterOutcome;
+import org.eobjects.analyzer.job.ImmutableFilterOutcome;
+import org.eobjects.analyzer.job.SimpleComponentRequirement;
+import org.eobjects.analyzer.test.MockFilter.Category;
+
+public class FilterOutcomesImplTest extends TestCase {
+
+    private final FilterOutcome valid = new ImmutableFilterOutcome(null, Category.VALID);
+    private final FilterOutcome invalid = new ImmutableFilterOutcome(null, Category.INVALID);
+    private final FilterOutcome notIndexed = new ImmutableFilterOutcome(null, TimeUnit.SECONDS);
+
+    public void testIndexedAndNonIndexedOutcomes() throws Exception {
+        final FilterOutcomeIndex index = new FilterOutcomeIndex(Arrays.asList(valid, invalid, valid));
+        assertEquals(2, index.size());
+        assertEquals(0, index.indexOf(valid));
+        assertEquals(1, index.indexOf(new ImmutableFilterOutcome(null, Category.INVALID)));
+        assertEquals(-1, index.indexOf(notIndexed));
+
+        final FilterOutcomesImpl outcomes = new FilterOutcomesImpl(index, Collections.singleton(notIndexed));
+        assertFalse(outcomes.contains(valid));
+        assertTrue(outcomes.contains(notIndexed));
+
+        outcomes.add(valid);
+        assertTrue(outcomes.contains(valid));
+        assertFalse(outcomes.contains(invalid));
+        assertEquals(2, outcomes.getOutcomes().length);
+
+        final FilterOutcomes clone = outcomes.clone();
+        clone.add(invalid);
+        assertTrue(clone.contains(invalid));
+        assertFalse(outcomes.contains(invalid));
+
+        outcomes.reset(null);
+        assertEquals(0, outcomes.getOutcomes().length);
+        assertFalse(outcomes.contains(notIndexed));
+        assertEquals(3, clone.getOutcomes().length);
+    }
+
+    public void testCompiledRequirements() throws Exception {
+        final FilterOutcomeIndex index = new FilterOutcomeIndex(Arrays.asList(valid, invalid));
+
+        final long[] simpleMask = index.compile(new SimpleComponentRequirement(invalid));
+        final long[] compoundMask = index.compile(new CompoundComponentRequirement(valid, invalid));
+        assertNull(index.compile(new SimpleComponentRequirement(notIndexed)));
+
+        final FilterOutcomesImpl outcomes = new FilterOutcomesImpl(index, null);
+        assertFalse(outcomes.containsAny(simpleMask));
+        assertFalse(outcomes.containsAny(compoundMask));
+
+        outcomes.add(index.indexOf(valid));
+        assertFalse(outcomes.containsAny(simpleMask));
+        assertTrue(outcomes.containsAny(compoundMask));
+
+        outcomes.add(invalid);
+        assertTrue(outcomes.containsAny(simpleMask));
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.schema.MutableColumn;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.data.ArrayInputRow;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MetaModelInputColumn;
+import org.eobjects.analyzer.data.MockInputColumn;
+import org.eobjects.analyzer.data.RecyclableInputRow;
+import org.eobjects.analyzer.data.RowLayout;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.job.tasks.ConsumeRowTask;
+import org.eobjects.analyzer.result.ListResult;
+import org.eobjects.analyzer.test.MockAnalyzer;
+import org.eobjects.analyzer.test.MockTransformer;
+import org.eobjects.analyzer.test.TestHelper;
+import org.eobjects.analyzer.util.SystemProperties;
+
+public class RowPoolTest extends TestCase {
+
+    private final MetaModelInputColumn physicalColumn = new MetaModelInputColumn(new MutableColumn("foo"));
+    private final MockInputColumn<String> virtualColumn = new MockInputColumn<String>("bar", String.class);
+    private final RowLayout layout = new RowLayout(Arrays.<InputColumn<?>> asList(physicalColumn),
+            Arrays.<InputColumn<?>> asList(virtualColumn));
+
+    public void testNoPooling() throws Exception {
+        RowPool pool = new RowPool(layout, null, null, 0);
+        assertFalse(pool.isPooling());
+
+        ConsumeRowTask task1 = pool.acquire(1, new Object[] { "hello" });
+        pool.release(task1);
+        ConsumeRowTask task2 = pool.acquire(2, new Object[] { "world" });
+
+        assertNotSame(task1, task2);
+        assertFalse(((RecyclableInputRow) task1.getRow()).isRecyclable());
+        assertEquals("ArrayInputRow[values=[hello]]", task1.getRow().toString());
+        assertEquals("ArrayInputRow[values=[world]]", task2.getRow().toString());
+    }
+
+    public void testPooling() throws Exception {
+        RowPool pool = new RowPool(layout, null, null, 1);
+        assertTrue(pool.isPooling());
+
+        ConsumeRowTask task1 = pool.acquire(1, new Object[] { "hello" });
+        ArrayInputRow row = (ArrayInputRow) task1.getRow();
+        assertTrue(row.isRecyclable());
+        row.setValue(layout.getSlot(virtualColumn), "there");
+        assertEquals("ArrayInputRow[values=[hello, there]]", row.toString());
+
+        InputRow retainedRow = row.retain();
+        assertNotSame(row, retainedRow);
+        assertFalse(((RecyclableInputRow) retainedRow).isRecyclable());
+
+        pool.release(task1);
+
+        ConsumeRowTask task2 = pool.acquire(2, new Object[] { "world" });
+        assertSame(task1, task2);
+        assertSame(row, task2.getRow());
+
+        // virtual values are cleared when the row is recycled
+        assertEquals(2, row.getId());
+        assertFalse(row.containsInputColumn(virtualColumn));
+        assertEquals("ArrayInputRow[values=[world]]", row.toString());
+
+        // the retained row is unaffected
+        assertEquals(1, retainedRow.getId());
+        assertEquals("ArrayInputRow[values=[hello, there]]", retainedRow.toString());
+
+        // the pool is full, so another task is created
+        ConsumeRowTask task3 = pool.acquire(3, new Object[] { "foobar" });
+        assertNotSame(task2, task3);
+    }
+
+    public void testRunJobWithPooling() throws Throwable {
+        final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl()
+                .replace(new MultiThreadedTaskRunner(4));
+
+        final AnalysisJob job;
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            builder.addSourceColumns("EMPLOYEES.LASTNAME");
+            final TransformerJobBuilder<MockTransformer> transformer = builder.addTransformer(MockTransformer.class);
+            transformer.addInputColumn(builder.getSourceColumns().get(0));
+            builder.addAnalyzer(MockAnalyzer.class).addInputColumns(builder.getAvailableInputColumns(Object.class));
+            job = builder.toAnalysisJob();
+        }
+
+        final AnalysisResultFuture resultFuture;
+        System.setProperty(SystemProperties.ROW_PROCESSING_POOLING, "true");
+        try {
+            resultFuture = new AnalysisRunnerImpl(configuration).run(job);
+            resultFuture.await();
+        } finally {
+            System.clearProperty(SystemProperties.ROW_PROCESSING_POOLING);
+        }
+
+        if (resultFuture.isErrornous()) {
+            throw resultFuture.getErrors().get(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        final ListResult<InputRow> result = (ListResult<InputRow>) resultFuture.getResults().get(0);
+        final List<InputRow> rows = result.getValues();
+        assertEquals(23, rows.size());
+
+        final Set<Integer> ids = new HashSet<Integer>();
+        for (InputRow row : rows) {
+            assertTrue(ids.add(row.getId()));
+            assertFalse(((RecyclableInputRow) row).isRecyclable());
+
+            final List<InputColumn<?>> inputColumns = row.getInputColumns();
+            assertEquals(2, inputColumns.size());
+            final Object lastName = row.getValue(inputColumns.get(0));
+            assertNotNull(lastName);
+            assertEquals("mocked: " + lastName, row.getValue(inputColumns.get(1)));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.MockInputColumn;
+import org.eobjects.analyzer.data.MockInputRow;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.AnalyzerJob;
+
+public class RowProcessingProgressReporterTest extends TestCase {
+
+    private final List<RowProcessingProgress> _progresses = new ArrayList<RowProcessingProgress>();
+    private final List<Integer> _rowNumbers = new ArrayList<Integer>();
+
+    private final AnalysisListener _listener = new AnalysisListenerAdaptor() {
+        @Override
+        public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics,
+                RowProcessingProgress progress) {
+            _progresses.add(progress);
+        }
+
+        @Override
+        public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, InputRow row, int currentRow) {
+            _rowNumbers.add(currentRow);
+        }
+    };
+
+    private final RowProcessingMetrics _metrics = new RowProcessingMetrics() {
+        @Override
+        public AnalysisJobMetrics getAnalysisJobMetrics() {
+            return null;
+        }
+
+        @Override
+        public AnalyzerJob[] getAnalyzerJobs() {
+            return new AnalyzerJob[0];
+        }
+
+        @Override
+        public Query getQuery() {
+            return null;
+        }
+
+        @Override
+        public Table getTable() {
+            return null;
+        }
+
+        @Override
+        public int getExpectedRows() {
+            return 20;
+        }
+
+        @Override
+        public ComponentMetrics[] getComponentMetrics() {
+            return new ComponentMetrics[0];
+        }
+    };
+
+    private final InputRow _row = new MockInputRow().put(new MockInputColumn<String>("foo", String.class), "bar");
+
+    public void testReportEveryRow() throws Exception {
+        final RowProcessingProgressReporter reporter = new RowProcessingProgressReporter(null, _metrics, _listener,
+                0, 0);
+        for (int i = 0; i < 3; i++) {
+            reporter.rowProcessed(_row);
+        }
+        assertEquals("[1, 2, 3]", _rowNumbers.toString());
+        assertEquals(3, _progresses.size());
+        assertFalse(_progresses.get(2).isFinished());
+        assertEquals(3, _progresses.get(2).getProcessedRows());
+        assertEquals(20, _progresses.get(2).getExpectedRows());
+
+        reporter.finish();
+        assertEquals(4, _progresses.size());
+        assertTrue(_progresses.get(3).isFinished());
+        assertEquals(3, _progresses.get(3).getProcessedRows());
+        assertEquals(0, _progresses.get(3).getEstimatedRemainingMillis());
+    }
+
+    public void testReportOnRowInterval() throws Exception {
+        final RowProcessingProgressReporter reporter = new RowProcessingProgressReporter(null, _metrics, _listener,
+                60000, 5);
+        for (int i = 0; i < 12; i++) {
+            reporter.rowProcessed(_row);
+        }
+        assertEquals("[5, 10]", _rowNumbers.toString());
+        assertEquals(2, _progresses.size());
+
+        reporter.finish();
+        assertEquals(3, _progresses.size());
+        assertEquals(12, _progresses.get(2).getProcessedRows());
+        assertEquals("[5, 10]", _rowNumbers.toString());
+    }
+
+    public void testReportOnlyWhenFinished() throws Exception {
+        final RowProcessingProgressReporter reporter = new RowProcessingProgressReporter(null, _metrics, _listener,
+                60000, 0);
+        for (int i = 0; i < 250; i++) {
+            reporter.rowProcessed(_row);
+        }
+        assertEquals(0, _progresses.size());
+
+        reporter.finish();
+        assertEquals(1, _progresses.size());
+        assertEquals(250, _progresses.get(0).getProcessedRows());
+    }
+
+    public void testEstimatedRemainingTime() throws Exception {
+        assertEquals(-1, new RowProcessingProgress(0, 100, 0, false).getEstimatedRemainingMillis());
+        assertEquals(-1, new RowProcessingProgress(10, -1, 1000, false).getEstimatedRemainingMillis());
+        assertEquals(9000, new RowProcessingProgress(10, 100, 1000, false).getEstimatedRemainingMillis());
+        assertEquals(10.0, new RowProcessingProgress(10, 100, 1000, false).getRowsPerSecond());
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.data.DataSet;
+import org.apache.metamodel.pojo.ArrayTableDataProvider;
+import org.apache.metamodel.pojo.TableDataProvider;
+import org.apache.metamodel.query.Query;
+import org.apache.metamodel.util.SimpleTableDef;
+import org.eobjects.analyzer.beans.api.AnalyzerBean;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.DataSetSplit;
+import org.eobjects.analyzer.connection.PojoDatastore;
+import org.eobjects.analyzer.connection.SplitReadableDatastore;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.result.ListResult;
+import org.eobjects.analyzer.test.MockAnalyzer;
+import org.eobjects.analyzer.util.SystemProperties;
+
+public class RowProcessingPublisherTest extends TestCase {
+
+    private static final AtomicInteger CONSUMING = new AtomicInteger();
+    private static final AtomicInteger CONSUMED = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        System.setProperty(SystemProperties.ROW_PROCESSING_MAX_SPLITS, "2");
+        CONSUMING.set(0);
+        CONSUMED.set(0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        System.clearProperty(SystemProperties.ROW_PROCESSING_MAX_SPLITS);
+    }
+
+    public void testFailingSplitAwaitsDispatchedRows() throws Exception {
+        final List<Object[]> rows = Arrays.asList(new Object[] { "a" }, new Object[] { "b" }, new Object[] { "c" },
+                new Object[] { "d" }, new Object[] { "e" });
+        final TableDataProvider<?> tableDataProvider = new ArrayTableDataProvider(new SimpleTableDef("table",
+                new String[] { "name" }), rows);
+        final TwoSplitsDatastore datastore = new TwoSplitsDatastore(tableDataProvider, true);
+
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl()
+                .replace(new MultiThreadedTaskRunner(4));
+
+        final AnalysisJob job;
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            builder.addSourceColumns("table.name");
+            builder.addAnalyzer(SlowAnalyzer.class).addInputColumns(builder.getSourceColumns());
+            job = builder.toAnalysisJob();
+        }
+
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(job);
+        resultFuture.await();
+
+        assertTrue(resultFuture.isErrornous());
+        assertEquals("Split failed", resultFuture.getErrors().get(0).getMessage());
+
+        // all records of the first split were consumed before the job ended
+        assertEquals(0, CONSUMING.get());
+        assertEquals(5, CONSUMED.get());
+    }
+
+    public void testRowIdsOfSplits() throws Exception {
+        final List<Object[]> rows = Arrays.asList(new Object[] { "a" }, new Object[] { "b" }, new Object[] { "c" });
+        final TableDataProvider<?> tableDataProvider = new ArrayTableDataProvider(new SimpleTableDef("table",
+                new String[] { "name" }), rows);
+        final TwoSplitsDatastore datastore = new TwoSplitsDatastore(tableDataProvider, false);
+
+        final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl()
+                .replace(new MultiThreadedTaskRunner(4));
+
+        final AnalysisJob job;
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            builder.addSourceColumns("table.name");
+            builder.addAnalyzer(MockAnalyzer.class).addInputColumns(builder.getSourceColumns());
+            job = builder.toAnalysisJob();
+        }
+
+        final AnalysisResultFuture resultFuture = new AnalysisRunnerImpl(configuration).run(job);
+        resultFuture.await();
+        assertTrue(resultFuture.isSuccessful());
+
+        @SuppressWarnings("unchecked")
+        final ListResult<InputRow> result = (ListResult<InputRow>) resultFuture.getResults().get(0);
+        final List<Integer> ids = new ArrayList<Integer>();
+        for (InputRow row : result.getValues()) {
+            ids.add(row.getId());
+        }
+        Collections.sort(ids);
+
+        // each split assigns ids from its own half of the row id space
+        final int rangeStart = Integer.MAX_VALUE / 2;
+        assertEquals("[1, 2, 3, " + (rangeStart + 1) + ", " + (rangeStart + 2) + ", " + (rangeStart + 3) + "]",
+                ids.toString());
+    }
+
+    @AnalyzerBean("Slow analyzer")
+    public static class SlowAnalyzer extends MockAnalyzer {
+        @Override
+        public void run(InputRow row, int distinctCount) {
+            CONSUMING.incrementAndGet();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            super.run(row, distinctCount);
+            CONSUMED.incrementAndGet();
+            CONSUMING.decrementAndGet();
+        }
+    }
+
+    /**
+     * A datastore with two splits, where the first split yields the rows of
+     * the table and the second split either fails or yields the rows again.
+     */
+    private static class TwoSplitsDatastore extends PojoDatastore implements SplitReadableDatastore {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean _secondSplitFails;
+
+        public TwoSplitsDatastore(TableDataProvider<?> tableDataProvider, boolean secondSplitFails) {
+            super("ds", tableDataProvider);
+            _secondSplitFails = secondSplitFails;
+        }
+
+        @Override
+        public List<DataSetSplit> createSplits(final Query query, int maxSplits) {
+            final DataSetSplit split = new DataSetSplit() {
+                @Override
+                public DataSet read() {
+                    return openConnection().getDataContext().executeQuery(query);
+                }
+            };
+            if (!_secondSplitFails) {
+                return Arrays.asList(split, split);
+            }
+            final DataSetSplit failingSplit = new DataSetSplit() {
+                @Override
+                public DataSet read() {
+                    throw new IllegalStateException("Split failed");
+                }
+            };
+            return Arrays.asList(split, failingSplit);
+        }
+    }
+}
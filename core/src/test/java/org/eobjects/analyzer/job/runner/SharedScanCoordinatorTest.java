@@ -0,0 +1,172 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.job.runner;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.schema.Table;
+import org.eobjects.analyzer.beans.api.AnalyzerBean;
+import org.eobjects.analyzer.beans.api.Initialize;
+import org.eobjects.analyzer.beans.filter.MaxRowsFilter;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
+import org.eobjects.analyzer.configuration.AnalyzerBeansConfigurationImpl;
+import org.eobjects.analyzer.connection.Datastore;
+import org.eobjects.analyzer.data.InputColumn;
+import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.job.AnalysisJob;
+import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.AnalyzerJobBuilder;
+import org.eobjects.analyzer.job.builder.FilterJobBuilder;
+import org.eobjects.analyzer.job.concurrent.MultiThreadedTaskRunner;
+import org.eobjects.analyzer.result.ListResult;
+import org.eobjects.analyzer.test.MockAnalyzer;
+import org.eobjects.analyzer.test.TestHelper;
+
+public class SharedScanCoordinatorTest extends TestCase {
+
+    private final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
+    private final AnalyzerBeansConfiguration configuration = new AnalyzerBeansConfigurationImpl()
+            .replace(new MultiThreadedTaskRunner(4));
+
+    public void testConcurrentJobsOnSameTable() throws Exception {
+        final AnalysisJob job1 = createJob("EMPLOYEES.LASTNAME", null);
+        final AnalysisJob job2 = createJob("EMPLOYEES.EMPLOYEENUMBER", null);
+        final AnalysisJob job3 = createJob("EMPLOYEES.FIRSTNAME", 5);
+
+        final SharedScanCoordinator coordinator = new SharedScanCoordinator(60000);
+        final AnalysisRunner runner = new AnalysisRunnerImpl(configuration, null, coordinator);
+
+        // hold back the scan until all jobs have been started and announced
+        final Table table = job1.getSourceColumns().iterator().next().getPhysicalColumn().getTable();
+        final SharedScanCoordinator.ScanGroup announcement = coordinator.announce(datastore, table);
+
+        final AnalysisResultFuture result1 = runner.run(job1);
+        final AnalysisResultFuture result2 = runner.run(job2);
+        final AnalysisResultFuture result3 = runner.run(job3);
+
+        coordinator.withdraw(announcement);
+
+        assertRows(result1, "LASTNAME", String.class, 23);
+        assertRows(result2, "EMPLOYEENUMBER", Integer.class, 23);
+
+        // job 3 is paged, and therefore not part of the shared scan
+        assertRows(result3, "FIRSTNAME", String.class, 5);
+
+        assertEquals(1, coordinator.getScanCount());
+        assertEquals(2, coordinator.getParticipantCount());
+    }
+
+    public void testSharedScansAreOptIn() throws Exception {
+        final AnalysisRunner runner = new AnalysisRunnerImpl(configuration);
+        final AnalysisResultFuture result1 = runner.run(createJob("EMPLOYEES.LASTNAME", null));
+        final AnalysisResultFuture result2 = runner.run(createJob("EMPLOYEES.EMPLOYEENUMBER", null));
+
+        assertRows(result1, "LASTNAME", String.class, 23);
+        assertRows(result2, "EMPLOYEENUMBER", Integer.class, 23);
+    }
+
+    public void testFailingInitializationWithdrawsFromScan() throws Exception {
+        final AnalysisJob job1 = createJob("EMPLOYEES.LASTNAME", null);
+        final AnalysisJob job2;
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            builder.addSourceColumns("EMPLOYEES.FIRSTNAME");
+            builder.addAnalyzer(FailingInitAnalyzer.class).addInputColumns(builder.getSourceColumns());
+            job2 = builder.toAnalysisJob();
+        }
+
+        final SharedScanCoordinator coordinator = new SharedScanCoordinator(60000);
+        final AnalysisRunner runner = new AnalysisRunnerImpl(configuration, null, coordinator);
+
+        final long start = System.currentTimeMillis();
+        final AnalysisResultFuture result1 = runner.run(job1);
+        final AnalysisResultFuture result2 = runner.run(job2);
+
+        assertRows(result1, "LASTNAME", String.class, 23);
+        result2.await();
+        assertTrue(result2.isErrornous());
+
+        // the scan should not have waited for the failed job
+        assertTrue(System.currentTimeMillis() - start < 30000);
+        assertEquals(1, coordinator.getParticipantCount());
+    }
+
+    @AnalyzerBean("Failing init analyzer")
+    public static class FailingInitAnalyzer extends MockAnalyzer {
+        @Initialize
+        public void init() {
+            throw new IllegalStateException("Init failed");
+        }
+    }
+
+    public void testShareableDatastore() throws Exception {
+        assertFalse(SharedScanCoordinator.isShareable((Datastore) null));
+        assertTrue(SharedScanCoordinator.isShareable(datastore));
+    }
+
+    private void assertRows(AnalysisResultFuture resultFuture, String columnName, Class<?> valueClass,
+            int expectedRows) {
+        resultFuture.await();
+        if (resultFuture.isErrornous()) {
+            fail("Job failed: " + resultFuture.getErrors());
+        }
+
+        @SuppressWarnings("unchecked")
+        final ListResult<InputRow> result = (ListResult<InputRow>) resultFuture.getResults().get(0);
+        final List<InputRow> rows = result.getValues();
+        assertEquals(expectedRows, rows.size());
+
+        final Set<Integer> ids = new HashSet<Integer>();
+        for (InputRow row : rows) {
+            assertTrue(ids.add(row.getId()));
+
+            final List<InputColumn<?>> inputColumns = row.getInputColumns();
+            assertEquals(1, inputColumns.size());
+            assertEquals(columnName, inputColumns.get(0).getName());
+
+            final Object value = row.getValue(inputColumns.get(0));
+            assertNotNull(value);
+            assertEquals(valueClass, value.getClass());
+        }
+    }
+
+    private AnalysisJob createJob(String columnPath, Integer maxRows) {
+        try (AnalysisJobBuilder builder = new AnalysisJobBuilder(configuration)) {
+            builder.setDatastore(datastore);
+            builder.addSourceColumns(columnPath);
+
+            final AnalyzerJobBuilder<MockAnalyzer> analyzer = builder.addAnalyzer(MockAnalyzer.class);
+            analyzer.addInputColumns(builder.getSourceColumns());
+
+            if (maxRows != null) {
+                final FilterJobBuilder<MaxRowsFilter, MaxRowsFilter.Category> filter = builder
+                        .addFilter(MaxRowsFilter.class);
+                filter.setConfiguredProperty("Max rows", maxRows);
+                analyzer.setRequirement(filter, MaxRowsFilter.Category.VALID);
+            }
+
+            return builder.toAnalysisJob();
+        }
+    }
+}
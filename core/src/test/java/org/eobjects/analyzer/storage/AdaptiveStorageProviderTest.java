@@ -0,0 +1,161 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eobjects.analyzer.data.MockInputColumn;
+import org.eobjects.analyzer.data.MockInputRow;
+
+public class AdaptiveStorageProviderTest extends TestCase {
+
+	private final List<Object> _diskCollections = new ArrayList<Object>();
+
+	private final StorageProvider _diskStorageProvider = new StorageProvider() {
+		@Override
+		public <E> List<E> createList(Class<E> valueType) throws IllegalStateException {
+			List<E> list = new ArrayList<E>();
+			_diskCollections.add(list);
+			return list;
+		}
+
+		@Override
+		public <E> Set<E> createSet(Class<E> valueType) throws IllegalStateException {
+			Set<E> set = new HashSet<E>();
+			_diskCollections.add(set);
+			return set;
+		}
+
+		@Override
+		public <K, V> Map<K, V> createMap(Class<K> keyType, Class<V> valueType) throws IllegalStateException {
+			if (valueType == Object.class) {
+				throw new UnsupportedOperationException("Cannot provide collection of type " + valueType);
+			}
+			Map<K, V> map = new HashMap<K, V>();
+			_diskCollections.add(map);
+			return map;
+		}
+
+		@Override
+		public RowAnnotationFactory createRowAnnotationFactory() {
+			InMemoryRowAnnotationFactory rowAnnotationFactory = new InMemoryRowAnnotationFactory();
+			_diskCollections.add(rowAnnotationFactory);
+			return rowAnnotationFactory;
+		}
+	};
+
+	private final AdaptiveStorageProvider _storageProvider = new AdaptiveStorageProvider(_diskStorageProvider, 3, 1d);
+
+	public void testSpillList() throws Exception {
+		AdaptiveList<String> list = (AdaptiveList<String>) _storageProvider.createList(String.class);
+		list.add("a");
+		list.add("b");
+		list.add("c");
+		assertFalse(list.isSpilled());
+		assertTrue(_diskCollections.isEmpty());
+
+		list.add("d");
+		assertTrue(list.isSpilled());
+		assertEquals(1, _diskCollections.size());
+		assertEquals("[a, b, c, d]", _diskCollections.get(0).toString());
+		assertEquals("[a, b, c, d]", list.toString());
+
+		list.remove(0);
+		assertEquals("[b, c, d]", _diskCollections.get(0).toString());
+	}
+
+	public void testSpillSet() throws Exception {
+		AdaptiveSet<Integer> set = (AdaptiveSet<Integer>) _storageProvider.createSet(Integer.class);
+		set.addAll(Arrays.asList(1, 2, 3, 3, 3));
+		assertFalse(set.isSpilled());
+		assertEquals(3, set.size());
+
+		set.add(4);
+		assertTrue(set.isSpilled());
+		assertEquals(4, set.size());
+		assertTrue(set.contains(4));
+		assertEquals(HashSet.class, _diskCollections.get(0).getClass());
+		assertEquals(4, ((Set<?>) _diskCollections.get(0)).size());
+	}
+
+	public void testSpillMap() throws Exception {
+		AdaptiveMap<String, Integer> map = (AdaptiveMap<String, Integer>) _storageProvider.createMap(String.class,
+				Integer.class);
+		map.put("a", 1);
+		map.put("b", 2);
+		map.put("c", 3);
+		map.put("c", 4);
+		assertFalse(map.isSpilled());
+
+		map.put("d", 5);
+		assertTrue(map.isSpilled());
+		assertEquals(4, map.size());
+		assertEquals(4, map.get("c").intValue());
+		assertEquals(map, _diskCollections.get(0));
+	}
+
+	public void testKeepInMemoryWhenSpillFails() throws Exception {
+		AdaptiveMap<String, Object> map = (AdaptiveMap<String, Object>) _storageProvider.createMap(String.class,
+				Object.class);
+		for (int i = 0; i < 10; i++) {
+			map.put("key" + i, i);
+		}
+		assertFalse(map.isSpilled());
+		assertEquals(10, map.size());
+		assertTrue(_diskCollections.isEmpty());
+	}
+
+	public void testSpillRowAnnotations() throws Exception {
+		MockInputColumn<String> col = new MockInputColumn<String>("greeting", String.class);
+		RowAnnotationFactory rowAnnotationFactory = _storageProvider.createRowAnnotationFactory();
+		RowAnnotation annotation = rowAnnotationFactory.createAnnotation();
+
+		rowAnnotationFactory.annotate(new MockInputRow(1).put(col, "hello"), 1, annotation);
+		rowAnnotationFactory.annotate(new MockInputRow(2).put(col, "hi"), 2, annotation);
+		rowAnnotationFactory.annotate(new MockInputRow(3).put(col, "hello"), 1, annotation);
+		assertTrue(_diskCollections.isEmpty());
+
+		rowAnnotationFactory.annotate(new MockInputRow(4).put(col, "hello"), 1, annotation);
+		rowAnnotationFactory.annotate(new MockInputRow(5).put(col, "hey"), 1, annotation);
+		assertEquals(1, _diskCollections.size());
+		RowAnnotationFactory diskFactory = (RowAnnotationFactory) _diskCollections.get(0);
+		assertEquals(2, diskFactory.getRows(annotation).length);
+
+		assertEquals(6, annotation.getRowCount());
+		assertEquals(5, rowAnnotationFactory.getRows(annotation).length);
+		Map<Object, Integer> valueCounts = rowAnnotationFactory.getValueCounts(annotation, col);
+		assertEquals(3, valueCounts.size());
+		assertEquals(3, valueCounts.get("hello").intValue());
+		assertEquals(2, valueCounts.get("hi").intValue());
+		assertEquals(1, valueCounts.get("hey").intValue());
+
+		rowAnnotationFactory.reset(annotation);
+		assertEquals(0, annotation.getRowCount());
+		assertEquals(0, rowAnnotationFactory.getRows(annotation).length);
+	}
+}
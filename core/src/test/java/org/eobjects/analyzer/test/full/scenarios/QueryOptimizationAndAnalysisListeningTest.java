@@ -39,6 +39,7 @@ import org.eobjects.analyzer.job.runner.AnalysisResultFuture;
 import org.eobjects.analyzer.job.runner.AnalysisRunner;
 import org.eobjects.analyzer.job.runner.AnalysisRunnerImpl;
 import org.eobjects.analyzer.job.runner.RowProcessingMetrics;
+import org.eobjects.analyzer.job.runner.RowProcessingProgress;
 import org.eobjects.analyzer.test.MockAnalyzer;
 import org.eobjects.analyzer.test.TestHelper;
 
@@ -47,7 +48,7 @@ import junit.framework.TestCase;
 public class QueryOptimizationAndAnalysisListeningTest extends TestCase {
 
     public void testScenario() throws Exception {
-        final List<Integer> rowNumbers = new ArrayList<Integer>();
+        final List<RowProcessingProgress> progresses = new ArrayList<RowProcessingProgress>();
         final AtomicInteger expectedRows = new AtomicInteger();
 
         final Datastore datastore = TestHelper.createSampleDatabaseDatastore("orderdb");
@@ -61,8 +62,9 @@ public class QueryOptimizationAndAnalysisListeningTest extends TestCase {
             }
 
             @Override
-            public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics, int currentRow) {
-                rowNumbers.add(currentRow);
+            public void rowProcessingProgress(AnalysisJob job, RowProcessingMetrics metrics,
+                    RowProcessingProgress progress) {
+                progresses.add(progress);
             }
         };
 
@@ -90,6 +92,10 @@ public class QueryOptimizationAndAnalysisListeningTest extends TestCase {
         assertTrue(resultFuture.isSuccessful());
 
         assertEquals("10", expectedRows.toString());
-        assertEquals("[1, 2, 3, 4, 5, 6, 7, 8, 9, 10]", rowNumbers.toString());
+        final RowProcessingProgress finalProgress = progresses.get(progresses.size() - 1);
+        assertTrue(finalProgress.isFinished());
+        assertEquals(10, finalProgress.getProcessedRows());
+        assertEquals(10, finalProgress.getExpectedRows());
+        assertEquals(0, finalProgress.getEstimatedRemainingMillis());
     }
 }
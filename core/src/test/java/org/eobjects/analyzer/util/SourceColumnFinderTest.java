@@ -20,6 +20,7 @@
 package org.eobjects.analyzer.util;
 
 import java.util.List;
+import java.util.Set;
 
 import junit.framework.TestCase;
 
@@ -29,6 +30,8 @@ import org.eobjects.analyzer.customcolumn.Month;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.MockInputColumn;
 import org.eobjects.analyzer.job.builder.AnalysisJobBuilder;
+import org.eobjects.analyzer.job.builder.SingleInputColumnTransformer;
+import org.eobjects.analyzer.job.builder.TransformerJobBuilder;
 
 public class SourceColumnFinderTest extends TestCase {
 	
@@ -42,5 +45,31 @@ public class SourceColumnFinderTest extends TestCase {
 		assertEquals(1, findInputColumns.size());
 	}
 
+	public void testFindAllSourceJobsOfLongChain() throws Exception {
+		AnalysisJobBuilder analysisJobBuilder = new AnalysisJobBuilder(new AnalyzerBeansConfigurationImpl());
+
+		InputColumn<?> column = new MockInputColumn<String>("foo", String.class);
+		TransformerJobBuilder<?> first = null;
+		TransformerJobBuilder<?> last = null;
+		for (int i = 0; i < 200; i++) {
+			last = analysisJobBuilder.addTransformer(SingleInputColumnTransformer.class);
+			last.addInputColumn(column);
+			if (first == null) {
+				first = last;
+			}
+			column = last.getOutputColumns().get(0);
+		}
+
+		SourceColumnFinder columnFinder = new SourceColumnFinder();
+		columnFinder.addSources(analysisJobBuilder);
+
+		Set<Object> sourceJobs = columnFinder.findAllSourceJobs(last);
+		assertEquals(199, sourceJobs.size());
+		assertTrue(sourceJobs.contains(first));
+		assertFalse(sourceJobs.contains(last));
+
+		assertSame(last, columnFinder.findInputColumnSource(column));
+		assertSame(first, columnFinder.findInputColumnSource(first.getOutputColumns().get(1)));
+		assertTrue(columnFinder.findOriginatingColumns(column).isEmpty());
+	}
 }
- 
\ No newline at end of file
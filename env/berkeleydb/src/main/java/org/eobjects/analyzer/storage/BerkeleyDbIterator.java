@@ -0,0 +1,151 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.sleepycat.je.Cursor;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
+
+/**
+ * Iterator over the records of a Berkeley DB {@link Database}. Records are read
+ * in batches using a short-lived cursor, which is closed after each batch. This
+ * way abandoned iterators never leave cursors open (which would prevent the
+ * database from being closed), and modifications made while iterating are
+ * allowed.
+ * 
+ * @param <E>
+ *            the element type of the iterator
+ */
+abstract class BerkeleyDbIterator<E> implements Iterator<E> {
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final Database _database;
+	private final List<E> _batch;
+	private int _index;
+	private byte[] _lastKey;
+	private boolean _exhausted;
+	private E _current;
+	private boolean _removable;
+
+	public BerkeleyDbIterator(Database database) {
+		_database = database;
+		_batch = new ArrayList<E>();
+		_index = 0;
+		_lastKey = null;
+		_exhausted = false;
+		_removable = false;
+	}
+
+	/**
+	 * Creates an element of the iterator from a database record.
+	 * 
+	 * @param key
+	 * @param data
+	 * @return
+	 */
+	protected abstract E createElement(DatabaseEntry key, DatabaseEntry data);
+
+	/**
+	 * Removes an element, previously returned by this iterator, from the
+	 * underlying collection.
+	 * 
+	 * @param element
+	 */
+	protected abstract void removeElement(E element);
+
+	@Override
+	public boolean hasNext() {
+		if (_index < _batch.size()) {
+			return true;
+		}
+		if (_exhausted) {
+			return false;
+		}
+		fetchBatch();
+		return _index < _batch.size();
+	}
+
+	@Override
+	public E next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		_current = _batch.get(_index);
+		_index++;
+		_removable = true;
+		return _current;
+	}
+
+	@Override
+	public void remove() {
+		if (!_removable) {
+			throw new IllegalStateException();
+		}
+		_removable = false;
+		removeElement(_current);
+	}
+
+	private void fetchBatch() {
+		_batch.clear();
+		_index = 0;
+
+		final DatabaseEntry key = new DatabaseEntry();
+		final DatabaseEntry data = new DatabaseEntry();
+		try {
+			final Cursor cursor = _database.openCursor(null, null);
+			try {
+				OperationStatus status;
+				if (_lastKey == null) {
+					status = cursor.getFirst(key, data, LockMode.DEFAULT);
+				} else {
+					key.setData(_lastKey);
+					status = cursor.getSearchKeyRange(key, data, LockMode.DEFAULT);
+					if (status == OperationStatus.SUCCESS && Arrays.equals(_lastKey, key.getData())) {
+						status = cursor.getNext(key, data, LockMode.DEFAULT);
+					}
+				}
+
+				while (status == OperationStatus.SUCCESS && _batch.size() < BATCH_SIZE) {
+					_batch.add(createElement(key, data));
+					_lastKey = key.getData();
+					status = cursor.getNext(key, data, LockMode.DEFAULT);
+				}
+
+				if (status != OperationStatus.SUCCESS) {
+					_exhausted = true;
+				}
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
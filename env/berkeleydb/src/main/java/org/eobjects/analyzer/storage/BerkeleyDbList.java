@@ -49,9 +49,7 @@ final class BerkeleyDbList<E> extends AbstractList<E> implements List<E> {
 	
 	@Override
 	public E get(int index) {
-		if (!_wrappedMap.containsKey(index)) {
-			throw new IndexOutOfBoundsException();
-		}
+		checkIndex(index);
 		E element = _wrappedMap.get(index);
 		return element;
 	}
@@ -69,7 +67,7 @@ final class BerkeleyDbList<E> extends AbstractList<E> implements List<E> {
 
 	@Override
 	public void add(int index, E element) {
-		if (!_wrappedMap.containsKey(index)) {
+		if (index < 0 || index > _wrappedMap.size()) {
 			throw new IndexOutOfBoundsException();
 		}
 		for (int i = _wrappedMap.size(); i > index; i--) {
@@ -80,17 +78,13 @@ final class BerkeleyDbList<E> extends AbstractList<E> implements List<E> {
 
 	@Override
 	public E set(int index, E element) {
-		if (!_wrappedMap.containsKey(index)) {
-			throw new IndexOutOfBoundsException();
-		}
+		checkIndex(index);
 		return _wrappedMap.put(index, element);
 	};
 
 	@Override
 	public E remove(int index) {
-		if (!_wrappedMap.containsKey(index)) {
-			throw new IndexOutOfBoundsException();
-		}
+		checkIndex(index);
 		E element = _wrappedMap.get(index);
 		for (int i = index; i < _wrappedMap.size() - 1; i++) {
 			_wrappedMap.put(i, _wrappedMap.get(i + 1));
@@ -98,4 +92,11 @@ final class BerkeleyDbList<E> extends AbstractList<E> implements List<E> {
 		_wrappedMap.remove(_wrappedMap.size() - 1);
 		return element;
 	}
+
+	private void checkIndex(int index) {
+		// the size of the map is known without scanning the database
+		if (index < 0 || index >= _wrappedMap.size()) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
 }
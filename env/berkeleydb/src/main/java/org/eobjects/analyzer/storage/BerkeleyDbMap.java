@@ -19,30 +19,46 @@
  */
 package org.eobjects.analyzer.storage;
 
-import java.util.Collection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.sleepycat.collections.StoredMap;
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
 
-final class BerkeleyDbMap<K, V> implements Map<K, V> {
-
-	private static final Logger logger = LoggerFactory.getLogger(BerkeleyDbMap.class);
+/**
+ * Map implementation based on a Berkeley DB {@link Database}. Records are read
+ * and written directly through the database using tuple bindings, and the size
+ * of the map is tracked as it is modified, so that {@link #size()} does not
+ * need to scan the database.
+ * 
+ * @param <K>
+ * @param <V>
+ */
+final class BerkeleyDbMap<K, V> extends AbstractMap<K, V> implements Map<K, V> {
 
-	private final Map<K, V> _wrappedMap;
-	private final Database _database;
 	private final Environment _environment;
+	private final Database _database;
+	private final EntryBinding _keyBinding;
+	private final EntryBinding _valueBinding;
+	private final AtomicInteger _size;
 
-	@SuppressWarnings("unchecked")
-	public BerkeleyDbMap(Environment environment, Database database, StoredMap map) {
+	public BerkeleyDbMap(Environment environment, Database database, EntryBinding keyBinding,
+			EntryBinding valueBinding) {
 		_environment = environment;
 		_database = database;
-		_wrappedMap = map;
+		_keyBinding = keyBinding;
+		_valueBinding = valueBinding;
+		_size = new AtomicInteger();
 	}
 
 	@Override
@@ -55,82 +71,171 @@ final class BerkeleyDbMap<K, V> implements Map<K, V> {
 
 	@Override
 	public int size() {
-		return _wrappedMap.size();
+		return _size.get();
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return _wrappedMap.isEmpty();
+		return size() == 0;
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
-		return _wrappedMap.containsKey(key);
-	}
-
-	@Override
-	public boolean containsValue(Object value) {
-		return _wrappedMap.containsValue(value);
+		final DatabaseEntry keyEntry = createKeyEntry(key);
+		final DatabaseEntry valueEntry = new DatabaseEntry();
+		valueEntry.setPartial(0, 0, true);
+		try {
+			return _database.get(null, keyEntry, valueEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS;
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	@Override
 	public V get(Object key) {
+		final DatabaseEntry keyEntry = createKeyEntry(key);
+		final DatabaseEntry valueEntry = new DatabaseEntry();
 		try {
-			return _wrappedMap.get(key);
-		} catch (ArrayIndexOutOfBoundsException e) {
-			logger.warn("get('{}') threw exception: {}", key, e.getMessage());
-			logger.warn("Swallowing exception, returning null", e);
-			// there's a bug in berkeley that sometime causes this exception
-			// when the value is null!
+			if (_database.get(null, keyEntry, valueEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+				return toValue(valueEntry);
+			}
 			return null;
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
 		}
 	}
 
 	@Override
 	public V put(K key, V value) {
-		return _wrappedMap.put(key, value);
-	}
-
-	@Override
-	public V remove(Object key) {
-		return _wrappedMap.remove(key);
+		final DatabaseEntry keyEntry = createKeyEntry(key);
+		final DatabaseEntry valueEntry = createValueEntry(value);
+		try {
+			// the common case of a new key requires just a single operation
+			if (_database.putNoOverwrite(null, keyEntry, valueEntry) == OperationStatus.SUCCESS) {
+				_size.incrementAndGet();
+				return null;
+			}
+			final DatabaseEntry previousEntry = new DatabaseEntry();
+			_database.get(null, keyEntry, previousEntry, LockMode.DEFAULT);
+			_database.put(null, keyEntry, valueEntry);
+			return toValue(previousEntry);
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
+	/**
+	 * Bulk loads a number of entries into the map. Previous values are not
+	 * read, and the database entries are reused for all records.
+	 */
 	@Override
 	public void putAll(Map<? extends K, ? extends V> m) {
-		_wrappedMap.putAll(m);
-	}
-
-	@Override
-	public void clear() {
-		_wrappedMap.clear();
+		final DatabaseEntry keyEntry = new DatabaseEntry();
+		final DatabaseEntry valueEntry = new DatabaseEntry();
+		try {
+			for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+				_keyBinding.objectToEntry(entry.getKey(), keyEntry);
+				_valueBinding.objectToEntry(entry.getValue(), valueEntry);
+				if (_database.putNoOverwrite(null, keyEntry, valueEntry) == OperationStatus.SUCCESS) {
+					_size.incrementAndGet();
+				} else {
+					_database.put(null, keyEntry, valueEntry);
+				}
+			}
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	@Override
-	public Set<K> keySet() {
-		return _wrappedMap.keySet();
+	public V remove(Object key) {
+		final DatabaseEntry keyEntry = createKeyEntry(key);
+		final DatabaseEntry valueEntry = new DatabaseEntry();
+		try {
+			if (_database.get(null, keyEntry, valueEntry, LockMode.DEFAULT) != OperationStatus.SUCCESS) {
+				return null;
+			}
+			if (_database.delete(null, keyEntry) == OperationStatus.SUCCESS) {
+				_size.decrementAndGet();
+			}
+			return toValue(valueEntry);
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	@Override
-	public Collection<V> values() {
-		return _wrappedMap.values();
+	public void clear() {
+		final DatabaseEntry keyEntry = new DatabaseEntry();
+		final DatabaseEntry valueEntry = new DatabaseEntry();
+		valueEntry.setPartial(0, 0, true);
+		try {
+			final Cursor cursor = _database.openCursor(null, null);
+			try {
+				while (cursor.getNext(keyEntry, valueEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+					if (cursor.delete() == OperationStatus.SUCCESS) {
+						_size.decrementAndGet();
+					}
+				}
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	@Override
-	public Set<java.util.Map.Entry<K, V>> entrySet() {
-		return _wrappedMap.entrySet();
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				return new BerkeleyDbIterator<Entry<K, V>>(_database) {
+					@Override
+					protected Entry<K, V> createElement(DatabaseEntry key, DatabaseEntry data) {
+						final K k = toKey(key);
+						final V v = toValue(data);
+						return new SimpleImmutableEntry<K, V>(k, v);
+					}
+
+					@Override
+					protected void removeElement(Entry<K, V> element) {
+						BerkeleyDbMap.this.remove(element.getKey());
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return BerkeleyDbMap.this.size();
+			}
+
+			@Override
+			public void clear() {
+				BerkeleyDbMap.this.clear();
+			}
+		};
+	}
+
+	private DatabaseEntry createKeyEntry(Object key) {
+		final DatabaseEntry entry = new DatabaseEntry();
+		_keyBinding.objectToEntry(key, entry);
+		return entry;
+	}
+
+	private DatabaseEntry createValueEntry(Object value) {
+		final DatabaseEntry entry = new DatabaseEntry();
+		_valueBinding.objectToEntry(value, entry);
+		return entry;
 	}
 
-	@Override
-	public boolean equals(Object o) {
-		if (o == this) {
-			return true;
-		}
-		return _wrappedMap.equals(o);
+	@SuppressWarnings("unchecked")
+	private K toKey(DatabaseEntry entry) {
+		return (K) _keyBinding.entryToObject(entry);
 	}
 
-	@Override
-	public int hashCode() {
-		return _wrappedMap.hashCode();
+	@SuppressWarnings("unchecked")
+	private V toValue(DatabaseEntry entry) {
+		return (V) _valueBinding.entryToObject(entry);
 	}
 }
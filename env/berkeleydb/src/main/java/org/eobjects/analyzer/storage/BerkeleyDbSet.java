@@ -19,29 +19,43 @@
  */
 package org.eobjects.analyzer.storage;
 
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.sleepycat.collections.StoredKeySet;
+import com.sleepycat.bind.EntryBinding;
+import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
+import com.sleepycat.je.LockMode;
+import com.sleepycat.je.OperationStatus;
 
-final class BerkeleyDbSet<E> implements Set<E> {
+/**
+ * Set implementation based on a Berkeley DB {@link Database}, where the
+ * elements are stored as keys with empty data. The size of the set is tracked
+ * as it is modified, so that {@link #size()} does not need to scan the
+ * database.
+ * 
+ * @param <E>
+ */
+final class BerkeleyDbSet<E> extends AbstractSet<E> implements Set<E> {
+
+	private static final byte[] EMPTY_DATA = new byte[0];
 
-	private final Set<E> _wrappedSet;
 	private final Environment _environment;
 	private final Database _database;
+	private final EntryBinding _binding;
+	private final AtomicInteger _size;
 
-	@SuppressWarnings("unchecked")
-	public BerkeleyDbSet(Environment environment, Database database, StoredKeySet set) {
+	public BerkeleyDbSet(Environment environment, Database database, EntryBinding binding) {
 		_environment = environment;
 		_database = database;
-		_wrappedSet = set;
-	}
-
-	public Set<E> getWrappedSet() {
-		return _wrappedSet;
+		_binding = binding;
+		_size = new AtomicInteger();
 	}
 
 	@Override
@@ -52,63 +66,119 @@ final class BerkeleyDbSet<E> implements Set<E> {
 		_environment.removeDatabase(null, name);
 	}
 
+	@Override
 	public int size() {
-		return _wrappedSet.size();
+		return _size.get();
 	}
 
+	@Override
 	public boolean isEmpty() {
-		return _wrappedSet.isEmpty();
+		return size() == 0;
 	}
 
+	@Override
 	public boolean contains(Object o) {
-		return _wrappedSet.contains(o);
-	}
-
-	public Iterator<E> iterator() {
-		return _wrappedSet.iterator();
-	}
-
-	public Object[] toArray() {
-		return _wrappedSet.toArray();
-	}
-
-	public <T> T[] toArray(T[] a) {
-		return _wrappedSet.toArray(a);
+		final DatabaseEntry keyEntry = createKeyEntry(o);
+		final DatabaseEntry dataEntry = new DatabaseEntry();
+		dataEntry.setPartial(0, 0, true);
+		try {
+			return _database.get(null, keyEntry, dataEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS;
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
+	@Override
 	public boolean add(E e) {
-		return _wrappedSet.add(e);
-	}
-
-	public boolean remove(Object o) {
-		return _wrappedSet.remove(o);
-	}
-
-	public boolean containsAll(Collection<?> c) {
-		return _wrappedSet.containsAll(c);
-	}
-
+		final DatabaseEntry keyEntry = createKeyEntry(e);
+		final DatabaseEntry dataEntry = new DatabaseEntry(EMPTY_DATA);
+		try {
+			if (_database.putNoOverwrite(null, keyEntry, dataEntry) == OperationStatus.SUCCESS) {
+				_size.incrementAndGet();
+				return true;
+			}
+			return false;
+		} catch (DatabaseException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Bulk loads a number of elements into the set, reusing the database
+	 * entries for all records.
+	 */
+	@Override
 	public boolean addAll(Collection<? extends E> c) {
-		return _wrappedSet.addAll(c);
-	}
-
-	public boolean retainAll(Collection<?> c) {
-		return _wrappedSet.retainAll(c);
+		final DatabaseEntry keyEntry = new DatabaseEntry();
+		final DatabaseEntry dataEntry = new DatabaseEntry(EMPTY_DATA);
+		boolean changed = false;
+		try {
+			for (E e : c) {
+				_binding.objectToEntry(e, keyEntry);
+				if (_database.putNoOverwrite(null, keyEntry, dataEntry) == OperationStatus.SUCCESS) {
+					_size.incrementAndGet();
+					changed = true;
+				}
+			}
+		} catch (DatabaseException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return changed;
 	}
 
-	public boolean removeAll(Collection<?> c) {
-		return _wrappedSet.removeAll(c);
+	@Override
+	public boolean remove(Object o) {
+		try {
+			if (_database.delete(null, createKeyEntry(o)) == OperationStatus.SUCCESS) {
+				_size.decrementAndGet();
+				return true;
+			}
+			return false;
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
+	@Override
 	public void clear() {
-		_wrappedSet.clear();
+		final DatabaseEntry keyEntry = new DatabaseEntry();
+		final DatabaseEntry dataEntry = new DatabaseEntry();
+		dataEntry.setPartial(0, 0, true);
+		try {
+			final Cursor cursor = _database.openCursor(null, null);
+			try {
+				while (cursor.getNext(keyEntry, dataEntry, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+					if (cursor.delete() == OperationStatus.SUCCESS) {
+						_size.decrementAndGet();
+					}
+				}
+			} finally {
+				cursor.close();
+			}
+		} catch (DatabaseException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
-	public boolean equals(Object o) {
-		return _wrappedSet.equals(o);
-	}
-
-	public int hashCode() {
-		return _wrappedSet.hashCode();
+	@Override
+	public Iterator<E> iterator() {
+		return new BerkeleyDbIterator<E>(_database) {
+			@SuppressWarnings("unchecked")
+			@Override
+			protected E createElement(DatabaseEntry key, DatabaseEntry data) {
+				return (E) _binding.entryToObject(key);
+			}
+
+			@Override
+			protected void removeElement(E element) {
+				BerkeleyDbSet.this.remove(element);
+			}
+		};
+	}
+
+	private DatabaseEntry createKeyEntry(Object o) {
+		final DatabaseEntry entry = new DatabaseEntry();
+		_binding.objectToEntry(o, entry);
+		return entry;
 	}
 }
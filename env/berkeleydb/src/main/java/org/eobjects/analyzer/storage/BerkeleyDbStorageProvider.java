@@ -40,8 +40,6 @@ import com.sleepycat.bind.tuple.IntegerBinding;
 import com.sleepycat.bind.tuple.LongBinding;
 import com.sleepycat.bind.tuple.ShortBinding;
 import com.sleepycat.bind.tuple.StringBinding;
-import com.sleepycat.collections.StoredKeySet;
-import com.sleepycat.collections.StoredMap;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.DatabaseException;
@@ -51,18 +49,38 @@ import com.sleepycat.je.EnvironmentConfig;
 /**
  * Berkeley DB based implementation of the {@link StorageProvider} interface.
  * 
+ * Since the stored data is temporary, the environment is non-transactional and
+ * the databases use deferred writes, meaning that records are only written to
+ * the log when they are evicted from the cache, and never synced to disk. The
+ * size of the cache can be configured to suit the available memory.
+ * 
  * 
  */
 public final class BerkeleyDbStorageProvider implements StorageProvider {
 
 	private static final String DIRECTORY_PREFIX = "analyzerBeans_";
+	private static final long LOG_FILE_MAX_BYTES = 100 * 1024 * 1024;
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	private final File _parentDirectory;
+	private final long _cacheSize;
 	private File _targetDir;
 	private Environment _environment;
 	private boolean _deleteOnExit = false;
 
 	public BerkeleyDbStorageProvider(File parentDirectory) {
+		this(parentDirectory, 0);
+	}
+
+	/**
+	 * Creates a Berkeley DB storage provider
+	 * 
+	 * @param parentDirectory
+	 *            the directory in which to create the database files
+	 * @param cacheSize
+	 *            the size of the Berkeley DB cache in bytes, or 0 to use the
+	 *            Berkeley DB default (a percentage of the max heap size)
+	 */
+	public BerkeleyDbStorageProvider(File parentDirectory, long cacheSize) {
 		if (!parentDirectory.exists()) {
 			if (!parentDirectory.mkdirs()) {
 				throw new IllegalArgumentException(
@@ -70,12 +88,17 @@ public final class BerkeleyDbStorageProvider implements StorageProvider {
 			}
 		}
 		_parentDirectory = parentDirectory;
+		_cacheSize = cacheSize;
 	}
 
 	public File getParentDirectory() {
 		return _parentDirectory;
 	}
 
+	public long getCacheSize() {
+		return _cacheSize;
+	}
+
 	@Override
 	protected void finalize() throws Throwable {
 		super.finalize();
@@ -146,6 +169,12 @@ public final class BerkeleyDbStorageProvider implements StorageProvider {
 		if (_environment == null) {
 			EnvironmentConfig config = new EnvironmentConfig();
 			config.setAllowCreate(true);
+			config.setTransactional(false);
+			if (_cacheSize > 0) {
+				config.setCacheSize(_cacheSize);
+			}
+			// fewer, larger log files
+			config.setConfigParam("je.log.fileMax", Long.toString(LOG_FILE_MAX_BYTES));
 			File targetDir = getTargetDir();
 			_environment = new Environment(targetDir, config);
 		}
@@ -196,6 +225,10 @@ public final class BerkeleyDbStorageProvider implements StorageProvider {
 	private Database createDatabase() throws DatabaseException {
 		DatabaseConfig databaseConfig = new DatabaseConfig();
 		databaseConfig.setAllowCreate(true);
+		databaseConfig.setTransactional(false);
+		// the data is temporary, so there's no need to write it to the log
+		// before it is evicted from the cache
+		databaseConfig.setDeferredWrite(true);
 		String databaseName = UUID.randomUUID().toString();
 		Database database = getEnvironment().openDatabase(null, databaseName,
 				databaseConfig);
@@ -217,10 +250,8 @@ public final class BerkeleyDbStorageProvider implements StorageProvider {
 	public <E> BerkeleyDbSet<E> createSet(Class<E> valueType)
 			throws IllegalStateException {
 		try {
-			Database database = createDatabase();
-			StoredKeySet set = new StoredKeySet(database,
-					createBinding(valueType), true);
-			return new BerkeleyDbSet<E>(getEnvironment(), database, set);
+			final Database database = createDatabase();
+			return new BerkeleyDbSet<E>(getEnvironment(), database, createBinding(valueType));
 		} catch (DatabaseException e) {
 			throw new IllegalStateException(e);
 		}
@@ -233,9 +264,8 @@ public final class BerkeleyDbStorageProvider implements StorageProvider {
 			final EntryBinding keyBinding = createBinding(keyType);
 			final EntryBinding valueBinding = createBinding(valueType);
 			final Database database = createDatabase();
-			final StoredMap map = new StoredMap(database, keyBinding,
-					valueBinding, true);
-			return new BerkeleyDbMap<K, V>(getEnvironment(), database, map);
+			return new BerkeleyDbMap<K, V>(getEnvironment(), database,
+					keyBinding, valueBinding);
 		} catch (DatabaseException e) {
 			throw new IllegalStateException(e);
 		}
@@ -20,7 +20,10 @@
 package org.eobjects.analyzer.storage;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import junit.framework.TestCase;
 
@@ -42,4 +45,44 @@ public class BerkeleyDbMapTest extends TestCase {
 		assertNull(map.get(3));
 
 	}
+
+	public void testSizeAndIteration() throws Exception {
+		BerkeleyDbStorageProvider sp = new BerkeleyDbStorageProvider(new File("target"));
+		Map<String, Integer> map = sp.createMap(String.class, Integer.class);
+
+		Map<String, Integer> values = new HashMap<String, Integer>();
+		for (int i = 0; i < 2500; i++) {
+			values.put("key" + i, i);
+		}
+		map.putAll(values);
+		assertEquals(2500, map.size());
+
+		assertNull(map.put("foo", 1));
+		assertEquals(1, map.put("foo", 2).intValue());
+		assertEquals(2501, map.size());
+
+		assertEquals(2, map.remove("foo").intValue());
+		assertNull(map.remove("foo"));
+		assertEquals(2500, map.size());
+
+		int count = 0;
+		Iterator<Entry<String, Integer>> it = map.entrySet().iterator();
+		while (it.hasNext()) {
+			Entry<String, Integer> entry = it.next();
+			assertEquals(values.get(entry.getKey()), entry.getValue());
+			if (entry.getValue().intValue() % 2 == 0) {
+				it.remove();
+			}
+			count++;
+		}
+		assertEquals(2500, count);
+		assertEquals(1250, map.size());
+		assertFalse(map.containsKey("key2"));
+		assertTrue(map.containsKey("key3"));
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertTrue(map.isEmpty());
+		assertFalse(map.entrySet().iterator().hasNext());
+	}
 }
@@ -24,26 +24,51 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.AbstractMap;
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eobjects.analyzer.util.CollectionUtils2;
 
+/**
+ * Map implementation backed by a table in an SQL database.
+ * 
+ * Writes are buffered and flushed to the database in JDBC batches, and reads
+ * go through a small cache of recently used entries. Cache hits do not lock,
+ * while the write buffers and the statements (which all share a single
+ * connection) are guarded by one lock.
+ */
 final class SqlDatabaseMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, SqlDatabaseCollection {
 
+    private static final int BATCH_SIZE = 500;
+    private static final Object NOT_FOUND = new Object();
+
     private final Map<K, V> _cache = CollectionUtils2.<K, V> createCache(1000, 60).asMap();
-    
+
     private final Connection _connection;
     private final String _tableName;
+    private final Lock _lock;
     private final PreparedStatement _getPreparedStatement;
     private final PreparedStatement _updatePreparedStatement;
     private final PreparedStatement _insertPreparedStatement;
-    private volatile int _size;
+    private final PreparedStatement _deletePreparedStatement;
+    private final Map<K, V> _pendingInserts;
+    private final Map<K, V> _pendingUpdates;
+    private final AtomicInteger _size;
 
     public SqlDatabaseMap(Connection connection, String tableName, String keyTypeName, String valueTypeName) {
         _connection = connection;
         _tableName = tableName;
+        _lock = new ReentrantLock();
+        _pendingInserts = new LinkedHashMap<K, V>();
+        _pendingUpdates = new LinkedHashMap<K, V>();
+        _size = new AtomicInteger();
 
         SqlDatabaseUtils.performUpdate(_connection, SqlDatabaseUtils.CREATE_TABLE_PREFIX + tableName + " (map_key "
                 + keyTypeName + " PRIMARY KEY, map_value " + valueTypeName + ")");
@@ -54,6 +79,8 @@ final class SqlDatabaseMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
             _updatePreparedStatement = _connection.prepareStatement("UPDATE " + _tableName
                     + " SET map_value = ? WHERE map_key = ?;");
             _insertPreparedStatement = _connection.prepareStatement("INSERT INTO  " + _tableName + " VALUES (?,?);");
+            _deletePreparedStatement = _connection.prepareStatement("DELETE FROM " + _tableName
+                    + " WHERE map_key = ?;");
         } catch (SQLException e) {
             throw new IllegalStateException(e);
         }
@@ -61,150 +88,284 @@ final class SqlDatabaseMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
 
     @Override
     public int size() {
-        return _size;
+        return _size.get();
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized V get(Object key) {
-        V v = _cache.get(key);
-        if (v != null) {
-            return v;
+    public V get(Object key) {
+        final Object value = lookup(key);
+        if (value == NOT_FOUND) {
+            return null;
         }
+        return (V) value;
+    }
 
-        ResultSet rs = null;
+    @Override
+    public boolean containsKey(Object key) {
+        return lookup(key) != NOT_FOUND;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        _lock.lock();
         try {
-            _getPreparedStatement.setObject(1, key);
-            rs = _getPreparedStatement.executeQuery();
-            if (rs.next()) {
-                return (V) rs.getObject(1);
+            final Object previous = lookup(key);
+            if (previous == NOT_FOUND) {
+                _pendingInserts.put(key, value);
+                _size.incrementAndGet();
+            } else if (_pendingInserts.containsKey(key)) {
+                _pendingInserts.put(key, value);
+            } else {
+                _pendingUpdates.put(key, value);
             }
-            return null;
+            cache(key, value);
+
+            if (_pendingInserts.size() + _pendingUpdates.size() >= BATCH_SIZE) {
+                flush();
+            }
+
+            if (previous == NOT_FOUND) {
+                return null;
+            }
+            return (V) previous;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        _lock.lock();
+        try {
+            final Object previous = lookup(key);
+            if (previous == NOT_FOUND) {
+                return null;
+            }
+
+            if (_pendingInserts.containsKey(key)) {
+                // never written to the database
+                _pendingInserts.remove(key);
+            } else {
+                _pendingUpdates.remove(key);
+                _deletePreparedStatement.setObject(1, key);
+                _deletePreparedStatement.executeUpdate();
+            }
+            _size.decrementAndGet();
+            _cache.remove(key);
+
+            return (V) previous;
         } catch (SQLException e) {
             throw new IllegalStateException(e);
         } finally {
-            SqlDatabaseUtils.safeClose(rs, null);
+            _lock.unlock();
         }
     }
 
     @Override
-    public synchronized boolean containsKey(Object key) {
-        if (_cache.containsKey(key)) {
-            return true;
-        }
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return createEntryIterator();
+            }
 
-        ResultSet rs = null;
-        PreparedStatement st = null;
+            @Override
+            public int size() {
+                return SqlDatabaseMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public String getTableName() {
+        return _tableName;
+    }
+
+    /**
+     * Writes all buffered modifications to the database.
+     */
+    public void flush() {
+        _lock.lock();
         try {
-            st = _connection.prepareStatement("SELECT COUNT(*) FROM  " + _tableName + " WHERE map_key = ?");
-            st.setObject(1, key);
-            rs = st.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            if (!_pendingInserts.isEmpty()) {
+                for (Entry<K, V> entry : _pendingInserts.entrySet()) {
+                    _insertPreparedStatement.setObject(1, entry.getKey());
+                    _insertPreparedStatement.setObject(2, entry.getValue());
+                    _insertPreparedStatement.addBatch();
+                }
+                _insertPreparedStatement.executeBatch();
+                _pendingInserts.clear();
+            }
+            if (!_pendingUpdates.isEmpty()) {
+                for (Entry<K, V> entry : _pendingUpdates.entrySet()) {
+                    _updatePreparedStatement.setObject(1, entry.getValue());
+                    _updatePreparedStatement.setObject(2, entry.getKey());
+                    _updatePreparedStatement.addBatch();
+                }
+                _updatePreparedStatement.executeBatch();
+                _pendingUpdates.clear();
             }
-            return false;
         } catch (SQLException e) {
             throw new IllegalStateException(e);
         } finally {
-            SqlDatabaseUtils.safeClose(rs, st);
+            _lock.unlock();
         }
     }
 
-    public synchronized V put(K key, V value) {
+    /**
+     * Looks up the value of a key, first in the cache, then in the buffered
+     * modifications and finally in the database.
+     * 
+     * @param key
+     * @return the value of the key, or {@link #NOT_FOUND} if the map does not
+     *         contain the key.
+     */
+    private Object lookup(Object key) {
+        final V cachedValue = _cache.get(key);
+        if (cachedValue != null) {
+            return cachedValue;
+        }
+
+        _lock.lock();
+        ResultSet rs = null;
         try {
-            final V v;
-            if (containsKey(key)) {
-                v = get(key);
-                _updatePreparedStatement.setObject(1, value);
-                _updatePreparedStatement.setObject(2, key);
-                _updatePreparedStatement.executeUpdate();
-            } else {
-                _insertPreparedStatement.setObject(1, key);
-                _insertPreparedStatement.setObject(2, value);
-                _insertPreparedStatement.executeUpdate();
-                _size++;
-                v = null;
+            if (_pendingInserts.containsKey(key)) {
+                return _pendingInserts.get(key);
             }
-            _cache.put(key, value);
-            return v;
+            if (_pendingUpdates.containsKey(key)) {
+                return _pendingUpdates.get(key);
+            }
+
+            _getPreparedStatement.setObject(1, key);
+            rs = _getPreparedStatement.executeQuery();
+            if (rs.next()) {
+                final Object value = rs.getObject(1);
+                @SuppressWarnings("unchecked")
+                final K k = (K) key;
+                @SuppressWarnings("unchecked")
+                final V v = (V) value;
+                cache(k, v);
+                return value;
+            }
+            return NOT_FOUND;
         } catch (SQLException e) {
             throw new IllegalStateException(e);
+        } finally {
+            SqlDatabaseUtils.safeClose(rs, null);
+            _lock.unlock();
         }
-    };
+    }
 
-    @Override
-    public synchronized V remove(Object key) {
-        if (containsKey(key)) {
-            V result = get(key);
-            PreparedStatement st = null;
-            try {
-                st = _connection.prepareStatement("DELETE FROM " + _tableName + " WHERE map_key = ?");
-                st.setObject(1, key);
-                st.executeUpdate();
-                _size--;
-            } catch (SQLException e) {
-                throw new IllegalStateException(e);
-            } finally {
-                SqlDatabaseUtils.safeClose(null, st);
-            }
+    private void cache(K key, V value) {
+        if (value == null) {
+            // the cache does not support null values
             _cache.remove(key);
-            return result;
+        } else {
+            _cache.put(key, value);
         }
-        return null;
     }
 
-    @Override
-    public synchronized Set<java.util.Map.Entry<K, V>> entrySet() {
+    private Iterator<Entry<K, V>> createEntryIterator() {
+        flush();
+
         PreparedStatement st = null;
         ResultSet rs = null;
         try {
-            Set<Entry<K, V>> result = new HashSet<Map.Entry<K, V>>();
-            st = _connection.prepareStatement("SELECT map_key FROM " + _tableName + " ORDER BY map_key ASC;");
+            st = _connection.prepareStatement("SELECT map_key, map_value FROM " + _tableName
+                    + " ORDER BY map_key ASC;");
             rs = st.executeQuery();
-            while (rs.next()) {
-                @SuppressWarnings("unchecked")
-                K key = (K) rs.getObject(1);
-                result.add(new SqlDatabaseEntry(key));
-            }
-            return result;
+            return new SqlDatabaseEntryIterator(rs, st);
         } catch (SQLException e) {
-            throw new IllegalStateException(e);
-        } finally {
             SqlDatabaseUtils.safeClose(rs, st);
+            throw new IllegalStateException(e);
         }
     }
 
-    @Override
-    public String getTableName() {
-        return _tableName;
-    }
+    /**
+     * Iterator which streams keys and values from a single query.
+     */
+    private class SqlDatabaseEntryIterator implements Iterator<Entry<K, V>> {
 
-    private class SqlDatabaseEntry implements Entry<K, V> {
+        private final ResultSet _rs;
+        private final PreparedStatement _st;
+        private boolean _hasNext;
+        private SqlDatabaseEntry _current;
+        private SqlDatabaseEntry _next;
+
+        public SqlDatabaseEntryIterator(ResultSet rs, PreparedStatement st) {
+            _rs = rs;
+            _st = st;
+            moveNext();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void moveNext() {
+            try {
+                _current = _next;
+                _hasNext = _rs.next();
+                if (_hasNext) {
+                    _next = new SqlDatabaseEntry((K) _rs.getObject(1), (V) _rs.getObject(2));
+                } else {
+                    _next = null;
+                    SqlDatabaseUtils.safeClose(_rs, _st);
+                }
+            } catch (SQLException e) {
+                SqlDatabaseUtils.safeClose(_rs, _st);
+                throw new IllegalStateException(e);
+            }
+        }
 
-        private final K _key;
+        @Override
+        public boolean hasNext() {
+            return _hasNext;
+        }
 
-        public SqlDatabaseEntry(K key) {
-            _key = key;
+        @Override
+        public Entry<K, V> next() {
+            if (!_hasNext) {
+                throw new NoSuchElementException();
+            }
+            moveNext();
+            return _current;
         }
 
         @Override
-        public K getKey() {
-            return _key;
+        public void remove() {
+            if (_current == null) {
+                throw new IllegalStateException();
+            }
+            SqlDatabaseMap.this.remove(_current.getKey());
         }
 
         @Override
-        public V getValue() {
-            return get(_key);
+        protected void finalize() throws Throwable {
+            super.finalize();
+            if (_hasNext) {
+                SqlDatabaseUtils.safeClose(_rs, _st);
+            }
+        }
+    }
+
+    private class SqlDatabaseEntry extends SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        public SqlDatabaseEntry(K key, V value) {
+            super(key, value);
         }
 
         @Override
         public V setValue(V value) {
-            return put(_key, value);
+            super.setValue(value);
+            return put(getKey(), value);
         }
 
         @Override
         public int hashCode() {
-            return _key.hashCode();
+            return getKey().hashCode();
         }
     }
 
@@ -25,68 +25,100 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Set implementation backed by a table in an SQL database.
+ * 
+ * Added elements are buffered and flushed to the database in JDBC batches. The
+ * statements are prepared when they are first needed. The write buffer and the
+ * statements (which all share a single connection) are guarded by one lock.
+ */
 final class SqlDatabaseSet<E> extends AbstractSet<E> implements Set<E>, SqlDatabaseCollection {
 
+	private static final int BATCH_SIZE = 500;
+
 	private final Connection _connection;
 	private final String _tableName;
-	private volatile int _size;
+	private final Lock _lock;
+	private PreparedStatement _containsPreparedStatement;
+	private PreparedStatement _insertPreparedStatement;
+	private PreparedStatement _deletePreparedStatement;
+	private final Set<E> _pendingInserts;
+	private final AtomicInteger _size;
 
 	public SqlDatabaseSet(Connection connection, String tableName, String valueTypeName) {
 		_connection = connection;
 		_tableName = tableName;
+		_lock = new ReentrantLock();
+		_pendingInserts = new LinkedHashSet<E>();
+		_size = new AtomicInteger();
 
 		SqlDatabaseUtils.performUpdate(_connection, SqlDatabaseUtils.CREATE_TABLE_PREFIX + tableName + " (set_value " + valueTypeName
 				+ " PRIMARY KEY)");
 	}
 
-	public synchronized boolean add(E elem) {
-		if (contains(elem)) {
-			return false;
-		}
-		PreparedStatement st = null;
+	public boolean add(E elem) {
+		_lock.lock();
 		try {
-			st = _connection.prepareStatement("INSERT INTO " + _tableName + " VALUES(?)");
-			st.setObject(1, elem);
-			st.executeUpdate();
-			_size++;
+			if (contains(elem)) {
+				return false;
+			}
+
+			_pendingInserts.add(elem);
+			_size.incrementAndGet();
+			if (_pendingInserts.size() >= BATCH_SIZE) {
+				flush();
+			}
 			return true;
-		} catch (SQLException e) {
-			throw new IllegalStateException(e);
 		} finally {
-			SqlDatabaseUtils.safeClose(null, st);
+			_lock.unlock();
 		}
 	};
 
 	@Override
 	public boolean remove(Object o) {
-		if (!contains(o)) {
-			return false;
-		}
-
-		PreparedStatement st = null;
+		_lock.lock();
 		try {
-			st = _connection.prepareStatement("DELETE FROM " + _tableName + " WHERE set_value=?");
-			st.setObject(1, o);
-			st.executeUpdate();
-			_size--;
+			if (!contains(o)) {
+				return false;
+			}
+
+			if (!_pendingInserts.remove(o)) {
+				if (_deletePreparedStatement == null) {
+					_deletePreparedStatement = _connection.prepareStatement("DELETE FROM " + _tableName
+							+ " WHERE set_value=?");
+				}
+				_deletePreparedStatement.setObject(1, o);
+				_deletePreparedStatement.executeUpdate();
+			}
+			_size.decrementAndGet();
 			return true;
 		} catch (SQLException e) {
 			throw new IllegalStateException(e);
 		} finally {
-			SqlDatabaseUtils.safeClose(null, st);
+			_lock.unlock();
 		}
 	}
 
 	@Override
 	public boolean contains(Object o) {
+		_lock.lock();
 		ResultSet rs = null;
-		PreparedStatement st = null;
 		try {
-			st = _connection.prepareStatement("SELECT COUNT(*) FROM " + _tableName + " WHERE set_value=?");
-			st.setObject(1, o);
-			rs = st.executeQuery();
+			if (_pendingInserts.contains(o)) {
+				return true;
+			}
+			if (_containsPreparedStatement == null) {
+				_containsPreparedStatement = _connection.prepareStatement("SELECT COUNT(*) FROM " + _tableName
+						+ " WHERE set_value=?");
+			}
+			_containsPreparedStatement.setObject(1, o);
+			rs = _containsPreparedStatement.executeQuery();
 			if (rs.next()) {
 				return rs.getInt(1) > 0;
 			}
@@ -94,12 +126,39 @@ final class SqlDatabaseSet<E> extends AbstractSet<E> implements Set<E>, SqlDatab
 		} catch (SQLException e) {
 			throw new IllegalStateException(e);
 		} finally {
-			SqlDatabaseUtils.safeClose(rs, st);
+			SqlDatabaseUtils.safeClose(rs, null);
+			_lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes all buffered elements to the database.
+	 */
+	public void flush() {
+		_lock.lock();
+		try {
+			if (!_pendingInserts.isEmpty()) {
+				if (_insertPreparedStatement == null) {
+					_insertPreparedStatement = _connection.prepareStatement("INSERT INTO " + _tableName + " VALUES(?)");
+				}
+				for (E elem : _pendingInserts) {
+					_insertPreparedStatement.setObject(1, elem);
+					_insertPreparedStatement.addBatch();
+				}
+				_insertPreparedStatement.executeBatch();
+				_pendingInserts.clear();
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			_lock.unlock();
 		}
 	}
 
 	@Override
 	public Iterator<E> iterator() {
+		flush();
+
 		PreparedStatement st = null;
 		ResultSet rs = null;
 		try {
@@ -114,7 +173,7 @@ final class SqlDatabaseSet<E> extends AbstractSet<E> implements Set<E>, SqlDatab
 
 	@Override
 	public int size() {
-		return _size;
+		return _size.get();
 	}
 
 	@Override
@@ -117,6 +117,38 @@ public class SqlDatabaseStorageProviderTest extends TestCase {
 		assertFalse(map.containsKey(2));
 	}
 
+	public void testMapBatchedWrites() throws Exception {
+		testMapBatchedWrites(h2sp);
+		testMapBatchedWrites(hsqlsp);
+	}
+
+	private void testMapBatchedWrites(StorageProvider sp) throws Exception {
+		Map<Integer, Integer> map = sp.createMap(Integer.class, Integer.class);
+
+		for (int i = 0; i < 1234; i++) {
+			assertNull(map.put(i, i));
+		}
+		for (int i = 0; i < 1234; i += 2) {
+			assertEquals(i, map.put(i, i * 10).intValue());
+		}
+		assertEquals(1234, map.size());
+
+		// removes both flushed and buffered entries
+		assertEquals(0, map.remove(0).intValue());
+		assertEquals(1233, map.remove(1233).intValue());
+		assertNull(map.remove(1233));
+		assertEquals(1232, map.size());
+
+		int count = 0;
+		for (Entry<Integer, Integer> entry : map.entrySet()) {
+			final int key = entry.getKey().intValue();
+			final int expectedValue = (key % 2 == 0 ? key * 10 : key);
+			assertEquals(expectedValue, entry.getValue().intValue());
+			count++;
+		}
+		assertEquals(1232, count);
+	}
+
 	public void testCreateSet() throws Exception {
 		testCreateSet(h2sp);
 		testCreateSet(hsqlsp);
@@ -35,16 +35,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.eobjects.analyzer.beans.api.RenderingFormat;
 import org.eobjects.analyzer.configuration.jaxb.AbstractDatastoreType;
 import org.eobjects.analyzer.configuration.jaxb.AccessDatastoreType;
+import org.eobjects.analyzer.configuration.jaxb.AdaptiveStorageProviderType;
 import org.eobjects.analyzer.configuration.jaxb.BerkeleyDbStorageProviderType;
 import org.eobjects.analyzer.configuration.jaxb.ClasspathScannerType;
 import org.eobjects.analyzer.configuration.jaxb.ClasspathScannerType.Package;
@@ -135,6 +133,7 @@ import org.eobjects.analyzer.reference.StringPattern;
 import org.eobjects.analyzer.reference.SynonymCatalog;
 import org.eobjects.analyzer.reference.TextFileDictionary;
 import org.eobjects.analyzer.reference.TextFileSynonymCatalog;
+import org.eobjects.analyzer.storage.AdaptiveStorageProvider;
 import org.eobjects.analyzer.storage.BerkeleyDbStorageProvider;
 import org.eobjects.analyzer.storage.CombinedStorageProvider;
 import org.eobjects.analyzer.storage.H2StorageProvider;
@@ -142,7 +141,7 @@ import org.eobjects.analyzer.storage.HsqldbStorageProvider;
 import org.eobjects.analyzer.storage.InMemoryStorageProvider;
 import org.eobjects.analyzer.storage.StorageProvider;
 import org.eobjects.analyzer.util.CollectionUtils2;
-import org.eobjects.analyzer.util.JaxbValidationEventHandler;
+import org.eobjects.analyzer.util.JaxbContextCache;
 import org.eobjects.analyzer.util.ReflectionUtils;
 import org.eobjects.analyzer.util.StringUtils;
 import org.eobjects.analyzer.util.convert.StringConverter;
@@ -168,7 +167,7 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
 
     private static final Logger logger = LoggerFactory.getLogger(JaxbConfigurationReader.class);
 
-    private final JAXBContext _jaxbContext;
+    private final JaxbContextCache _jaxbContextCache;
     private final ConfigurationReaderInterceptor _interceptor;
     private final Deque<String> _variablePathBuilder;
 
@@ -182,12 +181,7 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
         }
         _interceptor = configurationReaderCallback;
         _variablePathBuilder = new ArrayDeque<String>(4);
-        try {
-            _jaxbContext = JAXBContext.newInstance(ObjectFactory.class.getPackage().getName(),
-                    ObjectFactory.class.getClassLoader());
-        } catch (JAXBException e) {
-            throw new IllegalStateException(e);
-        }
+        _jaxbContextCache = JaxbContextCache.get(ObjectFactory.class);
     }
 
     @Override
@@ -233,10 +227,7 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
      */
     public Configuration unmarshall(InputStream inputStream) {
         try {
-            final Unmarshaller unmarshaller = _jaxbContext.createUnmarshaller();
-            unmarshaller.setEventHandler(new JaxbValidationEventHandler());
-
-            final Configuration configuration = (Configuration) unmarshaller.unmarshal(inputStream);
+            final Configuration configuration = (Configuration) _jaxbContextCache.unmarshal(inputStream);
             return configuration;
         } catch (JAXBException e) {
             throw new IllegalStateException(e);
@@ -252,10 +243,7 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
      */
     public void marshall(Configuration configuration, OutputStream outputStream) {
         try {
-            final Marshaller marshaller = _jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-            marshaller.setEventHandler(new JaxbValidationEventHandler());
-            marshaller.marshal(configuration, outputStream);
+            _jaxbContextCache.marshal(configuration, outputStream);
         } catch (JAXBException e) {
             throw new IllegalStateException(e);
         }
@@ -384,6 +372,15 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
             return new InMemoryStorageProvider(maxRowsThreshold);
         }
 
+        final AdaptiveStorageProviderType adaptiveStorageProvider = storageProviderType.getAdaptive();
+        if (adaptiveStorageProvider != null) {
+            final StorageProvider diskStorageProvider = createStorageProvider(
+                    adaptiveStorageProvider.getDiskStorage(), injectionManager);
+            final int maxElementsInMemory = adaptiveStorageProvider.getMaxElementsInMemory();
+            final double heapUsageThreshold = adaptiveStorageProvider.getHeapUsageThreshold();
+            return new AdaptiveStorageProvider(diskStorageProvider, maxElementsInMemory, heapUsageThreshold);
+        }
+
         final CustomElementType customStorageProvider = storageProviderType.getCustomStorageProvider();
         if (customStorageProvider != null) {
             return createCustomElement(customStorageProvider, StorageProvider.class, injectionManager, true);
@@ -392,7 +389,9 @@ public final class JaxbConfigurationReader implements ConfigurationReader<InputS
         final BerkeleyDbStorageProviderType berkeleyDbStorageProvider = storageProviderType.getBerkeleyDb();
         if (berkeleyDbStorageProvider != null) {
             final File parentDirectory = new File(_interceptor.getTemporaryStorageDirectory());
-            final BerkeleyDbStorageProvider storageProvider = new BerkeleyDbStorageProvider(parentDirectory);
+            final Long cacheSize = berkeleyDbStorageProvider.getCacheSize();
+            final BerkeleyDbStorageProvider storageProvider = new BerkeleyDbStorageProvider(parentDirectory,
+                    cacheSize == null ? 0 : cacheSize.longValue());
             final Boolean cleanDirectoryOnStartup = berkeleyDbStorageProvider.isCleanDirectoryOnStartup();
             if (cleanDirectoryOnStartup != null && cleanDirectoryOnStartup.booleanValue()) {
                 storageProvider.cleanDirectory();
@@ -36,9 +36,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.datatype.XMLGregorianCalendar;
 
 import org.apache.commons.vfs2.FileObject;
@@ -91,7 +89,7 @@ import org.eobjects.analyzer.job.jaxb.TransformerDescriptorType;
 import org.eobjects.analyzer.job.jaxb.TransformerType;
 import org.eobjects.analyzer.job.jaxb.VariableType;
 import org.eobjects.analyzer.job.jaxb.VariablesType;
-import org.eobjects.analyzer.util.JaxbValidationEventHandler;
+import org.eobjects.analyzer.util.JaxbContextCache;
 import org.eobjects.analyzer.util.StringUtils;
 import org.eobjects.analyzer.util.convert.StringConverter;
 import org.slf4j.Logger;
@@ -105,17 +103,12 @@ public class JaxbJobReader implements JobReader<InputStream> {
 
     private static final Logger logger = LoggerFactory.getLogger(JaxbJobReader.class);
 
-    private final JAXBContext _jaxbContext;
+    private final JaxbContextCache _jaxbContextCache;
     private final AnalyzerBeansConfiguration _configuration;
 
     public JaxbJobReader(AnalyzerBeansConfiguration configuration) {
         _configuration = configuration;
-        try {
-            _jaxbContext = JAXBContext.newInstance(ObjectFactory.class.getPackage().getName(),
-                    ObjectFactory.class.getClassLoader());
-        } catch (JAXBException e) {
-            throw new IllegalStateException(e);
-        }
+        _jaxbContextCache = JaxbContextCache.get(ObjectFactory.class);
     }
 
     /**
@@ -344,10 +337,7 @@ public class JaxbJobReader implements JobReader<InputStream> {
 
     private Job unmarshallJob(InputStream inputStream) {
         try {
-            Unmarshaller unmarshaller = _jaxbContext.createUnmarshaller();
-
-            unmarshaller.setEventHandler(new JaxbValidationEventHandler());
-            Job job = (Job) unmarshaller.unmarshal(inputStream);
+            Job job = (Job) _jaxbContextCache.unmarshal(inputStream);
             return job;
         } catch (JAXBException e) {
             throw new IllegalArgumentException(e);
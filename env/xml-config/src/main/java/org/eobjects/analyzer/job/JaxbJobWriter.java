@@ -29,9 +29,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 
 import org.eobjects.analyzer.configuration.AnalyzerBeansConfiguration;
 import org.eobjects.analyzer.connection.Datastore;
@@ -59,7 +57,7 @@ import org.eobjects.analyzer.job.jaxb.SourceType;
 import org.eobjects.analyzer.job.jaxb.TransformationType;
 import org.eobjects.analyzer.job.jaxb.TransformerDescriptorType;
 import org.eobjects.analyzer.job.jaxb.TransformerType;
-import org.eobjects.analyzer.util.JaxbValidationEventHandler;
+import org.eobjects.analyzer.util.JaxbContextCache;
 import org.eobjects.analyzer.util.convert.StringConverter;
 import org.apache.metamodel.schema.Column;
 import org.slf4j.Logger;
@@ -70,18 +68,13 @@ public class JaxbJobWriter implements JobWriter<OutputStream> {
     private static final Logger logger = LoggerFactory.getLogger(JaxbJobWriter.class);
 
     private final AnalyzerBeansConfiguration _configuration;
-    private final JAXBContext _jaxbContext;
+    private final JaxbContextCache _jaxbContextCache;
     private final JaxbJobMetadataFactory _jobMetadataFactory;
 
     public JaxbJobWriter(AnalyzerBeansConfiguration configuration, JaxbJobMetadataFactory jobMetadataFactory) {
         _configuration = configuration;
         _jobMetadataFactory = jobMetadataFactory;
-        try {
-            _jaxbContext = JAXBContext.newInstance(ObjectFactory.class.getPackage().getName(),
-                    ObjectFactory.class.getClassLoader());
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
-        }
+        _jaxbContextCache = JaxbContextCache.get(ObjectFactory.class);
     }
 
     public JaxbJobWriter(AnalyzerBeansConfiguration configuration) {
@@ -151,10 +144,7 @@ public class JaxbJobWriter implements JobWriter<OutputStream> {
         addConfiguration(analysisJob, transformerMappings, filterMappings, analyzerMappings, columnMappings);
 
         try {
-            final Marshaller marshaller = _jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-            marshaller.setEventHandler(new JaxbValidationEventHandler());
-            marshaller.marshal(jobType, outputStream);
+            _jaxbContextCache.marshal(jobType, outputStream);
         } catch (JAXBException e) {
             throw new IllegalStateException(e);
         }
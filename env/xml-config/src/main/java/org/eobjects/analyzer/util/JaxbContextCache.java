@@ -0,0 +1,151 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.util;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Process-wide cache of {@link JAXBContext}s, one per generated JAXB
+ * ObjectFactory class. Building a JAXB context involves reflecting over the
+ * whole generated model, which is far too expensive to do every time a job or
+ * configuration is read or written (eg. once per slave job in a cluster).
+ * 
+ * Unmarshallers and marshallers are not thread-safe, but they can be reused, so
+ * a small number of them are pooled per context. Unmarshalling is done through
+ * StAX readers created by a shared {@link XMLInputFactory}, which avoids looking
+ * up and instantiating a new SAX parser for every document.
+ */
+public final class JaxbContextCache {
+
+    private static final int MAX_POOLED = 8;
+
+    private static final ClassValue<JaxbContextCache> INSTANCES = new ClassValue<JaxbContextCache>() {
+        @Override
+        protected JaxbContextCache computeValue(Class<?> objectFactoryClass) {
+            return new JaxbContextCache(objectFactoryClass);
+        }
+    };
+
+    /**
+     * Gets the cached JAXB context for a generated ObjectFactory class (and
+     * thereby the package it resides in).
+     * 
+     * @param objectFactoryClass
+     * @return
+     */
+    public static JaxbContextCache get(Class<?> objectFactoryClass) {
+        return INSTANCES.get(objectFactoryClass);
+    }
+
+    private final JAXBContext _jaxbContext;
+    private final XMLInputFactory _xmlInputFactory;
+    private final Queue<Unmarshaller> _unmarshallers;
+    private final Queue<Marshaller> _marshallers;
+
+    private JaxbContextCache(Class<?> objectFactoryClass) {
+        try {
+            _jaxbContext = JAXBContext.newInstance(objectFactoryClass.getPackage().getName(),
+                    objectFactoryClass.getClassLoader());
+        } catch (JAXBException e) {
+            throw new IllegalStateException(e);
+        }
+        _xmlInputFactory = XMLInputFactory.newInstance();
+        _unmarshallers = new ConcurrentLinkedQueue<Unmarshaller>();
+        _marshallers = new ConcurrentLinkedQueue<Marshaller>();
+    }
+
+    public JAXBContext getJaxbContext() {
+        return _jaxbContext;
+    }
+
+    /**
+     * Unmarshals a document from an input stream, using a pooled unmarshaller.
+     * The stream is not closed by this method.
+     * 
+     * @param inputStream
+     * @return
+     * @throws JAXBException
+     */
+    public Object unmarshal(InputStream inputStream) throws JAXBException {
+        final XMLStreamReader reader;
+        try {
+            reader = _xmlInputFactory.createXMLStreamReader(inputStream);
+        } catch (XMLStreamException e) {
+            throw new JAXBException(e);
+        }
+
+        Unmarshaller unmarshaller = _unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = _jaxbContext.createUnmarshaller();
+            unmarshaller.setEventHandler(new JaxbValidationEventHandler());
+        }
+
+        try {
+            return unmarshaller.unmarshal(reader);
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // ignore
+            }
+            release(_unmarshallers, unmarshaller);
+        }
+    }
+
+    /**
+     * Marshals an object into a formatted document, using a pooled marshaller.
+     * 
+     * @param object
+     * @param outputStream
+     * @throws JAXBException
+     */
+    public void marshal(Object object, OutputStream outputStream) throws JAXBException {
+        Marshaller marshaller = _marshallers.poll();
+        if (marshaller == null) {
+            marshaller = _jaxbContext.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            marshaller.setEventHandler(new JaxbValidationEventHandler());
+        }
+
+        try {
+            marshaller.marshal(object, outputStream);
+        } finally {
+            release(_marshallers, marshaller);
+        }
+    }
+
+    private static <E> void release(Queue<E> pool, E item) {
+        // the queues are tiny, so size() being linear is not an issue
+        if (pool.size() < MAX_POOLED) {
+            pool.offer(item);
+        }
+    }
+}
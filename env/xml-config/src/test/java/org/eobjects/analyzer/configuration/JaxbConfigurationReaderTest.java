@@ -64,6 +64,7 @@ import org.eobjects.analyzer.reference.StringPattern;
 import org.eobjects.analyzer.reference.SynonymCatalog;
 import org.eobjects.analyzer.result.renderer.HtmlRenderingFormat;
 import org.eobjects.analyzer.result.renderer.TextRenderingFormat;
+import org.eobjects.analyzer.storage.AdaptiveStorageProvider;
 import org.eobjects.analyzer.storage.BerkeleyDbStorageProvider;
 import org.eobjects.analyzer.storage.CombinedStorageProvider;
 import org.eobjects.analyzer.storage.HsqldbStorageProvider;
@@ -205,6 +206,19 @@ public class JaxbConfigurationReaderTest extends TestCase {
         assertEquals(HsqldbStorageProvider.class, csp.getRowAnnotationsStorageProvider().getClass());
     }
 
+    public void testAdaptiveStorage() throws Exception {
+        AnalyzerBeansConfiguration configuration = reader.create(new File(
+                "src/test/resources/example-configuration-adaptive-storage.xml"));
+        StorageProvider storageProvider = configuration.getStorageProvider();
+
+        assertEquals(AdaptiveStorageProvider.class, storageProvider.getClass());
+
+        AdaptiveStorageProvider asp = (AdaptiveStorageProvider) storageProvider;
+        assertEquals(BerkeleyDbStorageProvider.class, asp.getDiskStorageProvider().getClass());
+        assertEquals(5000, asp.getMaxElementsInMemory());
+        assertEquals(0.6, asp.getHeapUsageThreshold(), 0.0001);
+    }
+
     public void testAllDatastoreTypes() throws Exception {
         DatastoreCatalog datastoreCatalog = getDataStoreCatalog(getConfiguration());
         String[] datastoreNames = datastoreCatalog.getDatastoreNames();
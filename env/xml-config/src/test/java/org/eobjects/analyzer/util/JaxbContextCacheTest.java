@@ -0,0 +1,70 @@
+/**
+ * eobjects.org AnalyzerBeans
+ * Copyright (C) 2010 eobjects.org
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.eobjects.analyzer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.metamodel.util.FileHelper;
+import org.eobjects.analyzer.job.jaxb.Job;
+import org.eobjects.analyzer.job.jaxb.ObjectFactory;
+
+public class JaxbContextCacheTest extends TestCase {
+
+    public void testSameInstanceForSameObjectFactory() throws Exception {
+        JaxbContextCache cache = JaxbContextCache.get(ObjectFactory.class);
+        assertSame(cache, JaxbContextCache.get(ObjectFactory.class));
+        assertSame(cache.getJaxbContext(), JaxbContextCache.get(ObjectFactory.class).getJaxbContext());
+
+        assertNotSame(cache,
+                JaxbContextCache.get(org.eobjects.analyzer.configuration.jaxb.ObjectFactory.class));
+    }
+
+    public void testUnmarshalAndMarshalRepeatedly() throws Exception {
+        final JaxbContextCache cache = JaxbContextCache.get(ObjectFactory.class);
+
+        final InputStream in = new FileInputStream("src/test/resources/example-job-metadata.xml");
+        final Job job;
+        try {
+            job = (Job) cache.unmarshal(in);
+        } finally {
+            FileHelper.safeClose(in);
+        }
+        assertEquals("Job metadata", job.getJobMetadata().getJobName());
+
+        String previousXml = null;
+        for (int i = 0; i < 3; i++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            cache.marshal(job, out);
+            final String xml = new String(out.toByteArray(), "UTF-8");
+            if (previousXml != null) {
+                assertEquals(previousXml, xml);
+            }
+            previousXml = xml;
+
+            final Job reread = (Job) cache.unmarshal(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(job.getJobMetadata().getJobName(), reread.getJobMetadata().getJobName());
+        }
+    }
+}
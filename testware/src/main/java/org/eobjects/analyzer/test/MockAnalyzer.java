@@ -30,6 +30,7 @@ import org.eobjects.analyzer.beans.api.Concurrent;
 import org.eobjects.analyzer.beans.api.Configured;
 import org.eobjects.analyzer.data.InputColumn;
 import org.eobjects.analyzer.data.InputRow;
+import org.eobjects.analyzer.data.RecyclableInputRow;
 import org.eobjects.analyzer.result.ListResult;
 
 @AnalyzerBean("Mock analyzer")
@@ -43,6 +44,9 @@ public class MockAnalyzer implements Analyzer<ListResult<InputRow>> {
 
     @Override
     public void run(InputRow row, int distinctCount) {
+        if (row instanceof RecyclableInputRow) {
+            row = ((RecyclableInputRow) row).retain();
+        }
         rows.add(row);
     }
 